@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link Graph} whose operations do not block the caller.
+ * <p>
+ * Each method starts its operation and returns at once, with a
+ * {@link CompletableFuture} that is completed with the result, or
+ * exceptionally with the failure of the operation. Triples matching a
+ * pattern are delivered by a {@link TriplePublisher}, as fast as its
+ * subscriber requests them.
+ * <p>
+ * Operations started by the same thread are not necessarily performed in
+ * the order they were started; a caller that needs an operation to see the
+ * effect of an earlier one should wait for the future of the earlier one to
+ * complete, for example with {@link CompletableFuture#thenCompose}.
+ */
+public interface AsyncGraph extends AutoCloseable {
+
+    /**
+     * Add a triple to the graph, possibly mapping any of the components of
+     * the Triple to those supported by this Graph.
+     *
+     * @param triple The triple to add
+     * @return A future completed once the triple is added
+     */
+    CompletableFuture<Void> add(Triple triple);
+
+    /**
+     * Add a triple to the graph, possibly mapping any of the components to
+     * those supported by this Graph.
+     *
+     * @param subject   The triple subject
+     * @param predicate The triple predicate
+     * @param object    The triple object
+     * @return A future completed once the triple is added
+     */
+    CompletableFuture<Void> add(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object);
+
+    /**
+     * Check if the graph contains a triple.
+     *
+     * @param triple The triple to check
+     * @return A future of <code>true</code> if the graph contains the triple
+     */
+    CompletableFuture<Boolean> contains(Triple triple);
+
+    /**
+     * Check if the graph contains a pattern of triples.
+     *
+     * @param subject   The triple subject (null is a wildcard)
+     * @param predicate The triple predicate (null is a wildcard)
+     * @param object    The triple object (null is a wildcard)
+     * @return A future of <code>true</code> if the graph contains any triples
+     *         that match the given pattern
+     */
+    CompletableFuture<Boolean> contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object);
+
+    /**
+     * Remove a triple from the graph.
+     *
+     * @param triple The triple to remove
+     * @return A future completed once the triple is removed
+     */
+    CompletableFuture<Void> remove(Triple triple);
+
+    /**
+     * Remove all triples matching a pattern from the graph.
+     *
+     * @param subject   The triple subject (null is a wildcard)
+     * @param predicate The triple predicate (null is a wildcard)
+     * @param object    The triple object (null is a wildcard)
+     * @return A future completed once the triples are removed
+     */
+    CompletableFuture<Void> remove(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object);
+
+    /**
+     * Remove all triples from the graph.
+     *
+     * @return A future completed once the graph is empty
+     */
+    CompletableFuture<Void> clear();
+
+    /**
+     * Count the triples in the graph.
+     *
+     * @return A future of the number of triples in the graph
+     * @see Graph#size()
+     */
+    CompletableFuture<Long> size();
+
+    /**
+     * Count the triples matching a pattern.
+     *
+     * @param subject   The triple subject (null is a wildcard)
+     * @param predicate The triple predicate (null is a wildcard)
+     * @param object    The triple object (null is a wildcard)
+     * @return A future of the number of matching triples
+     */
+    CompletableFuture<Long> count(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object);
+
+    /**
+     * Publish all triples of the graph.
+     *
+     * @return A publisher of the triples
+     * @see #getTriples(BlankNodeOrIRI, IRI, RDFTerm)
+     */
+    default TriplePublisher getTriples() {
+        return getTriples(null, null, null);
+    }
+
+    /**
+     * Publish the triples matching a pattern.
+     * <p>
+     * The pattern is matched again for each subscriber, when it first
+     * requests triples, and a failure to match is signalled to the
+     * subscriber with {@link TriplePublisher.Subscriber#onError(Throwable)}.
+     *
+     * @param subject   The triple subject (null is a wildcard)
+     * @param predicate The triple predicate (null is a wildcard)
+     * @param object    The triple object (null is a wildcard)
+     * @return A publisher of the matching triples
+     */
+    TriplePublisher getTriples(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object);
+
+    /**
+     * Close the graph and its underlying resources, if any.
+     *
+     * @see Graph#close()
+     */
+    @Override
+    default void close() throws Exception {
+    }
+
+}
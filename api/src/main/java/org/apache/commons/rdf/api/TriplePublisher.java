@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.api;
+
+/**
+ * A source of {@link Triple}s that are pushed to a {@link Subscriber} only as
+ * fast as the subscriber asks for them.
+ * <p>
+ * The interfaces and their contract follow the <a
+ * href="http://www.reactive-streams.org/">Reactive Streams</a> specification,
+ * with the same method names as <code>java.util.concurrent.Flow</code>, so a
+ * publisher is straightforward to adapt to <code>Flow.Publisher</code> or to
+ * other reactive libraries. In short:
+ * <ul>
+ * <li>{@link Subscriber#onSubscribe(Subscription)} is called first, and
+ * exactly once.</li>
+ * <li>{@link Subscriber#onNext(Triple)} is called at most as many times as
+ * the total requested by {@link Subscription#request(long)}.</li>
+ * <li>The sequence ends with exactly one call of
+ * {@link Subscriber#onComplete()} or {@link Subscriber#onError(Throwable)},
+ * unless the subscription is cancelled.</li>
+ * <li>Calls to the subscriber never overlap.</li>
+ * </ul>
+ */
+public interface TriplePublisher {
+
+    /**
+     * Subscribe to the triples of this publisher.
+     * <p>
+     * A publisher that supports only one subscriber signals
+     * {@link Subscriber#onError(Throwable)} to any later subscriber.
+     *
+     * @param subscriber The subscriber
+     * @throws NullPointerException If the subscriber is <code>null</code>
+     */
+    void subscribe(Subscriber subscriber);
+
+    /**
+     * Receiver of the triples of a {@link TriplePublisher}.
+     */
+    interface Subscriber {
+
+        /**
+         * Called before any other method, with the subscription to request
+         * triples from or to cancel.
+         *
+         * @param subscription The subscription
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next triple, in response to demand signalled by
+         * {@link Subscription#request(long)}.
+         *
+         * @param triple The triple
+         */
+        void onNext(Triple triple);
+
+        /**
+         * Called when the publisher failed. No other method is called
+         * afterwards.
+         *
+         * @param error The failure
+         */
+        void onError(Throwable error);
+
+        /**
+         * Called when all triples have been published. No other method is
+         * called afterwards.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between a {@link TriplePublisher} and one of its
+     * {@link Subscriber}s.
+     */
+    interface Subscription {
+
+        /**
+         * Add to the number of triples the subscriber is ready to receive.
+         * <p>
+         * Demand accumulates, up to {@link Long#MAX_VALUE}, which means no
+         * limit. A non-positive <code>n</code> cancels the subscription with
+         * an {@link IllegalArgumentException} passed to
+         * {@link Subscriber#onError(Throwable)}.
+         *
+         * @param n The number of additional triples to receive
+         */
+        void request(long n);
+
+        /**
+         * Stop sending triples and release the resources of the
+         * subscription. Triples already in flight may still be received.
+         */
+        void cancel();
+    }
+
+}
@@ -41,6 +41,12 @@
  * {@link org.apache.commons.rdf.api.RDFSyntax} enumerates the 
  * W3C standard RDF 1.1 syntaxes and their media types.
  * <p>
+ * A {@link org.apache.commons.rdf.api.TriplePublisher} delivers triples
+ * asynchronously, as fast as its subscriber requests them, and an
+ * {@link org.apache.commons.rdf.api.AsyncGraph} is a graph whose operations
+ * return {@link java.util.concurrent.CompletableFuture}s instead of
+ * blocking.
+ * <p>
  * For further documentation and contact details, see the
  * <a href="http://commonsrdf.incubator.apache.org/">Commons RDF</a>
  * web site.
@@ -0,0 +1,544 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Standard performance workloads for any {@link RDFTermFactory} and its
+ * {@link Graph}.
+ * <p>
+ * Like {@link AbstractGraphTest} does for correctness, this kit lets
+ * implementations be compared on the same workloads and the same hardware.
+ * It only uses the {@link RDFTermFactory} methods to create IRIs, literals,
+ * triples and graphs, and the {@link Graph} methods. Each {@link Workload}
+ * is run once to warm up, and then timed for a number of rounds, of which
+ * the median is reported. The graph a workload works on is prepared before
+ * the timer starts.
+ * <p>
+ * The data is the same for every implementation: triples of
+ * <code>graphSize / 10</code> subjects and 10 predicates, with IRI, plain,
+ * typed and language tagged literal objects. Each {@link Result} has a count
+ * of the triples found, which must be the same for all implementations
+ * given the same sizes.
+ * <p>
+ * Factories are discovered with {@link ServiceLoader}, as in
+ * {@link #discoverFactories()}, or can be given to {@link #run(RDFTermFactory)}.
+ * The kit can also be run from the command line, with the factories of the
+ * class path:
+ *
+ * <pre>
+ * java -cp ... org.apache.commons.rdf.api.PerformanceKit [graphSize [threads]]
+ * </pre>
+ */
+public final class PerformanceKit {
+
+    /**
+     * The workloads of the kit.
+     */
+    public enum Workload {
+        /** Add all triples to a new graph, one operation per triple */
+        BULK_LOAD,
+        /** {@link Graph#contains(Triple)} of present and absent triples */
+        POINT_LOOKUPS,
+        /**
+         * {@link Graph#getTriples(BlankNodeOrIRI, IRI, RDFTerm)} by subject,
+         * subject and predicate, object and predicate patterns
+         */
+        PATTERN_SCANS,
+        /** Lookups with one add or remove in every ten operations */
+        MIXED_READ_WRITE,
+        /** Lookups and subject scans by several threads on one graph */
+        CONCURRENT_READERS
+    }
+
+    private static final String BASE = "http://example.com/performance/";
+
+    private static final int PREDICATES = 10;
+
+    /** Operations per pattern scan, as a scan may visit many triples */
+    private static final int OPERATIONS_PER_SCAN = 100;
+
+    private final int graphSize;
+    private final int operations;
+    private final int threads;
+    private final int rounds;
+
+    /**
+     * Create a kit for graphs of 100000 triples, with as many reader
+     * threads as processors.
+     */
+    public PerformanceKit() {
+        this(100000, 100000, Runtime.getRuntime().availableProcessors(), 3);
+    }
+
+    /**
+     * Create a kit.
+     *
+     * @param graphSize  Number of triples of the graphs
+     * @param operations Number of operations of each timed round
+     * @param threads    Number of threads of {@link Workload#CONCURRENT_READERS}
+     * @param rounds     Number of timed rounds of each workload
+     */
+    public PerformanceKit(int graphSize, int operations, int threads,
+            int rounds) {
+        if (graphSize < PREDICATES || operations < OPERATIONS_PER_SCAN
+                || threads < 1 || rounds < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid sizes: " + graphSize + ", " + operations + ", "
+                            + threads + ", " + rounds);
+        }
+        this.graphSize = graphSize;
+        this.operations = operations;
+        this.threads = threads;
+        this.rounds = rounds;
+    }
+
+    /**
+     * @return The factories registered for {@link ServiceLoader} on the
+     *         class path
+     */
+    public static List<RDFTermFactory> discoverFactories() {
+        List<RDFTermFactory> factories = new ArrayList<>();
+        for (RDFTermFactory factory : ServiceLoader.load(RDFTermFactory.class)) {
+            factories.add(factory);
+        }
+        return factories;
+    }
+
+    /**
+     * Run all workloads with each discovered factory.
+     *
+     * @return A report per factory
+     */
+    public List<Report> run() {
+        List<Report> reports = new ArrayList<>();
+        for (RDFTermFactory factory : discoverFactories()) {
+            reports.add(run(factory));
+        }
+        return reports;
+    }
+
+    /**
+     * Run all workloads with a factory.
+     *
+     * @param factory Factory of the implementation to measure
+     * @return The report of the factory
+     * @throws IllegalStateException If the implementation did not find the
+     *                               same triples in every round
+     */
+    public Report run(RDFTermFactory factory) {
+        Data data = new Data(factory);
+        Map<Workload, Result> results = new EnumMap<>(Workload.class);
+        for (Workload workload : Workload.values()) {
+            results.put(workload, measure(workload, data));
+        }
+        return new Report(factory.getClass().getName(), graphSize, threads,
+                results);
+    }
+
+    private Result measure(Workload workload, Data data) {
+        long[] elapsed = new long[rounds];
+        long resultCount = -1;
+        for (int round = -1; round < rounds; round++) {
+            Graph graph = prepare(workload, data);
+            long start = System.nanoTime();
+            long count = execute(workload, data, graph);
+            long nanos = System.nanoTime() - start;
+            if (round < 0) {
+                resultCount = count;
+                continue;
+            }
+            if (count != resultCount) {
+                throw new IllegalStateException(workload + " found " + count
+                        + " triples, expected " + resultCount);
+            }
+            elapsed[round] = nanos;
+        }
+        Arrays.sort(elapsed);
+        long ops = workload == Workload.BULK_LOAD ? graphSize : operations;
+        return new Result(workload, ops, elapsed[rounds / 2], resultCount);
+    }
+
+    private Graph prepare(Workload workload, Data data) {
+        switch (workload) {
+        case BULK_LOAD:
+            return null;
+        case MIXED_READ_WRITE:
+            return data.load();
+        default:
+            return data.shared();
+        }
+    }
+
+    private long execute(Workload workload, Data data, Graph graph) {
+        switch (workload) {
+        case BULK_LOAD:
+            return data.load().size();
+        case POINT_LOOKUPS:
+            return lookups(data, graph, 0, operations);
+        case PATTERN_SCANS:
+            return scans(data, graph, 0, operations / OPERATIONS_PER_SCAN);
+        case MIXED_READ_WRITE:
+            return mixed(data, graph);
+        case CONCURRENT_READERS:
+            return concurrentReads(data, graph);
+        default:
+            throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+    }
+
+    private static long lookups(Data data, Graph graph, int from, int count) {
+        long hits = 0;
+        for (int i = from; i < from + count; i++) {
+            if (graph.contains(data.lookup(i))) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static long scans(Data data, Graph graph, int from, int count) {
+        long found = 0;
+        for (int i = from; i < from + count; i++) {
+            Triple triple = data.lookup(i);
+            switch (i % 4) {
+            case 0:
+                found += graph.getTriples(triple.getSubject(), null, null)
+                        .count();
+                break;
+            case 1:
+                found += graph.getTriples(triple.getSubject(),
+                        triple.getPredicate(), null).count();
+                break;
+            case 2:
+                found += graph.getTriples(null, null, triple.getObject())
+                        .count();
+                break;
+            default:
+                found += graph.getTriples(null, triple.getPredicate(),
+                        triple.getObject()).count();
+            }
+        }
+        return found;
+    }
+
+    private long mixed(Data data, Graph graph) {
+        long hits = 0;
+        for (int i = 0; i < operations; i++) {
+            Triple triple = data.lookup(i);
+            if (i % 10 != 0) {
+                if (graph.contains(triple)) {
+                    hits++;
+                }
+            } else if (i % 20 == 0) {
+                graph.add(triple);
+            } else {
+                graph.remove(triple);
+            }
+        }
+        return hits + graph.size();
+    }
+
+    private long concurrentReads(Data data, Graph graph) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            int perThread = operations / threads;
+            List<Future<Long>> readers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int from = t * perThread;
+                Callable<Long> reader = () -> {
+                    start.await();
+                    // One subject scan per OPERATIONS_PER_SCAN operations
+                    int scans = perThread / OPERATIONS_PER_SCAN;
+                    return lookups(data, graph, from, perThread - scans)
+                            + scans(data, graph, from, scans);
+                };
+                readers.add(executor.submit(reader));
+            }
+            start.countDown();
+            long found = 0;
+            for (Future<Long> reader : readers) {
+                found += reader.get();
+            }
+            return found;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Reader failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The triples of the workloads, created before any timing.
+     */
+    private final class Data {
+
+        private final RDFTermFactory factory;
+        private final Triple[] triples;
+        private final Triple[] lookups;
+        private Graph shared;
+
+        Data(RDFTermFactory factory) {
+            this.factory = factory;
+            IRI[] subjects = new IRI[graphSize / PREDICATES];
+            for (int i = 0; i < subjects.length; i++) {
+                subjects[i] = factory.createIRI(BASE + "resource/" + i);
+            }
+            IRI[] predicates = new IRI[PREDICATES];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = factory.createIRI(BASE + "vocabulary#p" + i);
+            }
+            IRI integer = factory.createIRI(
+                    "http://www.w3.org/2001/XMLSchema#integer");
+            // Absent triples are those past graphSize
+            Triple[] all = new Triple[graphSize * 2];
+            for (int i = 0; i < all.length; i++) {
+                RDFTerm object;
+                switch (i % 4) {
+                case 0:
+                    object = factory.createIRI(BASE + "resource/o" + i);
+                    break;
+                case 1:
+                    object = factory.createLiteral("value " + i);
+                    break;
+                case 2:
+                    object = factory.createLiteral(Integer.toString(i), integer);
+                    break;
+                default:
+                    object = factory.createLiteral("valeur " + i, "fr");
+                }
+                all[i] = factory.createTriple(subjects[i % subjects.length],
+                        predicates[(i / subjects.length) % PREDICATES], object);
+            }
+            triples = Arrays.copyOf(all, graphSize);
+            // Half present and half absent, in a fixed random order
+            List<Triple> shuffled = new ArrayList<>(Arrays.asList(all));
+            Collections.shuffle(shuffled, new Random(42));
+            lookups = shuffled.toArray(new Triple[0]);
+        }
+
+        Triple lookup(int i) {
+            return lookups[i % lookups.length];
+        }
+
+        Graph load() {
+            Graph graph = factory.createGraph();
+            for (Triple triple : triples) {
+                graph.add(triple);
+            }
+            return graph;
+        }
+
+        Graph shared() {
+            if (shared == null) {
+                shared = load();
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * The outcome of a workload.
+     */
+    public static final class Result {
+
+        private final Workload workload;
+        private final long operations;
+        private final long elapsedNanos;
+        private final long resultCount;
+
+        Result(Workload workload, long operations, long elapsedNanos,
+                long resultCount) {
+            this.workload = workload;
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.resultCount = resultCount;
+        }
+
+        /**
+         * @return The workload
+         */
+        public Workload getWorkload() {
+            return workload;
+        }
+
+        /**
+         * @return The number of operations of a round
+         */
+        public long getOperations() {
+            return operations;
+        }
+
+        /**
+         * @return The median time of a round, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The number of operations per second
+         */
+        public double getOperationsPerSecond() {
+            return elapsedNanos == 0 ? 0 : operations * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return The number of triples found in a round, which is the same
+         *         for all correct implementations
+         */
+        public long getResultCount() {
+            return resultCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %14.0f ops/s %12d results", workload,
+                    getOperationsPerSecond(), resultCount);
+        }
+    }
+
+    /**
+     * The outcome of all workloads for one factory.
+     */
+    public static final class Report {
+
+        private final String factory;
+        private final int graphSize;
+        private final int threads;
+        private final Map<Workload, Result> results;
+
+        Report(String factory, int graphSize, int threads,
+                Map<Workload, Result> results) {
+            this.factory = factory;
+            this.graphSize = graphSize;
+            this.threads = threads;
+            this.results = Collections.unmodifiableMap(results);
+        }
+
+        /**
+         * @return The class name of the factory
+         */
+        public String getFactory() {
+            return factory;
+        }
+
+        /**
+         * @return The number of triples of the graphs
+         */
+        public int getGraphSize() {
+            return graphSize;
+        }
+
+        /**
+         * @return The number of concurrent reader threads
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return The result of each workload
+         */
+        public Map<Workload, Result> getResults() {
+            return results;
+        }
+
+        /**
+         * @param workload A workload
+         * @return The result of the workload
+         */
+        public Result getResult(Workload workload) {
+            return results.get(workload);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append(factory).append(": ").append(graphSize)
+                    .append(" triples, ").append(threads).append(" threads\n");
+            for (Result result : results.values()) {
+                s.append("  ").append(result).append('\n');
+            }
+            return s.toString();
+        }
+    }
+
+    /**
+     * Format reports side by side, as operations per second per workload.
+     * Workloads for which the reports found different triples, which
+     * indicates an incorrect implementation, are marked with <code>*</code>.
+     *
+     * @param reports Reports to compare
+     * @return A table with a column per report
+     */
+    public static String compare(List<Report> reports) {
+        StringBuilder s = new StringBuilder(String.format("%-20s", "workload"));
+        for (Report report : reports) {
+            String name = report.getFactory();
+            s.append(String.format(" %24s",
+                    name.substring(name.lastIndexOf('.') + 1)));
+        }
+        s.append('\n');
+        for (Workload workload : Workload.values()) {
+            s.append(String.format("%-20s", workload));
+            long count = -1;
+            boolean differs = false;
+            for (Report report : reports) {
+                Result result = report.getResult(workload);
+                s.append(String.format(" %24.0f",
+                        result.getOperationsPerSecond()));
+                differs |= count >= 0 && count != result.getResultCount();
+                count = result.getResultCount();
+            }
+            s.append(differs ? " *\n" : "\n");
+        }
+        return s.toString();
+    }
+
+    public static void main(String[] args) {
+        int graphSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        List<Report> reports = new PerformanceKit(graphSize, graphSize,
+                threads, 3).run();
+        for (Report report : reports) {
+            System.out.println(report);
+        }
+        System.out.println(compare(reports));
+    }
+
+}
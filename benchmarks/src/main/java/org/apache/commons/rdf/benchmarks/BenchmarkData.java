@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.util.Random;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.Types;
+
+/**
+ * Deterministic triples for the benchmarks.
+ * <p>
+ * Triple <code>i</code> has one of <code>size / 10</code> subjects, one of
+ * {@link #PREDICATES} predicates, and an IRI, plain, typed or language
+ * tagged literal as object, so that the same size always gives the same
+ * graph.
+ */
+final class BenchmarkData {
+
+    static final int PREDICATES = 20;
+
+    private static final String BASE = "http://example.com/";
+
+    private final IRI[] subjects;
+    private final IRI[] predicates;
+    private final Triple[] triples;
+
+    BenchmarkData(RDFTermFactory factory, int size) {
+        subjects = new IRI[Math.max(1, size / 10)];
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = factory.createIRI(BASE + "resource/" + i);
+        }
+        predicates = new IRI[PREDICATES];
+        for (int i = 0; i < predicates.length; i++) {
+            predicates[i] = factory.createIRI(BASE + "vocabulary#p" + i);
+        }
+        triples = new Triple[size];
+        for (int i = 0; i < size; i++) {
+            triples[i] = triple(factory, i);
+        }
+    }
+
+    /**
+     * Create triple <code>i</code>, which need not be one of
+     * {@link #triples()}.
+     */
+    Triple triple(RDFTermFactory factory, int i) {
+        BlankNodeOrIRI subject = subjects[i % subjects.length];
+        IRI predicate = predicates[(i / subjects.length) % predicates.length];
+        RDFTerm object;
+        switch (i % 4) {
+        case 0:
+            object = factory.createIRI(BASE + "resource/o" + i);
+            break;
+        case 1:
+            object = factory.createLiteral("value " + i);
+            break;
+        case 2:
+            object = factory.createLiteral(Integer.toString(i),
+                    Types.XSD_INTEGER);
+            break;
+        default:
+            object = factory.createLiteral("valeur " + i, "fr");
+        }
+        return factory.createTriple(subject, predicate, object);
+    }
+
+    Graph graph(RDFTermFactory factory) {
+        Graph graph = factory.createGraph();
+        for (Triple triple : triples) {
+            graph.add(triple);
+        }
+        return graph;
+    }
+
+    Triple[] triples() {
+        return triples;
+    }
+
+    IRI[] subjects() {
+        return subjects;
+    }
+
+    IRI[] predicates() {
+        return predicates;
+    }
+
+    /**
+     * @return A generator of indexes into the data, seeded per thread so
+     *         that threads do not access the same triples in lockstep
+     */
+    static Random random() {
+        return new Random(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.ReadMostlyGraph;
+import org.apache.commons.rdf.simple.ShardedGraph;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Graph#contains(Triple)} on the thread-safe graphs, shared by all
+ * threads, with one call in {@link #WRITE_EVERY} replaced by an add and
+ * remove of a triple that is not in the graph.
+ * <p>
+ * Run with several thread counts to see how reads scale.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentGraphBenchmark {
+
+    static final int WRITE_EVERY = 1000;
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "readMostly", "sharded" })
+    public String graphType;
+
+    BenchmarkData data;
+    Graph graph;
+
+    @Setup
+    public void setUp() {
+        SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+        data = new BenchmarkData(factory, size);
+        if (graphType.equals("readMostly")) {
+            graph = new ReadMostlyGraph(data.graph(factory));
+        } else {
+            graph = new ShardedGraph(factory, ShardedGraph.DEFAULT_SHARDS, size);
+            for (Triple triple : data.triples()) {
+                graph.add(triple);
+            }
+        }
+    }
+
+    /**
+     * Where each thread is in the data, and its triple to write.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        Random random;
+        Triple extra;
+        int calls;
+
+        @Setup
+        public void setUp(ConcurrentGraphBenchmark state) {
+            random = BenchmarkData.random();
+            extra = state.data.triple(new SimpleRDFTermFactory(),
+                    state.size + (int) Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public boolean readMostly(Cursor cursor) {
+        if (++cursor.calls % WRITE_EVERY == 0) {
+            graph.add(cursor.extra);
+            graph.remove(cursor.extra);
+            return false;
+        }
+        Triple[] triples = data.triples();
+        return graph.contains(triples[cursor.random.nextInt(triples.length)]);
+    }
+
+    @Benchmark
+    public boolean readOnly(Cursor cursor) {
+        Triple[] triples = data.triples();
+        return graph.contains(triples[cursor.random.nextInt(triples.length)]);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Graph#contains(Triple)} and {@link Graph#getTriples} by pattern on
+ * a graph of {@link BenchmarkData}, shared by all threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphReadBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    BenchmarkData data;
+    Graph graph;
+    Triple[] missing;
+
+    @Setup
+    public void setUp() {
+        RDFTermFactory factory = new SimpleRDFTermFactory();
+        data = new BenchmarkData(factory, size);
+        graph = data.graph(factory);
+        missing = new Triple[Math.min(size, 1024)];
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = data.triple(factory, size + i);
+        }
+    }
+
+    /**
+     * Where each thread is in the data.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        Random random;
+
+        @Setup
+        public void setUp() {
+            random = BenchmarkData.random();
+        }
+
+        Triple triple(GraphReadBenchmark state) {
+            Triple[] triples = state.data.triples();
+            return triples[random.nextInt(triples.length)];
+        }
+
+        IRI subject(GraphReadBenchmark state) {
+            IRI[] subjects = state.data.subjects();
+            return subjects[random.nextInt(subjects.length)];
+        }
+
+        IRI predicate(GraphReadBenchmark state) {
+            IRI[] predicates = state.data.predicates();
+            return predicates[random.nextInt(predicates.length)];
+        }
+    }
+
+    @Benchmark
+    public boolean contains(Cursor cursor) {
+        return graph.contains(cursor.triple(this));
+    }
+
+    @Benchmark
+    public boolean containsMissing(Cursor cursor) {
+        return graph.contains(missing[cursor.random.nextInt(missing.length)]);
+    }
+
+    @Benchmark
+    public boolean containsSubjectPattern(Cursor cursor) {
+        return graph.contains(cursor.subject(this), null, null);
+    }
+
+    @Benchmark
+    public long getTriplesBySubject(Cursor cursor) {
+        return graph.getTriples(cursor.subject(this), null, null).count();
+    }
+
+    @Benchmark
+    public long getTriplesBySubjectPredicate(Cursor cursor) {
+        return graph.getTriples(cursor.subject(this), cursor.predicate(this),
+                null).count();
+    }
+
+    @Benchmark
+    public long getTriplesByObject(Cursor cursor) {
+        return graph.getTriples(null, null, cursor.triple(this).getObject())
+                .count();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long getTriplesByPredicate(Cursor cursor) {
+        return graph.getTriples(null, cursor.predicate(this), null).count();
+    }
+
+}
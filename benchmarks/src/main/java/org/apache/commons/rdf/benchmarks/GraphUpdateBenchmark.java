@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Graph#add(Triple)} and {@link Graph#remove(Triple)} of triples
+ * that are not and that are in a graph of {@link BenchmarkData}.
+ * <p>
+ * As a graph changes with every call, these are measured in batches of
+ * {@link #BATCH} calls on a fresh graph, and each thread has a graph of its
+ * own, since graphs need not be thread-safe. Results are the time of a
+ * whole batch.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = GraphUpdateBenchmark.BATCH)
+@Measurement(iterations = 20, batchSize = GraphUpdateBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphUpdateBenchmark {
+
+    static final int BATCH = 10000;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    private RDFTermFactory factory;
+    private BenchmarkData data;
+    private Triple[] extra;
+
+    private Graph graph;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        data = new BenchmarkData(factory, size);
+        extra = new Triple[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            extra[i] = data.triple(factory, size + i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void fill() {
+        graph = data.graph(factory);
+        for (Triple triple : extra) {
+            graph.add(triple);
+        }
+        next = 0;
+    }
+
+    /**
+     * Add a triple that is not in the graph, as the extra triples are
+     * removed first by {@link Adds}.
+     */
+    @Benchmark
+    public void add(Adds adds) {
+        graph.add(extra[next++]);
+    }
+
+    @Benchmark
+    public void remove() {
+        graph.remove(extra[next++]);
+    }
+
+    /**
+     * Takes the extra triples out of the graph before the batch of
+     * {@link GraphUpdateBenchmark#add(Adds)}.
+     */
+    @State(Scope.Thread)
+    public static class Adds {
+
+        @Setup(Level.Iteration)
+        public void fillForAdd(GraphUpdateBenchmark state) {
+            for (Triple triple : state.extra) {
+                state.graph.remove(triple);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.NTriplesWriter;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * N-Triples output of a whole graph of {@link BenchmarkData}, as strings
+ * with {@link Triple#toString()} and as bytes with {@link NTriplesWriter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NTriplesOutputBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Graph graph;
+
+    @Setup
+    public void setUp() {
+        RDFTermFactory factory = new SimpleRDFTermFactory();
+        graph = new BenchmarkData(factory, size).graph(factory);
+    }
+
+    /**
+     * Channel counting and discarding what is written.
+     */
+    private static final class NullChannel implements WritableByteChannel {
+
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Benchmark
+    public long tripleToString() {
+        long length = 0;
+        Iterator<? extends Triple> it = graph.getTriples().iterator();
+        while (it.hasNext()) {
+            length += it.next().toString().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long termNTriplesString() {
+        long length = 0;
+        Iterator<? extends Triple> it = graph.getTriples().iterator();
+        while (it.hasNext()) {
+            Triple triple = it.next();
+            length += triple.getSubject().ntriplesString().length();
+            length += triple.getPredicate().ntriplesString().length();
+            length += triple.getObject().ntriplesString().length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long writer() throws IOException {
+        NullChannel channel = new NullChannel();
+        try (NTriplesWriter writer = new NTriplesWriter(channel)) {
+            writer.write(graph);
+        }
+        return channel.bytes;
+    }
+
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.GraphServer;
+import org.apache.commons.rdf.simple.ReadMostlyGraph;
+import org.apache.commons.rdf.simple.RemoteGraph;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same graph of {@link BenchmarkData}, accessed in process and through
+ * a {@link RemoteGraph} connected to a {@link GraphServer} on the loopback
+ * interface, shared by all threads.
+ * <p>
+ * Point operations measure the latency of a round trip, while
+ * {@link #addAndRemove(Cursor)} and the scans measure the throughput of
+ * batched changes and chunked results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RemoteGraphBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "local", "remote" })
+    public String access;
+
+    BenchmarkData data;
+    GraphServer server;
+    Graph graph;
+
+    @Setup
+    public void setUp() throws IOException {
+        SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+        data = new BenchmarkData(factory, size);
+        Graph served = new ReadMostlyGraph(data.graph(factory));
+        if (access.equals("remote")) {
+            server = new GraphServer(served, new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), 0));
+            graph = RemoteGraph.connect(server.getAddress());
+        } else {
+            graph = served;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        graph.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Where each thread is in the data, and its triples to add.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        Random random;
+        Triple[] extra;
+
+        @Setup
+        public void setUp(RemoteGraphBenchmark state) {
+            random = BenchmarkData.random();
+            SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+            int offset = state.size + (int) Thread.currentThread().getId()
+                    * BATCH;
+            extra = new Triple[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                extra[i] = state.data.triple(factory, offset + i);
+            }
+        }
+
+        Triple triple(RemoteGraphBenchmark state) {
+            Triple[] triples = state.data.triples();
+            return triples[random.nextInt(triples.length)];
+        }
+    }
+
+    @Benchmark
+    public boolean contains(Cursor cursor) {
+        return graph.contains(cursor.triple(this));
+    }
+
+    @Benchmark
+    public long size() {
+        return graph.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long getTriplesBySubject(Cursor cursor) {
+        return graph.getTriples(cursor.triple(this).getSubject(), null, null)
+                .count();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long getTriplesByPredicate(Cursor cursor) {
+        IRI[] predicates = data.predicates();
+        return graph.getTriples(null,
+                predicates[cursor.random.nextInt(predicates.length)], null)
+                .count();
+    }
+
+    /**
+     * Add and remove a batch of triples, until all changes are done.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * BATCH)
+    public void addAndRemove(Cursor cursor) {
+        for (Triple triple : cursor.extra) {
+            graph.add(triple);
+        }
+        for (Triple triple : cursor.extra) {
+            graph.remove(triple);
+        }
+        if (graph instanceof RemoteGraph) {
+            ((RemoteGraph) graph).flush();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.simple.SimpleRDFTermFactory;
+import org.apache.commons.rdf.simple.Types;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Term creation with {@link SimpleRDFTermFactory}, and datatype lookup with
+ * {@link Types#get(IRI)}.
+ * <p>
+ * The factory is shared by all threads, as in an application, so that
+ * contention on its blank node state shows with more threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermCreationBenchmark {
+
+    private static final int STRINGS = 1024;
+
+    private RDFTermFactory factory;
+
+    @Setup
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    /**
+     * Inputs of each thread, cycled through so that results are not
+     * constant folded.
+     */
+    @State(Scope.Thread)
+    public static class Input {
+
+        String[] iris = new String[STRINGS];
+        String[] strings = new String[STRINGS];
+        IRI[] knownTypes = new IRI[STRINGS];
+        IRI[] unknownTypes = new IRI[STRINGS];
+        private int next;
+
+        @Setup
+        public void setUp() {
+            SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+            IRI[] types = Types.values().toArray(new IRI[0]);
+            for (int i = 0; i < STRINGS; i++) {
+                iris[i] = "http://example.com/resource/" + i;
+                strings[i] = "value " + i;
+                // Equal to, but not the same as, the Types constants
+                knownTypes[i] = factory.createIRI(
+                        types[i % types.length].getIRIString());
+                unknownTypes[i] = factory.createIRI(
+                        "http://example.com/datatype/" + i);
+            }
+        }
+
+        int next() {
+            next = (next + 1) % STRINGS;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public IRI createIRI(Input input) {
+        return factory.createIRI(input.iris[input.next()]);
+    }
+
+    @Benchmark
+    public Literal createLiteral(Input input) {
+        return factory.createLiteral(input.strings[input.next()]);
+    }
+
+    @Benchmark
+    public Literal createTypedLiteral(Input input) {
+        return factory.createLiteral(input.strings[input.next()],
+                Types.XSD_STRING);
+    }
+
+    @Benchmark
+    public Literal createLanguageLiteral(Input input) {
+        return factory.createLiteral(input.strings[input.next()], "en");
+    }
+
+    @Benchmark
+    public BlankNode createBlankNode() {
+        return factory.createBlankNode();
+    }
+
+    @Benchmark
+    public BlankNode createNamedBlankNode(Input input) {
+        return factory.createBlankNode(input.strings[input.next()]);
+    }
+
+    @Benchmark
+    public Optional<IRI> typesGetKnown(Input input) {
+        return Types.get(input.knownTypes[input.next()]);
+    }
+
+    @Benchmark
+    public Optional<IRI> typesGetUnknown(Input input) {
+        return Types.get(input.unknownTypes[input.next()]);
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * A base IRI, for resolving relative IRI references of a document.
+ * <p>
+ * Resolution uses {@link URI#resolve(URI)}, with the corrections needed for
+ * RFC3986: an empty reference or a fragment-only reference keeps the whole
+ * base path, and an empty base path is resolved as <code>/</code>.
+ */
+final class BaseIRI {
+
+    private final String base;
+    private final URI baseURI;
+
+    /**
+     * @param base The base IRI, which may have a fragment
+     * @throws IllegalArgumentException If the base IRI is not a valid URI
+     */
+    BaseIRI(String base) {
+        int hash = base.indexOf('#');
+        this.base = hash < 0 ? base : base.substring(0, hash);
+        URI uri = URI.create(this.base);
+        if (uri.getRawAuthority() != null && uri.getRawPath().isEmpty()) {
+            // As required by RFC3986 5.2.3, which java.net.URI ignores
+            uri = URI.create(uri.getScheme() + "://" + uri.getRawAuthority()
+                    + "/");
+        }
+        this.baseURI = uri;
+    }
+
+    /**
+     * @return The base IRI without its fragment
+     */
+    String get() {
+        return base;
+    }
+
+    /**
+     * Resolve an IRI reference against this base.
+     *
+     * @param iri IRI reference, which is returned as is if it is absolute
+     * @return The resolved IRI
+     * @throws URISyntaxException If the reference is not a valid URI
+     */
+    String resolve(String iri) throws URISyntaxException {
+        if (isAbsolute(iri)) {
+            return iri;
+        }
+        if (iri.isEmpty()) {
+            return base;
+        }
+        if (iri.charAt(0) == '#') {
+            return base + iri;
+        }
+        try {
+            return baseURI.resolve(new URI(iri)).toString();
+        } catch (IllegalArgumentException ex) {
+            throw new URISyntaxException(iri, ex.getMessage());
+        }
+    }
+
+    static boolean isAbsolute(String iri) {
+        // scheme ":" with scheme = ALPHA *( ALPHA / DIGIT / "+" / "-" / "." )
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (c == ':') {
+                return i > 0;
+            }
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (i > 0
+                    && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.')))) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+/**
+ * Buffered reader of the primitive encodings written by {@link BinaryOutput}.
+ * <p>
+ * Reads past the end of the channel throw {@link EOFException}. Input that
+ * is split into frames can limit reads to the current frame, so that lengths
+ * read from untrusted input are checked against the frame before the buffer
+ * grows for them.
+ */
+final class BinaryInput {
+
+    private final ReadableByteChannel channel;
+    private byte[] buf;
+    private ByteBuffer byteBuffer;
+    private int pos;
+    private int limit;
+    private long consumed;
+    /** Position of the end of the current frame, or -1 outside frames */
+    private long frameEnd = -1;
+
+    BinaryInput(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buf = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buf);
+    }
+
+    /**
+     * Make at least <code>n</code> bytes available in the buffer, reading
+     * from the channel as needed.
+     *
+     * @return <code>false</code> if the channel ended first
+     */
+    boolean request(int n) throws IOException {
+        if (limit - pos >= n) {
+            return true;
+        }
+        // Move the remaining bytes to the start, growing if needed
+        int remaining = limit - pos;
+        if (n > buf.length) {
+            byte[] grown = Arrays.copyOf(Arrays.copyOfRange(buf, pos, limit),
+                    Math.max(n, buf.length * 2));
+            buf = grown;
+            byteBuffer = ByteBuffer.wrap(buf);
+        } else {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        }
+        consumed += pos;
+        pos = 0;
+        limit = remaining;
+        while (limit < n) {
+            byteBuffer.limit(buf.length);
+            byteBuffer.position(limit);
+            int read = channel.read(byteBuffer);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private void require(int n) throws IOException {
+        if (frameEnd >= 0 && position() + n > frameEnd) {
+            throw new IOException("Read past the end of the frame at byte "
+                    + position());
+        }
+        if (!request(n)) {
+            throw new EOFException("Unexpected end of input at byte "
+                    + position());
+        }
+    }
+
+    /**
+     * Limit reads to the next <code>length</code> bytes, until
+     * {@link #endFrame()}.
+     */
+    void beginFrame(int length) {
+        frameEnd = position() + length;
+    }
+
+    /**
+     * Skip the unread bytes of the current frame, and lift its limit.
+     */
+    void endFrame() throws IOException {
+        long skip = frameEnd - position();
+        while (skip > 0) {
+            int n = (int) Math.min(skip, buf.length);
+            require(n);
+            pos += n;
+            skip -= n;
+        }
+        frameEnd = -1;
+    }
+
+    /**
+     * @return <code>true</code> if there are no more bytes to read
+     */
+    boolean atEnd() throws IOException {
+        return !request(1);
+    }
+
+    /**
+     * @return The number of bytes consumed so far
+     */
+    long position() {
+        return consumed + pos;
+    }
+
+    /**
+     * Update the checksum with the next <code>n</code> bytes, without
+     * consuming them.
+     *
+     * @return <code>false</code> if the channel ends before <code>n</code>
+     *         bytes
+     */
+    boolean checksum(Checksum checksum, int n) throws IOException {
+        if (!request(n)) {
+            return false;
+        }
+        checksum.update(buf, pos, n);
+        return true;
+    }
+
+    int readByte() throws IOException {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    void readFully(byte[] b, int off, int len) throws IOException {
+        require(len);
+        System.arraycopy(buf, pos, b, off, len);
+        pos += len;
+    }
+
+    int readInt() throws IOException {
+        require(4);
+        int v = ((buf[pos] & 0xFF) << 24) | ((buf[pos + 1] & 0xFF) << 16)
+                | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+        pos += 4;
+        return v;
+    }
+
+    /**
+     * Read <code>len</code> big-endian ints, decoding a buffer at a time.
+     */
+    void readInts(int[] dst, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            require(4);
+            int n = Math.min(end - off, (limit - pos) >> 2);
+            for (int i = 0; i < n; i++) {
+                dst[off++] = ((buf[pos] & 0xFF) << 24)
+                        | ((buf[pos + 1] & 0xFF) << 16)
+                        | ((buf[pos + 2] & 0xFF) << 8) | (buf[pos + 3] & 0xFF);
+                pos += 4;
+            }
+        }
+    }
+
+    long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint at byte " + position());
+    }
+
+    /**
+     * Read an unsigned varint that must fit in a non-negative int.
+     */
+    int readLength() throws IOException {
+        long v = readVarint();
+        if (v < 0 || v > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length " + v + " at byte "
+                    + position());
+        }
+        return (int) v;
+    }
+
+    long readZigzag() throws IOException {
+        long v = readVarint();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    String readString() throws IOException {
+        int len = readLength();
+        require(len);
+        String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+        pos += len;
+        return s;
+    }
+
+}
@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings of the binary formats:
+ * unsigned LEB128 varints, zigzag-encoded signed varints and length-prefixed
+ * UTF-8 strings.
+ *
+ * @see BinaryInput
+ */
+final class BinaryOutput {
+
+    private byte[] buf;
+    private int pos;
+
+    BinaryOutput(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensure(int n) {
+        if (pos + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+    }
+
+    void writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+
+    void writeBytes(byte[] b, int off, int len) {
+        ensure(len);
+        System.arraycopy(b, off, buf, pos, len);
+        pos += len;
+    }
+
+    void writeInt(int v) {
+        ensure(4);
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+    }
+
+    /**
+     * Overwrite the int at the given position, which must already have been
+     * written.
+     */
+    void setInt(int position, int v) {
+        buf[position] = (byte) (v >>> 24);
+        buf[position + 1] = (byte) (v >>> 16);
+        buf[position + 2] = (byte) (v >>> 8);
+        buf[position + 3] = (byte) v;
+    }
+
+    void writeLong(long v) {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    /**
+     * Write an unsigned varint, 7 bits per byte, least significant first.
+     */
+    void writeVarint(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    /**
+     * Write a signed varint, zigzag-encoded so that small negative numbers
+     * are as short as small positive ones.
+     */
+    void writeZigzag(long v) {
+        writeVarint((v << 1) ^ (v >> 63));
+    }
+
+    /**
+     * Write the varint length of the UTF-8 encoding, followed by the UTF-8
+     * bytes. Unpaired surrogates are written as <code>'?'</code>, like
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    void writeString(String s) {
+        int len = s.length();
+        int utf8Length = len;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    utf8Length++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < len
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    // 4 bytes for the 2 chars of the pair
+                    utf8Length += 2;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    // '?'
+                } else {
+                    utf8Length += 2;
+                }
+            }
+        }
+        writeVarint(utf8Length);
+        ensure(utf8Length);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Append the content of another buffer.
+     */
+    void write(BinaryOutput other) {
+        writeBytes(other.buf, 0, other.pos);
+    }
+
+    int size() {
+        return pos;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    void reset() {
+        pos = 0;
+    }
+
+    /**
+     * Write the whole content to the channel, and reset this buffer.
+     */
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buf, 0, pos);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        pos = 0;
+    }
+
+}
@@ -0,0 +1,240 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming reader of the binary RDF format written by
+ * {@link BinaryRDFWriter}.
+ * <p>
+ * Every term is created once, when its dictionary entry is read, and is then
+ * shared by all triples that use it. Blank nodes are scoped to the document,
+ * as with {@link NTriplesParser}.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. A reader instance reads a
+ * single document, and should be closed after use.
+ */
+public final class BinaryRDFReader implements AutoCloseable {
+
+    private final RDFTermFactory factory;
+    private final ReadableByteChannel channel;
+    private final BinaryInput in;
+    private final String blankNodeScope = NTriplesParser.newBlankNodeScope();
+
+    private RDFTerm[] terms = new RDFTerm[1024];
+    private int termCount;
+    private long remainingTriples;
+    private long previousSubject;
+    private long previousPredicate;
+    private long previousObject;
+    private boolean headerRead;
+    private boolean ended;
+
+    /**
+     * Create a binary RDF reader reading from the given channel.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param channel Channel to read from
+     */
+    public BinaryRDFReader(RDFTermFactory factory, ReadableByteChannel channel) {
+        this.factory = Objects.requireNonNull(factory);
+        this.channel = Objects.requireNonNull(channel);
+        this.in = new BinaryInput(channel, NTriplesParser.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a binary RDF reader reading from the given input stream.
+     * <p>
+     * The input stream is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param in      InputStream to read from
+     */
+    public BinaryRDFReader(RDFTermFactory factory, InputStream in) {
+        this(factory, Channels.newChannel(in));
+    }
+
+    /**
+     * Read the next triple.
+     *
+     * @return The next triple, or <code>null</code> at the end of the
+     *         document
+     * @throws IOException If the channel could not be read, or does not
+     *                     contain a valid, complete document
+     */
+    public Triple next() throws IOException {
+        if (!headerRead) {
+            readHeader();
+        }
+        while (remainingTriples == 0) {
+            if (ended || !readBlockHeader()) {
+                return null;
+            }
+        }
+        remainingTriples--;
+        previousSubject += in.readZigzag();
+        previousPredicate += in.readZigzag();
+        previousObject += in.readZigzag();
+        RDFTerm subject = term(previousSubject);
+        RDFTerm predicate = term(previousPredicate);
+        RDFTerm object = term(previousObject);
+        if (!(subject instanceof BlankNodeOrIRI) || !(predicate instanceof IRI)) {
+            throw new IOException("Invalid triple at byte " + in.position());
+        }
+        return factory.createTriple((BlankNodeOrIRI) subject, (IRI) predicate,
+                object);
+    }
+
+    /**
+     * Read all remaining triples, passing each to the sink as soon as it has
+     * been read.
+     *
+     * @param sink Consumer of triples
+     * @return The number of triples read
+     * @throws IOException If the channel could not be read, or does not
+     *                     contain a valid, complete document
+     */
+    public long parse(Consumer<? super Triple> sink) throws IOException {
+        long count = 0;
+        Triple triple;
+        while ((triple = next()) != null) {
+            sink.accept(triple);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Read all remaining triples into the graph.
+     *
+     * @param graph Graph to add triples to
+     * @return The number of triples read
+     * @throws IOException If the channel could not be read, or does not
+     *                     contain a valid, complete document
+     */
+    public long parse(Graph graph) throws IOException {
+        return parse(graph::add);
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException If the channel could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readHeader() throws IOException {
+        byte[] magic = new byte[BinaryRDFWriter.MAGIC.length];
+        if (!in.request(magic.length + 1)) {
+            throw new IOException("Not a binary RDF document: too short");
+        }
+        in.readFully(magic, 0, magic.length);
+        if (!Arrays.equals(magic, BinaryRDFWriter.MAGIC)) {
+            throw new IOException("Not a binary RDF document: bad magic");
+        }
+        int version = in.readByte();
+        if (version != BinaryRDFWriter.VERSION) {
+            throw new IOException("Unsupported binary RDF version: " + version);
+        }
+        headerRead = true;
+    }
+
+    /**
+     * Read the dictionary entries and triple count of the next block.
+     *
+     * @return <code>false</code> at the end of the document
+     */
+    private boolean readBlockHeader() throws IOException {
+        int newTerms = in.readLength();
+        for (int i = 0; i < newTerms; i++) {
+            // Grow as terms are read, not by the count, which is not trusted
+            if (termCount == terms.length) {
+                terms = Arrays.copyOf(terms, terms.length * 2);
+            }
+            terms[termCount++] = readTerm();
+        }
+        remainingTriples = in.readVarint();
+        if (newTerms == 0 && remainingTriples == 0) {
+            ended = true;
+            return false;
+        }
+        return true;
+    }
+
+    private RDFTerm readTerm() throws IOException {
+        long position = in.position();
+        try {
+            return createTerm();
+        } catch (IllegalArgumentException ex) {
+            // Rejected by the factory
+            throw new IOException("Invalid term at byte " + position + ": "
+                    + ex.getMessage(), ex);
+        }
+    }
+
+    private RDFTerm createTerm() throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+        case BinaryRDFWriter.KIND_IRI:
+            return factory.createIRI(in.readString());
+        case BinaryRDFWriter.KIND_BLANK_NODE:
+            return factory.createBlankNode(blankNodeScope + in.readString());
+        case BinaryRDFWriter.KIND_STRING:
+            return factory.createLiteral(in.readString());
+        case BinaryRDFWriter.KIND_LANG_STRING:
+            String lexicalForm = in.readString();
+            return factory.createLiteral(lexicalForm, in.readString());
+        case BinaryRDFWriter.KIND_TYPED_LITERAL:
+            RDFTerm datatype = term(in.readVarint());
+            if (!(datatype instanceof IRI)) {
+                throw new IOException("Invalid datatype at byte "
+                        + in.position());
+            }
+            return factory.createLiteral(in.readString(), (IRI) datatype);
+        default:
+            throw new IOException("Invalid term kind " + kind + " at byte "
+                    + in.position());
+        }
+    }
+
+    private RDFTerm term(long id) throws IOException {
+        if (id < 0 || id >= termCount) {
+            throw new IOException("Invalid term id " + id + " at byte "
+                    + in.position());
+        }
+        return terms[(int) id];
+    }
+
+}
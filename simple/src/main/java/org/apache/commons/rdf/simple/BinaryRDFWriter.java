@@ -0,0 +1,286 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming writer of a compact binary RDF format, read by
+ * {@link BinaryRDFReader}.
+ * <p>
+ * Each distinct term is written only once, to a dictionary, and triples are
+ * written as varint-encoded differences between the dictionary ids of
+ * consecutive triples. As ids are assigned in order of first use, related
+ * triples usually take only a few bytes each, and no term is parsed more than
+ * once when reading.
+ * <p>
+ * The format is a header followed by a sequence of blocks:
+ * <pre>
+ * document = magic "RDFB", version byte, block*, end
+ * block    = varint termCount, term*, varint tripleCount, triple*
+ * end      = varint 0, varint 0
+ * term     = kind byte, (IRI | blank node | literal fields)
+ * triple   = zigzag subject delta, zigzag predicate delta, zigzag object delta
+ * </pre>
+ * Strings are length-prefixed UTF-8. The terms of a block extend the
+ * dictionary of the previous blocks, and are written before the triples that
+ * use them, so a block can be decoded as soon as it has been read.
+ * <p>
+ * The dictionary of a document is held in memory by both the writer and the
+ * reader, so memory use grows with the number of distinct terms rather than
+ * the number of triples.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. Streams passed to
+ * {@link #write(Stream)} are consumed sequentially, even if they are parallel.
+ */
+public final class BinaryRDFWriter implements AutoCloseable {
+
+    static final byte[] MAGIC = { 'R', 'D', 'F', 'B' };
+    static final int VERSION = 1;
+
+    static final int KIND_IRI = 0;
+    static final int KIND_BLANK_NODE = 1;
+    static final int KIND_STRING = 2;
+    static final int KIND_LANG_STRING = 3;
+    static final int KIND_TYPED_LITERAL = 4;
+
+    /** Default maximum number of triples per block */
+    static final int DEFAULT_BLOCK_SIZE = 16 * 1024;
+
+    private final WritableByteChannel channel;
+    private final int blockSize;
+    private final Map<RDFTerm, Integer> ids = new HashMap<>();
+    private final BinaryOutput terms = new BinaryOutput(64 * 1024);
+    private final BinaryOutput triples = new BinaryOutput(64 * 1024);
+    private final BinaryOutput block = new BinaryOutput(128 * 1024);
+
+    private int newTerms;
+    private int blockTriples;
+    private long previousSubject;
+    private long previousPredicate;
+    private long previousObject;
+    private boolean headerWritten;
+
+    /**
+     * Create a binary RDF writer to the given channel.
+     *
+     * @param channel Channel to write to
+     */
+    public BinaryRDFWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a binary RDF writer to the given output stream.
+     * <p>
+     * The output stream is closed by {@link #close()}.
+     *
+     * @param out OutputStream to write to
+     */
+    public BinaryRDFWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Create a binary RDF writer to the given channel, with the given
+     * maximum number of triples per block.
+     *
+     * @param channel   Channel to write to
+     * @param blockSize Maximum number of triples buffered before a block is
+     *                  written
+     */
+    public BinaryRDFWriter(WritableByteChannel channel, int blockSize) {
+        this.channel = Objects.requireNonNull(channel);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: "
+                    + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Write a single triple.
+     *
+     * @param triple Triple to write
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(Triple triple) throws IOException {
+        write(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    /**
+     * Write a single triple.
+     *
+     * @param subject   The triple subject
+     * @param predicate The triple predicate
+     * @param object    The triple object
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(BlankNodeOrIRI subject, IRI predicate, RDFTerm object)
+            throws IOException {
+        long s = id(subject);
+        long p = id(predicate);
+        long o = id(object);
+        triples.writeZigzag(s - previousSubject);
+        triples.writeZigzag(p - previousPredicate);
+        triples.writeZigzag(o - previousObject);
+        previousSubject = s;
+        previousPredicate = p;
+        previousObject = o;
+        if (++blockTriples >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Write all triples of the stream.
+     *
+     * @param triples Stream of triples to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Stream<? extends Triple> triples) throws IOException {
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginSerialize("BINARY");
+        long count = 0;
+        try {
+            Iterator<? extends Triple> it = triples.iterator();
+            while (it.hasNext()) {
+                write(it.next());
+                count++;
+            }
+        } finally {
+            span.end(count);
+        }
+        return count;
+    }
+
+    /**
+     * Write all triples of the graph.
+     *
+     * @param graph Graph to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Graph graph) throws IOException {
+        return write(graph.getTriples());
+    }
+
+    /**
+     * Write the buffered triples as a block to the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void flush() throws IOException {
+        writeBlock();
+    }
+
+    /**
+     * Write the buffered triples and the end of the document, and close the
+     * underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     *                     or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBlock();
+            block.writeVarint(0);
+            block.writeVarint(0);
+            block.writeTo(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private int id(RDFTerm term) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        if (term instanceof IRI) {
+            terms.writeByte(KIND_IRI);
+            terms.writeString(((IRI) term).getIRIString());
+        } else if (term instanceof BlankNode) {
+            terms.writeByte(KIND_BLANK_NODE);
+            terms.writeString(((BlankNode) term).uniqueReference());
+        } else if (term instanceof Literal) {
+            Literal literal = (Literal) term;
+            Optional<String> languageTag = literal.getLanguageTag();
+            if (languageTag.isPresent()) {
+                terms.writeByte(KIND_LANG_STRING);
+                terms.writeString(literal.getLexicalForm());
+                terms.writeString(languageTag.get());
+            } else if (Types.XSD_STRING.equals(literal.getDatatype())) {
+                terms.writeByte(KIND_STRING);
+                terms.writeString(literal.getLexicalForm());
+            } else {
+                // The datatype gets its id first, as the reader needs it to
+                // create the literal
+                int datatype = id(literal.getDatatype());
+                terms.writeByte(KIND_TYPED_LITERAL);
+                terms.writeVarint(datatype);
+                terms.writeString(literal.getLexicalForm());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported RDFTerm: " + term);
+        }
+        id = ids.size();
+        ids.put(term, id);
+        newTerms++;
+        return id;
+    }
+
+    private void writeBlock() throws IOException {
+        if (!headerWritten) {
+            block.writeBytes(MAGIC, 0, MAGIC.length);
+            block.writeByte(VERSION);
+            headerWritten = true;
+        }
+        if (blockTriples > 0 || newTerms > 0) {
+            block.writeVarint(newTerms);
+            block.write(terms);
+            block.writeVarint(blockTriples);
+            block.write(triples);
+            terms.reset();
+            triples.reset();
+            newTerms = 0;
+            blockTriples = 0;
+        }
+        block.writeTo(channel);
+    }
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+
+/**
+ * Encoding of single terms, and of the wildcards of patterns, with the term
+ * kinds of {@link BinaryRDFWriter} but without its dictionary, for records
+ * and messages that must be decoded on their own.
+ */
+final class BinaryTerms {
+
+    /** Term kind for a wildcard of a pattern */
+    static final int KIND_ANY = 0xFF;
+
+    private BinaryTerms() {
+    }
+
+    /**
+     * Write a term, or a wildcard if the term is <code>null</code>.
+     */
+    static void write(BinaryOutput out, RDFTerm term) {
+        if (term == null) {
+            out.writeByte(KIND_ANY);
+        } else if (term instanceof IRI) {
+            out.writeByte(BinaryRDFWriter.KIND_IRI);
+            out.writeString(((IRI) term).getIRIString());
+        } else if (term instanceof BlankNode) {
+            out.writeByte(BinaryRDFWriter.KIND_BLANK_NODE);
+            out.writeString(((BlankNode) term).uniqueReference());
+        } else {
+            Literal literal = (Literal) term;
+            Optional<String> languageTag = literal.getLanguageTag();
+            if (languageTag.isPresent()) {
+                out.writeByte(BinaryRDFWriter.KIND_LANG_STRING);
+                out.writeString(literal.getLexicalForm());
+                out.writeString(languageTag.get());
+            } else if (Types.XSD_STRING.equals(literal.getDatatype())) {
+                out.writeByte(BinaryRDFWriter.KIND_STRING);
+                out.writeString(literal.getLexicalForm());
+            } else {
+                out.writeByte(BinaryRDFWriter.KIND_TYPED_LITERAL);
+                out.writeString(literal.getDatatype().getIRIString());
+                out.writeString(literal.getLexicalForm());
+            }
+        }
+    }
+
+    /**
+     * Read a term written by {@link #write(BinaryOutput, RDFTerm)}, from
+     * input written by this process, without checking it.
+     *
+     * @return The term, or <code>null</code> for a wildcard
+     */
+    static RDFTerm read(BinaryInput in) throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+        case KIND_ANY:
+            return null;
+        case BinaryRDFWriter.KIND_IRI:
+            return IRIImpl.unchecked(in.readString());
+        case BinaryRDFWriter.KIND_BLANK_NODE:
+            return BlankNodeImpl.withUniqueReference(in.readString());
+        case BinaryRDFWriter.KIND_STRING:
+            return LiteralImpl.unchecked(in.readString(), Types.XSD_STRING,
+                    null);
+        case BinaryRDFWriter.KIND_LANG_STRING:
+            String lexicalForm = in.readString();
+            return LiteralImpl.unchecked(lexicalForm, null, in.readString());
+        case BinaryRDFWriter.KIND_TYPED_LITERAL:
+            IRI datatype = IRIImpl.unchecked(in.readString());
+            return LiteralImpl.unchecked(in.readString(),
+                    Types.get(datatype).orElse(datatype), null);
+        default:
+            throw invalidKind(in, kind);
+        }
+    }
+
+    /**
+     * Read a term written by {@link #write(BinaryOutput, RDFTerm)}, from
+     * untrusted input, checking it as the public constructors do.
+     *
+     * @return The term, or <code>null</code> for a wildcard
+     * @throws IllegalArgumentException If the term is invalid
+     */
+    static RDFTerm readChecked(BinaryInput in) throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+        case KIND_ANY:
+            return null;
+        case BinaryRDFWriter.KIND_IRI:
+            return new IRIImpl(in.readString());
+        case BinaryRDFWriter.KIND_BLANK_NODE:
+            return BlankNodeImpl.withUniqueReference(
+                    checkBlankNodeReference(in.readString()));
+        case BinaryRDFWriter.KIND_STRING:
+            return new LiteralImpl(in.readString());
+        case BinaryRDFWriter.KIND_LANG_STRING:
+            String lexicalForm = in.readString();
+            return new LiteralImpl(lexicalForm, in.readString());
+        case BinaryRDFWriter.KIND_TYPED_LITERAL:
+            IRI datatype = new IRIImpl(in.readString());
+            return new LiteralImpl(in.readString(), datatype);
+        default:
+            throw invalidKind(in, kind);
+        }
+    }
+
+    private static IOException invalidKind(BinaryInput in, int kind) {
+        return new IOException("Invalid term kind " + kind + " at byte "
+                + (in.position() - 1));
+    }
+
+    /**
+     * Check that a blank node reference is a valid N-Triples label, as the
+     * writers write it as it is.
+     */
+    static String checkBlankNodeReference(String reference) {
+        int len = reference.length();
+        if (len == 0 || reference.charAt(len - 1) == '.') {
+            throw new IllegalArgumentException(
+                    "Invalid blank node reference: " + reference);
+        }
+        for (int i = 0; i < len; i++) {
+            char c = reference.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'
+                    || c >= '0' && c <= '9' || c == '-' || c == '_'
+                    || c == '.')) {
+                throw new IllegalArgumentException(
+                        "Invalid blank node reference: " + reference);
+            }
+        }
+        return reference;
+    }
+
+}
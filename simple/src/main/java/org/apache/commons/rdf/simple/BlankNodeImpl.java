@@ -17,6 +17,9 @@
  */
 package org.apache.commons.rdf.simple;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.UUID;
@@ -27,7 +30,9 @@ import org.apache.commons.rdf.api.BlankNode;
 /**
  * A simple implementation of BlankNode.
  */
-final class BlankNodeImpl implements BlankNode {
+final class BlankNodeImpl implements BlankNode, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final UUID SALT = UUID.randomUUID();
     private static final AtomicLong COUNTER = new AtomicLong();
@@ -68,6 +73,19 @@ final class BlankNodeImpl implements BlankNode {
                 uuidInput.getBytes(StandardCharsets.UTF_8)).toString();
     }
 
+    private BlankNodeImpl(String uniqueReference) {
+        this.uniqueReference = uniqueReference;
+    }
+
+    /**
+     * Recreate the blank node with the given unique reference, such as one
+     * restored from a snapshot of a graph. The result is equal to the blank
+     * node that the reference was taken from.
+     */
+    static BlankNodeImpl withUniqueReference(String uniqueReference) {
+        return new BlankNodeImpl(uniqueReference);
+    }
+
     @Override
     public String uniqueReference() {
         return uniqueReference;
@@ -111,4 +129,12 @@ final class BlankNodeImpl implements BlankNode {
         return true;
     }
 
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
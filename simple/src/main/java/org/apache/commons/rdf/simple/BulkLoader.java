@@ -0,0 +1,409 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Loads many RDF files into a single graph, parsing the files concurrently.
+ * <p>
+ * The syntax of each file is detected from its extension with
+ * {@link RDFSyntax#byFileExtension(String)}, and any syntax supported by
+ * {@link RDFParsers} can be loaded. Each file is parsed as a separate task on
+ * the executor, with its own blank node scope and its file IRI as base IRI.
+ * <p>
+ * Parsed triples are added to the graph in batches under a lock. A task
+ * whose batch is full only takes the lock if it is free, and otherwise keeps
+ * parsing, up to a few batches, so that tasks rarely wait for each other.
+ * The graph therefore need not be thread-safe, but must not be modified by
+ * others while a load is in progress.
+ * <p>
+ * A file that cannot be loaded does not stop the others. The {@link Report}
+ * of a load has the outcome, triple count and throughput of every file. The
+ * triples of a failed file that were parsed before the failure stay in the
+ * graph.
+ * <p>
+ * The {@link RDFTermFactory} must be thread-safe, as it is called from
+ * several threads at once.
+ */
+public final class BulkLoader {
+
+    /** Default number of triples per batch added to the graph */
+    static final int DEFAULT_BATCH_SIZE = ParallelNTriplesLoader.DEFAULT_BATCH_SIZE;
+
+    /** Batches a task may hold back before waiting for the graph */
+    private static final int MAX_PENDING_BATCHES = 4;
+
+    private final RDFTermFactory factory;
+    private final Executor executor;
+    private final int batchSize;
+
+    /**
+     * Create a loader using the common {@link ForkJoinPool}.
+     *
+     * @param factory Factory for creating terms and triples
+     */
+    public BulkLoader(RDFTermFactory factory) {
+        this(factory, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a loader.
+     *
+     * @param factory   Factory for creating terms and triples
+     * @param executor  Executor to parse files on, one task per file
+     * @param batchSize Number of triples per batch added to the graph
+     */
+    public BulkLoader(RDFTermFactory factory, Executor executor, int batchSize) {
+        this.factory = Objects.requireNonNull(factory);
+        this.executor = Objects.requireNonNull(executor);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Detect the syntax of a file from its extension.
+     *
+     * @param file The file
+     * @return The syntax, or {@link Optional#empty()} if the extension is not
+     *         that of a known syntax
+     */
+    public static Optional<RDFSyntax> syntaxOf(Path file) {
+        Path name = file.getFileName();
+        String s = name == null ? "" : name.toString();
+        int dot = s.lastIndexOf('.');
+        return dot < 0 ? Optional.empty()
+                : RDFSyntax.byFileExtension(s.substring(dot));
+    }
+
+    /**
+     * Load all files under a directory, including its subdirectories, that
+     * have the extension of a known syntax. Other files are ignored.
+     *
+     * @param directory Directory to load
+     * @param graph     Graph to add triples to
+     * @return The outcome of each file, in path order
+     * @throws IOException If the directory could not be listed, or the load
+     *                     was interrupted
+     */
+    public Report load(Path directory, Graph graph) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(file -> syntaxOf(file).isPresent()).sorted()
+                    .collect(Collectors.toList());
+        }
+        return load(files, graph);
+    }
+
+    /**
+     * Load the given files. Files with an unknown or unsupported syntax are
+     * reported as failed.
+     *
+     * @param files Files to load
+     * @param graph Graph to add triples to
+     * @return The outcome of each file, in the given order
+     * @throws IOException If the load was interrupted
+     */
+    public Report load(Collection<Path> files, Graph graph) throws IOException {
+        long start = System.nanoTime();
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginBulkLoad(files.size());
+        long triples = 0;
+        try {
+            ReentrantLock lock = new ReentrantLock();
+            List<CompletableFuture<FileResult>> tasks = new ArrayList<>(
+                    files.size());
+            for (Path file : files) {
+                tasks.add(CompletableFuture.supplyAsync(
+                        () -> loadFile(file, graph, lock), executor));
+            }
+            List<FileResult> results = new ArrayList<>(tasks.size());
+            try {
+                for (CompletableFuture<FileResult> task : tasks) {
+                    results.add(task.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted loading files");
+            } catch (ExecutionException ex) {
+                // loadFile reports its own failures
+                throw new IllegalStateException(ex.getCause());
+            }
+            Report report = new Report(results, System.nanoTime() - start);
+            triples = report.getTripleCount();
+            return report;
+        } finally {
+            span.end(triples);
+        }
+    }
+
+    private FileResult loadFile(Path file, Graph graph, ReentrantLock lock) {
+        long start = System.nanoTime();
+        Optional<RDFSyntax> syntax = syntaxOf(file);
+        if (!syntax.isPresent() || !RDFParsers.isSupported(syntax.get())) {
+            return new FileResult(file, syntax, 0, System.nanoTime() - start,
+                    new IllegalArgumentException("Unsupported syntax: "
+                            + syntax.map(Enum::name).orElse("unknown")));
+        }
+        BatchInserter inserter = new BatchInserter(graph, lock);
+        Exception error = null;
+        try {
+            RDFParsers.parse(factory, file, syntax.get(), file.toUri().toString(),
+                    inserter);
+        } catch (IOException | RuntimeException ex) {
+            error = ex;
+        }
+        // Keep the triples parsed before an error
+        try {
+            inserter.flush();
+        } catch (RuntimeException ex) {
+            if (error == null) {
+                error = ex;
+            } else {
+                error.addSuppressed(ex);
+            }
+        }
+        return new FileResult(file, syntax, inserter.count,
+                System.nanoTime() - start, error);
+    }
+
+    /**
+     * Collects the triples of one file, and adds them to the graph in
+     * batches.
+     */
+    private final class BatchInserter implements Consumer<Triple> {
+
+        private final Graph graph;
+        private final ReentrantLock lock;
+        private final List<Triple> pending = new ArrayList<>();
+        private long count;
+
+        BatchInserter(Graph graph, ReentrantLock lock) {
+            this.graph = graph;
+            this.lock = lock;
+        }
+
+        @Override
+        public void accept(Triple triple) {
+            pending.add(triple);
+            count++;
+            if (pending.size() % batchSize != 0) {
+                return;
+            }
+            if (pending.size() >= batchSize * MAX_PENDING_BATCHES) {
+                lock.lock();
+            } else if (!lock.tryLock()) {
+                // Another task is adding, carry on parsing
+                return;
+            }
+            insert();
+        }
+
+        void flush() {
+            if (!pending.isEmpty()) {
+                lock.lock();
+                insert();
+            }
+        }
+
+        /**
+         * Add the pending triples, and release the lock, which must be held.
+         */
+        private void insert() {
+            try {
+                for (Triple triple : pending) {
+                    graph.add(triple);
+                }
+            } finally {
+                // Not added again by flush() if the graph failed
+                pending.clear();
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Outcome of loading a single file.
+     */
+    public static final class FileResult {
+
+        private final Path file;
+        private final Optional<RDFSyntax> syntax;
+        private final long tripleCount;
+        private final long elapsedNanos;
+        private final Optional<Exception> error;
+
+        FileResult(Path file, Optional<RDFSyntax> syntax, long tripleCount,
+                long elapsedNanos, Exception error) {
+            this.file = file;
+            this.syntax = syntax;
+            this.tripleCount = tripleCount;
+            this.elapsedNanos = elapsedNanos;
+            this.error = Optional.ofNullable(error);
+        }
+
+        /**
+         * @return The file
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return The syntax detected from the file extension, if any
+         */
+        public Optional<RDFSyntax> getSyntax() {
+            return syntax;
+        }
+
+        /**
+         * @return The number of triples parsed, before the failure if the
+         *         load failed
+         */
+        public long getTripleCount() {
+            return tripleCount;
+        }
+
+        /**
+         * @return The time taken to parse and add the triples of the file, in
+         *         nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The number of triples parsed per second
+         */
+        public double getTriplesPerSecond() {
+            return elapsedNanos == 0 ? 0 : tripleCount * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return The reason the file could not be loaded, which is an
+         *         {@link RDFParseException} for invalid content, an
+         *         {@link IOException} if the file could not be read, or an
+         *         {@link IllegalArgumentException} for an unsupported syntax
+         */
+        public Optional<Exception> getError() {
+            return error;
+        }
+
+        /**
+         * @return <code>true</code> if all triples of the file were loaded
+         */
+        public boolean isSuccessful() {
+            return !error.isPresent();
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + tripleCount + " triples in "
+                    + elapsedNanos / 1000000 + " ms"
+                    + error.map(e -> ", failed: " + e).orElse("");
+        }
+    }
+
+    /**
+     * Outcome of a load of several files.
+     */
+    public static final class Report {
+
+        private final List<FileResult> files;
+        private final long elapsedNanos;
+
+        Report(List<FileResult> files, long elapsedNanos) {
+            this.files = Collections.unmodifiableList(files);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The outcome of each file
+         */
+        public List<FileResult> getFiles() {
+            return files;
+        }
+
+        /**
+         * @return The outcome of each file that failed
+         */
+        public List<FileResult> getFailures() {
+            return files.stream().filter(f -> !f.isSuccessful())
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return The total number of triples parsed, which may be more than
+         *         were added if files have triples in common
+         */
+        public long getTripleCount() {
+            long count = 0;
+            for (FileResult file : files) {
+                count += file.getTripleCount();
+            }
+            return count;
+        }
+
+        /**
+         * @return The wall clock time of the whole load, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The overall number of triples parsed per second
+         */
+        public double getTriplesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTripleCount() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return files.size() + " files, " + getTripleCount()
+                    + " triples in " + elapsedNanos / 1000000 + " ms, "
+                    + getFailures().size() + " failed";
+        }
+    }
+
+}
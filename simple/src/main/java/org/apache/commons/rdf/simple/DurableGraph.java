@@ -0,0 +1,689 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A memory-based graph whose changes survive a crash.
+ * <p>
+ * Every {@link #add(Triple)}, {@link #remove(Triple)} and {@link #clear()} is
+ * appended to a write-ahead log before it returns. Concurrent changes are
+ * committed together: a single commit thread writes all the records that
+ * were appended while the previous <code>fsync</code> was in progress, and
+ * syncs them at once, so the cost of a sync is shared by all threads waiting
+ * for it.
+ * <p>
+ * {@link #open(Path)} restores the graph from the last
+ * {@link GraphSnapshot snapshot} in the directory, and replays the log
+ * written since. A record that was only partially written when the process
+ * died is discarded. The log is compacted in the background once it grows
+ * beyond a threshold: a new log is started, and a snapshot of the graph at
+ * that point replaces the older snapshot and logs.
+ * <p>
+ * The directory holds the files <code>snapshot-<em>n</em></code> and
+ * <code>wal-<em>n</em>.log</code>, where snapshot <em>n</em> holds the
+ * changes of all the logs before log <em>n</em>. It must not be used by more
+ * than one graph at a time.
+ * <p>
+ * This class is thread-safe. Like {@link #contains(Triple)} and
+ * {@link #size()}, {@link #getTriples()} reads under the lock, and returns a
+ * stream over a copy of the matching triples.
+ */
+public final class DurableGraph implements Graph {
+
+    /** Default log size that triggers a compaction, in bytes */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    /** Default interval between checks of the log size, in milliseconds */
+    public static final long DEFAULT_COMPACTION_INTERVAL = 60 * 1000;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+
+    /** Size of the length and checksum in front of each record */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final boolean WINDOWS = System.getProperty("os.name", "")
+            .startsWith("Windows");
+
+    private static final int OP_ADD = 1;
+    private static final int OP_REMOVE = 2;
+    private static final int OP_REMOVE_MATCHING = 3;
+    private static final int OP_CLEAR = 4;
+
+    private final Path directory;
+    private final SimpleRDFTermFactory factory;
+    private final long compactionThreshold;
+
+    /** Guards the graph, the pending records and the sequence numbers */
+    private final Object lock = new Object();
+    private final GraphImpl graph;
+    private final CRC32 crc = new CRC32();
+    private BinaryOutput pending = new BinaryOutput(64 * 1024);
+    private BinaryOutput spare = new BinaryOutput(64 * 1024);
+    private long appended;
+    private long synced;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Held for a whole compaction, and always taken before
+     * {@link #commitLock}
+     */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    /**
+     * Held while writing to the log, and always taken before {@link #lock}
+     */
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private FileChannel log;
+    private long generation;
+    private volatile long logSize;
+
+    private final Thread committer;
+    private final ScheduledExecutorService compactor;
+
+    private DurableGraph(Path directory, SimpleRDFTermFactory factory,
+            GraphImpl graph, FileChannel log, long generation,
+            long compactionThreshold, long compactionInterval)
+            throws IOException {
+        this.directory = directory;
+        this.factory = factory;
+        this.graph = graph;
+        this.log = log;
+        this.generation = generation;
+        this.logSize = log.size();
+        this.compactionThreshold = compactionThreshold;
+
+        committer = new Thread(this::commitLoop, "DurableGraph committer");
+        committer.setDaemon(true);
+        committer.start();
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DurableGraph compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded,
+                compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open the durable graph stored in the directory, creating it if needed,
+     * with the default compaction settings.
+     *
+     * @param directory Directory of the snapshot and log files
+     * @return The restored graph
+     * @throws IOException If the files could not be read or created
+     */
+    public static DurableGraph open(Path directory) throws IOException {
+        return open(directory, new SimpleRDFTermFactory(),
+                DEFAULT_COMPACTION_THRESHOLD, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Open the durable graph stored in the directory, creating it if needed.
+     *
+     * @param directory           Directory of the snapshot and log files
+     * @param factory             Factory of the graph
+     * @param compactionThreshold Log size in bytes from which the log is
+     *                            compacted
+     * @param compactionInterval  Interval between checks of the log size, in
+     *                            milliseconds
+     * @return The restored graph
+     * @throws IOException If the files could not be read or created
+     */
+    public static DurableGraph open(Path directory,
+            SimpleRDFTermFactory factory, long compactionThreshold,
+            long compactionInterval) throws IOException {
+        if (compactionInterval < 1) {
+            throw new IllegalArgumentException(
+                    "Compaction interval must be positive: "
+                            + compactionInterval);
+        }
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    // An unfinished snapshot
+                    Files.delete(file);
+                } else if (name.startsWith(SNAPSHOT_PREFIX)) {
+                    snapshots.put(generationOf(name, SNAPSHOT_PREFIX, ""), file);
+                } else if (name.startsWith(LOG_PREFIX)
+                        && name.endsWith(LOG_SUFFIX)) {
+                    logs.put(generationOf(name, LOG_PREFIX, LOG_SUFFIX), file);
+                }
+            }
+        }
+
+        long snapshotGeneration = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        long generation = snapshotGeneration;
+        GraphImpl graph = snapshots.isEmpty() ? new GraphImpl(factory)
+                : (GraphImpl) GraphSnapshot.read(snapshots.lastEntry()
+                        .getValue(), factory);
+        Map<Long, Path> current = logs.tailMap(generation);
+        for (Map.Entry<Long, Path> entry : current.entrySet()) {
+            long valid = replay(entry.getValue(), graph);
+            boolean last = entry.getKey().equals(logs.lastKey());
+            if (valid < Files.size(entry.getValue())) {
+                if (!last) {
+                    throw new IOException("Corrupt write-ahead log: "
+                            + entry.getValue());
+                }
+                // The tail of the last log was not completely written
+                try (FileChannel channel = FileChannel.open(entry.getValue(),
+                        StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+            }
+            generation = entry.getKey();
+        }
+        // The logs from the snapshot on are all still needed, as no snapshot
+        // holds their changes yet
+        deleteBefore(directory, snapshotGeneration);
+
+        Path logFile = logFile(directory, generation);
+        boolean created = !Files.exists(logFile);
+        FileChannel log = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        log.position(log.size());
+        if (created) {
+            syncDirectory(directory);
+        }
+        return new DurableGraph(directory, factory, graph, log, generation,
+                compactionThreshold, compactionInterval);
+    }
+
+    @Override
+    public void add(Triple triple) {
+        add(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    @Override
+    public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long seq;
+        synchronized (lock) {
+            checkOpen();
+            BlankNodeOrIRI s = (BlankNodeOrIRI) graph.internallyMap(subject);
+            IRI p = (IRI) graph.internallyMap(predicate);
+            RDFTerm o = graph.internallyMap(object);
+            graph.add(s, p, o);
+            seq = append(OP_ADD, s, p, o);
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public void remove(Triple triple) {
+        long seq;
+        synchronized (lock) {
+            checkOpen();
+            BlankNodeOrIRI s = (BlankNodeOrIRI) graph.internallyMap(triple
+                    .getSubject());
+            IRI p = (IRI) graph.internallyMap(triple.getPredicate());
+            RDFTerm o = graph.internallyMap(triple.getObject());
+            graph.remove(new TripleImpl(s, p, o));
+            seq = append(OP_REMOVE, s, p, o);
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long seq;
+        synchronized (lock) {
+            checkOpen();
+            BlankNodeOrIRI s = (BlankNodeOrIRI) graph.internallyMap(subject);
+            IRI p = (IRI) graph.internallyMap(predicate);
+            RDFTerm o = graph.internallyMap(object);
+            graph.remove(s, p, o);
+            seq = append(OP_REMOVE_MATCHING, s, p, o);
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public void clear() {
+        long seq;
+        synchronized (lock) {
+            checkOpen();
+            graph.clear();
+            seq = append(OP_CLEAR, null, null, null);
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public boolean contains(Triple triple) {
+        synchronized (lock) {
+            return graph.contains(triple);
+        }
+    }
+
+    @Override
+    public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        synchronized (lock) {
+            return graph.contains(subject, predicate, object);
+        }
+    }
+
+    @Override
+    public long size() {
+        synchronized (lock) {
+            return graph.size();
+        }
+    }
+
+    @Override
+    public Stream<? extends Triple> getTriples() {
+        return getTriples(null, null, null);
+    }
+
+    @Override
+    public Stream<? extends Triple> getTriples(BlankNodeOrIRI subject,
+            IRI predicate, RDFTerm object) {
+        List<Triple> copy = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<Triple> it = graph.getTriples(subject, predicate, object)
+                    .iterator();
+            while (it.hasNext()) {
+                copy.add(it.next());
+            }
+        }
+        return copy.stream();
+    }
+
+    /**
+     * Compact the log now: start a new log, and replace the older snapshot
+     * and logs with a snapshot of the current graph.
+     * <p>
+     * Changes are blocked only while the graph is copied; the snapshot is
+     * written while changes continue to the new log.
+     *
+     * @throws IOException If the snapshot or the new log could not be
+     *                     written
+     */
+    public void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            compactLocked();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Compact the log. Must be called holding {@link #compactionLock}, so
+     * that snapshots are written and older files deleted in order.
+     */
+    private void compactLocked() throws IOException {
+        GraphImpl copy;
+        long snapshotGeneration;
+        commitLock.lock();
+        try {
+            BinaryOutput batch;
+            long target;
+            synchronized (lock) {
+                checkOpen();
+                batch = takePending();
+                target = appended;
+                copy = new GraphImpl(factory, graph.size());
+                Iterator<Triple> it = graph.getTriples().iterator();
+                while (it.hasNext()) {
+                    copy.addInternal(it.next());
+                }
+            }
+            // Changes up to the copy go to the old log, later ones to the new
+            writeBatch(batch, target);
+            FileChannel next = FileChannel.open(
+                    logFile(directory, generation + 1),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                syncDirectory(directory);
+            } catch (IOException e) {
+                next.close();
+                throw e;
+            }
+            FileChannel previous = log;
+            log = next;
+            generation++;
+            logSize = 0;
+            previous.close();
+            snapshotGeneration = generation;
+        } finally {
+            commitLock.unlock();
+        }
+        GraphSnapshot.write(copy, directory.resolve(SNAPSHOT_PREFIX
+                + snapshotGeneration));
+        syncDirectory(directory);
+        deleteBefore(directory, snapshotGeneration);
+    }
+
+    /**
+     * Commit the remaining changes, stop the background threads and close the
+     * log.
+     *
+     * @throws IOException If the log could not be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        compactor.shutdown();
+        boolean interrupted = false;
+        try {
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            committer.join();
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        commitLock.lock();
+        try {
+            log.close();
+        } finally {
+            commitLock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return graph.toString();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Graph is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+    }
+
+    /**
+     * Append a record to the pending records, returning its sequence number.
+     * Must be called holding {@link #lock}.
+     */
+    private long append(int op, BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        int start = pending.size();
+        pending.writeInt(0);
+        pending.writeInt(0);
+        pending.writeByte(op);
+        if (op != OP_CLEAR) {
+            BinaryTerms.write(pending, subject);
+            BinaryTerms.write(pending, predicate);
+            BinaryTerms.write(pending, object);
+        }
+        int length = pending.size() - start - RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(pending.buffer(), start + RECORD_HEADER_SIZE, length);
+        pending.setInt(start, length);
+        pending.setInt(start + 4, (int) crc.getValue());
+        lock.notifyAll();
+        return ++appended;
+    }
+
+    /**
+     * Wait until the record with the given sequence number has been synced.
+     */
+    private void awaitCommit(long seq) {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (synced < seq && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // The change has been made, so it must not be abandoned
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (synced < seq) {
+                throw new UncheckedIOException("Write-ahead log failed",
+                        failure);
+            }
+        }
+    }
+
+    /**
+     * Swap the pending records for an empty buffer. Must be called holding
+     * {@link #lock}.
+     */
+    private BinaryOutput takePending() {
+        BinaryOutput batch = pending;
+        pending = spare;
+        spare = batch;
+        return batch;
+    }
+
+    private void commitLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Only stopped by close()
+                    }
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+            }
+            commitLock.lock();
+            try {
+                BinaryOutput batch;
+                long target;
+                synchronized (lock) {
+                    batch = takePending();
+                    target = appended;
+                }
+                writeBatch(batch, target);
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            } finally {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write and sync a batch of records, then release the threads waiting
+     * for them. Must be called holding {@link #commitLock}.
+     */
+    private void writeBatch(BinaryOutput batch, long target) throws IOException {
+        if (batch.size() > 0) {
+            logSize += batch.size();
+            batch.writeTo(log);
+            log.force(false);
+        }
+        synchronized (lock) {
+            if (target > synced) {
+                synced = target;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (logSize < compactionThreshold) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            // The log is kept until a snapshot succeeds, so nothing is lost;
+            // try again at the next check
+        }
+    }
+
+    /**
+     * Apply the records of a log to the graph.
+     *
+     * @return The length of the valid records at the start of the log
+     */
+    private static long replay(Path file, GraphImpl graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(channel, 64 * 1024);
+            CRC32 crc = new CRC32();
+            long valid = 0;
+            while (in.request(RECORD_HEADER_SIZE)) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                crc.reset();
+                if (length < 1 || !in.checksum(crc, length)
+                        || (int) crc.getValue() != checksum) {
+                    break;
+                }
+                long end = in.position() + length;
+                int op = in.readByte();
+                if (op == OP_CLEAR) {
+                    graph.clear();
+                } else {
+                    RDFTerm s = BinaryTerms.read(in);
+                    RDFTerm p = BinaryTerms.read(in);
+                    RDFTerm o = BinaryTerms.read(in);
+                    if (op == OP_ADD) {
+                        graph.add((BlankNodeOrIRI) s, (IRI) p, o);
+                    } else if (op == OP_REMOVE) {
+                        graph.remove(new TripleImpl((BlankNodeOrIRI) s,
+                                (IRI) p, o));
+                    } else if (op == OP_REMOVE_MATCHING) {
+                        graph.remove((BlankNodeOrIRI) s, (IRI) p, o);
+                    } else {
+                        throw new IOException("Invalid log operation " + op
+                                + " in " + file);
+                    }
+                }
+                if (in.position() != end) {
+                    throw new IOException("Invalid log record in " + file);
+                }
+                valid = end;
+            }
+            return valid;
+        }
+    }
+
+    private static long generationOf(String name, String prefix, String suffix)
+            throws IOException {
+        try {
+            return Long.parseLong(name.substring(prefix.length(),
+                    name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Unexpected file in graph directory: "
+                    + name, e);
+        }
+    }
+
+    private static Path logFile(Path directory, long generation) {
+        return directory.resolve(LOG_PREFIX + generation + LOG_SUFFIX);
+    }
+
+    /**
+     * Sync the directory, so that the files created or renamed in it survive
+     * a crash. Skipped where directories cannot be opened, as on Windows.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            if (WINDOWS) {
+                return;
+            }
+            throw e;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Delete the snapshots and logs older than the given generation.
+     */
+    private static void deleteBefore(Path directory, long generation)
+            throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if ((name.startsWith(SNAPSHOT_PREFIX) && !name.endsWith(".tmp")
+                        && generationOf(name, SNAPSHOT_PREFIX, "") < generation)
+                        || (name.startsWith(LOG_PREFIX)
+                                && name.endsWith(LOG_SUFFIX)
+                                && generationOf(name, LOG_PREFIX, LOG_SUFFIX) < generation)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+}
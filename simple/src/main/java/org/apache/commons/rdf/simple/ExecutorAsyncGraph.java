@@ -0,0 +1,260 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.AsyncGraph;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.api.TriplePublisher;
+
+/**
+ * An {@link AsyncGraph} that performs the operations of a {@link Graph} on
+ * an {@link Executor}.
+ * <p>
+ * Each operation is a task on the executor. The triples of a pattern are
+ * taken from the stream of {@link Graph#getTriples()} as the subscriber
+ * requests them; a task delivers triples until the demand is met, and a
+ * further request starts a new task, so that a slow subscriber does not hold
+ * a thread of the executor while it waits. The stream is closed once all
+ * triples are delivered, or when the subscription is cancelled.
+ * <p>
+ * Operations may run concurrently, so the graph must be thread-safe, as
+ * {@link ReadMostlyGraph}, {@link ShardedGraph} and {@link DurableGraph}
+ * are, unless the executor runs one task at a time.
+ */
+public final class ExecutorAsyncGraph implements AsyncGraph {
+
+    private final Graph graph;
+    private final Executor executor;
+
+    /**
+     * Run the operations of a graph on the common {@link ForkJoinPool}.
+     *
+     * @param graph The graph
+     */
+    public ExecutorAsyncGraph(Graph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Run the operations of a graph on an executor.
+     *
+     * @param graph    The graph
+     * @param executor The executor to run operations on
+     */
+    public ExecutorAsyncGraph(Graph graph, Executor executor) {
+        this.graph = Objects.requireNonNull(graph);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> add(Triple triple) {
+        return CompletableFuture.runAsync(() -> graph.add(triple), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> add(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        return CompletableFuture.runAsync(
+                () -> graph.add(subject, predicate, object), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> contains(Triple triple) {
+        return CompletableFuture.supplyAsync(() -> graph.contains(triple),
+                executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> contains(BlankNodeOrIRI subject,
+            IRI predicate, RDFTerm object) {
+        return CompletableFuture.supplyAsync(
+                () -> graph.contains(subject, predicate, object), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(Triple triple) {
+        return CompletableFuture.runAsync(() -> graph.remove(triple), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(BlankNodeOrIRI subject,
+            IRI predicate, RDFTerm object) {
+        return CompletableFuture.runAsync(
+                () -> graph.remove(subject, predicate, object), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> clear() {
+        return CompletableFuture.runAsync(graph::clear, executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> size() {
+        return CompletableFuture.supplyAsync(graph::size, executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> count(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Stream<? extends Triple> triples = graph.getTriples(subject,
+                    predicate, object)) {
+                return triples.count();
+            }
+        }, executor);
+    }
+
+    @Override
+    public TriplePublisher getTriples(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        return subscriber -> {
+            Objects.requireNonNull(subscriber);
+            subscriber.onSubscribe(new StreamSubscription(subscriber, subject,
+                    predicate, object));
+        };
+    }
+
+    /**
+     * Delivers the triples of a pattern to one subscriber, in tasks that
+     * never overlap.
+     */
+    private final class StreamSubscription implements
+            TriplePublisher.Subscription {
+
+        private final TriplePublisher.Subscriber subscriber;
+        private final BlankNodeOrIRI subject;
+        private final IRI predicate;
+        private final RDFTerm object;
+
+        private final AtomicLong demand = new AtomicLong();
+        /** Requests and cancellations not yet seen by a task */
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only accessed by the tasks
+        private Stream<? extends Triple> stream;
+        private Iterator<? extends Triple> triples;
+        private boolean done;
+
+        StreamSubscription(TriplePublisher.Subscriber subscriber,
+                BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+            this.subscriber = subscriber;
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        "Non-positive request: " + n);
+                cancelled = true;
+            } else {
+                demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE
+                        : a + b);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    try {
+                        deliver();
+                    } catch (Throwable ex) {
+                        finish();
+                        subscriber.onError(ex);
+                    }
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            if (cancelled) {
+                IllegalArgumentException invalid = invalidRequest;
+                finish();
+                if (invalid != null) {
+                    subscriber.onError(invalid);
+                }
+                return;
+            }
+            if (triples == null) {
+                stream = graph.getTriples(subject, predicate, object);
+                triples = stream.iterator();
+            }
+            long requested = demand.get();
+            long sent = 0;
+            while (sent != requested) {
+                if (cancelled) {
+                    deliver();
+                    return;
+                }
+                if (!triples.hasNext()) {
+                    break;
+                }
+                subscriber.onNext(triples.next());
+                sent++;
+            }
+            if (!cancelled && !triples.hasNext()) {
+                finish();
+                subscriber.onComplete();
+            } else if (requested != Long.MAX_VALUE) {
+                demand.addAndGet(-sent);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (stream != null) {
+                stream.close();
+            }
+            stream = null;
+            triples = null;
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Emits JDK Flight Recorder events from the hot paths of this package, if
+ * the JDK has a flight recorder.
+ * <p>
+ * The events are those of <code>JfrEvents</code>, in the category
+ * <em>Commons RDF</em>: pattern queries on {@link GraphImpl}, as one event
+ * for each call and one timed until its stream ends, parses with
+ * {@link RDFParsers}, writes of a stream of triples, bulk loads with
+ * {@link BulkLoader}, and misses of the term cache of the N-Triples parser.
+ * The term cache miss event is disabled by default, as it is emitted for
+ * every new term. The others are enabled in the <code>default</code> and
+ * <code>profile</code> settings of a recording, like any event.
+ * <p>
+ * When no recording has the event enabled, the cost of an event is a check
+ * of a flag, and no object is allocated. <code>JfrEvents</code> is only
+ * compiled on JDK 11 and later, by the <code>jfr</code> profile, and is
+ * loaded by name. Where it is missing, or the JDK has no
+ * <code>jdk.jfr</code> module, the cost is that of reading a constant.
+ */
+final class FlightRecorderEvents {
+
+    /**
+     * A timed event in progress.
+     */
+    interface Span {
+        /**
+         * Commit the event.
+         *
+         * @param count Number of triples processed
+         */
+        void end(long count);
+    }
+
+    /**
+     * The events, as implemented by <code>JfrEvents</code>.
+     */
+    interface Recorder {
+
+        boolean isAvailable();
+
+        /**
+         * @param shape The shape of the pattern, as of
+         *              {@link MetricsGraph#shape(Object, Object, Object)}
+         */
+        Stream<Triple> patternQuery(Stream<Triple> stream, int shape);
+
+        Span beginParse(String syntax);
+
+        Span beginSerialize(String syntax);
+
+        Span beginBulkLoad(int files);
+
+        void termCacheMiss(String kind);
+    }
+
+    static final Span NO_SPAN = count -> {
+    };
+
+    private static final String RECORDER_CLASS = FlightRecorderEvents.class
+            .getPackage().getName() + ".JfrEvents";
+
+    /** The recorder, or <code>null</code> if not available */
+    private static final Recorder RECORDER = loadRecorder();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static Recorder loadRecorder() {
+        try {
+            Recorder recorder = (Recorder) Class.forName(RECORDER_CLASS)
+                    .getDeclaredConstructor().newInstance();
+            return recorder.isAvailable() ? recorder : null;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // Built without the jfr profile, or no jdk.jfr in this JDK
+            return null;
+        }
+    }
+
+    /**
+     * Record the call of a pattern query, and time it until the stream of its
+     * results is exhausted or closed.
+     *
+     * @return The stream to return from the query
+     */
+    static Stream<Triple> patternQuery(Stream<Triple> stream,
+            BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        if (RECORDER == null) {
+            return stream;
+        }
+        return RECORDER.patternQuery(stream,
+                MetricsGraph.shape(subject, predicate, object));
+    }
+
+    static Span beginParse(String syntax) {
+        return RECORDER != null ? RECORDER.beginParse(syntax) : NO_SPAN;
+    }
+
+    static Span beginSerialize(String syntax) {
+        return RECORDER != null ? RECORDER.beginSerialize(syntax) : NO_SPAN;
+    }
+
+    static Span beginBulkLoad(int files) {
+        return RECORDER != null ? RECORDER.beginBulkLoad(files) : NO_SPAN;
+    }
+
+    static void termCacheMiss(String kind) {
+        if (RECORDER != null) {
+            RECORDER.termCacheMiss(kind);
+        }
+    }
+
+}
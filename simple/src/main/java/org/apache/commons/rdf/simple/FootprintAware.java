@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+/**
+ * A graph that keeps account of the memory it occupies.
+ * <p>
+ * The graphs created by {@link SimpleRDFTermFactory} implement this
+ * interface, so that their footprint can be checked with
+ * <code>((FootprintAware) graph).getFootprint()</code>.
+ */
+public interface FootprintAware {
+
+    /**
+     * Get the memory footprint of this graph, as accounted so far. This
+     * takes constant time.
+     *
+     * @return The current footprint
+     */
+    GraphFootprint getFootprint();
+
+}
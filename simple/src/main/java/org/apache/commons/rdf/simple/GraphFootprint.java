@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * The memory occupied by a graph, in bytes, computed from the object layout
+ * of the running JVM.
+ * <p>
+ * A footprint has three parts:
+ * <ul>
+ * <li>the triple objects,</li>
+ * <li>the terms of the triples, with their strings, except for the
+ * {@link Types} constants, which are shared by all graphs,</li>
+ * <li>the index of the triples, which for the graphs of this package is a
+ * hash table.</li>
+ * </ul>
+ * The footprint of {@link FootprintAware#getFootprint()} is kept up to date
+ * as triples are added and removed, so it can be checked as often as needed,
+ * for instance to enforce a budget. As it is not known there whether a term
+ * is shared with other triples, it counts a term once per triple, and it
+ * sizes strings by their length, as if their characters were Latin-1.
+ * {@link #measure(Graph)} walks a graph to count each term object and each
+ * character once, which is more accurate but takes time in the size of the
+ * graph.
+ */
+public final class GraphFootprint {
+
+    private final long tripleCount;
+    private final long tripleBytes;
+    private final long termBytes;
+    private final long indexBytes;
+
+    GraphFootprint(long tripleCount, long tripleBytes, long termBytes,
+            long indexBytes) {
+        this.tripleCount = tripleCount;
+        this.tripleBytes = tripleBytes;
+        this.termBytes = termBytes;
+        this.indexBytes = indexBytes;
+    }
+
+    /**
+     * Measure the footprint of a graph by walking its triples, counting each
+     * term object once however many triples it is in.
+     * <p>
+     * The index is only known for the graphs of this package, and is
+     * otherwise counted as <code>0</code>.
+     *
+     * @param graph Graph to measure
+     * @return The footprint of the graph
+     */
+    public static GraphFootprint measure(Graph graph) {
+        ObjectLayout layout = ObjectLayout.CURRENT;
+        Set<RDFTerm> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long triples = 0;
+        long termBytes = 0;
+        Iterator<? extends Triple> it = graph.getTriples().iterator();
+        while (it.hasNext()) {
+            Triple triple = it.next();
+            triples++;
+            termBytes += measure(layout, seen, triple.getSubject());
+            termBytes += measure(layout, seen, triple.getPredicate());
+            termBytes += measure(layout, seen, triple.getObject());
+        }
+        long indexBytes = graph instanceof FootprintAware
+                ? ((FootprintAware) graph).getFootprint().getIndexBytes() : 0;
+        return new GraphFootprint(triples, triples * layout.triple(),
+                termBytes, indexBytes);
+    }
+
+    private static long measure(ObjectLayout layout, Set<RDFTerm> seen,
+            RDFTerm term) {
+        return seen.add(term) ? layout.measureTerm(term) : 0;
+    }
+
+    /**
+     * @return The number of triples
+     */
+    public long getTripleCount() {
+        return tripleCount;
+    }
+
+    /**
+     * @return The bytes of the triple objects
+     */
+    public long getTripleBytes() {
+        return tripleBytes;
+    }
+
+    /**
+     * @return The bytes of the terms of the triples and their strings
+     */
+    public long getTermBytes() {
+        return termBytes;
+    }
+
+    /**
+     * @return The bytes of the index of the triples
+     */
+    public long getIndexBytes() {
+        return indexBytes;
+    }
+
+    /**
+     * @return The bytes of the triples, terms and index
+     */
+    public long getTotalBytes() {
+        return tripleBytes + termBytes + indexBytes;
+    }
+
+    /**
+     * @return The average number of bytes per triple, or <code>0</code> for
+     *         an empty graph
+     */
+    public double getBytesPerTriple() {
+        return tripleCount == 0 ? 0 : (double) getTotalBytes() / tripleCount;
+    }
+
+    @Override
+    public String toString() {
+        return tripleCount + " triples, " + getTotalBytes() + " bytes ("
+                + tripleBytes + " triples, " + termBytes + " terms, "
+                + indexBytes + " index), "
+                + Math.round(getBytesPerTriple()) + " bytes per triple";
+    }
+
+}
@@ -19,6 +19,9 @@ package org.apache.commons.rdf.simple;
 
 import org.apache.commons.rdf.api.*;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -32,15 +35,89 @@ import java.util.stream.Stream;
  * {@link Triple}s in the graph are kept in a {@link Set}.
  * <p>
  * All Stream operations are performed using parallel and unordered directives.
+ * <p>
+ * The {@link GraphFootprint} is updated as triples are added and removed,
+ * following the growth of the {@link HashSet}.
  */
-final class GraphImpl implements Graph {
+final class GraphImpl implements Graph, FootprintAware, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final int TO_STRING_MAX = 10;
-    private final Set<Triple> triples = new HashSet<Triple>();
+
+    /** Capacity of a new {@link HashSet} */
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final Set<Triple> triples;
     private final SimpleRDFTermFactory factory;
 
+    /** Capacity of the table of the set, once allocated by the first add */
+    private final long initialCapacity;
+    private long capacity;
+    private long termBytes;
+
     GraphImpl(SimpleRDFTermFactory simpleRDFTermFactory) {
         this.factory = simpleRDFTermFactory;
+        this.triples = new HashSet<Triple>();
+        this.initialCapacity = DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Create a graph with room for the given number of triples, so that a
+     * bulk load does not rehash.
+     */
+    GraphImpl(SimpleRDFTermFactory simpleRDFTermFactory, long expectedSize) {
+        this.factory = simpleRDFTermFactory;
+        int initialCapacity = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(DEFAULT_CAPACITY, (long) (expectedSize / 0.75f) + 1));
+        this.triples = new HashSet<Triple>(initialCapacity);
+        // As rounded up by HashMap
+        this.initialCapacity = Math.min(MAXIMUM_CAPACITY,
+                Long.highestOneBit(initialCapacity - 1L) << 1);
+    }
+
+    SimpleRDFTermFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Add a triple whose terms are already local implementations, as when
+     * restoring a snapshot, without mapping them again.
+     */
+    void addInternal(Triple triple) {
+        if (triples.add(triple)) {
+            added(triple);
+        }
+    }
+
+    private void added(Triple triple) {
+        ObjectLayout layout = ObjectLayout.CURRENT;
+        termBytes += layout.term(triple.getSubject())
+                + layout.term(triple.getPredicate())
+                + layout.term(triple.getObject());
+        if (capacity == 0) {
+            capacity = initialCapacity;
+        }
+        if (triples.size() > capacity * 3 / 4 && capacity < MAXIMUM_CAPACITY) {
+            capacity *= 2;
+        }
+    }
+
+    private void removed(Triple triple) {
+        ObjectLayout layout = ObjectLayout.CURRENT;
+        termBytes -= layout.term(triple.getSubject())
+                + layout.term(triple.getPredicate())
+                + layout.term(triple.getObject());
+    }
+
+    @Override
+    public GraphFootprint getFootprint() {
+        ObjectLayout layout = ObjectLayout.CURRENT;
+        long size = triples.size();
+        // The table of a HashSet does not shrink
+        return new GraphFootprint(size, size * layout.triple(), termBytes,
+                size * layout.hashEntry() + layout.hashTable(capacity));
     }
 
     @Override
@@ -49,7 +126,9 @@ final class GraphImpl implements Graph {
         IRI newPredicate = (IRI) internallyMap(predicate);
         RDFTerm newObject = internallyMap(object);
         Triple result = factory.createTriple(newSubject, newPredicate, newObject);
-        triples.add(result);
+        if (triples.add(result)) {
+            added(result);
+        }
     }
 
     @Override
@@ -63,15 +142,19 @@ final class GraphImpl implements Graph {
         if (newSubject == triple.getSubject()
                 && newPredicate == triple.getPredicate()
                 && newObject == triple.getObject()) {
-            triples.add(triple);
+            if (triples.add(triple)) {
+                added(triple);
+            }
         } else {
             Triple result = factory.createTriple(newSubject, newPredicate,
                     newObject);
-            triples.add(result);
+            if (triples.add(result)) {
+                added(result);
+            }
         }
     }
 
-    private <T extends RDFTerm> RDFTerm internallyMap(T object) {
+    <T extends RDFTerm> RDFTerm internallyMap(T object) {
         if (object instanceof BlankNode && !(object instanceof BlankNodeImpl)) {
             BlankNode blankNode = (BlankNode) object;
             // This guarantees that adding the same BlankNode multiple times to
@@ -102,12 +185,13 @@ final class GraphImpl implements Graph {
     @Override
     public void clear() {
         triples.clear();
+        termBytes = 0;
     }
 
     @Override
     public boolean contains(BlankNodeOrIRI subject, IRI predicate,
                             RDFTerm object) {
-        return getTriples(subject, predicate, object).findFirst().isPresent();
+        return match(subject, predicate, object).findFirst().isPresent();
     }
 
     @Override
@@ -117,12 +201,22 @@ final class GraphImpl implements Graph {
 
     @Override
     public Stream<Triple> getTriples() {
-        return triples.parallelStream().unordered();
+        return FlightRecorderEvents.patternQuery(stream(), null, null, null);
     }
 
     @Override
-    public Stream<Triple> getTriples(final BlankNodeOrIRI subject,
-                                     final IRI predicate, final RDFTerm object) {
+    public Stream<Triple> getTriples(BlankNodeOrIRI subject, IRI predicate,
+                                     RDFTerm object) {
+        return FlightRecorderEvents.patternQuery(
+                match(subject, predicate, object), subject, predicate, object);
+    }
+
+    private Stream<Triple> stream() {
+        return triples.parallelStream().unordered();
+    }
+
+    private Stream<Triple> match(final BlankNodeOrIRI subject,
+                                 final IRI predicate, final RDFTerm object) {
         final BlankNodeOrIRI newSubject = (BlankNodeOrIRI) internallyMap(subject);
         final IRI newPredicate = (IRI) internallyMap(predicate);
         final RDFTerm newObject = internallyMap(object);
@@ -144,12 +238,12 @@ final class GraphImpl implements Graph {
     }
 
     private Stream<Triple> getTriples(final Predicate<Triple> filter) {
-        return getTriples().filter(filter);
+        return stream().filter(filter);
     }
 
     @Override
     public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
-        Stream<Triple> toRemove = getTriples(subject, predicate, object);
+        Stream<Triple> toRemove = match(subject, predicate, object);
         for (Triple t : toRemove.collect(Collectors.toList())) {
             // Avoid ConcurrentModificationException in ArrayList
             remove(t);
@@ -158,7 +252,9 @@ final class GraphImpl implements Graph {
 
     @Override
     public void remove(Triple triple) {
-        triples.remove(Objects.requireNonNull(triple));
+        if (triples.remove(Objects.requireNonNull(triple))) {
+            removed(triple);
+        }
     }
 
     @Override
@@ -168,7 +264,7 @@ final class GraphImpl implements Graph {
 
     @Override
     public String toString() {
-        String s = getTriples().limit(TO_STRING_MAX).map(Object::toString)
+        String s = stream().limit(TO_STRING_MAX).map(Object::toString)
                 .collect(Collectors.joining("\n"));
         if (size() > TO_STRING_MAX) {
             return s + "\n# ... +" + (size() - TO_STRING_MAX) + " more";
@@ -177,4 +273,12 @@ final class GraphImpl implements Graph {
         }
     }
 
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
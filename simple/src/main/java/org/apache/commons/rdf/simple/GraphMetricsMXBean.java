@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.List;
+
+/**
+ * Management interface of the metrics of a {@link MetricsGraph}, as
+ * registered with {@link MetricsGraph#register(String)}.
+ */
+public interface GraphMetricsMXBean {
+
+    /**
+     * @return The metrics of each operation and pattern shape that was
+     *         called at least once
+     */
+    List<MetricsGraph.OperationMetrics> getOperations();
+
+    /**
+     * @return The number of calls of all operations
+     */
+    long getOperationCount();
+
+    /**
+     * @return The number of triples returned by all pattern scans
+     */
+    long getTriplesReturned();
+
+    /**
+     * Reset all metrics to zero.
+     */
+    void reset();
+
+}
@@ -0,0 +1,473 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Serves a graph to {@link RemoteGraph} clients over TCP.
+ * <p>
+ * Each connection has a thread that performs its requests in the order they
+ * arrive, and sends a response to each, so a client may send requests
+ * without waiting for the responses to the previous ones. Matching triples
+ * are sent in chunks by a task of their own, only as far as the client has
+ * granted credit for, so that a scan neither holds up the other requests of
+ * the connection nor overruns a slow client.
+ * <p>
+ * Every message is a frame:
+ * <pre>
+ * connection = magic "RDFG", version byte, frame*
+ * frame      = int length, varint request id, op byte, body
+ * term       = as written by {@link BinaryRDFWriter}, or 0xFF for a wildcard
+ * </pre>
+ * Requests are <code>ADD</code> with a varint count and that many triples,
+ * <code>REMOVE</code>, <code>CONTAINS</code> and <code>SCAN</code> with a
+ * pattern of three terms (and for a scan a varint of initial credit),
+ * <code>SIZE</code>, <code>CLEAR</code>, and <code>CREDIT</code> and
+ * <code>CANCEL</code> of a scan. Responses are <code>OK</code> with a
+ * varint result, <code>ERROR</code> with a message, and for a scan any
+ * number of <code>CHUNK</code>s of a varint count and triples, followed by
+ * <code>END</code>.
+ * <p>
+ * Requests of several connections are performed concurrently, and a scan
+ * reads its stream while later requests are performed, so the graph must be
+ * thread-safe, like {@link ReadMostlyGraph} or {@link ShardedGraph}.
+ */
+public final class GraphServer implements AutoCloseable {
+
+    static final byte[] MAGIC = { 'R', 'D', 'F', 'G' };
+    static final int VERSION = 1;
+
+    // Requests
+    static final int OP_ADD = 1;
+    static final int OP_REMOVE = 2;
+    static final int OP_CONTAINS = 3;
+    static final int OP_SIZE = 4;
+    static final int OP_CLEAR = 5;
+    static final int OP_SCAN = 6;
+    static final int OP_CREDIT = 7;
+    static final int OP_CANCEL = 8;
+
+    // Responses
+    static final int OP_OK = 16;
+    static final int OP_ERROR = 17;
+    static final int OP_CHUNK = 18;
+    static final int OP_END = 19;
+
+    /** Maximum number of triples in a chunk of a scan */
+    static final int CHUNK_SIZE = 1024;
+
+    /** Maximum length of a frame, as a guard against corrupt input */
+    static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Graph graph;
+    private final ServerSocketChannel server;
+    private final ExecutorService executor;
+    private final Thread acceptor;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Serve a graph on a local address.
+     *
+     * @param graph   The graph, which must be thread-safe
+     * @param address The address to listen on, with port <code>0</code> for
+     *                any free port
+     * @throws IOException If the address could not be bound
+     */
+    public GraphServer(Graph graph, InetSocketAddress address)
+            throws IOException {
+        this.graph = Objects.requireNonNull(graph);
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "GraphServer worker");
+            t.setDaemon(true);
+            return t;
+        });
+        acceptor = new Thread(this::accept, "GraphServer acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return The address the server listens on
+     */
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) server.getLocalAddress();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Server is closed", ex);
+        }
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (IOException ex) {
+                // Closed
+                return;
+            }
+            try {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Connection connection = new Connection(channel);
+                connections.add(connection);
+                executor.execute(connection::run);
+            } catch (IOException | RuntimeException ex) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting connections, and close the open ones. Scans in progress
+     * are abandoned.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // Nothing more to do
+        }
+    }
+
+    /**
+     * The requests of one client.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final BinaryInput in;
+        /** Guards the channel for writing, and {@link #out} */
+        private final Object writeLock = new Object();
+        private final BinaryOutput out = new BinaryOutput(BUFFER_SIZE);
+        private final Map<Long, Scan> scans = new ConcurrentHashMap<>();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new BinaryInput(channel, BUFFER_SIZE);
+        }
+
+        void run() {
+            try {
+                for (byte b : MAGIC) {
+                    if (in.readByte() != b) {
+                        return;
+                    }
+                }
+                if (in.readByte() != VERSION) {
+                    return;
+                }
+                while (in.request(4)) {
+                    int length = in.readInt();
+                    if (length < 2 || length > MAX_FRAME_LENGTH) {
+                        throw new IOException("Invalid frame length " + length);
+                    }
+                    in.beginFrame(length);
+                    long id = in.readVarint();
+                    int op = in.readByte();
+                    try {
+                        request(id, op);
+                    } catch (IllegalArgumentException ex) {
+                        // An invalid term, the rest of the frame is skipped
+                        error(id, ex);
+                    }
+                    in.endFrame();
+                }
+            } catch (IOException ex) {
+                // Disconnected or invalid input, drop the connection
+            } finally {
+                close();
+                connections.remove(this);
+            }
+        }
+
+        private void request(long id, int op) throws IOException {
+            switch (op) {
+            case OP_CREDIT:
+                long credit = in.readVarint();
+                Scan scan = scans.get(id);
+                if (scan != null) {
+                    scan.grant(credit);
+                }
+                return;
+            case OP_CANCEL:
+                Scan cancelled = scans.remove(id);
+                if (cancelled != null) {
+                    cancelled.cancel();
+                }
+                return;
+            case OP_ADD:
+                int count = in.readLength();
+                List<Triple> triples = new ArrayList<>(Math.min(count,
+                        CHUNK_SIZE));
+                for (int i = 0; i < count; i++) {
+                    triples.add(readTriple());
+                }
+                try {
+                    for (Triple triple : triples) {
+                        graph.add(triple);
+                    }
+                    ok(id, count);
+                } catch (RuntimeException ex) {
+                    error(id, ex);
+                }
+                return;
+            default:
+            }
+            RDFTerm subject = null;
+            RDFTerm predicate = null;
+            RDFTerm object = null;
+            long credit = 0;
+            if (op == OP_REMOVE || op == OP_CONTAINS || op == OP_SCAN) {
+                subject = BinaryTerms.readChecked(in);
+                predicate = BinaryTerms.readChecked(in);
+                object = BinaryTerms.readChecked(in);
+                if (op == OP_SCAN) {
+                    credit = in.readVarint();
+                }
+            }
+            try {
+                switch (op) {
+                case OP_REMOVE:
+                    graph.remove((BlankNodeOrIRI) subject, (IRI) predicate,
+                            object);
+                    ok(id, 0);
+                    break;
+                case OP_CONTAINS:
+                    ok(id, graph.contains((BlankNodeOrIRI) subject,
+                            (IRI) predicate, object) ? 1 : 0);
+                    break;
+                case OP_SIZE:
+                    ok(id, graph.size());
+                    break;
+                case OP_CLEAR:
+                    graph.clear();
+                    ok(id, 0);
+                    break;
+                case OP_SCAN:
+                    Scan scan = new Scan(id, graph.getTriples(
+                            (BlankNodeOrIRI) subject, (IRI) predicate, object),
+                            credit);
+                    scans.put(id, scan);
+                    executor.execute(scan::run);
+                    break;
+                default:
+                    throw new IOException("Invalid request " + op);
+                }
+            } catch (RuntimeException ex) {
+                error(id, ex);
+            }
+        }
+
+        private Triple readTriple() throws IOException {
+            RDFTerm subject = BinaryTerms.readChecked(in);
+            RDFTerm predicate = BinaryTerms.readChecked(in);
+            RDFTerm object = BinaryTerms.readChecked(in);
+            if (!(subject instanceof BlankNodeOrIRI)
+                    || !(predicate instanceof IRI) || object == null) {
+                throw new IOException("Invalid triple at byte "
+                        + in.position());
+            }
+            return new TripleImpl((BlankNodeOrIRI) subject, (IRI) predicate,
+                    object);
+        }
+
+        private void ok(long id, long result) throws IOException {
+            synchronized (writeLock) {
+                int start = begin(id, OP_OK);
+                out.writeVarint(result);
+                end(start);
+            }
+        }
+
+        private void error(long id, Exception error) throws IOException {
+            synchronized (writeLock) {
+                int start = begin(id, OP_ERROR);
+                out.writeString(String.valueOf(error));
+                end(start);
+            }
+        }
+
+        /**
+         * Start a frame in {@link #out}, under the write lock.
+         *
+         * @return The position of the frame length
+         */
+        private int begin(long id, int op) {
+            int start = out.size();
+            out.writeInt(0);
+            out.writeVarint(id);
+            out.writeByte(op);
+            return start;
+        }
+
+        /**
+         * Complete a frame, and send it.
+         */
+        private void end(int start) throws IOException {
+            out.setInt(start, out.size() - start - 4);
+            out.writeTo(channel);
+        }
+
+        void close() {
+            closeQuietly(channel);
+            for (Scan scan : scans.values()) {
+                scan.cancel();
+            }
+            scans.clear();
+        }
+
+        /**
+         * Sends the triples of a stream in chunks, as long as there is
+         * credit.
+         */
+        private final class Scan {
+
+            private final long id;
+            private final Stream<? extends Triple> stream;
+            private final BinaryOutput chunk = new BinaryOutput(BUFFER_SIZE);
+
+            // Guarded by this
+            private long credit;
+            private boolean cancelled;
+
+            Scan(long id, Stream<? extends Triple> stream, long credit) {
+                this.id = id;
+                this.stream = stream;
+                this.credit = credit;
+            }
+
+            synchronized void grant(long n) {
+                credit += n;
+                notifyAll();
+            }
+
+            synchronized void cancel() {
+                cancelled = true;
+                notifyAll();
+            }
+
+            /**
+             * Wait for credit for a chunk.
+             *
+             * @return <code>false</code> if cancelled
+             */
+            private synchronized boolean acquire() throws InterruptedException {
+                while (credit == 0 && !cancelled) {
+                    wait();
+                }
+                if (cancelled) {
+                    return false;
+                }
+                credit--;
+                return true;
+            }
+
+            void run() {
+                try {
+                    Iterator<? extends Triple> triples = stream.iterator();
+                    int count = 0;
+                    while (triples.hasNext()) {
+                        Triple triple = triples.next();
+                        BinaryTerms.write(chunk, triple.getSubject());
+                        BinaryTerms.write(chunk, triple.getPredicate());
+                        BinaryTerms.write(chunk, triple.getObject());
+                        if (++count == CHUNK_SIZE) {
+                            if (!send(count)) {
+                                return;
+                            }
+                            count = 0;
+                        }
+                    }
+                    if (count > 0 && !send(count)) {
+                        return;
+                    }
+                    if (scans.remove(id) != null) {
+                        synchronized (writeLock) {
+                            end(begin(id, OP_END));
+                        }
+                    }
+                } catch (RuntimeException ex) {
+                    if (scans.remove(id) != null) {
+                        try {
+                            error(id, ex);
+                        } catch (IOException e) {
+                            Connection.this.close();
+                        }
+                    }
+                } catch (ClosedChannelException | InterruptedException ex) {
+                    // Connection closed
+                } catch (IOException ex) {
+                    Connection.this.close();
+                } finally {
+                    stream.close();
+                }
+            }
+
+            private boolean send(int count) throws IOException,
+                    InterruptedException {
+                if (!acquire()) {
+                    return false;
+                }
+                synchronized (writeLock) {
+                    int start = begin(id, OP_CHUNK);
+                    out.writeVarint(count);
+                    out.write(chunk);
+                    end(start);
+                }
+                chunk.reset();
+                return true;
+            }
+        }
+    }
+
+}
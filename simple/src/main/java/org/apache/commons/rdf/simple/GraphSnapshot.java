@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Snapshots of graphs, for restoring an in-memory graph quickly, for instance
+ * at startup.
+ * <p>
+ * A snapshot holds a table of the distinct terms of the graph, followed by
+ * the triples as fixed-width term ids:
+ * <pre>
+ * snapshot = magic "RDFS", version byte, int termCount, long tripleCount,
+ *            term*, (int subject, int predicate, int object)*
+ * </pre>
+ * {@link #read(Path, SimpleRDFTermFactory)} creates each term once, without
+ * validating it again, and decodes the triples in bulk straight into a
+ * presized graph, bypassing the term mapping and the factory calls of
+ * {@link Graph#add(Triple)}. Blank nodes keep their
+ * {@link BlankNode#uniqueReference()}, so a restored graph is equal to the
+ * graph it was taken from, blank nodes included.
+ * <p>
+ * Snapshots are written to a temporary file which then replaces the target
+ * file, so a snapshot is never left half written.
+ */
+public final class GraphSnapshot {
+
+    private static final byte[] MAGIC = { 'R', 'D', 'F', 'S' };
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 4 + 8;
+
+    // Terms are encoded as in the binary RDF format
+    private static final int KIND_IRI = BinaryRDFWriter.KIND_IRI;
+    private static final int KIND_BLANK_NODE = BinaryRDFWriter.KIND_BLANK_NODE;
+    private static final int KIND_STRING = BinaryRDFWriter.KIND_STRING;
+    private static final int KIND_LANG_STRING = BinaryRDFWriter.KIND_LANG_STRING;
+    private static final int KIND_TYPED_LITERAL = BinaryRDFWriter.KIND_TYPED_LITERAL;
+
+    /** Triples decoded per bulk read */
+    private static final int TRIPLES_PER_READ = 8192;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Largest number of terms or triples that tables are presized for from
+     * the header, as it is not trusted; larger snapshots grow as they are read
+     */
+    private static final int MAX_PRESIZE = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of the graph to a file, replacing the file if it
+     * exists.
+     * <p>
+     * The graph must not be modified while the snapshot is written.
+     *
+     * @param graph Graph to snapshot
+     * @param file  File to write
+     * @return The number of triples written
+     * @throws IOException                     If the file could not be
+     *                                         written
+     * @throws ConcurrentModificationException If the graph was modified
+     *                                         while writing
+     */
+    public static long write(Graph graph, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long triples;
+        boolean written = false;
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BinaryOutput out = new BinaryOutput(BUFFER_SIZE);
+            out.writeBytes(new byte[HEADER_SIZE], 0, HEADER_SIZE);
+
+            // First pass: the term table
+            Map<RDFTerm, Integer> ids = new HashMap<>();
+            Iterator<? extends Triple> it = graph.getTriples().iterator();
+            long expected = 0;
+            while (it.hasNext()) {
+                Triple t = it.next();
+                id(t.getSubject(), ids, out);
+                id(t.getPredicate(), ids, out);
+                id(t.getObject(), ids, out);
+                expected++;
+                if (out.size() >= BUFFER_SIZE) {
+                    out.writeTo(channel);
+                }
+            }
+
+            // Second pass: the triples
+            triples = 0;
+            it = graph.getTriples().iterator();
+            while (it.hasNext()) {
+                Triple t = it.next();
+                Integer s = ids.get(t.getSubject());
+                Integer p = ids.get(t.getPredicate());
+                Integer o = ids.get(t.getObject());
+                if (s == null || p == null || o == null) {
+                    throw new ConcurrentModificationException(
+                            "Graph modified while writing snapshot");
+                }
+                out.writeInt(s);
+                out.writeInt(p);
+                out.writeInt(o);
+                triples++;
+                if (out.size() >= BUFFER_SIZE) {
+                    out.writeTo(channel);
+                }
+            }
+            if (triples != expected) {
+                throw new ConcurrentModificationException(
+                        "Graph modified while writing snapshot");
+            }
+            out.writeTo(channel);
+
+            out.writeBytes(MAGIC, 0, MAGIC.length);
+            out.writeByte(VERSION);
+            out.writeInt(ids.size());
+            out.writeLong(triples);
+            ByteBuffer header = ByteBuffer.wrap(out.buffer(), 0, out.size());
+            channel.write(header, 0);
+            channel.force(false);
+            written = true;
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return triples;
+    }
+
+    /**
+     * Restore a graph from a snapshot, using a new
+     * {@link SimpleRDFTermFactory}.
+     *
+     * @param file Snapshot file to read
+     * @return A new graph with the triples of the snapshot
+     * @throws IOException If the file could not be read, or is not a valid
+     *                     snapshot
+     */
+    public static Graph read(Path file) throws IOException {
+        return read(file, new SimpleRDFTermFactory());
+    }
+
+    /**
+     * Restore a graph from a snapshot.
+     *
+     * @param file    Snapshot file to read
+     * @param factory Factory of the restored graph, used for later additions
+     * @return A new graph with the triples of the snapshot
+     * @throws IOException If the file could not be read, or is not a valid
+     *                     snapshot
+     */
+    public static Graph read(Path file, SimpleRDFTermFactory factory)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(channel, BUFFER_SIZE);
+            byte[] magic = new byte[MAGIC.length];
+            if (!in.request(HEADER_SIZE)) {
+                throw new IOException("Not a graph snapshot: too short");
+            }
+            in.readFully(magic, 0, magic.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a graph snapshot: bad magic");
+            }
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version: "
+                        + version);
+            }
+            int termCount = in.readInt();
+            long tripleCount = in.readLong();
+            if (termCount < 0 || tripleCount < 0) {
+                throw new IOException("Corrupt snapshot header");
+            }
+
+            List<RDFTerm> terms = new ArrayList<>(
+                    Math.min(termCount, MAX_PRESIZE));
+            for (int i = 0; i < termCount; i++) {
+                terms.add(readTerm(in, terms));
+            }
+
+            GraphImpl graph = new GraphImpl(factory,
+                    Math.min(tripleCount, MAX_PRESIZE));
+            int[] ids = new int[3 * TRIPLES_PER_READ];
+            long remaining = tripleCount;
+            while (remaining > 0) {
+                int n = (int) Math.min(remaining, TRIPLES_PER_READ);
+                in.readInts(ids, 0, 3 * n);
+                for (int i = 0; i < 3 * n; i += 3) {
+                    RDFTerm s = term(terms, ids[i]);
+                    RDFTerm p = term(terms, ids[i + 1]);
+                    if (!(s instanceof BlankNodeOrIRI) || !(p instanceof IRI)) {
+                        throw new IOException("Corrupt snapshot triple");
+                    }
+                    graph.addInternal(new TripleImpl((BlankNodeOrIRI) s,
+                            (IRI) p, term(terms, ids[i + 2])));
+                }
+                remaining -= n;
+            }
+            if (!in.atEnd()) {
+                throw new IOException("Unexpected data after snapshot");
+            }
+            return graph;
+        }
+    }
+
+    private static int id(RDFTerm term, Map<RDFTerm, Integer> ids,
+            BinaryOutput out) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        if (term instanceof IRI) {
+            out.writeByte(KIND_IRI);
+            out.writeString(((IRI) term).getIRIString());
+        } else if (term instanceof BlankNode) {
+            out.writeByte(KIND_BLANK_NODE);
+            out.writeString(((BlankNode) term).uniqueReference());
+        } else if (term instanceof Literal) {
+            Literal literal = (Literal) term;
+            Optional<String> languageTag = literal.getLanguageTag();
+            if (languageTag.isPresent()) {
+                out.writeByte(KIND_LANG_STRING);
+                out.writeString(literal.getLexicalForm());
+                out.writeString(languageTag.get());
+            } else if (Types.XSD_STRING.equals(literal.getDatatype())) {
+                out.writeByte(KIND_STRING);
+                out.writeString(literal.getLexicalForm());
+            } else {
+                int datatype = id(literal.getDatatype(), ids, out);
+                out.writeByte(KIND_TYPED_LITERAL);
+                out.writeVarint(datatype);
+                out.writeString(literal.getLexicalForm());
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported RDFTerm: " + term);
+        }
+        id = ids.size();
+        ids.put(term, id);
+        return id;
+    }
+
+    private static RDFTerm readTerm(BinaryInput in, List<RDFTerm> terms)
+            throws IOException {
+        int kind = in.readByte();
+        switch (kind) {
+        case KIND_IRI:
+            IRI iri = IRIImpl.unchecked(in.readString());
+            // Keep the shared constants for known datatypes
+            return Types.get(iri).orElse(iri);
+        case KIND_BLANK_NODE:
+            return BlankNodeImpl.withUniqueReference(in.readString());
+        case KIND_STRING:
+            return LiteralImpl.unchecked(in.readString(), Types.XSD_STRING,
+                    null);
+        case KIND_LANG_STRING:
+            String lexicalForm = in.readString();
+            return LiteralImpl.unchecked(lexicalForm, null, in.readString());
+        case KIND_TYPED_LITERAL:
+            long datatype = in.readVarint();
+            if (datatype < 0 || datatype >= terms.size()
+                    || !(terms.get((int) datatype) instanceof IRI)) {
+                throw new IOException("Corrupt snapshot datatype");
+            }
+            return LiteralImpl.unchecked(in.readString(),
+                    (IRI) terms.get((int) datatype), null);
+        default:
+            throw new IOException("Corrupt snapshot term kind: " + kind);
+        }
+    }
+
+    private static RDFTerm term(List<RDFTerm> terms, int id)
+            throws IOException {
+        if (id < 0 || id >= terms.size()) {
+            throw new IOException("Corrupt snapshot term id: " + id);
+        }
+        return terms.get(id);
+    }
+
+}
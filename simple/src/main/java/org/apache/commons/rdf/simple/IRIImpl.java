@@ -19,12 +19,22 @@ package org.apache.commons.rdf.simple;
 
 import org.apache.commons.rdf.api.IRI;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.net.URI;
 
 /**
  * A simple implementation of IRI.
  */
-final class IRIImpl implements IRI {
+final class IRIImpl implements IRI, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Marks the constructor of IRIs that have already been checked */
+    private enum Unchecked {
+        INSTANCE
+    }
 
     private final String iri;
 
@@ -36,6 +46,18 @@ final class IRIImpl implements IRI {
         this.iri = iri;
     }
 
+    private IRIImpl(Unchecked unchecked, String iri) {
+        this.iri = iri;
+    }
+
+    /**
+     * Create an IRI that has already been checked, such as one restored from
+     * a snapshot of a graph, without checking it again.
+     */
+    static IRIImpl unchecked(String iri) {
+        return new IRIImpl(Unchecked.INSTANCE, iri);
+    }
+
     @Override
     public String getIRIString() {
         return iri;
@@ -68,4 +90,12 @@ final class IRIImpl implements IRI {
         return iri.hashCode();
     }
 
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
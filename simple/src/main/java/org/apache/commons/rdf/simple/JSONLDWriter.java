@@ -0,0 +1,438 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming writer of <a href="https://www.w3.org/TR/json-ld/">JSON-LD</a>
+ * in flattened document form.
+ * <p>
+ * The output is a single JSON object with an optional <code>@context</code>
+ * of prefix definitions and a <code>@graph</code> array holding one node
+ * object per subject, written on its own line:
+ * <pre>
+ * {
+ *   "@context": {"ex": "http://example.com/"},
+ *   "@graph": [
+ *     {"@id": "ex:s", "@type": ["ex:T"], "ex:p": [{"@value": "v"}, {"@id": "ex:o"}]}
+ *   ]
+ * }
+ * </pre>
+ * Predicates, <code>@id</code> and <code>@type</code> values are compacted
+ * to <code>prefix:local</code> using the prefix map where possible.
+ * <code>rdf:type</code> objects that are IRIs or blank nodes are written as
+ * <code>@type</code>, and literal values keep their lexical form.
+ * <p>
+ * Node objects are written straight to the channel as their subject is
+ * complete, without building a document tree. As with {@link TurtleWriter},
+ * triples are grouped by subject within a bounded window (see
+ * {@link #JSONLDWriter(WritableByteChannel, Map, int)}), so input that is
+ * ordered or clustered by subject gives one node object per subject, while a
+ * subject whose triples are spread further apart than the window gives more
+ * than one node object with the same <code>@id</code>. JSON-LD processors
+ * merge those when expanding or flattening the document.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. Streams passed to
+ * {@link #write(Stream)} are consumed sequentially, even if they are parallel.
+ */
+public final class JSONLDWriter implements AutoCloseable {
+
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+
+    private static final String INDENT = "    ";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final NTriplesWriter out;
+    private final SubjectGrouper grouper;
+
+    /** Namespaces by prefix name, in the order they were given */
+    private final Map<String, String> prefixes;
+
+    /** Prefix names by namespace, for compaction */
+    private final Map<String, String> prefixByNamespace = new LinkedHashMap<>();
+
+    /** Namespaces usable for compaction, longest first */
+    private final String[] namespaces;
+
+    private boolean headerWritten;
+    private boolean firstNode = true;
+
+    /**
+     * Create a JSON-LD writer to the given channel.
+     *
+     * @param channel  Channel to write to
+     * @param prefixes Namespace IRIs by prefix name, for instance
+     *                 <code>"ex"</code> mapped to
+     *                 <code>"http://example.com/"</code>, written as the
+     *                 <code>@context</code>
+     * @throws IllegalArgumentException If a prefix name is empty, a keyword,
+     *                                  <code>_</code> or contains a colon
+     */
+    public JSONLDWriter(WritableByteChannel channel, Map<String, String> prefixes) {
+        this(channel, prefixes, TurtleWriter.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a JSON-LD writer to the given output stream.
+     * <p>
+     * The output stream is closed by {@link #close()}.
+     *
+     * @param out      OutputStream to write to
+     * @param prefixes Namespace IRIs by prefix name
+     * @throws IllegalArgumentException If a prefix name is empty, a keyword,
+     *                                  <code>_</code> or contains a colon
+     */
+    public JSONLDWriter(OutputStream out, Map<String, String> prefixes) {
+        this(Channels.newChannel(out), prefixes);
+    }
+
+    /**
+     * Create a JSON-LD writer to the given channel, grouping triples within a
+     * window of the given size.
+     *
+     * @param channel    Channel to write to
+     * @param prefixes   Namespace IRIs by prefix name
+     * @param windowSize Maximum number of triples held back for grouping by
+     *                   subject
+     * @throws IllegalArgumentException If a prefix name is empty, a keyword,
+     *                                  <code>_</code> or contains a colon, or
+     *                                  the window size is not positive
+     */
+    public JSONLDWriter(WritableByteChannel channel,
+            Map<String, String> prefixes, int windowSize) {
+        this.out = new NTriplesWriter(channel);
+        this.grouper = new SubjectGrouper(windowSize, this::writeNode);
+        this.prefixes = new LinkedHashMap<>(prefixes);
+        for (Map.Entry<String, String> prefix : this.prefixes.entrySet()) {
+            String name = prefix.getKey();
+            if (name.isEmpty() || name.startsWith("@") || name.equals("_")
+                    || name.indexOf(':') >= 0) {
+                throw new IllegalArgumentException("Invalid prefix name: "
+                        + name);
+            }
+            // JSON-LD 1.1 only uses a term as a prefix if its IRI ends
+            // with a gen-delim character
+            String namespace = prefix.getValue();
+            if (!namespace.isEmpty() && ":/?#[]@".indexOf(
+                    namespace.charAt(namespace.length() - 1)) >= 0) {
+                prefixByNamespace.put(namespace, name);
+            }
+        }
+        List<String> sorted = new ArrayList<>(prefixByNamespace.keySet());
+        sorted.sort((a, b) -> b.length() - a.length());
+        this.namespaces = sorted.toArray(new String[sorted.size()]);
+    }
+
+    /**
+     * Write a single triple.
+     * <p>
+     * The triple may be held back to be grouped with later triples of the
+     * same subject, until the window is full or the writer is flushed.
+     *
+     * @param triple Triple to write
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(Triple triple) throws IOException {
+        grouper.add(triple);
+    }
+
+    /**
+     * Write all triples of the stream.
+     *
+     * @param triples Stream of triples to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Stream<? extends Triple> triples) throws IOException {
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginSerialize("JSONLD");
+        long count = 0;
+        try {
+            Iterator<? extends Triple> it = triples.iterator();
+            while (it.hasNext()) {
+                grouper.add(it.next());
+                count++;
+            }
+        } finally {
+            span.end(count);
+        }
+        return count;
+    }
+
+    /**
+     * Write all triples of the graph.
+     *
+     * @param graph Graph to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Graph graph) throws IOException {
+        return write(graph.getTriples());
+    }
+
+    /**
+     * Write all held back triples and any buffered bytes to the underlying
+     * channel.
+     * <p>
+     * The document is only complete once the writer is closed. Triples
+     * written after a flush are not grouped with those written before it.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void flush() throws IOException {
+        writeHeader();
+        grouper.flush();
+        out.flush();
+    }
+
+    /**
+     * Complete the document, then flush and close the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     *                     or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeader();
+            grouper.flush();
+            out.writeRaw(firstNode ? "]\n}\n" : "\n  ]\n}\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        out.writeRaw("{\n");
+        if (!prefixes.isEmpty()) {
+            out.writeRaw("  \"@context\": {");
+            boolean first = true;
+            for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+                if (!first) {
+                    out.writeRaw(", ");
+                }
+                first = false;
+                writeString(prefix.getKey());
+                out.writeRaw(": ");
+                writeString(prefix.getValue());
+            }
+            out.writeRaw("},\n");
+        }
+        out.writeRaw("  \"@graph\": [");
+    }
+
+    private void writeNode(BlankNodeOrIRI subject,
+            Map<IRI, List<RDFTerm>> properties) throws IOException {
+        writeHeader();
+        out.writeRaw(firstNode ? "\n" + INDENT + "{\"@id\": " : ",\n" + INDENT
+                + "{\"@id\": ");
+        firstNode = false;
+        writeId(subject);
+
+        // @type first, as is customary, if all types are nodes
+        List<RDFTerm> types = null;
+        for (Map.Entry<IRI, List<RDFTerm>> property : properties.entrySet()) {
+            if (RDF_TYPE.equals(property.getKey().getIRIString())
+                    && allNodes(property.getValue())) {
+                types = property.getValue();
+                out.writeRaw(", \"@type\": [");
+                boolean first = true;
+                for (RDFTerm type : types) {
+                    if (!first) {
+                        out.writeRaw(", ");
+                    }
+                    first = false;
+                    writeId((BlankNodeOrIRI) type);
+                }
+                out.writeByte(']');
+            }
+        }
+        for (Map.Entry<IRI, List<RDFTerm>> property : properties.entrySet()) {
+            if (property.getValue() == types) {
+                continue;
+            }
+            out.writeRaw(", ");
+            writeId(property.getKey());
+            out.writeRaw(": [");
+            boolean first = true;
+            for (RDFTerm object : property.getValue()) {
+                if (!first) {
+                    out.writeRaw(", ");
+                }
+                first = false;
+                writeValue(object);
+            }
+            out.writeByte(']');
+        }
+        out.writeByte('}');
+    }
+
+    private static boolean allNodes(List<RDFTerm> objects) {
+        for (RDFTerm object : objects) {
+            if (!(object instanceof BlankNodeOrIRI)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeValue(RDFTerm term) throws IOException {
+        if (term instanceof BlankNodeOrIRI) {
+            out.writeRaw("{\"@id\": ");
+            writeId((BlankNodeOrIRI) term);
+            out.writeByte('}');
+        } else if (term instanceof Literal) {
+            Literal literal = (Literal) term;
+            out.writeRaw("{\"@value\": ");
+            writeString(literal.getLexicalForm());
+            Optional<String> languageTag = literal.getLanguageTag();
+            if (languageTag.isPresent()) {
+                out.writeRaw(", \"@language\": ");
+                writeString(languageTag.get());
+            } else {
+                IRI datatype = literal.getDatatype();
+                if (datatype != Types.XSD_STRING
+                        && !Types.XSD_STRING.equals(datatype)) {
+                    out.writeRaw(", \"@type\": ");
+                    writeId(datatype);
+                }
+            }
+            out.writeByte('}');
+        } else {
+            throw new IllegalArgumentException("Unsupported RDFTerm: " + term);
+        }
+    }
+
+    /**
+     * Write an IRI, compacted if possible, or a blank node identifier, as a
+     * JSON string.
+     */
+    private void writeId(BlankNodeOrIRI node) throws IOException {
+        if (node instanceof IRI) {
+            String iri = ((IRI) node).getIRIString();
+            String namespace = namespaceOf(iri);
+            if (namespace == null) {
+                writeString(iri);
+            } else {
+                out.writeByte('"');
+                out.writeRaw(prefixByNamespace.get(namespace));
+                out.writeByte(':');
+                writeEscaped(iri, namespace.length());
+                out.writeByte('"');
+            }
+        } else if (node instanceof BlankNodeImpl) {
+            out.writeRaw("\"_:");
+            writeEscaped(((BlankNodeImpl) node).uniqueReference(), 0);
+            out.writeByte('"');
+        } else if (node instanceof BlankNode) {
+            writeString(((BlankNode) node).ntriplesString());
+        } else {
+            throw new IllegalArgumentException("Unsupported RDFTerm: " + node);
+        }
+    }
+
+    /**
+     * The longest namespace that the IRI can be compacted with, or
+     * <code>null</code>.
+     */
+    private String namespaceOf(String iri) {
+        for (String namespace : namespaces) {
+            // A local part starting with "//" would be read as an absolute IRI
+            if (iri.length() > namespace.length() && iri.startsWith(namespace)
+                    && !iri.startsWith("//", namespace.length())) {
+                return namespace;
+            }
+        }
+        return null;
+    }
+
+    private void writeString(String s) throws IOException {
+        out.writeByte('"');
+        writeEscaped(s, 0);
+        out.writeByte('"');
+    }
+
+    /**
+     * Write the string from the given index, escaped as the content of a
+     * JSON string. Runs of chars that need no escaping are written as is.
+     */
+    private void writeEscaped(String s, int start) throws IOException {
+        int len = s.length();
+        int run = start;
+        for (int i = start; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.writeRaw(s, run, i);
+            run = i + 1;
+            out.writeByte('\\');
+            switch (c) {
+            case '"':
+            case '\\':
+                out.writeByte(c);
+                break;
+            case '\n':
+                out.writeByte('n');
+                break;
+            case '\r':
+                out.writeByte('r');
+                break;
+            case '\t':
+                out.writeByte('t');
+                break;
+            case '\b':
+                out.writeByte('b');
+                break;
+            case '\f':
+                out.writeByte('f');
+                break;
+            default:
+                out.writeRaw("u00");
+                out.writeByte(HEX[c >> 4]);
+                out.writeByte(HEX[c & 0xF]);
+            }
+        }
+        out.writeRaw(s, run, len);
+    }
+
+}
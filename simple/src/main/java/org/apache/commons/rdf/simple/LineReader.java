@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Splits the bytes of a channel into lines, without copying or decoding them.
+ * <p>
+ * After {@link #next()} returns true, the current line is found in
+ * {@link #buffer()} between {@link #lineStart()} (inclusive) and
+ * {@link #lineEnd()} (exclusive), excluding the line terminator. A line
+ * is terminated by <code>\n</code>, <code>\r</code> or <code>\r\n</code>.
+ * <p>
+ * The buffer is reused between lines, so memory use is bounded by the buffer
+ * size or the longest line, whichever is larger.
+ */
+final class LineReader {
+
+    private final ReadableByteChannel channel;
+    private byte[] buf;
+    private ByteBuffer byteBuffer;
+    /** Start of unconsumed data */
+    private int pos;
+    /** End of data read so far */
+    private int limit;
+    /** Where to continue looking for a line terminator */
+    private int scanPos;
+    private boolean eof;
+    /** Skip a \n following a \r that terminated the previous line */
+    private boolean skipLF;
+
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+
+    LineReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buf = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buf);
+    }
+
+    /**
+     * Advance to the next line.
+     *
+     * @return true if there is a current line, false at end of input
+     * @throws IOException If the channel could not be read
+     */
+    boolean next() throws IOException {
+        if (skipLF) {
+            if (pos == limit && !eof) {
+                fill();
+            }
+            if (pos < limit && buf[pos] == '\n') {
+                pos++;
+                scanPos = pos;
+            }
+            skipLF = false;
+        }
+        while (true) {
+            for (int i = scanPos; i < limit; i++) {
+                byte c = buf[i];
+                if (c == '\n' || c == '\r') {
+                    lineStart = pos;
+                    lineEnd = i;
+                    pos = i + 1;
+                    scanPos = pos;
+                    skipLF = c == '\r';
+                    lineNumber++;
+                    return true;
+                }
+            }
+            scanPos = limit;
+            if (eof) {
+                if (pos < limit) {
+                    // Last line without terminator
+                    lineStart = pos;
+                    lineEnd = limit;
+                    pos = limit;
+                    lineNumber++;
+                    return true;
+                }
+                return false;
+            }
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            int remaining = limit - pos;
+            System.arraycopy(buf, pos, buf, 0, remaining);
+            scanPos -= pos;
+            limit = remaining;
+            pos = 0;
+        } else if (limit == buf.length) {
+            // A single line longer than the buffer
+            buf = Arrays.copyOf(buf, buf.length * 2);
+            byteBuffer = ByteBuffer.wrap(buf);
+        }
+        byteBuffer.limit(buf.length);
+        byteBuffer.position(limit);
+        int read = channel.read(byteBuffer);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    int lineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * @return The number of the current line, starting from 1
+     */
+    long lineNumber() {
+        return lineNumber;
+    }
+
+}
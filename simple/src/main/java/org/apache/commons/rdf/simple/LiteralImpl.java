@@ -17,6 +17,9 @@
  */
 package org.apache.commons.rdf.simple;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.IllformedLocaleException;
 import java.util.Locale;
 import java.util.Objects;
@@ -28,7 +31,9 @@ import org.apache.commons.rdf.api.Literal;
 /**
  * A simple implementation of Literal.
  */
-final class LiteralImpl implements Literal {
+final class LiteralImpl implements Literal, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private static final String QUOTE = "\"";
 
@@ -72,6 +77,29 @@ final class LiteralImpl implements Literal {
         this.dataType = Types.RDF_LANGSTRING;
     }
 
+    private LiteralImpl(String lexicalForm, IRI dataType, String languageTag) {
+        this.lexicalForm = lexicalForm;
+        this.dataType = dataType;
+        this.languageTag = languageTag;
+    }
+
+    /**
+     * Create a literal from parts that have already been checked and
+     * normalized, such as those of a literal restored from a snapshot of a
+     * graph, without checking them again.
+     *
+     * @param lexicalForm The lexical form
+     * @param dataType    The datatype, which must be the {@link Types}
+     *                    constant for known datatypes
+     * @param languageTag The lower case language tag, or <code>null</code>
+     */
+    static LiteralImpl unchecked(String lexicalForm, IRI dataType,
+            String languageTag) {
+        return new LiteralImpl(lexicalForm,
+                languageTag == null ? dataType : Types.RDF_LANGSTRING,
+                languageTag);
+    }
+
     @Override
     public IRI getDatatype() {
         return dataType;
@@ -89,13 +117,29 @@ final class LiteralImpl implements Literal {
 
     @Override
     public String ntriplesString() {
-        StringBuilder sb = new StringBuilder();
+        String lexical = getLexicalForm();
+        StringBuilder sb = new StringBuilder(lexical.length() + 16);
         sb.append(QUOTE);
-        // Escape special characters
-        sb.append(getLexicalForm().replace("\\", "\\\\"). // escaped to \\
-                replace("\"", "\\\""). // escaped to \"
-                replace("\r", "\\r"). // escaped to \r
-                replace("\n", "\\n")); // escaped to \n
+        // Escape special characters in a single pass
+        for (int i = 0; i < lexical.length(); i++) {
+            char c = lexical.charAt(i);
+            switch (c) {
+            case '\\':
+                sb.append("\\\\"); // escaped to \\
+                break;
+            case '"':
+                sb.append("\\\""); // escaped to \"
+                break;
+            case '\r':
+                sb.append("\\r"); // escaped to \r
+                break;
+            case '\n':
+                sb.append("\\n"); // escaped to \n
+                break;
+            default:
+                sb.append(c);
+            }
+        }
         sb.append(QUOTE);
 
         // getLanguageTag().ifPresent(s -> sb.append("@" + s));
@@ -134,4 +178,12 @@ final class LiteralImpl implements Literal {
                 && getLanguageTag().equals(literal.getLanguageTag());
     }
 
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
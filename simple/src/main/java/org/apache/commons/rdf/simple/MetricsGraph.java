@@ -0,0 +1,599 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A graph recording metrics of the calls to another graph.
+ * <p>
+ * For each {@link Operation} and each shape of pattern, such as
+ * <code>S??</code> for a pattern with only the subject bound, the graph
+ * counts the calls, keeps a histogram of their latencies, and for
+ * {@link Operation#GET_TRIPLES} counts the triples returned. As streams are
+ * lazy, a scan is counted when {@link #getTriples()} is called, but timed
+ * from the call until its stream is exhausted or closed, whichever comes
+ * first. The latency and triples of a scan whose stream is short-circuited
+ * without being closed, or abandoned, are not recorded.
+ * <p>
+ * Metrics are kept with {@link LongAdder}s, so that recording is cheap and
+ * does not contend between threads. They can be read with
+ * {@link #getSnapshot()}, or through the platform {@link MBeanServer} once
+ * {@link #register(String) registered}.
+ * <p>
+ * This class is thread-safe if the graph it decorates is.
+ */
+public final class MetricsGraph implements Graph {
+
+    /**
+     * The operations of a graph.
+     */
+    public enum Operation {
+        ADD, CONTAINS, REMOVE, GET_TRIPLES, SIZE, CLEAR
+    }
+
+    /** Domain of the {@link ObjectName} of registered graphs */
+    public static final String JMX_DOMAIN = "org.apache.commons.rdf";
+
+    private static final int SHAPES = 8;
+
+    /** Shape of a pattern with all of subject, predicate and object bound */
+    private static final int BOUND = SHAPES - 1;
+
+    /** Buckets of powers of two nanoseconds */
+    private static final int BUCKETS = 64;
+
+    private final Graph graph;
+    private final Cell[] cells;
+    private ObjectName objectName;
+
+    /**
+     * Create a graph recording the calls to another graph.
+     *
+     * @param graph The graph to decorate
+     */
+    public MetricsGraph(Graph graph) {
+        this.graph = Objects.requireNonNull(graph);
+        Operation[] operations = Operation.values();
+        cells = new Cell[operations.length * SHAPES];
+        for (Operation operation : operations) {
+            for (int shape = 0; shape < SHAPES; shape++) {
+                cells[operation.ordinal() * SHAPES + shape] = new Cell(
+                        operation, shape);
+            }
+        }
+    }
+
+    static int shape(Object subject, Object predicate, Object object) {
+        return (subject == null ? 0 : 4) | (predicate == null ? 0 : 2)
+                | (object == null ? 0 : 1);
+    }
+
+    static String pattern(int shape) {
+        return new StringBuilder(3).append((shape & 4) != 0 ? 'S' : '?')
+                .append((shape & 2) != 0 ? 'P' : '?')
+                .append((shape & 1) != 0 ? 'O' : '?').toString();
+    }
+
+    private void record(Operation operation, int shape, long start) {
+        cells[operation.ordinal() * SHAPES + shape].record(
+                System.nanoTime() - start, 0);
+    }
+
+    @Override
+    public void add(Triple triple) {
+        long start = System.nanoTime();
+        try {
+            graph.add(triple);
+        } finally {
+            record(Operation.ADD, BOUND, start);
+        }
+    }
+
+    @Override
+    public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long start = System.nanoTime();
+        try {
+            graph.add(subject, predicate, object);
+        } finally {
+            record(Operation.ADD, BOUND, start);
+        }
+    }
+
+    @Override
+    public boolean contains(Triple triple) {
+        long start = System.nanoTime();
+        try {
+            return graph.contains(triple);
+        } finally {
+            record(Operation.CONTAINS, BOUND, start);
+        }
+    }
+
+    @Override
+    public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        long start = System.nanoTime();
+        try {
+            return graph.contains(subject, predicate, object);
+        } finally {
+            record(Operation.CONTAINS, shape(subject, predicate, object), start);
+        }
+    }
+
+    @Override
+    public void remove(Triple triple) {
+        long start = System.nanoTime();
+        try {
+            graph.remove(triple);
+        } finally {
+            record(Operation.REMOVE, BOUND, start);
+        }
+    }
+
+    @Override
+    public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long start = System.nanoTime();
+        try {
+            graph.remove(subject, predicate, object);
+        } finally {
+            record(Operation.REMOVE, shape(subject, predicate, object), start);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            graph.clear();
+        } finally {
+            record(Operation.CLEAR, 0, start);
+        }
+    }
+
+    @Override
+    public long size() {
+        long start = System.nanoTime();
+        try {
+            return graph.size();
+        } finally {
+            record(Operation.SIZE, 0, start);
+        }
+    }
+
+    @Override
+    public Stream<Triple> getTriples() {
+        long start = System.nanoTime();
+        return scan(graph.getTriples(), 0, start);
+    }
+
+    @Override
+    public Stream<Triple> getTriples(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        long start = System.nanoTime();
+        return scan(graph.getTriples(subject, predicate, object),
+                shape(subject, predicate, object), start);
+    }
+
+    private Stream<Triple> scan(Stream<? extends Triple> stream, int shape,
+            long start) {
+        Cell cell = cells[Operation.GET_TRIPLES.ordinal() * SHAPES + shape];
+        cell.count.increment();
+        return ScanSpliterator.watch(stream,
+                triples -> cell.time(System.nanoTime() - start, triples));
+    }
+
+    /**
+     * Close the decorated graph, after unregistering this graph if it was
+     * registered.
+     */
+    @Override
+    public void close() throws Exception {
+        unregister();
+        graph.close();
+    }
+
+    /**
+     * @return The metrics recorded so far
+     */
+    public Snapshot getSnapshot() {
+        List<OperationMetrics> operations = new ArrayList<>();
+        for (Cell cell : cells) {
+            OperationMetrics metrics = cell.snapshot();
+            if (metrics.getCount() > 0) {
+                operations.add(metrics);
+            }
+        }
+        return new Snapshot(operations);
+    }
+
+    /**
+     * Reset all metrics to zero. Calls in progress may still be recorded.
+     */
+    public void reset() {
+        for (Cell cell : cells) {
+            cell.reset();
+        }
+    }
+
+    /**
+     * Register the metrics of this graph with the platform
+     * {@link MBeanServer}, as a {@link GraphMetricsMXBean} named
+     * <code>org.apache.commons.rdf:type=Graph,name=<em>name</em></code>.
+     *
+     * @param name Name of the graph
+     * @return The name under which the metrics are registered
+     * @throws JMException If the metrics could not be registered, for
+     *                     instance because the name is in use
+     * @throws IllegalStateException If this graph is already registered
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (objectName != null) {
+            throw new IllegalStateException("Already registered as "
+                    + objectName);
+        }
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Graph,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(),
+                objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Unregister the metrics of this graph, if registered.
+     *
+     * @throws JMException If the metrics could not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (objectName != null) {
+            ObjectName registered = objectName;
+            objectName = null;
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                    registered);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+
+    /**
+     * Metrics of one operation and pattern shape.
+     */
+    private static final class Cell {
+
+        final Operation operation;
+        final int shape;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder triples = new LongAdder();
+        final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Cell(Operation operation, int shape) {
+            this.operation = operation;
+            this.shape = shape;
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, long triplesReturned) {
+            count.increment();
+            time(nanos, triplesReturned);
+        }
+
+        /**
+         * Record the latency and result of a call that was already counted.
+         */
+        void time(long nanos, long triplesReturned) {
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            // Bucket i holds latencies from 2^(i-1) and below 2^i nanoseconds
+            histogram[nanos <= 0 ? 0
+                    : BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+            if (triplesReturned > 0) {
+                triples.add(triplesReturned);
+            }
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            triples.reset();
+            for (LongAdder bucket : histogram) {
+                bucket.reset();
+            }
+        }
+
+        OperationMetrics snapshot() {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = histogram[i].sum();
+            }
+            return new OperationMetrics(operation, pattern(shape),
+                    count.sum(), totalNanos.sum(), maxNanos.get(),
+                    triples.sum(), buckets);
+        }
+    }
+
+    /**
+     * The metrics of one operation and pattern shape.
+     */
+    public static final class OperationMetrics {
+
+        private final Operation operation;
+        private final String pattern;
+        private final long count;
+        private final long timedCount;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long triplesReturned;
+        private final long[] histogram;
+
+        OperationMetrics(Operation operation, String pattern, long count,
+                long totalNanos, long maxNanos, long triplesReturned,
+                long[] histogram) {
+            this.operation = operation;
+            this.pattern = pattern;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.triplesReturned = triplesReturned;
+            this.histogram = histogram;
+            long timed = 0;
+            for (long bucket : histogram) {
+                timed += bucket;
+            }
+            this.timedCount = timed;
+        }
+
+        /**
+         * @return The operation
+         */
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return The shape of the pattern, such as <code>S?O</code> for a
+         *         pattern with the subject and object bound. Operations on a
+         *         triple are <code>SPO</code>, and {@link Operation#SIZE} and
+         *         {@link Operation#CLEAR} are <code>???</code>.
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return The number of calls
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return The number of calls whose time was recorded, which for
+         *         {@link Operation#GET_TRIPLES} are the scans whose stream was
+         *         exhausted or closed
+         */
+        public long getTimedCount() {
+            return timedCount;
+        }
+
+        /**
+         * @return The total time of the timed calls, in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return The mean time of a timed call, in nanoseconds
+         */
+        public double getMeanNanos() {
+            return timedCount == 0 ? 0 : (double) totalNanos / timedCount;
+        }
+
+        /**
+         * @return The longest time of a call, in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return The median time of a call, in nanoseconds, within a factor
+         *         of two
+         */
+        public long getMedianNanos() {
+            return getPercentileNanos(50);
+        }
+
+        /**
+         * @return The 99th percentile of the time of a call, in nanoseconds,
+         *         within a factor of two
+         */
+        public long getP99Nanos() {
+            return getPercentileNanos(99);
+        }
+
+        /**
+         * Get a percentile of the time of a call, from the histogram of
+         * latencies in powers of two.
+         *
+         * @param percentile Percentile, from 0 to 100
+         * @return The upper bound of the histogram bucket of the percentile,
+         *         in nanoseconds, but not more than {@link #getMaxNanos()}
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Invalid percentile: "
+                        + percentile);
+            }
+            long rank = (long) Math.ceil(timedCount * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= rank && seen > 0) {
+                    return i >= BUCKETS - 1 ? maxNanos
+                            : Math.min(maxNanos, (1L << i) - 1);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * @return The number of triples returned by the calls, which is only
+         *         counted for {@link Operation#GET_TRIPLES}
+         */
+        public long getTriplesReturned() {
+            return triplesReturned;
+        }
+
+        /**
+         * @return The mean number of triples returned by a timed call
+         */
+        public double getMeanTriplesReturned() {
+            return timedCount == 0 ? 0 : (double) triplesReturned / timedCount;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " " + pattern + ": " + count + " calls, mean "
+                    + Math.round(getMeanNanos()) + " ns, p99 " + getP99Nanos()
+                    + " ns" + (operation == Operation.GET_TRIPLES
+                            ? ", " + triplesReturned + " triples" : "");
+        }
+    }
+
+    /**
+     * The metrics of a graph at a point in time.
+     */
+    public static final class Snapshot {
+
+        private final List<OperationMetrics> operations;
+
+        Snapshot(List<OperationMetrics> operations) {
+            this.operations = Collections.unmodifiableList(operations);
+        }
+
+        /**
+         * @return The metrics of each operation and pattern shape that was
+         *         called at least once
+         */
+        public List<OperationMetrics> getOperations() {
+            return operations;
+        }
+
+        /**
+         * @param operation An operation
+         * @return The number of calls of the operation, for all pattern
+         *         shapes
+         */
+        public long getCount(Operation operation) {
+            long count = 0;
+            for (OperationMetrics metrics : operations) {
+                if (metrics.getOperation() == operation) {
+                    count += metrics.getCount();
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @param operation An operation
+         * @param pattern   A pattern shape, such as <code>S??</code>
+         * @return The metrics of the operation and pattern shape, if called
+         */
+        public Optional<OperationMetrics> get(Operation operation,
+                String pattern) {
+            return operations.stream().filter(m -> m.getOperation() == operation
+                    && m.getPattern().equals(pattern)).findFirst();
+        }
+
+        /**
+         * @return The number of triples returned by all scans
+         */
+        public long getTriplesReturned() {
+            long triples = 0;
+            for (OperationMetrics metrics : operations) {
+                triples += metrics.getTriplesReturned();
+            }
+            return triples;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            for (OperationMetrics metrics : operations) {
+                s.append(metrics).append('\n');
+            }
+            return s.toString();
+        }
+    }
+
+    private final class MXBean implements GraphMetricsMXBean {
+
+        @Override
+        public List<OperationMetrics> getOperations() {
+            return getSnapshot().getOperations();
+        }
+
+        @Override
+        public long getOperationCount() {
+            long count = 0;
+            for (OperationMetrics metrics : getOperations()) {
+                count += metrics.getCount();
+            }
+            return count;
+        }
+
+        @Override
+        public long getTriplesReturned() {
+            return getSnapshot().getTriplesReturned();
+        }
+
+        @Override
+        public void reset() {
+            MetricsGraph.this.reset();
+        }
+    }
+
+}
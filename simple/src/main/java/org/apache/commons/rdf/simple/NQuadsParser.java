@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming parser of <a href="https://www.w3.org/TR/n-quads/">RDF 1.1
+ * N-Quads</a>.
+ * <p>
+ * This parser shares the constant-memory, line-based design of
+ * {@link NTriplesParser}. Each quad is reported as a {@link Triple} together
+ * with its graph name, which is {@link Optional#empty()} for the default
+ * graph.
+ * <p>
+ * {@link #parse(Function)} routes triples to a sink per graph name in a
+ * single pass, for instance to load each named graph into its own
+ * {@link org.apache.commons.rdf.api.Graph}.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. A parser instance reads a
+ * single document, and should be closed after use.
+ */
+public final class NQuadsParser implements AutoCloseable {
+
+    /**
+     * Consumer of a parsed quad.
+     */
+    @FunctionalInterface
+    public interface QuadConsumer {
+
+        /**
+         * Accept a parsed quad.
+         *
+         * @param graphName The graph name, or {@link Optional#empty()} for the
+         *                  default graph
+         * @param triple    The triple
+         */
+        void accept(Optional<BlankNodeOrIRI> graphName, Triple triple);
+    }
+
+    private final ReadableByteChannel channel;
+    private final LineReader lines;
+    private final NTriplesTermParser terms;
+
+    private Optional<BlankNodeOrIRI> graphName = Optional.empty();
+
+    /**
+     * Create an N-Quads parser reading from the given channel.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param channel Channel to read from
+     */
+    public NQuadsParser(RDFTermFactory factory, ReadableByteChannel channel) {
+        this.channel = Objects.requireNonNull(channel);
+        this.lines = new LineReader(channel,
+                NTriplesParser.DEFAULT_BUFFER_SIZE);
+        this.terms = new NTriplesTermParser(factory,
+                NTriplesParser.newBlankNodeScope());
+    }
+
+    /**
+     * Create an N-Quads parser reading from the given input stream.
+     * <p>
+     * The input stream is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param in      InputStream to read from
+     */
+    public NQuadsParser(RDFTermFactory factory, InputStream in) {
+        this(factory, Channels.newChannel(in));
+    }
+
+    /**
+     * Parse the next quad.
+     * <p>
+     * The graph name of the returned triple is available from
+     * {@link #getGraphName()} until the next call.
+     *
+     * @return The triple of the next quad, or <code>null</code> at the end of
+     *         input
+     * @throws RDFParseException If the input is not valid N-Quads
+     * @throws IOException       If the channel could not be read
+     */
+    public Triple next() throws IOException {
+        while (lines.next()) {
+            terms.reset(lines.buffer(), lines.lineStart(), lines.lineEnd(),
+                    lines.lineNumber());
+            if (!terms.skipWhitespace()) {
+                continue;
+            }
+            BlankNodeOrIRI subject = terms.parseSubject();
+            IRI predicate = terms.parsePredicate();
+            RDFTerm object = terms.parseObject();
+            BlankNodeOrIRI label = terms.parseGraphLabel();
+            terms.parseEnd();
+            if (label == null) {
+                graphName = Optional.empty();
+            } else if (!graphName.isPresent() || graphName.get() != label) {
+                // Labels are usually served from the term cache, so this
+                // only allocates when the graph name changes
+                graphName = Optional.of(label);
+            }
+            return terms.createTriple(subject, predicate, object);
+        }
+        return null;
+    }
+
+    /**
+     * @return The graph name of the quad last returned by {@link #next()}, or
+     *         {@link Optional#empty()} for the default graph
+     */
+    public Optional<BlankNodeOrIRI> getGraphName() {
+        return graphName;
+    }
+
+    /**
+     * Parse all remaining quads, passing each to the sink as soon as it has
+     * been parsed.
+     *
+     * @param sink Consumer of parsed quads
+     * @return The number of quads parsed
+     * @throws RDFParseException If the input is not valid N-Quads
+     * @throws IOException       If the channel could not be read
+     */
+    public long parse(QuadConsumer sink) throws IOException {
+        long count = 0;
+        Triple triple;
+        while ((triple = next()) != null) {
+            sink.accept(graphName, triple);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Parse all remaining quads, routing the triple of each quad to a sink
+     * for its graph name.
+     * <p>
+     * <code>sinkForGraph</code> is called only once per distinct graph name,
+     * the first time that graph name is seen. For instance, to load each
+     * graph into its own {@link org.apache.commons.rdf.api.Graph}:
+     * <pre>
+     * Map&lt;Optional&lt;BlankNodeOrIRI&gt;, Graph&gt; graphs = new HashMap&lt;&gt;();
+     * parser.parse(name -&gt; graphs.computeIfAbsent(name,
+     *         n -&gt; factory.createGraph())::add);
+     * </pre>
+     *
+     * @param sinkForGraph Function returning the sink for a graph name, which
+     *                     is {@link Optional#empty()} for the default graph
+     * @return The number of quads parsed
+     * @throws RDFParseException If the input is not valid N-Quads
+     * @throws IOException       If the channel could not be read
+     */
+    public long parse(
+            Function<Optional<BlankNodeOrIRI>, ? extends Consumer<? super Triple>> sinkForGraph)
+            throws IOException {
+        Map<Optional<BlankNodeOrIRI>, Consumer<? super Triple>> sinks = new HashMap<>();
+        Optional<BlankNodeOrIRI> currentName = null;
+        Consumer<? super Triple> current = null;
+        long count = 0;
+        Triple triple;
+        while ((triple = next()) != null) {
+            // Quads for the same graph are usually adjacent, so avoid the
+            // map lookup while the graph name stays the same
+            if (graphName != currentName) {
+                currentName = graphName;
+                current = sinks.computeIfAbsent(graphName, sinkForGraph);
+            }
+            current.accept(triple);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of the line last read, starting from 1
+     */
+    public long getLineNumber() {
+        return lines.lineNumber();
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException If the channel could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming writer of <a href="https://www.w3.org/TR/n-quads/">RDF 1.1
+ * N-Quads</a>.
+ * <p>
+ * Terms are encoded by an {@link NTriplesWriter}, directly as UTF-8 into a
+ * reusable buffer.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. Streams passed to
+ * {@link #write(BlankNodeOrIRI, Stream)} are consumed sequentially, even if
+ * they are parallel.
+ */
+public final class NQuadsWriter implements AutoCloseable {
+
+    private final NTriplesWriter out;
+
+    /**
+     * Create an N-Quads writer to the given channel.
+     *
+     * @param channel Channel to write to
+     */
+    public NQuadsWriter(WritableByteChannel channel) {
+        this.out = new NTriplesWriter(channel);
+    }
+
+    /**
+     * Create an N-Quads writer to the given output stream.
+     * <p>
+     * The output stream is closed by {@link #close()}.
+     *
+     * @param out OutputStream to write to
+     */
+    public NQuadsWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Write a single quad, terminated by a newline.
+     *
+     * @param graphName The graph name, or <code>null</code> for the default
+     *                  graph
+     * @param triple    The triple
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(BlankNodeOrIRI graphName, Triple triple)
+            throws IOException {
+        out.writeTerm(triple.getSubject());
+        out.writeByte(' ');
+        out.writeTerm(triple.getPredicate());
+        out.writeByte(' ');
+        out.writeTerm(triple.getObject());
+        out.writeByte(' ');
+        if (graphName != null) {
+            out.writeTerm(graphName);
+            out.writeByte(' ');
+        }
+        out.writeByte('.');
+        out.writeByte('\n');
+    }
+
+    /**
+     * Write all triples of the stream as quads in the given graph.
+     *
+     * @param graphName The graph name, or <code>null</code> for the default
+     *                  graph
+     * @param triples   Stream of triples to write
+     * @return The number of quads written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(BlankNodeOrIRI graphName, Stream<? extends Triple> triples)
+            throws IOException {
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginSerialize("NQUADS");
+        long count = 0;
+        try {
+            Iterator<? extends Triple> it = triples.iterator();
+            while (it.hasNext()) {
+                write(graphName, it.next());
+                count++;
+            }
+        } finally {
+            span.end(count);
+        }
+        return count;
+    }
+
+    /**
+     * Write all triples of the graph as quads in the given graph.
+     *
+     * @param graphName The graph name, or <code>null</code> for the default
+     *                  graph
+     * @param graph     Graph to write
+     * @return The number of quads written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(BlankNodeOrIRI graphName, Graph graph)
+            throws IOException {
+        return write(graphName, graph.getTriples());
+    }
+
+    /**
+     * Write any buffered bytes to the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flush and close the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     *                     or closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming parser of <a href="https://www.w3.org/TR/n-triples/">RDF 1.1
+ * N-Triples</a>.
+ * <p>
+ * The input is read through a reusable buffer and parsed one line at a time,
+ * directly from its UTF-8 bytes, so memory use is constant no matter the
+ * size of the input. Terms are created with the given {@link RDFTermFactory}.
+ * <p>
+ * Blank node labels are scoped to the parsed document: the same label always
+ * maps to the same {@link org.apache.commons.rdf.api.BlankNode} within a
+ * document, but two documents parsed with the same factory do not share
+ * blank nodes.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. A parser instance reads a
+ * single document, and should be closed after use.
+ */
+public final class NTriplesParser implements AutoCloseable {
+
+    /** Default size of the input buffer, in bytes */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final LineReader lines;
+    private final NTriplesTermParser terms;
+
+    /**
+     * Create an N-Triples parser reading from the given channel.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param channel Channel to read from
+     */
+    public NTriplesParser(RDFTermFactory factory, ReadableByteChannel channel) {
+        this(channel, new NTriplesTermParser(factory, newBlankNodeScope()));
+    }
+
+    /**
+     * Create an N-Triples parser reading from the given input stream.
+     * <p>
+     * The input stream is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param in      InputStream to read from
+     */
+    public NTriplesParser(RDFTermFactory factory, InputStream in) {
+        this(factory, Channels.newChannel(in));
+    }
+
+    NTriplesParser(ReadableByteChannel channel, NTriplesTermParser terms) {
+        this.channel = Objects.requireNonNull(channel);
+        this.lines = new LineReader(channel, DEFAULT_BUFFER_SIZE);
+        this.terms = terms;
+    }
+
+    /**
+     * Create a new, unique scope for the blank node labels of a document.
+     */
+    static String newBlankNodeScope() {
+        return UUID.randomUUID() + ":";
+    }
+
+    /**
+     * Parse the next triple.
+     *
+     * @return The next triple, or <code>null</code> at the end of input
+     * @throws RDFParseException If the input is not valid N-Triples
+     * @throws IOException       If the channel could not be read
+     */
+    public Triple next() throws IOException {
+        while (lines.next()) {
+            terms.reset(lines.buffer(), lines.lineStart(), lines.lineEnd(),
+                    lines.lineNumber());
+            Triple triple = terms.parseTriple();
+            if (triple != null) {
+                return triple;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse all remaining triples, passing each to the sink as soon as it has
+     * been parsed.
+     * <p>
+     * For instance, to load into a {@link org.apache.commons.rdf.api.Graph}:
+     * <pre>
+     * parser.parse(graph::add);
+     * </pre>
+     *
+     * @param sink Consumer of parsed triples
+     * @return The number of triples parsed
+     * @throws RDFParseException If the input is not valid N-Triples
+     * @throws IOException       If the channel could not be read
+     */
+    public long parse(Consumer<? super Triple> sink) throws IOException {
+        long count = 0;
+        Triple triple;
+        while ((triple = next()) != null) {
+            sink.accept(triple);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Return a sequential {@link Stream} of the remaining triples, parsed
+     * lazily as the stream is consumed.
+     * <p>
+     * Any {@link IOException} is rethrown as an
+     * {@link UncheckedIOException}. Closing the stream closes this parser.
+     *
+     * @return A {@link Stream} of parsed triples
+     */
+    public Stream<Triple> stream() {
+        Spliterator<Triple> spliterator = new AbstractSpliterator<Triple>(
+                Long.MAX_VALUE, Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Triple> action) {
+                Triple triple;
+                try {
+                    triple = next();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                if (triple == null) {
+                    return false;
+                }
+                action.accept(triple);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * @return The number of the line last read, starting from 1
+     */
+    public long getLineNumber() {
+        return lines.lineNumber();
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException If the channel could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
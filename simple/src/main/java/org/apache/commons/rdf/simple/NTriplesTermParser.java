@@ -0,0 +1,401 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Parses the terms of a single N-Triples (or N-Quads) line directly from its
+ * UTF-8 bytes.
+ * <p>
+ * Repeated IRIs and blank node labels are looked up in a {@link TermCache}
+ * by their raw bytes, so they are neither decoded nor created again.
+ * <p>
+ * Blank node labels are scoped by a <code>blankNodeScope</code> string, so
+ * that the label <code>_:b1</code> maps to
+ * {@link RDFTermFactory#createBlankNode(String)} with the same name across
+ * all lines of a document (even if they are parsed by different instances
+ * sharing the scope), while different documents don't share blank nodes.
+ * <p>
+ * This class is <strong>not thread-safe</strong>.
+ */
+final class NTriplesTermParser {
+
+    private static final int CACHE_SLOTS = 4096;
+
+    private final RDFTermFactory factory;
+    private final String blankNodeScope;
+    private final TermCache<IRI> iris = new TermCache<>(CACHE_SLOTS);
+    private final TermCache<BlankNode> blankNodes = new TermCache<>(
+            CACHE_SLOTS);
+    private final StringBuilder sb = new StringBuilder();
+
+    private byte[] b;
+    private int pos;
+    private int end;
+    private int lineStart;
+    private long lineNumber;
+
+    NTriplesTermParser(RDFTermFactory factory, String blankNodeScope) {
+        this.factory = Objects.requireNonNull(factory);
+        this.blankNodeScope = Objects.requireNonNull(blankNodeScope);
+    }
+
+    /**
+     * Set the line to parse.
+     */
+    void reset(byte[] b, int start, int end, long lineNumber) {
+        this.b = b;
+        this.pos = start;
+        this.lineStart = start;
+        this.end = end;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Parse a full N-Triples line.
+     *
+     * @return The parsed triple, or <code>null</code> if the line is empty
+     *         or a comment
+     */
+    Triple parseTriple() throws RDFParseException {
+        if (!skipWhitespace()) {
+            return null;
+        }
+        BlankNodeOrIRI subject = parseSubject();
+        IRI predicate = parsePredicate();
+        RDFTerm object = parseObject();
+        parseEnd();
+        return createTriple(subject, predicate, object);
+    }
+
+    Triple createTriple(BlankNodeOrIRI subject, IRI predicate, RDFTerm object)
+            throws RDFParseException {
+        try {
+            return factory.createTriple(subject, predicate, object);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid triple: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Skip whitespace.
+     *
+     * @return true if there is more to parse on the line, false if the end of
+     *         line or a comment was reached
+     */
+    boolean skipWhitespace() {
+        while (pos < end) {
+            byte c = b[pos];
+            if (c == ' ' || c == '\t') {
+                pos++;
+            } else {
+                return c != '#';
+            }
+        }
+        return false;
+    }
+
+    BlankNodeOrIRI parseSubject() throws RDFParseException {
+        expectMore("subject");
+        BlankNodeOrIRI subject;
+        if (b[pos] == '<') {
+            subject = parseIRI();
+        } else if (b[pos] == '_') {
+            subject = parseBlankNode();
+        } else {
+            throw error("Expected IRI or blank node as subject");
+        }
+        return subject;
+    }
+
+    IRI parsePredicate() throws RDFParseException {
+        expectMore("predicate");
+        if (b[pos] != '<') {
+            throw error("Expected IRI as predicate");
+        }
+        return parseIRI();
+    }
+
+    RDFTerm parseObject() throws RDFParseException {
+        expectMore("object");
+        switch (b[pos]) {
+        case '<':
+            return parseIRI();
+        case '_':
+            return parseBlankNode();
+        case '"':
+            return parseLiteral();
+        default:
+            throw error("Expected IRI, blank node or literal as object");
+        }
+    }
+
+    /**
+     * Parse an optional graph label, as in N-Quads.
+     *
+     * @return The graph label, or <code>null</code> if the next token is not
+     *         an IRI or blank node
+     */
+    BlankNodeOrIRI parseGraphLabel() throws RDFParseException {
+        skipWhitespace();
+        if (pos < end && (b[pos] == '<' || b[pos] == '_')) {
+            return parseSubject();
+        }
+        return null;
+    }
+
+    /**
+     * Parse the terminating <code>.</code> and any trailing whitespace or
+     * comment.
+     */
+    void parseEnd() throws RDFParseException {
+        skipWhitespace();
+        if (pos >= end || b[pos] != '.') {
+            throw error("Expected '.'");
+        }
+        pos++;
+        if (skipWhitespace()) {
+            throw error("Unexpected content after '.'");
+        }
+    }
+
+    private void expectMore(String what) throws RDFParseException {
+        if (!skipWhitespace()) {
+            throw error("Expected " + what);
+        }
+    }
+
+    IRI parseIRI() throws RDFParseException {
+        // b[pos] == '<'
+        int start = ++pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= end) {
+                throw error("Unterminated IRI");
+            }
+            byte c = b[pos];
+            if (c == '>') {
+                break;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c >= 0 && c <= ' ') {
+                throw error("Invalid character in IRI");
+            }
+            pos++;
+        }
+        int stop = pos++;
+        int slot = iris.slot(b, start, stop);
+        IRI iri = iris.get(slot, b, start, stop);
+        if (iri == null) {
+            FlightRecorderEvents.termCacheMiss("IRI");
+            try {
+                iri = factory.createIRI(decode(start, stop, escaped));
+            } catch (IllegalArgumentException ex) {
+                throw error("Invalid IRI: " + ex.getMessage(), ex);
+            }
+            iris.put(slot, b, start, stop, iri);
+        }
+        return iri;
+    }
+
+    private BlankNode parseBlankNode() throws RDFParseException {
+        // b[pos] == '_'
+        if (pos + 1 >= end || b[pos + 1] != ':') {
+            throw error("Expected '_:'");
+        }
+        pos += 2;
+        int start = pos;
+        while (pos < end) {
+            byte c = b[pos];
+            if (c == ' ' || c == '\t' || c == '<' || c == '"' || c == '#') {
+                break;
+            }
+            pos++;
+        }
+        // A label may contain but not end with '.'
+        while (pos > start && b[pos - 1] == '.') {
+            pos--;
+        }
+        if (pos == start) {
+            throw error("Empty blank node label");
+        }
+        int slot = blankNodes.slot(b, start, pos);
+        BlankNode blankNode = blankNodes.get(slot, b, start, pos);
+        if (blankNode == null) {
+            FlightRecorderEvents.termCacheMiss("BlankNode");
+            String label = new String(b, start, pos - start,
+                    StandardCharsets.UTF_8);
+            blankNode = factory.createBlankNode(blankNodeScope + label);
+            blankNodes.put(slot, b, start, pos, blankNode);
+        }
+        return blankNode;
+    }
+
+    private RDFTerm parseLiteral() throws RDFParseException {
+        // b[pos] == '"'
+        int start = ++pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= end) {
+                throw error("Unterminated literal");
+            }
+            byte c = b[pos];
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        String lexicalForm = decode(start, pos++, escaped);
+        try {
+            if (pos < end && b[pos] == '@') {
+                int langStart = ++pos;
+                while (pos < end && isLanguageTagChar(b[pos])) {
+                    pos++;
+                }
+                if (pos == langStart) {
+                    throw error("Empty language tag");
+                }
+                String languageTag = new String(b, langStart, pos - langStart,
+                        StandardCharsets.US_ASCII);
+                return factory.createLiteral(lexicalForm, languageTag);
+            } else if (pos + 1 < end && b[pos] == '^' && b[pos + 1] == '^') {
+                pos += 2;
+                if (pos >= end || b[pos] != '<') {
+                    throw error("Expected datatype IRI");
+                }
+                return factory.createLiteral(lexicalForm, parseIRI());
+            }
+            return factory.createLiteral(lexicalForm);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid literal: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static boolean isLanguageTagChar(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '-';
+    }
+
+    /**
+     * Decode the UTF-8 bytes between start and stop, expanding any
+     * <code>ECHAR</code> or <code>UCHAR</code> escapes.
+     */
+    private String decode(int start, int stop, boolean escaped)
+            throws RDFParseException {
+        if (!escaped) {
+            return new String(b, start, stop - start, StandardCharsets.UTF_8);
+        }
+        sb.setLength(0);
+        int segment = start;
+        int i = start;
+        while (i < stop) {
+            if (b[i] != '\\') {
+                i++;
+                continue;
+            }
+            if (i > segment) {
+                sb.append(new String(b, segment, i - segment,
+                        StandardCharsets.UTF_8));
+            }
+            if (i + 1 >= stop) {
+                throw error("Incomplete escape sequence");
+            }
+            byte c = b[i + 1];
+            i += 2;
+            switch (c) {
+            case 't':
+                sb.append('\t');
+                break;
+            case 'b':
+                sb.append('\b');
+                break;
+            case 'n':
+                sb.append('\n');
+                break;
+            case 'r':
+                sb.append('\r');
+                break;
+            case 'f':
+                sb.append('\f');
+                break;
+            case '"':
+            case '\'':
+            case '\\':
+                sb.append((char) c);
+                break;
+            case 'u':
+                sb.appendCodePoint(parseHex(i, 4, stop));
+                i += 4;
+                break;
+            case 'U':
+                sb.appendCodePoint(parseHex(i, 8, stop));
+                i += 8;
+                break;
+            default:
+                throw error("Invalid escape sequence \\" + (char) c);
+            }
+            segment = i;
+        }
+        if (segment < stop) {
+            sb.append(new String(b, segment, stop - segment,
+                    StandardCharsets.UTF_8));
+        }
+        return sb.toString();
+    }
+
+    private int parseHex(int start, int digits, int stop)
+            throws RDFParseException {
+        if (start + digits > stop) {
+            throw error("Incomplete unicode escape");
+        }
+        int cp = 0;
+        for (int i = start; i < start + digits; i++) {
+            int d = Character.digit(b[i], 16);
+            if (d < 0) {
+                throw error("Invalid hex digit in unicode escape");
+            }
+            cp = (cp << 4) | d;
+        }
+        if (!Character.isValidCodePoint(cp)) {
+            throw error("Invalid code point in unicode escape");
+        }
+        return cp;
+    }
+
+    RDFParseException error(String message) {
+        return error(message, null);
+    }
+
+    RDFParseException error(String message, Throwable cause) {
+        return new RDFParseException(message, lineNumber, pos - lineStart + 1,
+                cause);
+    }
+
+}
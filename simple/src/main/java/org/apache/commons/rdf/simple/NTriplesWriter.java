@@ -0,0 +1,374 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming writer of <a href="https://www.w3.org/TR/n-triples/">RDF 1.1
+ * N-Triples</a>.
+ * <p>
+ * Terms are encoded directly as UTF-8 into a reusable buffer, which is
+ * written to the underlying {@link WritableByteChannel} whenever it fills up.
+ * No intermediate {@link String} is created per term or per triple, which
+ * makes it much cheaper than writing {@link Triple#toString()}. The output
+ * is the same as that of {@link TripleImpl}, except that characters that
+ * N-Triples does not allow in an <code>IRIREF</code>, such as spaces,
+ * control characters and <code>&lt;&gt;"{}|^`\</code>, are escaped as
+ * <code>&#92;u</code><em>XXXX</em> in IRIs, which
+ * {@link IRIImpl#ntriplesString()} writes as they are.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. Streams passed to
+ * {@link #write(Stream)} are consumed sequentially, even if they are parallel.
+ */
+public final class NTriplesWriter implements AutoCloseable {
+
+    /** Default size of the output buffer, in bytes */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Worst case number of bytes for a single escaped char */
+    private static final int MAX_CHAR_BYTES = 6;
+
+    private static final byte[] HEX = "0123456789ABCDEF"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final byte[] buf;
+    private final ByteBuffer byteBuffer;
+    private int pos;
+
+    /**
+     * Create an N-Triples writer to the given channel.
+     *
+     * @param channel Channel to write to
+     */
+    public NTriplesWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create an N-Triples writer to the given output stream.
+     * <p>
+     * The output stream is closed by {@link #close()}.
+     *
+     * @param out OutputStream to write to
+     */
+    public NTriplesWriter(OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    /**
+     * Create an N-Triples writer to the given channel, using an output buffer
+     * of the given size.
+     *
+     * @param channel    Channel to write to
+     * @param bufferSize Size of the output buffer in bytes, at least 64
+     */
+    public NTriplesWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = Objects.requireNonNull(channel);
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Buffer size too small: "
+                    + bufferSize);
+        }
+        this.buf = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buf);
+    }
+
+    /**
+     * Write a single triple, terminated by a newline.
+     *
+     * @param triple Triple to write
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(Triple triple) throws IOException {
+        write(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    /**
+     * Write a single triple, terminated by a newline.
+     *
+     * @param subject   The triple subject
+     * @param predicate The triple predicate
+     * @param object    The triple object
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(BlankNodeOrIRI subject, IRI predicate, RDFTerm object)
+            throws IOException {
+        writeTerm(subject);
+        writeByte(' ');
+        writeTerm(predicate);
+        writeByte(' ');
+        writeTerm(object);
+        writeByte(' ');
+        writeByte('.');
+        writeByte('\n');
+    }
+
+    /**
+     * Write all triples of the stream.
+     *
+     * @param triples Stream of triples to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Stream<? extends Triple> triples) throws IOException {
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginSerialize("NTRIPLES");
+        long count = 0;
+        try {
+            Iterator<? extends Triple> it = triples.iterator();
+            while (it.hasNext()) {
+                write(it.next());
+                count++;
+            }
+        } finally {
+            span.end(count);
+        }
+        return count;
+    }
+
+    /**
+     * Write all triples of the graph.
+     *
+     * @param graph Graph to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Graph graph) throws IOException {
+        return write(graph.getTriples());
+    }
+
+    /**
+     * Write any buffered bytes to the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void flush() throws IOException {
+        byteBuffer.limit(pos);
+        byteBuffer.position(0);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+        pos = 0;
+    }
+
+    /**
+     * Flush and close the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     *                     or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Write the N-Triples form of a term, as in
+     * {@link RDFTerm#ntriplesString()}.
+     *
+     * @param term Term to write
+     * @throws IOException If the underlying channel could not be written to
+     */
+    void writeTerm(RDFTerm term) throws IOException {
+        if (term instanceof IRI) {
+            writeIRI((IRI) term);
+        } else if (term instanceof Literal) {
+            writeLiteral((Literal) term);
+        } else if (term instanceof BlankNodeImpl) {
+            writeByte('_');
+            writeByte(':');
+            writeRaw(((BlankNodeImpl) term).uniqueReference());
+        } else if (term instanceof BlankNode) {
+            // Other implementations are responsible for their own labels
+            writeRaw(term.ntriplesString());
+        } else {
+            throw new IllegalArgumentException("Unsupported RDFTerm: " + term);
+        }
+    }
+
+    /**
+     * Write an IRI in full, as an N-Triples <code>IRIREF</code>.
+     */
+    void writeIRI(IRI iri) throws IOException {
+        writeByte('<');
+        String s = iri.getIRIString();
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c == '<' || c == '>' || c == '"' || c == '{'
+                    || c == '}' || c == '|' || c == '^' || c == '`'
+                    || c == '\\') {
+                // Not permitted in IRIREF, must be written as UCHAR
+                writeUnicodeEscape(c);
+            } else {
+                i = writeChar(s, i, c);
+            }
+        }
+        writeByte('>');
+    }
+
+    private void writeLiteral(Literal literal) throws IOException {
+        writeString(literal.getLexicalForm());
+        Optional<String> languageTag = literal.getLanguageTag();
+        if (languageTag.isPresent()) {
+            writeByte('@');
+            writeRaw(languageTag.get());
+        } else {
+            IRI datatype = literal.getDatatype();
+            if (datatype != Types.XSD_STRING
+                    && !Types.XSD_STRING.equals(datatype)) {
+                writeByte('^');
+                writeByte('^');
+                writeIRI(datatype);
+            }
+        }
+    }
+
+    /**
+     * Write a quoted string, escaped as in an N-Triples
+     * <code>STRING_LITERAL_QUOTE</code>, which is also valid Turtle.
+     */
+    void writeString(String s) throws IOException {
+        writeByte('"');
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '\\':
+                writeByte('\\');
+                writeByte('\\');
+                break;
+            case '"':
+                writeByte('\\');
+                writeByte('"');
+                break;
+            case '\r':
+                writeByte('\\');
+                writeByte('r');
+                break;
+            case '\n':
+                writeByte('\\');
+                writeByte('n');
+                break;
+            default:
+                i = writeChar(s, i, c);
+            }
+        }
+        writeByte('"');
+    }
+
+    /**
+     * Write a string without any escaping.
+     */
+    void writeRaw(String s) throws IOException {
+        writeRaw(s, 0);
+    }
+
+    /**
+     * Write a string from the given index without any escaping.
+     */
+    void writeRaw(String s, int start) throws IOException {
+        writeRaw(s, start, s.length());
+    }
+
+    /**
+     * Write the chars of a string from <code>start</code> to
+     * <code>end</code> (exclusive) without any escaping.
+     */
+    void writeRaw(String s, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            i = writeChar(s, i, s.charAt(i));
+        }
+    }
+
+    /**
+     * Encode the char at index <code>i</code> as UTF-8, returning the index of
+     * the last char consumed, which differs from <code>i</code> only for
+     * surrogate pairs.
+     */
+    private int writeChar(String s, int i, char c) throws IOException {
+        if (pos + MAX_CHAR_BYTES > buf.length) {
+            flush();
+        }
+        if (c < 0x80) {
+            buf[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(i + 1));
+            buf[pos++] = (byte) (0xF0 | (cp >> 18));
+            buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate, as done by String.getBytes(UTF_8)
+            buf[pos++] = (byte) '?';
+        } else {
+            buf[pos++] = (byte) (0xE0 | (c >> 12));
+            buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void writeUnicodeEscape(char c) throws IOException {
+        if (pos + MAX_CHAR_BYTES > buf.length) {
+            flush();
+        }
+        buf[pos++] = '\\';
+        buf[pos++] = 'u';
+        buf[pos++] = HEX[(c >> 12) & 0xF];
+        buf[pos++] = HEX[(c >> 8) & 0xF];
+        buf[pos++] = HEX[(c >> 4) & 0xF];
+        buf[pos++] = HEX[c & 0xF];
+    }
+
+    void writeByte(char c) throws IOException {
+        if (pos == buf.length) {
+            flush();
+        }
+        buf[pos++] = (byte) c;
+    }
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Sizes of the objects of graphs on the heap, from the object layout of the
+ * running JVM.
+ * <p>
+ * The layout is that of HotSpot: an object header, references of 4 bytes
+ * with compressed oops or 8 bytes otherwise, and objects aligned to 8 bytes.
+ * Strings are counted with one byte per character on Java 9 and later if
+ * all their characters are Latin-1, as compact strings do.
+ */
+final class ObjectLayout {
+
+    static final ObjectLayout CURRENT = detect();
+
+    private final int objectHeader;
+    private final int arrayHeader;
+    private final int reference;
+    private final int alignment;
+    private final boolean compactStrings;
+
+    ObjectLayout(int objectHeader, int arrayHeader, int reference,
+            int alignment, boolean compactStrings) {
+        this.objectHeader = objectHeader;
+        this.arrayHeader = arrayHeader;
+        this.reference = reference;
+        this.alignment = alignment;
+        this.compactStrings = compactStrings;
+    }
+
+    private static ObjectLayout detect() {
+        boolean compactStrings = !System.getProperty(
+                "java.specification.version", "").startsWith("1.");
+        if ("32".equals(System.getProperty("sun.arch.data.model"))) {
+            return new ObjectLayout(8, 12, 4, 8, compactStrings);
+        }
+        // Defaults of a 64-bit HotSpot with a heap below 32 GB
+        boolean compressedOops = true;
+        boolean compressedClassPointers = true;
+        int alignment = 8;
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory
+                    .getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            compressedOops = option(hotSpot, "UseCompressedOops")
+                    .map(Boolean::parseBoolean).orElse(compressedOops);
+            compressedClassPointers = option(hotSpot,
+                    "UseCompressedClassPointers").map(Boolean::parseBoolean)
+                    .orElse(compressedOops);
+            alignment = option(hotSpot, "ObjectAlignmentInBytes")
+                    .map(Integer::parseInt).orElse(alignment);
+            compactStrings &= option(hotSpot, "CompactStrings")
+                    .map(Boolean::parseBoolean).orElse(compactStrings);
+        } catch (RuntimeException | LinkageError ex) {
+            // Not HotSpot, keep the defaults
+        }
+        return new ObjectLayout(compressedClassPointers ? 12 : 16,
+                compressedClassPointers ? 16 : 24, compressedOops ? 4 : 8,
+                alignment, compactStrings);
+    }
+
+    private static Optional<String> option(HotSpotDiagnosticMXBean hotSpot,
+            String name) {
+        try {
+            return Optional.of(hotSpot.getVMOption(name).getValue());
+        } catch (IllegalArgumentException ex) {
+            // No such option in this JVM
+            return Optional.empty();
+        }
+    }
+
+    private long align(long size) {
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * @return The size of an object with the given number of reference
+     *         fields and bytes of primitive fields
+     */
+    long object(int references, int bytes) {
+        return align(objectHeader + references * reference + bytes);
+    }
+
+    /**
+     * @return The size of an array
+     */
+    long array(long length, int elementSize) {
+        return align(arrayHeader + length * elementSize);
+    }
+
+    /**
+     * @return The size of an array of references
+     */
+    long referenceArray(long length) {
+        return array(length, reference);
+    }
+
+    /**
+     * @return The size of a string and its characters
+     */
+    long string(String s) {
+        return string(s.length(), compactStrings && isLatin1(s));
+    }
+
+    private long string(int length, boolean latin1) {
+        if (!compactStrings) {
+            // char[] value, int hash
+            return object(1, 4) + array(length, 2);
+        }
+        // byte[] value, int hash, byte coder, boolean hashIsZero
+        return object(1, 6) + array(length, latin1 ? 1 : 2);
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate the size of a term from the lengths of its strings, counting
+     * their characters as Latin-1 where strings are compact, without reading
+     * them. This is cheap enough to be kept up to date on every add and
+     * remove, but undercounts text outside Latin-1.
+     *
+     * @return The size of a term and the strings it holds, or
+     *         <code>0</code> for the shared {@link Types} constants, which
+     *         {@link SimpleRDFTermFactory} uses for IRIs equal to theirs.
+     *         Any IRI equal to a constant counts as the constant, so that
+     *         equal terms always have the same size, whichever instance is
+     *         stored.
+     * @see #measureTerm(RDFTerm)
+     */
+    long term(RDFTerm term) {
+        return term(term, false);
+    }
+
+    /**
+     * @return The size of a term and the strings it holds, as
+     *         {@link #term(RDFTerm)}, but reading the characters of the
+     *         strings to find how they are stored
+     */
+    long measureTerm(RDFTerm term) {
+        return term(term, true);
+    }
+
+    private long term(RDFTerm term, boolean exact) {
+        if (term instanceof Types || term instanceof IRI
+                && Types.get((IRI) term).isPresent()) {
+            return 0;
+        } else if (term instanceof IRI) {
+            return object(1, 0) + string(((IRI) term).getIRIString(), exact);
+        } else if (term instanceof BlankNode) {
+            return object(1, 0)
+                    + string(((BlankNode) term).uniqueReference(), exact);
+        } else if (term instanceof Literal) {
+            Literal literal = (Literal) term;
+            Optional<String> languageTag = literal.getLanguageTag();
+            return object(3, 0) + string(literal.getLexicalForm(), exact)
+                    + (languageTag.isPresent()
+                            ? string(languageTag.get(), exact)
+                            : term(literal.getDatatype(), exact));
+        }
+        // Unknown implementation, assume a single field
+        return object(1, 0);
+    }
+
+    private long string(String s, boolean exact) {
+        return exact ? string(s) : string(s.length(), true);
+    }
+
+    /**
+     * @return The size of a triple object, without its terms
+     */
+    long triple() {
+        return object(3, 0);
+    }
+
+    /**
+     * @return The size of an entry of a {@link java.util.HashSet}: a
+     *         <code>HashMap.Node</code> with its hash, key, value and next
+     *         fields
+     */
+    long hashEntry() {
+        return object(3, 4);
+    }
+
+    /**
+     * @return The size of the table of a {@link java.util.HashSet} of the
+     *         given capacity
+     */
+    long hashTable(long capacity) {
+        return capacity == 0 ? 0 : referenceArray(capacity);
+    }
+
+}
@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Loads an N-Triples file by parsing chunks of it in parallel.
+ * <p>
+ * N-Triples is line-based, so the file is split into chunks at line
+ * boundaries, and each chunk is read with positioned reads and parsed as a
+ * separate task on a {@link ForkJoinPool}. Blank node labels share a single
+ * scope for the whole file, so a label maps to the same
+ * {@link org.apache.commons.rdf.api.BlankNode} whichever chunk it is parsed
+ * in.
+ * <p>
+ * Parsed triples are passed on in batches, which keeps the cost of any
+ * locking in the sink low. The {@link RDFTermFactory} must be thread-safe, as
+ * it is called from several threads at once.
+ */
+public final class ParallelNTriplesLoader {
+
+    /** Default size of each chunk, in bytes */
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /** Default number of triples per batch passed to the sink */
+    static final int DEFAULT_BATCH_SIZE = 8192;
+
+    private final RDFTermFactory factory;
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private final int batchSize;
+
+    /**
+     * Create a loader using the common {@link ForkJoinPool}.
+     *
+     * @param factory Factory for creating terms and triples
+     */
+    public ParallelNTriplesLoader(RDFTermFactory factory) {
+        this(factory, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE,
+                DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a loader.
+     *
+     * @param factory   Factory for creating terms and triples
+     * @param pool      Pool to parse chunks on
+     * @param chunkSize Approximate size of each chunk, in bytes
+     * @param batchSize Number of triples per batch passed to the sink
+     */
+    public ParallelNTriplesLoader(RDFTermFactory factory, ForkJoinPool pool,
+            long chunkSize, int batchSize) {
+        this.factory = Objects.requireNonNull(factory);
+        this.pool = Objects.requireNonNull(pool);
+        if (chunkSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException(
+                    "chunkSize and batchSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Load all triples of the file into the graph.
+     * <p>
+     * Each batch is added while synchronized on the graph object itself, so
+     * the graph need not be thread-safe, but other threads must synchronize
+     * on it while the load is in progress. Only the parsing runs in
+     * parallel, as the batches are added one at a time; to add to a
+     * thread-safe graph concurrently, pass a sink that adds to it to
+     * {@link #load(Path, Consumer)}.
+     *
+     * @param file  N-Triples file to load
+     * @param graph Graph to add triples to
+     * @return The number of triples parsed
+     * @throws IOException If the file could not be read or is not valid
+     *                     N-Triples
+     */
+    public long load(Path file, Graph graph) throws IOException {
+        return load(file, batch -> {
+            synchronized (graph) {
+                for (Triple triple : batch) {
+                    graph.add(triple);
+                }
+            }
+        });
+    }
+
+    /**
+     * Load all triples of the file, passing them to the sink in batches.
+     * <p>
+     * The sink is called concurrently from several threads and must be
+     * thread-safe. Each batch is a new list that the sink may keep.
+     * <p>
+     * If a chunk fails, the remaining chunks are stopped, and this method
+     * only returns once none of them can pass on any more batches. The
+     * batches passed on before the failure are not undone.
+     *
+     * @param file      N-Triples file to load
+     * @param batchSink Consumer of batches of parsed triples
+     * @return The number of triples parsed
+     * @throws IOException If the file could not be read or is not valid
+     *                     N-Triples
+     */
+    public long load(Path file, Consumer<? super List<Triple>> batchSink)
+            throws IOException {
+        String blankNodeScope = NTriplesParser.newBlankNodeScope();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+            AtomicBoolean stopped = new AtomicBoolean();
+            try {
+                long size = channel.size();
+                long start = 0;
+                while (start < size) {
+                    long end = chunkEnd(channel, start + chunkSize, size);
+                    final long chunkStart = start;
+                    tasks.add(pool.submit(() -> parseChunk(channel,
+                            chunkStart, end, blankNodeScope, batchSink,
+                            stopped)));
+                    start = end;
+                }
+                long count = 0;
+                for (ForkJoinTask<Long> task : tasks) {
+                    count += task.get();
+                }
+                return count;
+            } finally {
+                // After a failure, stop the other chunks and wait for them
+                // before the channel is closed. They are not cancelled, as a
+                // cancelled task counts as done while it is still running.
+                stopped.set(true);
+                for (ForkJoinTask<Long> task : tasks) {
+                    task.quietlyJoin();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted loading " + file);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw new IOException("Could not load " + file, ex.getCause()
+                        .getCause());
+            }
+            throw new IOException("Could not load " + file, ex.getCause());
+        }
+    }
+
+    /**
+     * Find the end of the chunk, just after the first line terminator at or
+     * after <code>from</code>.
+     */
+    private static long chunkEnd(FileChannel channel, long from, long size)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long position = from;
+        while (position < size) {
+            buf.clear();
+            int read = channel.read(buf, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte c = buf.get(i);
+                if (c == '\n' || c == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private long parseChunk(FileChannel channel, long start, long end,
+            String blankNodeScope, Consumer<? super List<Triple>> batchSink,
+            AtomicBoolean stopped) {
+        LineReader lines = new LineReader(new RegionChannel(channel, start,
+                end), NTriplesParser.DEFAULT_BUFFER_SIZE);
+        NTriplesTermParser terms = new NTriplesTermParser(factory,
+                blankNodeScope);
+        List<Triple> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        try {
+            while (!stopped.get() && lines.next()) {
+                terms.reset(lines.buffer(), lines.lineStart(),
+                        lines.lineEnd(), lines.lineNumber());
+                Triple triple = terms.parseTriple();
+                if (triple == null) {
+                    continue;
+                }
+                batch.add(triple);
+                count++;
+                if (batch.size() == batchSize) {
+                    batchSink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (RDFParseException ex) {
+            // Line numbers are relative to the chunk
+            throw new UncheckedIOException(new RDFParseException(
+                    "Invalid N-Triples in chunk starting at byte " + start,
+                    ex.getLineNumber(), ex.getColumn(), ex));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (!batch.isEmpty() && !stopped.get()) {
+            batchSink.accept(batch);
+        }
+        return count;
+    }
+
+    /**
+     * Reads a region of a {@link FileChannel} with positioned reads, so that
+     * several regions can be read concurrently from the same channel.
+     */
+    private static final class RegionChannel implements ReadableByteChannel {
+
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RegionChannel(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            long remaining = end - position;
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                int read = channel.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The channel is shared, and closed by the loader
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.api.TriplePublisher;
+
+/**
+ * {@link TriplePublisher} of the triples of a single parse, for one
+ * subscriber.
+ * <p>
+ * Parsing starts on the executor at the first request. The parsers push
+ * triples to a sink, so the sink waits while there is no demand, which
+ * holds back the parser and therefore the reading of its input. No triples
+ * are buffered, so memory use is bounded by the parser, not by the speed of
+ * the subscriber.
+ */
+final class ParsingPublisher implements TriplePublisher {
+
+    /**
+     * A parse of a source, which opens the source, passes all its triples
+     * to the sink, and closes the source.
+     */
+    @FunctionalInterface
+    interface Parse {
+        void parse(Consumer<? super Triple> sink) throws IOException;
+    }
+
+    private static final Subscription NO_SUBSCRIPTION = new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    /** Thrown by the sink to abort the parse once cancelled */
+    private static final class Cancelled extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final Parse parse;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    ParsingPublisher(Parse parse, Executor executor) {
+        this.parse = Objects.requireNonNull(parse);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void subscribe(Subscriber subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(NO_SUBSCRIPTION);
+            subscriber.onError(new IllegalStateException(
+                    "Publisher supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new ParsingSubscription(subscriber));
+    }
+
+    private final class ParsingSubscription implements Subscription {
+
+        private final Subscriber subscriber;
+
+        // Guarded by this
+        private long demand;
+        private boolean cancelled;
+        private boolean started;
+        private IllegalArgumentException invalidRequest;
+
+        ParsingSubscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    invalidRequest = new IllegalArgumentException(
+                            "Non-positive request: " + n);
+                    cancelled = true;
+                } else {
+                    demand += n;
+                    if (demand < 0) {
+                        demand = Long.MAX_VALUE;
+                    }
+                }
+                notifyAll();
+                if (started) {
+                    return;
+                }
+                started = true;
+            }
+            executor.execute(this::run);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private void run() {
+            IllegalArgumentException invalid;
+            synchronized (this) {
+                invalid = invalidRequest;
+            }
+            if (invalid != null) {
+                subscriber.onError(invalid);
+                return;
+            }
+            try {
+                parse.parse(this::emit);
+            } catch (Cancelled ex) {
+                synchronized (this) {
+                    invalid = invalidRequest;
+                }
+                if (invalid != null) {
+                    subscriber.onError(invalid);
+                }
+                return;
+            } catch (Throwable ex) {
+                if (!isCancelled()) {
+                    subscriber.onError(ex);
+                }
+                return;
+            }
+            if (!isCancelled()) {
+                subscriber.onComplete();
+            }
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void emit(Triple triple) {
+            synchronized (this) {
+                while (demand == 0 && !cancelled) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new UncheckedIOException(new InterruptedIOException(
+                                "Interrupted while waiting for demand"));
+                    }
+                }
+                if (cancelled) {
+                    throw new Cancelled();
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            subscriber.onNext(triple);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+
+/**
+ * Thrown when RDF input is syntactically invalid, or contains terms that
+ * could not be created by the
+ * {@link org.apache.commons.rdf.api.RDFTermFactory}.
+ */
+public class RDFParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long lineNumber;
+    private final int column;
+
+    /**
+     * Construct an RDFParseException.
+     *
+     * @param message    Description of the error
+     * @param lineNumber Line number of the error, starting from 1
+     * @param column     Column of the error, starting from 1, or -1 if unknown
+     */
+    public RDFParseException(String message, long lineNumber, int column) {
+        this(message, lineNumber, column, null);
+    }
+
+    /**
+     * Construct an RDFParseException.
+     *
+     * @param message    Description of the error
+     * @param lineNumber Line number of the error, starting from 1
+     * @param column     Column of the error, starting from 1, or -1 if unknown
+     * @param cause      The underlying cause, e.g. an
+     *                   {@link IllegalArgumentException} from the factory
+     */
+    public RDFParseException(String message, long lineNumber, int column,
+            Throwable cause) {
+        super(message + " [line " + lineNumber
+                + (column > 0 ? ", column " + column : "") + "]", cause);
+        this.lineNumber = lineNumber;
+        this.column = column;
+    }
+
+    /**
+     * @return The line number of the error, starting from 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return The column of the error, starting from 1, or -1 if unknown
+     */
+    public int getColumn() {
+        return column;
+    }
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.api.TriplePublisher;
+
+/**
+ * Parsing of any supported {@link RDFSyntax}, either by pushing triples to a
+ * sink, or as a {@link TriplePublisher} that parses only as fast as its
+ * subscriber requests triples.
+ * <p>
+ * The supported syntaxes are {@link RDFSyntax#NTRIPLES},
+ * {@link RDFSyntax#NQUADS}, {@link RDFSyntax#TURTLE} and
+ * {@link RDFSyntax#RDFXML}. For N-Quads, the triples of all graphs are
+ * parsed, without their graph names.
+ * <p>
+ * Files are read through an {@link AsynchronousFileChannel}, one buffer
+ * ahead of the parser. A publisher starts parsing at the first request of
+ * its subscriber, on the given {@link Executor}, and holds the parser back
+ * whenever the requested triples have all been delivered, so neither
+ * triples nor input are buffered beyond what the subscriber asked for.
+ */
+public final class RDFParsers {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private RDFParsers() {
+    }
+
+    /**
+     * Check if a syntax can be parsed.
+     *
+     * @param syntax The syntax
+     * @return <code>true</code> if the syntax is supported by the methods of
+     *         this class
+     */
+    public static boolean isSupported(RDFSyntax syntax) {
+        switch (syntax) {
+        case NTRIPLES:
+        case NQUADS:
+        case TURTLE:
+        case RDFXML:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Parse all triples of the channel, passing each to the sink as soon as
+     * it has been parsed. The channel is closed when done.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param channel Channel to read from
+     * @param syntax  Syntax of the input
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code>. Ignored by N-Triples and N-Quads.
+     * @param sink    Consumer of parsed triples
+     * @return The number of triples parsed
+     * @throws IllegalArgumentException If the syntax is not supported
+     * @throws RDFParseException        If the input is not valid
+     * @throws IOException              If the channel could not be read
+     */
+    public static long parse(RDFTermFactory factory, ReadableByteChannel channel,
+            RDFSyntax syntax, String base, Consumer<? super Triple> sink)
+            throws IOException {
+        Objects.requireNonNull(factory);
+        checkSupported(syntax);
+        // Also closes the channel if a parser cannot be created
+        try (ReadableByteChannel in = channel) {
+            FlightRecorderEvents.Span span = FlightRecorderEvents
+                    .beginParse(syntax.name());
+            long count = 0;
+            try {
+                switch (syntax) {
+                case NTRIPLES:
+                    count = new NTriplesParser(factory, in).parse(sink);
+                    break;
+                case NQUADS:
+                    count = new NQuadsParser(factory, in)
+                            .parse((graphName, triple) -> sink.accept(triple));
+                    break;
+                case TURTLE:
+                    count = new TurtleParser(factory,
+                            Channels.newInputStream(in), base).parse(sink);
+                    break;
+                default:
+                    count = new RDFXMLParser(factory,
+                            Channels.newInputStream(in), base).parse(sink);
+                }
+            } finally {
+                span.end(count);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Parse all triples of a file, passing each to the sink as soon as it has
+     * been parsed.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param file    File to read
+     * @param syntax  Syntax of the file
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code>
+     * @param sink    Consumer of parsed triples
+     * @return The number of triples parsed
+     * @throws IllegalArgumentException If the syntax is not supported
+     * @throws RDFParseException        If the file is not valid
+     * @throws IOException              If the file could not be read
+     */
+    public static long parse(RDFTermFactory factory, Path file, RDFSyntax syntax,
+            String base, Consumer<? super Triple> sink) throws IOException {
+        checkSupported(syntax);
+        return parse(factory, open(file), syntax, base, sink);
+    }
+
+    /**
+     * Create a publisher of the triples of a file, parsed on a new daemon
+     * thread once subscribed.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param file    File to read, opened at the first request
+     * @param syntax  Syntax of the file
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code>
+     * @return A publisher for a single subscriber
+     * @throws IllegalArgumentException If the syntax is not supported
+     */
+    public static TriplePublisher publisher(RDFTermFactory factory, Path file,
+            RDFSyntax syntax, String base) {
+        return publisher(factory, file, syntax, base, RDFParsers::startDaemon);
+    }
+
+    /**
+     * Create a publisher of the triples of a file.
+     * <p>
+     * The parse runs as a single task on the executor, which may wait for
+     * demand, so a bounded executor should have a thread per active
+     * publisher.
+     *
+     * @param factory  Factory for creating terms and triples
+     * @param file     File to read, opened at the first request
+     * @param syntax   Syntax of the file
+     * @param base     Base IRI for resolving relative IRIs, or
+     *                 <code>null</code>
+     * @param executor Executor to parse on
+     * @return A publisher for a single subscriber
+     * @throws IllegalArgumentException If the syntax is not supported
+     */
+    public static TriplePublisher publisher(RDFTermFactory factory, Path file,
+            RDFSyntax syntax, String base, Executor executor) {
+        Objects.requireNonNull(factory);
+        Objects.requireNonNull(file);
+        checkSupported(syntax);
+        return new ParsingPublisher(
+                sink -> parse(factory, open(file), syntax, base, sink), executor);
+    }
+
+    /**
+     * Create a publisher of the triples of a channel, for instance a
+     * non-blocking source adapted to {@link ReadableByteChannel}. The channel
+     * is closed when the parse completes, fails or is cancelled.
+     *
+     * @param factory  Factory for creating terms and triples
+     * @param channel  Channel to read from
+     * @param syntax   Syntax of the input
+     * @param base     Base IRI for resolving relative IRIs, or
+     *                 <code>null</code>
+     * @param executor Executor to parse on
+     * @return A publisher for a single subscriber
+     * @throws IllegalArgumentException If the syntax is not supported
+     */
+    public static TriplePublisher publisher(RDFTermFactory factory,
+            ReadableByteChannel channel, RDFSyntax syntax, String base,
+            Executor executor) {
+        Objects.requireNonNull(factory);
+        Objects.requireNonNull(channel);
+        checkSupported(syntax);
+        return new ParsingPublisher(
+                sink -> parse(factory, channel, syntax, base, sink), executor);
+    }
+
+    private static void checkSupported(RDFSyntax syntax) {
+        if (!isSupported(syntax)) {
+            throw new IllegalArgumentException("Unsupported syntax: " + syntax);
+        }
+    }
+
+    private static ReadableByteChannel open(Path file) throws IOException {
+        return new ReadAheadChannel(AsynchronousFileChannel.open(file,
+                StandardOpenOption.READ), READ_BUFFER_SIZE);
+    }
+
+    private static void startDaemon(Runnable task) {
+        Thread thread = new Thread(task, "rdf-parser");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
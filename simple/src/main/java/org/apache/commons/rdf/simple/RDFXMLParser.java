@@ -0,0 +1,693 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming parser of <a href="https://www.w3.org/TR/rdf-syntax-grammar/">RDF
+ * 1.1 XML Syntax</a>.
+ * <p>
+ * The document is read with a StAX {@link XMLStreamReader}, and triples are
+ * passed to the sink as soon as their subject, predicate and object are
+ * known, without building a tree of the document. Only the state of the
+ * enclosing elements is kept, so memory use depends on the nesting depth of
+ * the document rather than on its size. The exceptions are literals, which
+ * are held whole, including the content of
+ * <code>rdf:parseType="Literal"</code> elements.
+ * <p>
+ * Node elements, property elements and property attributes, typed node
+ * elements, <code>rdf:li</code>, <code>rdf:parseType</code> values
+ * <code>Resource</code>, <code>Collection</code> and <code>Literal</code>,
+ * <code>rdf:datatype</code>, <code>xml:lang</code>, <code>xml:base</code> and
+ * reification through <code>rdf:ID</code> on property elements are
+ * supported. XML literals are serialized as they appear in the document,
+ * rather than in exclusive canonical form.
+ * <p>
+ * External entities are never loaded. Internal entities of a document type
+ * declaration, as often used for namespace IRIs, are expanded.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. A parser instance reads a
+ * single document, and should be closed after use.
+ */
+public final class RDFXMLParser implements AutoCloseable {
+
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String XML = "http://www.w3.org/XML/1998/namespace";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    private final RDFTermFactory factory;
+    private final Closeable source;
+    private final XMLStreamReader reader;
+    private final String blankNodeScope = NTriplesParser.newBlankNodeScope();
+    private final BaseIRI documentBase;
+
+    private final IRI rdfType;
+    private final IRI rdfFirst;
+    private final IRI rdfRest;
+    private final IRI rdfNil;
+
+    private Consumer<? super Triple> sink;
+    private long count;
+
+    /**
+     * Create an RDF/XML parser reading from the given input stream. The
+     * character encoding is detected from the XML declaration.
+     * <p>
+     * The input stream is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param in      InputStream to read from
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code> to pass relative IRIs unresolved to the
+     *                factory
+     * @throws RDFParseException If the start of the document is not valid XML
+     */
+    public RDFXMLParser(RDFTermFactory factory, InputStream in, String base)
+            throws RDFParseException {
+        this(factory, in, base, () -> XML_INPUT_FACTORY.createXMLStreamReader(in));
+    }
+
+    /**
+     * Create an RDF/XML parser reading from the given reader.
+     * <p>
+     * The reader is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param reader  Reader to read from
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code> to pass relative IRIs unresolved to the
+     *                factory
+     * @throws RDFParseException If the start of the document is not valid XML
+     */
+    public RDFXMLParser(RDFTermFactory factory, Reader reader, String base)
+            throws RDFParseException {
+        this(factory, reader, base,
+                () -> XML_INPUT_FACTORY.createXMLStreamReader(reader));
+    }
+
+    @FunctionalInterface
+    private interface ReaderSupplier {
+        XMLStreamReader get() throws XMLStreamException;
+    }
+
+    private RDFXMLParser(RDFTermFactory factory, Closeable source, String base,
+            ReaderSupplier reader) throws RDFParseException {
+        this.factory = Objects.requireNonNull(factory);
+        this.source = Objects.requireNonNull(source);
+        this.documentBase = base == null ? null : new BaseIRI(base);
+        try {
+            this.reader = reader.get();
+        } catch (XMLStreamException ex) {
+            throw xmlError(ex);
+        }
+        this.rdfType = factory.createIRI(RDF + "type");
+        this.rdfFirst = factory.createIRI(RDF + "first");
+        this.rdfRest = factory.createIRI(RDF + "rest");
+        this.rdfNil = factory.createIRI(RDF + "nil");
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                false);
+        inputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES,
+                true);
+        // Never fetch an external DTD
+        inputFactory.setXMLResolver((publicID, systemID, baseURI, namespace)
+                -> new ByteArrayInputStream(new byte[0]));
+        return inputFactory;
+    }
+
+    /**
+     * Parse the document, passing each triple to the sink as soon as it has
+     * been parsed.
+     *
+     * @param sink Consumer of parsed triples
+     * @return The number of triples parsed
+     * @throws RDFParseException If the input is not valid RDF/XML
+     * @throws IOException       If the input could not be read
+     */
+    public long parse(Consumer<? super Triple> sink) throws IOException {
+        this.sink = Objects.requireNonNull(sink);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    if (isRDF("RDF")) {
+                        nodeElementList(xmlBase(documentBase), xmlLang(null));
+                    } else {
+                        nodeElement(documentBase, null);
+                    }
+                }
+            }
+        } catch (XMLStreamException ex) {
+            if (ex.getNestedException() instanceof IOException) {
+                throw (IOException) ex.getNestedException();
+            }
+            throw xmlError(ex);
+        }
+        return count;
+    }
+
+    /**
+     * Close the underlying input.
+     *
+     * @throws IOException If the input could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        } finally {
+            source.close();
+        }
+    }
+
+    // Grammar productions, each starting at the START_ELEMENT and ending at
+    // the matching END_ELEMENT
+
+    private void nodeElementList(BaseIRI base, String lang)
+            throws XMLStreamException, RDFParseException {
+        while (nextChild()) {
+            nodeElement(base, lang);
+        }
+    }
+
+    private BlankNodeOrIRI nodeElement(BaseIRI base, String lang)
+            throws XMLStreamException, RDFParseException {
+        base = xmlBase(base);
+        lang = xmlLang(lang);
+        BlankNodeOrIRI subject = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (RDF.equals(reader.getAttributeNamespace(i))) {
+                String name = reader.getAttributeLocalName(i);
+                String value = reader.getAttributeValue(i);
+                if (name.equals("about")) {
+                    subject = iri(resolve(base, value));
+                } else if (name.equals("ID")) {
+                    subject = iri(resolve(base, "#" + value));
+                } else if (name.equals("nodeID")) {
+                    subject = blankNode(value);
+                }
+            }
+        }
+        if (subject == null) {
+            subject = factory.createBlankNode();
+        }
+        if (!isRDF("Description")) {
+            emit(subject, rdfType, elementIRI());
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            String name = reader.getAttributeLocalName(i);
+            if (!RDF.equals(namespace) || !(name.equals("about")
+                    || name.equals("ID") || name.equals("nodeID"))) {
+                propertyAttribute(subject, namespace, name,
+                        reader.getAttributeValue(i), base, lang);
+            }
+        }
+
+        int li = 1;
+        while (nextChild()) {
+            if (propertyElement(subject, base, lang, li)) {
+                li++;
+            }
+        }
+        return subject;
+    }
+
+    /**
+     * @return <code>true</code> if the element was an <code>rdf:li</code>
+     */
+    private boolean propertyElement(BlankNodeOrIRI subject, BaseIRI base,
+            String lang, int li) throws XMLStreamException, RDFParseException {
+        base = xmlBase(base);
+        lang = xmlLang(lang);
+        boolean isLi = isRDF("li");
+        IRI predicate = isLi ? iri(RDF + "_" + li) : elementIRI();
+        if (isRDF("Description") || isRDF("RDF")) {
+            throw error("Unexpected " + reader.getPrefix() + ":"
+                    + reader.getLocalName() + " as property element");
+        }
+
+        String id = null;
+        String datatype = null;
+        String parseType = null;
+        String resource = null;
+        String nodeID = null;
+        // Kept as namespace, local name and value, as the attributes are
+        // gone once the reader moves past the start tag
+        List<String> propertyAttributes = new ArrayList<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            String name = reader.getAttributeLocalName(i);
+            String value = reader.getAttributeValue(i);
+            if (RDF.equals(namespace) && name.equals("ID")) {
+                id = value;
+            } else if (RDF.equals(namespace) && name.equals("datatype")) {
+                datatype = value;
+            } else if (RDF.equals(namespace) && name.equals("parseType")) {
+                parseType = value;
+            } else if (RDF.equals(namespace) && name.equals("resource")) {
+                resource = value;
+            } else if (RDF.equals(namespace) && name.equals("nodeID")) {
+                nodeID = value;
+            } else if (!XML.equals(namespace)) {
+                propertyAttributes.add(namespace);
+                propertyAttributes.add(name);
+                propertyAttributes.add(value);
+            }
+        }
+        boolean hasPropertyAttributes = !propertyAttributes.isEmpty();
+        IRI reification = id == null ? null : iri(resolve(base, "#" + id));
+
+        if ("Resource".equals(parseType)) {
+            BlankNodeOrIRI object = factory.createBlankNode();
+            emit(subject, predicate, object, reification);
+            int objectLi = 1;
+            while (nextChild()) {
+                if (propertyElement(object, base, lang, objectLi)) {
+                    objectLi++;
+                }
+            }
+        } else if ("Collection".equals(parseType)) {
+            BlankNodeOrIRI previous = null;
+            while (nextChild()) {
+                BlankNodeOrIRI cell = factory.createBlankNode();
+                if (previous == null) {
+                    emit(subject, predicate, cell, reification);
+                } else {
+                    emit(previous, rdfRest, cell);
+                }
+                emit(cell, rdfFirst, nodeElement(base, lang));
+                previous = cell;
+            }
+            if (previous == null) {
+                emit(subject, predicate, rdfNil, reification);
+            } else {
+                emit(previous, rdfRest, rdfNil);
+            }
+        } else if (parseType != null) {
+            // "Literal", and any other value as required by the grammar
+            emit(subject, predicate, factory.createLiteral(xmlLiteral(),
+                    iri(RDF + "XMLLiteral")), reification);
+        } else {
+            StringBuilder text = new StringBuilder();
+            int event;
+            while ((event = reader.next()) != XMLStreamConstants.START_ELEMENT
+                    && event != XMLStreamConstants.END_ELEMENT) {
+                if (event == XMLStreamConstants.CHARACTERS
+                        || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE) {
+                    text.append(reader.getTextCharacters(),
+                            reader.getTextStart(), reader.getTextLength());
+                }
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                // A node element as object
+                if (!isWhitespace(text)) {
+                    throw error("Unexpected text before node element");
+                }
+                if (resource != null || nodeID != null || datatype != null
+                        || hasPropertyAttributes) {
+                    throw error("Unexpected attributes on property element "
+                            + "with a node element");
+                }
+                emit(subject, predicate, nodeElement(base, lang), reification);
+                if (nextChild()) {
+                    throw error("Property element has more than one node element");
+                }
+            } else if (text.length() > 0 || datatype != null
+                    || (resource == null && nodeID == null
+                            && !hasPropertyAttributes)) {
+                // A literal
+                if (resource != null || nodeID != null || hasPropertyAttributes) {
+                    throw error("Unexpected attributes on literal property element");
+                }
+                RDFTerm literal;
+                if (datatype != null) {
+                    literal = factory.createLiteral(text.toString(),
+                            iri(resolve(base, datatype)));
+                } else if (lang != null) {
+                    literal = factory.createLiteral(text.toString(), lang);
+                } else {
+                    literal = factory.createLiteral(text.toString());
+                }
+                emit(subject, predicate, literal, reification);
+            } else {
+                // An empty property element, possibly with property
+                // attributes of its own object
+                BlankNodeOrIRI object;
+                if (resource != null) {
+                    if (nodeID != null) {
+                        throw error("Both rdf:resource and rdf:nodeID");
+                    }
+                    object = iri(resolve(base, resource));
+                } else if (nodeID != null) {
+                    object = blankNode(nodeID);
+                } else {
+                    object = factory.createBlankNode();
+                }
+                emit(subject, predicate, object, reification);
+                for (int i = 0; i < propertyAttributes.size(); i += 3) {
+                    propertyAttribute(object, propertyAttributes.get(i),
+                            propertyAttributes.get(i + 1),
+                            propertyAttributes.get(i + 2), base, lang);
+                }
+            }
+        }
+        return isLi;
+    }
+
+    /**
+     * Emit the triple of a property attribute, unless it is an XML attribute.
+     */
+    private void propertyAttribute(BlankNodeOrIRI subject, String namespace,
+            String name, String value, BaseIRI base, String lang)
+            throws RDFParseException {
+        if (XML.equals(namespace)) {
+            return;
+        }
+        if (namespace == null || namespace.isEmpty()) {
+            throw error("Unqualified attribute " + name);
+        }
+        if (RDF.equals(namespace) && name.equals("type")) {
+            emit(subject, rdfType, iri(resolve(base, value)));
+            return;
+        }
+        emit(subject, iri(namespace + name), lang == null
+                ? factory.createLiteral(value)
+                : factory.createLiteral(value, lang));
+    }
+
+    /**
+     * Serialize the content of the current element as XML, leaving the
+     * reader at its END_ELEMENT.
+     * <p>
+     * Elements declare the prefixes they use that were declared outside the
+     * literal, so that the literal is well-formed on its own.
+     */
+    private String xmlLiteral() throws XMLStreamException {
+        StringBuilder xml = new StringBuilder();
+        // The prefixes declared in the literal, by depth
+        List<Set<String>> declared = new ArrayList<>();
+        int depth = 0;
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                Set<String> prefixes = new HashSet<>();
+                declared.add(prefixes);
+                xml.append('<').append(qname(reader.getPrefix(),
+                        reader.getLocalName()));
+                for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                    String prefix = prefix(reader.getNamespacePrefix(i));
+                    declare(xml, prefix, reader.getNamespaceURI(i));
+                    prefixes.add(prefix);
+                }
+                declareInScope(xml, declared, prefix(reader.getPrefix()));
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String prefix = prefix(reader.getAttributePrefix(i));
+                    // Unprefixed attributes have no namespace
+                    if (!prefix.isEmpty()) {
+                        declareInScope(xml, declared, prefix);
+                    }
+                }
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    xml.append(' ').append(qname(reader.getAttributePrefix(i),
+                            reader.getAttributeLocalName(i))).append("=\"");
+                    escape(xml, reader.getAttributeValue(i), true);
+                    xml.append('"');
+                }
+                xml.append('>');
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (depth-- == 0) {
+                    return xml.toString();
+                }
+                declared.remove(declared.size() - 1);
+                xml.append("</").append(qname(reader.getPrefix(),
+                        reader.getLocalName())).append('>');
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                escape(xml, reader.getText(), false);
+                break;
+            case XMLStreamConstants.COMMENT:
+                xml.append("<!--").append(reader.getText()).append("-->");
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                xml.append("<?").append(reader.getPITarget()).append(' ')
+                        .append(reader.getPIData()).append("?>");
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Declare a prefix of the current element that is in scope, but not
+     * declared in the literal.
+     */
+    private void declareInScope(StringBuilder xml, List<Set<String>> declared,
+            String prefix) {
+        if (prefix.equals("xml")) {
+            return;
+        }
+        for (Set<String> prefixes : declared) {
+            if (prefixes.contains(prefix)) {
+                return;
+            }
+        }
+        String namespace = reader.getNamespaceContext().getNamespaceURI(
+                prefix);
+        if (namespace == null || namespace.isEmpty()) {
+            return;
+        }
+        declare(xml, prefix, namespace);
+        declared.get(declared.size() - 1).add(prefix);
+    }
+
+    private static void declare(StringBuilder xml, String prefix,
+            String namespace) {
+        xml.append(prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix)
+                .append("=\"");
+        escape(xml, namespace, true);
+        xml.append('"');
+    }
+
+    private static String prefix(String prefix) {
+        return prefix == null ? "" : prefix;
+    }
+
+    private static String qname(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName
+                : prefix + ":" + localName;
+    }
+
+    private static void escape(StringBuilder xml, String s, boolean attribute) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '&':
+                xml.append("&amp;");
+                break;
+            case '<':
+                xml.append("&lt;");
+                break;
+            case '>':
+                xml.append("&gt;");
+                break;
+            case '"':
+                xml.append(attribute ? "&quot;" : "\"");
+                break;
+            default:
+                xml.append(c);
+            }
+        }
+    }
+
+    // Reader helpers
+
+    /**
+     * Move to the next child element of the current element, skipping
+     * whitespace, comments and processing instructions.
+     *
+     * @return <code>true</code> at the START_ELEMENT of a child, or
+     *         <code>false</code> at the END_ELEMENT of the current element
+     */
+    private boolean nextChild() throws XMLStreamException, RDFParseException {
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                return true;
+            case XMLStreamConstants.END_ELEMENT:
+                return false;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+                if (!reader.isWhiteSpace()) {
+                    throw error("Unexpected text: " + reader.getText().trim());
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static boolean isWhitespace(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isRDF(String localName) {
+        return RDF.equals(reader.getNamespaceURI())
+                && localName.equals(reader.getLocalName());
+    }
+
+    private IRI elementIRI() throws RDFParseException {
+        String namespace = reader.getNamespaceURI();
+        if (namespace == null || namespace.isEmpty()) {
+            throw error("Element " + reader.getLocalName()
+                    + " has no namespace");
+        }
+        return iri(namespace + reader.getLocalName());
+    }
+
+    private BaseIRI xmlBase(BaseIRI base) throws RDFParseException {
+        String value = reader.getAttributeValue(XML, "base");
+        if (value == null) {
+            return base;
+        }
+        try {
+            return new BaseIRI(resolve(base, value));
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid xml:base " + value, ex);
+        }
+    }
+
+    private String xmlLang(String lang) {
+        String value = reader.getAttributeValue(XML, "lang");
+        if (value == null) {
+            return lang;
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    // Terms and triples
+
+    private String resolve(BaseIRI base, String iri) throws RDFParseException {
+        if (base == null) {
+            return iri;
+        }
+        try {
+            return base.resolve(iri);
+        } catch (URISyntaxException ex) {
+            throw error("Could not resolve relative IRI " + iri, ex);
+        }
+    }
+
+    private IRI iri(String iri) throws RDFParseException {
+        try {
+            return factory.createIRI(iri);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid IRI: " + ex.getMessage(), ex);
+        }
+    }
+
+    private BlankNodeOrIRI blankNode(String nodeID) {
+        return factory.createBlankNode(blankNodeScope + nodeID);
+    }
+
+    private void emit(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        sink.accept(factory.createTriple(subject, predicate, object));
+        count++;
+    }
+
+    private void emit(BlankNodeOrIRI subject, IRI predicate, RDFTerm object,
+            IRI reification) throws RDFParseException {
+        emit(subject, predicate, object);
+        if (reification != null) {
+            emit(reification, rdfType, iri(RDF + "Statement"));
+            emit(reification, iri(RDF + "subject"), subject);
+            emit(reification, iri(RDF + "predicate"), predicate);
+            emit(reification, iri(RDF + "object"), object);
+        }
+    }
+
+    // Errors
+
+    private RDFParseException error(String message) {
+        return error(message, null);
+    }
+
+    private RDFParseException error(String message, Throwable cause) {
+        Location location = reader.getLocation();
+        return new RDFParseException(message, location.getLineNumber(),
+                location.getColumnNumber(), cause);
+    }
+
+    private static RDFParseException xmlError(XMLStreamException ex) {
+        Location location = ex.getLocation();
+        String message = ex.getMessage();
+        // StAX prefixes the message with the location, which is reported
+        // separately
+        int start = message == null ? -1 : message.indexOf("Message: ");
+        if (start >= 0) {
+            message = message.substring(start + "Message: ".length());
+        }
+        return location == null ? new RDFParseException(message, -1, -1, ex)
+                : new RDFParseException(message, location.getLineNumber(),
+                        location.getColumnNumber(), ex);
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Sequential {@link ReadableByteChannel} over an
+ * {@link AsynchronousFileChannel}, which reads the next buffer of the file in
+ * the background while the current one is consumed.
+ * <p>
+ * At most two buffers are held, so memory use is fixed, and a reader that
+ * stops reading leaves at most one read outstanding.
+ */
+final class ReadAheadChannel implements ReadableByteChannel {
+
+    private final AsynchronousFileChannel channel;
+    private ByteBuffer current;
+    private ByteBuffer next;
+    private Future<Integer> pending;
+    private long position;
+    private boolean eof;
+    private boolean open = true;
+
+    ReadAheadChannel(AsynchronousFileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.current = ByteBuffer.allocate(bufferSize);
+        this.current.flip();
+        this.next = ByteBuffer.allocate(bufferSize);
+        this.pending = channel.read(next, 0);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        while (!current.hasRemaining()) {
+            if (eof) {
+                return -1;
+            }
+            int n = await();
+            if (n < 0) {
+                eof = true;
+                return -1;
+            }
+            position += n;
+            ByteBuffer filled = next;
+            filled.flip();
+            next = current;
+            next.clear();
+            current = filled;
+            pending = channel.read(next, position);
+        }
+        int n = Math.min(current.remaining(), dst.remaining());
+        int limit = current.limit();
+        current.limit(current.position() + n);
+        dst.put(current);
+        current.limit(limit);
+        return n;
+    }
+
+    private int await() throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            // Let the outstanding read finish before its buffer is dropped
+            if (pending != null) {
+                await();
+            }
+        } catch (IOException ex) {
+            // Nobody will use the result
+        } finally {
+            channel.close();
+        }
+    }
+
+}
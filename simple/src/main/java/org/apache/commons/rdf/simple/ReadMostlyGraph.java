@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A thread-safe view of a graph that is read far more often than it is
+ * changed.
+ * <p>
+ * The graph is guarded by a {@link StampedLock}. Changes take the write
+ * lock. {@link #size()} and both forms of <code>contains</code> first read
+ * the graph optimistically, without locking, and only take the read lock if
+ * a change happened in the meantime, so that readers do not write to any
+ * shared memory and do not contend with each other. {@link #getTriples()}
+ * takes the read lock and returns a stream over a copy of the matching
+ * triples, as a lazy stream could outlive the lock.
+ * <p>
+ * An optimistic read may see the graph halfway through a change, so the
+ * graph must tolerate being read while it is changed by another thread, in
+ * the sense that such a read either returns, possibly with a wrong result,
+ * or throws a {@link RuntimeException}. The result is discarded in either
+ * case. The graphs of {@link SimpleRDFTermFactory} meet this requirement.
+ * The graph must not be used other than through this view.
+ */
+public final class ReadMostlyGraph implements Graph {
+
+    private final Graph graph;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Create a thread-safe view of a graph.
+     *
+     * @param graph The graph, which must not be used directly any more
+     */
+    public ReadMostlyGraph(Graph graph) {
+        this.graph = Objects.requireNonNull(graph);
+    }
+
+    /**
+     * Read the graph optimistically, and under the read lock if that fails.
+     */
+    private <T> T read(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException ex) {
+                if (lock.validate(stamp)) {
+                    throw ex;
+                }
+                // Caused by a concurrent change
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void add(Triple triple) {
+        long stamp = lock.writeLock();
+        try {
+            graph.add(triple);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long stamp = lock.writeLock();
+        try {
+            graph.add(subject, predicate, object);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            graph.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean contains(Triple triple) {
+        Objects.requireNonNull(triple);
+        return read(() -> graph.contains(triple));
+    }
+
+    @Override
+    public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        return read(() -> graph.contains(subject, predicate, object));
+    }
+
+    @Override
+    public void remove(Triple triple) {
+        long stamp = lock.writeLock();
+        try {
+            graph.remove(triple);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        long stamp = lock.writeLock();
+        try {
+            graph.remove(subject, predicate, object);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public long size() {
+        return read(graph::size);
+    }
+
+    @Override
+    public Stream<? extends Triple> getTriples() {
+        return getTriples(null, null, null);
+    }
+
+    @Override
+    public Stream<? extends Triple> getTriples(BlankNodeOrIRI subject,
+            IRI predicate, RDFTerm object) {
+        List<Triple> triples;
+        long stamp = lock.readLock();
+        try {
+            triples = graph.getTriples(subject, predicate, object)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return triples.parallelStream().unordered();
+    }
+
+    @Override
+    public String toString() {
+        long stamp = lock.readLock();
+        try {
+            return graph.toString();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+}
@@ -0,0 +1,595 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A graph served by a {@link GraphServer}.
+ * <p>
+ * Requests are pipelined: changes are sent without waiting for the server
+ * to perform them, and the triples of {@link #add(Triple)} are sent in
+ * batches. As the server performs the requests of a connection in order,
+ * a read sees all changes made before it through the same client. A change
+ * that fails on the server is reported by the next call that waits for the
+ * server, which is any read, {@link #flush()} or {@link #close()}, with an
+ * {@link IllegalStateException}; a failure of the connection is reported
+ * with an {@link UncheckedIOException}.
+ * <p>
+ * The stream of {@link #getTriples()} receives the matching triples in
+ * chunks, and the server only sends a few chunks more than the stream has
+ * consumed. A stream that is not consumed to the end must be closed, to
+ * release the scan on the server.
+ * <p>
+ * This class is thread-safe, and threads sharing a client share its
+ * connection and batches.
+ */
+public final class RemoteGraph implements Graph {
+
+    /** Default number of triples added per request */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    /** Chunks of a scan the server may send ahead of the stream */
+    static final int INITIAL_CREDIT = 4;
+
+    private final SocketChannel channel;
+    private final BinaryInput in;
+    private final int batchSize;
+    private final Thread reader;
+
+    /** Guards the channel for writing, and all fields below it */
+    private final Object writeLock = new Object();
+    private final BinaryOutput out = new BinaryOutput(GraphServer.BUFFER_SIZE);
+    private final BinaryOutput batch = new BinaryOutput(GraphServer.BUFFER_SIZE);
+    private int batchCount;
+    private long nextId;
+    private CompletableFuture<Long> lastChange = CompletableFuture
+            .completedFuture(0L);
+    private boolean closed;
+
+    private final Map<Long, CompletableFuture<Long>> responses = new ConcurrentHashMap<>();
+    private final Map<Long, Scan> scans = new ConcurrentHashMap<>();
+    private final AtomicReference<Throwable> changeFailure = new AtomicReference<>();
+    private volatile IOException connectionFailure;
+
+    private RemoteGraph(SocketChannel channel, int batchSize) {
+        this.channel = channel;
+        this.in = new BinaryInput(channel, GraphServer.BUFFER_SIZE);
+        this.batchSize = batchSize;
+        reader = new Thread(this::read, "RemoteGraph reader");
+        reader.setDaemon(true);
+    }
+
+    /**
+     * Connect to a graph server, with the default batch size.
+     *
+     * @param address The address of the server
+     * @return The graph of the server
+     * @throws IOException If the server could not be reached
+     */
+    public static RemoteGraph connect(InetSocketAddress address)
+            throws IOException {
+        return connect(address, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Connect to a graph server.
+     *
+     * @param address   The address of the server
+     * @param batchSize Number of added triples sent per request
+     * @return The graph of the server
+     * @throws IOException If the server could not be reached
+     */
+    public static RemoteGraph connect(InetSocketAddress address, int batchSize)
+            throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        SocketChannel channel = SocketChannel.open(address);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            RemoteGraph graph = new RemoteGraph(channel, batchSize);
+            synchronized (graph.writeLock) {
+                graph.out.writeBytes(GraphServer.MAGIC, 0,
+                        GraphServer.MAGIC.length);
+                graph.out.writeByte(GraphServer.VERSION);
+                graph.out.writeTo(channel);
+            }
+            graph.reader.start();
+            return graph;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void add(Triple triple) {
+        add(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    @Override
+    public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        Objects.requireNonNull(subject);
+        Objects.requireNonNull(predicate);
+        Objects.requireNonNull(object);
+        synchronized (writeLock) {
+            checkOpen();
+            BinaryTerms.write(batch, subject);
+            BinaryTerms.write(batch, predicate);
+            BinaryTerms.write(batch, object);
+            if (++batchCount == batchSize) {
+                sendBatch();
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(Triple triple) {
+        return contains(triple.getSubject(), triple.getPredicate(),
+                triple.getObject());
+    }
+
+    @Override
+    public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        return await(request(GraphServer.OP_CONTAINS, subject, predicate,
+                object, false)) != 0;
+    }
+
+    @Override
+    public void remove(Triple triple) {
+        remove(triple.getSubject(), triple.getPredicate(), triple.getObject());
+    }
+
+    @Override
+    public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        request(GraphServer.OP_REMOVE, subject, predicate, object, true);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            checkOpen();
+            sendBatch();
+            int start = begin(GraphServer.OP_CLEAR);
+            change(end(start));
+        }
+    }
+
+    @Override
+    public long size() {
+        CompletableFuture<Long> response;
+        synchronized (writeLock) {
+            checkOpen();
+            sendBatch();
+            response = end(begin(GraphServer.OP_SIZE));
+        }
+        return await(response);
+    }
+
+    @Override
+    public Stream<Triple> getTriples() {
+        return getTriples(null, null, null);
+    }
+
+    @Override
+    public Stream<Triple> getTriples(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        Scan scan;
+        synchronized (writeLock) {
+            checkOpen();
+            sendBatch();
+            scan = new Scan(nextId);
+            scans.put(scan.id, scan);
+            int start = begin(GraphServer.OP_SCAN);
+            BinaryTerms.write(out, subject);
+            BinaryTerms.write(out, predicate);
+            BinaryTerms.write(out, object);
+            out.writeVarint(INITIAL_CREDIT);
+            send(start);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan,
+                Spliterator.NONNULL | Spliterator.DISTINCT), false)
+                .onClose(scan::close);
+    }
+
+    /**
+     * Send the pending additions, and wait until the server has performed
+     * all changes sent so far.
+     *
+     * @throws IllegalStateException If a change failed on the server
+     * @throws UncheckedIOException  If the connection failed
+     */
+    public void flush() {
+        CompletableFuture<Long> last;
+        synchronized (writeLock) {
+            checkOpen();
+            sendBatch();
+            last = lastChange;
+        }
+        await(last);
+    }
+
+    /**
+     * Send the pending additions and close the connection.
+     *
+     * @throws IllegalStateException If a change failed on the server
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            if (connectionFailure == null) {
+                flush();
+            }
+        } finally {
+            synchronized (writeLock) {
+                closed = true;
+            }
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return "RemoteGraph " + channel.getRemoteAddress();
+        } catch (IOException ex) {
+            return "RemoteGraph (closed)";
+        }
+    }
+
+    private void checkOpen() {
+        IOException failure = connectionFailure;
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Graph is closed");
+        }
+    }
+
+    /**
+     * Send a request of a pattern, after the pending additions.
+     *
+     * @param change <code>true</code> if the request changes the graph
+     */
+    private CompletableFuture<Long> request(int op, RDFTerm subject,
+            RDFTerm predicate, RDFTerm object, boolean change) {
+        synchronized (writeLock) {
+            checkOpen();
+            sendBatch();
+            int start = begin(op);
+            BinaryTerms.write(out, subject);
+            BinaryTerms.write(out, predicate);
+            BinaryTerms.write(out, object);
+            CompletableFuture<Long> response = end(start);
+            if (change) {
+                change(response);
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Send the pending additions, under the write lock.
+     */
+    private void sendBatch() {
+        if (batchCount == 0) {
+            return;
+        }
+        int start = begin(GraphServer.OP_ADD);
+        out.writeVarint(batchCount);
+        out.write(batch);
+        batch.reset();
+        batchCount = 0;
+        change(end(start));
+    }
+
+    /**
+     * Start a request frame in {@link #out}, under the write lock, with the
+     * next request id.
+     *
+     * @return The position of the frame length
+     */
+    private int begin(int op) {
+        int start = out.size();
+        out.writeInt(0);
+        out.writeVarint(nextId++);
+        out.writeByte(op);
+        return start;
+    }
+
+    /**
+     * Complete and send a request, under the write lock.
+     *
+     * @return The future response
+     */
+    private CompletableFuture<Long> end(int start) {
+        CompletableFuture<Long> response = new CompletableFuture<>();
+        responses.put(nextId - 1, response);
+        send(start);
+        return response;
+    }
+
+    /**
+     * Complete and send a frame, under the write lock.
+     */
+    private void send(int start) {
+        out.setInt(start, out.size() - start - 4);
+        try {
+            out.writeTo(channel);
+        } catch (IOException ex) {
+            out.reset();
+            fail(ex);
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Record the response to a change, which no caller waits for.
+     */
+    private void change(CompletableFuture<Long> response) {
+        // Completed by the reader, before it reads any later response
+        lastChange = response.handle((result, failure) -> {
+            if (failure != null) {
+                changeFailure.compareAndSet(null, failure);
+            }
+            return 0L;
+        });
+    }
+
+    /**
+     * Wait for a response, and for any change that failed before it.
+     */
+    private long await(CompletableFuture<Long> response) {
+        long result;
+        try {
+            result = response.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException(
+                    "Interrupted waiting for the server"));
+        } catch (ExecutionException ex) {
+            throw propagate(ex.getCause());
+        }
+        Throwable failure = changeFailure.getAndSet(null);
+        if (failure != null) {
+            throw propagate(failure);
+        }
+        return result;
+    }
+
+    private static RuntimeException propagate(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        return new IllegalStateException(failure);
+    }
+
+    /**
+     * Fail all requests waiting for a response, once the connection failed.
+     */
+    private void fail(IOException failure) {
+        if (connectionFailure == null) {
+            connectionFailure = failure;
+        }
+        UncheckedIOException error = new UncheckedIOException(failure);
+        for (Long id : new ArrayList<>(responses.keySet())) {
+            CompletableFuture<Long> response = responses.remove(id);
+            if (response != null) {
+                response.completeExceptionally(error);
+            }
+        }
+        for (Long id : new ArrayList<>(scans.keySet())) {
+            Scan scan = scans.remove(id);
+            if (scan != null) {
+                scan.chunks.add(error);
+            }
+        }
+    }
+
+    /**
+     * Read responses until the connection is closed.
+     */
+    private void read() {
+        try {
+            while (in.request(4)) {
+                in.beginFrame(in.readInt());
+                long id = in.readVarint();
+                int op = in.readByte();
+                switch (op) {
+                case GraphServer.OP_OK:
+                    long result = in.readVarint();
+                    CompletableFuture<Long> response = responses.remove(id);
+                    if (response != null) {
+                        response.complete(result);
+                    }
+                    break;
+                case GraphServer.OP_ERROR:
+                    IllegalStateException error = new IllegalStateException(
+                            "Failed on the server: " + in.readString());
+                    response = responses.remove(id);
+                    Scan failed = scans.remove(id);
+                    if (response != null) {
+                        response.completeExceptionally(error);
+                    } else if (failed != null) {
+                        failed.chunks.add(error);
+                    }
+                    break;
+                case GraphServer.OP_CHUNK:
+                    int count = in.readLength();
+                    List<Triple> triples = new ArrayList<>(Math.min(count,
+                            GraphServer.CHUNK_SIZE));
+                    for (int i = 0; i < count; i++) {
+                        RDFTerm subject = BinaryTerms.read(in);
+                        RDFTerm predicate = BinaryTerms.read(in);
+                        RDFTerm object = BinaryTerms.read(in);
+                        triples.add(new TripleImpl((BlankNodeOrIRI) subject,
+                                (IRI) predicate, object));
+                    }
+                    Scan scan = scans.get(id);
+                    if (scan != null) {
+                        scan.chunks.add(triples);
+                    }
+                    break;
+                case GraphServer.OP_END:
+                    Scan ended = scans.remove(id);
+                    if (ended != null) {
+                        ended.chunks.add(Collections.emptyList());
+                    }
+                    break;
+                default:
+                    throw new IOException("Invalid response " + op);
+                }
+                in.endFrame();
+            }
+            fail(new IOException("Connection closed by the server"));
+        } catch (IOException | RuntimeException ex) {
+            fail(ex instanceof IOException ? (IOException) ex
+                    : new IOException(ex));
+        }
+    }
+
+    /**
+     * The triples of a scan, as received.
+     */
+    private final class Scan implements Iterator<Triple> {
+
+        final long id;
+        /**
+         * Lists of triples, an empty list at the end, or the exception that
+         * ended the scan
+         */
+        final BlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+        private Iterator<Triple> current = Collections.emptyIterator();
+        private boolean ended;
+
+        Scan(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (ended) {
+                    return false;
+                }
+                Object next;
+                try {
+                    next = chunks.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException(
+                            "Interrupted waiting for the server"));
+                }
+                if (next instanceof RuntimeException) {
+                    ended = true;
+                    throw (RuntimeException) next;
+                }
+                @SuppressWarnings("unchecked")
+                List<Triple> chunk = (List<Triple>) next;
+                if (chunk.isEmpty()) {
+                    ended = true;
+                    return false;
+                }
+                current = chunk.iterator();
+                credit();
+            }
+            return true;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        /**
+         * Allow the server to send another chunk, for the one taken.
+         */
+        private void credit() {
+            synchronized (writeLock) {
+                if (closed || connectionFailure != null
+                        || !scans.containsKey(id)) {
+                    return;
+                }
+                int start = out.size();
+                out.writeInt(0);
+                out.writeVarint(id);
+                out.writeByte(GraphServer.OP_CREDIT);
+                out.writeVarint(1);
+                send(start);
+            }
+        }
+
+        void close() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            synchronized (writeLock) {
+                if (scans.remove(id) == null || closed
+                        || connectionFailure != null) {
+                    return;
+                }
+                int start = out.size();
+                out.writeInt(0);
+                out.writeVarint(id);
+                out.writeByte(GraphServer.OP_CANCEL);
+                send(start);
+            }
+        }
+    }
+
+}
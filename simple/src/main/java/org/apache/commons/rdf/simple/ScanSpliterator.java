@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Counts the triples of a part of a scan, to report the end of the scan
+ * with the number of triples returned.
+ * <p>
+ * A scan ends when all its parts are exhausted, which for a parallel stream
+ * are the parts it was split into, or when its stream is closed, whichever
+ * comes first.
+ */
+final class ScanSpliterator implements Spliterator<Triple> {
+
+    private final Spliterator<? extends Triple> spliterator;
+    private final Scan scan;
+    private boolean done;
+
+    private ScanSpliterator(Spliterator<? extends Triple> spliterator,
+            Scan scan) {
+        this.spliterator = spliterator;
+        this.scan = scan;
+    }
+
+    /**
+     * Wrap a stream of triples to report the end of the scan.
+     *
+     * @param stream Stream of a scan
+     * @param end    Called once with the number of triples returned
+     * @return A stream of the same triples, as parallel as the given one
+     */
+    static Stream<Triple> watch(Stream<? extends Triple> stream,
+            LongConsumer end) {
+        Scan scan = new Scan(end);
+        return StreamSupport.stream(
+                new ScanSpliterator(stream.spliterator(), scan),
+                stream.isParallel()).onClose(stream::close)
+                .onClose(scan::finish);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Triple> action) {
+        if (spliterator.tryAdvance(action)) {
+            scan.triples.increment();
+            return true;
+        }
+        done();
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Triple> action) {
+        spliterator.forEachRemaining(triple -> {
+            scan.triples.increment();
+            action.accept(triple);
+        });
+        done();
+    }
+
+    private void done() {
+        if (!done) {
+            done = true;
+            scan.partDone();
+        }
+    }
+
+    @Override
+    public Spliterator<Triple> trySplit() {
+        Spliterator<? extends Triple> split = spliterator.trySplit();
+        if (split == null) {
+            return null;
+        }
+        scan.parts.incrementAndGet();
+        return new ScanSpliterator(split, scan);
+    }
+
+    @Override
+    public long estimateSize() {
+        return spliterator.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return spliterator.characteristics();
+    }
+
+    /**
+     * A scan in progress, which may have been split for a parallel stream.
+     */
+    private static final class Scan {
+
+        private final LongConsumer end;
+        private final AtomicInteger parts = new AtomicInteger(1);
+        private final LongAdder triples = new LongAdder();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        Scan(LongConsumer end) {
+            this.end = end;
+        }
+
+        void partDone() {
+            if (parts.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                end.accept(triples.sum());
+            }
+        }
+    }
+
+}
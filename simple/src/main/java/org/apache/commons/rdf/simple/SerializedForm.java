@@ -0,0 +1,426 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Serialization proxy of the terms, triples and graphs of this package.
+ * <p>
+ * Each serializable class replaces itself with a <code>SerializedForm</code>
+ * in <code>writeReplace()</code>, and the proxy resolves back to an instance
+ * of the original class. Instead of the default serialized form, with its
+ * class descriptors and field names, the proxy writes the encodings of
+ * {@link BinaryOutput} in chunks of bytes:
+ * <ul>
+ * <li>Each distinct term is written once per object; later occurrences are
+ * varint back-references to it.</li>
+ * <li>Lexical forms and language tags are written once per object, and
+ * otherwise back-referenced.</li>
+ * <li>IRIs of the {@link Types} constants are written as a single byte,
+ * and restored as the shared constants.</li>
+ * <li>Graphs are written in batches of triples, so neither side holds an
+ * encoding of the whole graph.</li>
+ * </ul>
+ * Each serialized object has a proxy of its own, so back-references do not
+ * span objects of the same stream. Blank nodes keep their
+ * {@link BlankNode#uniqueReference()}, so a restored term, triple or graph is
+ * equal to the original. Restored terms are checked as by the public
+ * constructors, so a forged stream fails with an
+ * {@link InvalidObjectException} rather than restoring terms that could not
+ * have been created.
+ */
+final class SerializedForm implements Externalizable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int VERSION = 1;
+
+    // Kinds of serialized objects
+    private static final int OBJECT_TERM = 0;
+    private static final int OBJECT_TRIPLE = 1;
+    private static final int OBJECT_GRAPH = 2;
+
+    // Terms are encoded as in the binary RDF format, plus the Types constants
+    private static final int KIND_IRI = BinaryRDFWriter.KIND_IRI;
+    private static final int KIND_BLANK_NODE = BinaryRDFWriter.KIND_BLANK_NODE;
+    private static final int KIND_STRING = BinaryRDFWriter.KIND_STRING;
+    private static final int KIND_LANG_STRING = BinaryRDFWriter.KIND_LANG_STRING;
+    private static final int KIND_TYPED_LITERAL = BinaryRDFWriter.KIND_TYPED_LITERAL;
+    private static final int KIND_TYPE = 5;
+
+    /** Bytes of triples written per chunk of a graph */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Largest size of a graph that is presized from the size read from the
+     * stream, as the size is not trusted; larger graphs grow as they are read
+     */
+    private static final long MAX_PRESIZE = 1 << 20;
+
+    /**
+     * The Types constants by their code in the stream. Codes are part of the
+     * serialized form: constants are only ever appended, never reordered.
+     */
+    private static final IRI[] TYPES = {
+            Types.RDF_HTML, Types.RDF_PLAINLITERAL, Types.RDF_XMLLITERAL,
+            Types.RDF_LANGSTRING, Types.XSD_NCNAME, Types.XSD_NMTOKEN,
+            Types.XSD_NAME, Types.XSD_ANYURI, Types.XSD_BASE64BINARY,
+            Types.XSD_BOOLEAN, Types.XSD_BYTE, Types.XSD_DATE,
+            Types.XSD_DATETIME, Types.XSD_DAYTIMEDURATION, Types.XSD_DECIMAL,
+            Types.XSD_DOUBLE, Types.XSD_DURATION, Types.XSD_FLOAT,
+            Types.XSD_GDAY, Types.XSD_GMONTH, Types.XSD_GMONTHDAY,
+            Types.XSD_GYEAR, Types.XSD_GYEARMONTH, Types.XSD_HEXBINARY,
+            Types.XSD_INT, Types.XSD_INTEGER, Types.XSD_LANGUAGE,
+            Types.XSD_LONG, Types.XSD_NEGATIVEINTEGER,
+            Types.XSD_NONNEGATIVEINTEGER, Types.XSD_NONPOSITIVEINTEGER,
+            Types.XSD_NORMALIZEDSTRING, Types.XSD_POSITIVEINTEGER,
+            Types.XSD_SHORT, Types.XSD_STRING, Types.XSD_TIME,
+            Types.XSD_TOKEN, Types.XSD_UNSIGNEDBYTE, Types.XSD_UNSIGNEDINT,
+            Types.XSD_UNSIGNEDLONG, Types.XSD_UNSIGNEDSHORT };
+    private static final Map<IRI, Integer> TYPE_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_INDEX.put(TYPES[i], i);
+        }
+    }
+
+    private Object object;
+
+    /**
+     * For deserialization only.
+     */
+    public SerializedForm() {
+    }
+
+    SerializedForm(Object object) {
+        this.object = object;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(VERSION);
+        Encoder encoder = new Encoder();
+        if (object instanceof RDFTerm) {
+            out.writeByte(OBJECT_TERM);
+            encoder.term((RDFTerm) object);
+            encoder.writeChunk(out);
+        } else if (object instanceof Triple) {
+            out.writeByte(OBJECT_TRIPLE);
+            encoder.triple((Triple) object);
+            encoder.writeChunk(out);
+        } else {
+            GraphImpl graph = (GraphImpl) object;
+            out.writeByte(OBJECT_GRAPH);
+            out.writeObject(graph.getFactory());
+            out.writeLong(graph.size());
+            Iterator<? extends Triple> it = graph.getTriples().iterator();
+            while (it.hasNext()) {
+                encoder.triple(it.next());
+                if (encoder.out.size() >= CHUNK_SIZE) {
+                    encoder.writeChunk(out);
+                }
+            }
+            encoder.writeChunk(out);
+            out.writeInt(0);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException,
+            ClassNotFoundException {
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new InvalidObjectException("Unsupported version: " + version);
+        }
+        int kind = in.readByte();
+        Decoder decoder = new Decoder();
+        switch (kind) {
+        case OBJECT_TERM:
+            decoder.readChunk(in);
+            object = decoder.term();
+            break;
+        case OBJECT_TRIPLE:
+            decoder.readChunk(in);
+            object = decoder.triple();
+            break;
+        case OBJECT_GRAPH:
+            Object factory = in.readObject();
+            if (!(factory instanceof SimpleRDFTermFactory)) {
+                throw new InvalidObjectException("Invalid graph factory");
+            }
+            GraphImpl graph = new GraphImpl((SimpleRDFTermFactory) factory,
+                    Math.min(in.readLong(), MAX_PRESIZE));
+            while (decoder.readChunk(in)) {
+                while (!decoder.in.atEnd()) {
+                    graph.addInternal(decoder.triple());
+                }
+            }
+            object = graph;
+            break;
+        default:
+            throw new InvalidObjectException("Unknown object kind: " + kind);
+        }
+    }
+
+    private Object readResolve() {
+        return object;
+    }
+
+    /**
+     * Writes terms with back-references, collecting the bytes of a chunk.
+     */
+    private static final class Encoder {
+
+        private final BinaryOutput out = new BinaryOutput(256);
+        private final Map<RDFTerm, Integer> terms = new HashMap<>();
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void writeChunk(ObjectOutput output) throws IOException {
+            if (out.size() > 0) {
+                output.writeInt(out.size());
+                output.write(out.buffer(), 0, out.size());
+                out.reset();
+            }
+        }
+
+        void triple(Triple triple) {
+            term(triple.getSubject());
+            term(triple.getPredicate());
+            term(triple.getObject());
+        }
+
+        /**
+         * Write a back-reference to the term plus one, or <code>0</code>
+         * followed by the term.
+         */
+        void term(RDFTerm term) {
+            Integer id = terms.get(term);
+            if (id != null) {
+                out.writeVarint(id + 1L);
+                return;
+            }
+            out.writeVarint(0);
+            if (term instanceof IRI) {
+                Integer type = TYPE_INDEX.get(term);
+                if (type != null) {
+                    out.writeByte(KIND_TYPE);
+                    out.writeByte(type);
+                } else {
+                    out.writeByte(KIND_IRI);
+                    out.writeString(((IRI) term).getIRIString());
+                }
+            } else if (term instanceof BlankNode) {
+                out.writeByte(KIND_BLANK_NODE);
+                out.writeString(((BlankNode) term).uniqueReference());
+            } else if (term instanceof Literal) {
+                Literal literal = (Literal) term;
+                Optional<String> languageTag = literal.getLanguageTag();
+                if (languageTag.isPresent()) {
+                    out.writeByte(KIND_LANG_STRING);
+                    string(literal.getLexicalForm());
+                    string(languageTag.get());
+                } else if (Types.XSD_STRING.equals(literal.getDatatype())) {
+                    out.writeByte(KIND_STRING);
+                    string(literal.getLexicalForm());
+                } else {
+                    out.writeByte(KIND_TYPED_LITERAL);
+                    term(literal.getDatatype());
+                    string(literal.getLexicalForm());
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported RDFTerm: "
+                        + term);
+            }
+            // After any datatype, in the order the decoder adds terms
+            terms.put(term, terms.size());
+        }
+
+        private void string(String s) {
+            Integer id = strings.get(s);
+            if (id != null) {
+                out.writeVarint(id + 1L);
+                return;
+            }
+            out.writeVarint(0);
+            out.writeString(s);
+            strings.put(s, strings.size());
+        }
+    }
+
+    /**
+     * Reads what {@link Encoder} wrote, chunk by chunk.
+     */
+    private static final class Decoder {
+
+        private BinaryInput in;
+        private final List<RDFTerm> terms = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * @return <code>false</code> at the end of the chunks of a graph
+         */
+        boolean readChunk(ObjectInput input) throws IOException {
+            int length = input.readInt();
+            if (length < 0) {
+                throw new InvalidObjectException("Invalid chunk length");
+            }
+            if (length == 0) {
+                return false;
+            }
+            byte[] chunk = readFully(input, length);
+            in = new BinaryInput(Channels.newChannel(
+                    new ByteArrayInputStream(chunk)), length);
+            // Lengths within the chunk are not trusted either
+            in.beginFrame(length);
+            return true;
+        }
+
+        /**
+         * Read the bytes of a chunk, growing the array as the bytes arrive
+         * rather than trusting the length read from the stream.
+         */
+        private static byte[] readFully(ObjectInput input, int length)
+                throws IOException {
+            byte[] chunk = new byte[Math.min(length, CHUNK_SIZE)];
+            int read = 0;
+            while (read < length) {
+                if (read == chunk.length) {
+                    chunk = Arrays.copyOf(chunk,
+                            (int) Math.min(length, 2L * chunk.length));
+                }
+                int n = chunk.length - read;
+                input.readFully(chunk, read, n);
+                read += n;
+            }
+            return chunk;
+        }
+
+        Triple triple() throws IOException {
+            RDFTerm subject = term();
+            RDFTerm predicate = term();
+            RDFTerm object = term();
+            if (!(subject instanceof BlankNodeOrIRI)
+                    || !(predicate instanceof IRI)) {
+                throw new InvalidObjectException("Invalid triple");
+            }
+            return new TripleImpl((BlankNodeOrIRI) subject, (IRI) predicate,
+                    object);
+        }
+
+        RDFTerm term() throws IOException {
+            long ref = in.readVarint();
+            if (ref > 0) {
+                if (ref > terms.size()) {
+                    throw new InvalidObjectException("Invalid term reference");
+                }
+                return terms.get((int) ref - 1);
+            }
+            RDFTerm term;
+            int kind = in.readByte();
+            switch (kind) {
+            case KIND_TYPE:
+                int type = in.readByte();
+                if (type >= TYPES.length) {
+                    throw new InvalidObjectException("Unknown type: " + type);
+                }
+                term = TYPES[type];
+                break;
+            case KIND_IRI:
+            case KIND_BLANK_NODE:
+            case KIND_STRING:
+            case KIND_LANG_STRING:
+            case KIND_TYPED_LITERAL:
+                try {
+                    term = checkedTerm(kind);
+                } catch (IllegalArgumentException ex) {
+                    InvalidObjectException invalid = new InvalidObjectException(
+                            "Invalid term: " + ex.getMessage());
+                    invalid.initCause(ex);
+                    throw invalid;
+                }
+                break;
+            default:
+                throw new InvalidObjectException("Unknown term kind: " + kind);
+            }
+            terms.add(term);
+            return term;
+        }
+
+        /**
+         * Read a term with the checks of the public constructors, as the
+         * stream may have been forged to hold terms that would be written
+         * as they are, or that are not equal to their originals.
+         */
+        private RDFTerm checkedTerm(int kind) throws IOException {
+            switch (kind) {
+            case KIND_IRI:
+                return new IRIImpl(in.readString());
+            case KIND_BLANK_NODE:
+                return BlankNodeImpl.withUniqueReference(
+                        BinaryTerms.checkBlankNodeReference(in.readString()));
+            case KIND_STRING:
+                return new LiteralImpl(string());
+            case KIND_LANG_STRING:
+                String lexicalForm = string();
+                return new LiteralImpl(lexicalForm, string());
+            default:
+                RDFTerm datatype = term();
+                if (!(datatype instanceof IRI)) {
+                    throw new InvalidObjectException("Invalid datatype");
+                }
+                return new LiteralImpl(string(), (IRI) datatype);
+            }
+        }
+
+        private String string() throws IOException {
+            long ref = in.readVarint();
+            if (ref > 0) {
+                if (ref > strings.size()) {
+                    throw new InvalidObjectException("Invalid string reference");
+                }
+                return strings.get((int) ref - 1);
+            }
+            String s = in.readString();
+            strings.add(s);
+            return s;
+        }
+    }
+
+}
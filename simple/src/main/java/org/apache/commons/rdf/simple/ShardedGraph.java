@@ -0,0 +1,296 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * A memory-based graph partitioned into shards by the hash of the subject.
+ * <p>
+ * Each shard is a separate graph with its own read-write lock, so that
+ * changes to triples of different subjects rarely contend, and each shard
+ * grows, and rehashes, on its own. Operations with a bound subject, and the
+ * changes of a single triple, only lock the shard of the subject. Other
+ * patterns are matched on all shards in parallel, and their results are
+ * merged.
+ * <p>
+ * This class is thread-safe. {@link #getTriples()} copies the matching
+ * triples of a shard under its read lock, when the stream reaches that
+ * shard, so a stream never fails because of concurrent changes, but is not a
+ * consistent snapshot of the whole graph. Likewise {@link #size()} adds up
+ * the sizes of the shards one at a time, and {@link #clear()} is the only
+ * operation that locks all shards at once.
+ */
+public final class ShardedGraph implements Graph, FootprintAware {
+
+    /** Default number of shards, a few per processor */
+    public static final int DEFAULT_SHARDS = 4 * Runtime.getRuntime()
+            .availableProcessors();
+
+    private static final int TO_STRING_MAX = 10;
+
+    private final SimpleRDFTermFactory factory;
+    private final Shard[] shards;
+
+    /**
+     * Create a graph with the default number of shards.
+     */
+    public ShardedGraph() {
+        this(new SimpleRDFTermFactory(), DEFAULT_SHARDS, 0);
+    }
+
+    /**
+     * Create a graph.
+     *
+     * @param factory      Factory of the graph
+     * @param shardCount   Number of shards
+     * @param expectedSize Number of triples to make room for, spread evenly
+     *                     over the shards, or <code>0</code> to let the shards
+     *                     grow as needed
+     */
+    public ShardedGraph(SimpleRDFTermFactory factory, int shardCount,
+            long expectedSize) {
+        this.factory = Objects.requireNonNull(factory);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException(
+                    "expectedSize must not be negative");
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(expectedSize == 0 ? new GraphImpl(factory)
+                    : new GraphImpl(factory, expectedSize / shardCount + 1));
+        }
+    }
+
+    /**
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return The number of triples in each shard
+     */
+    long[] getShardSizes() {
+        long[] sizes = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            sizes[i] = shards[i].read(GraphImpl::size);
+        }
+        return sizes;
+    }
+
+    /**
+     * @return The shard holding the triples of the subject
+     */
+    private Shard shardOf(BlankNodeOrIRI subject) {
+        // Foreign blank nodes hash differently from those they map to
+        int h = shards[0].graph.internallyMap(subject).hashCode();
+        return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+    }
+
+    @Override
+    public void add(Triple triple) {
+        shardOf(triple.getSubject()).write(graph -> {
+            graph.add(triple);
+            return null;
+        });
+    }
+
+    @Override
+    public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        shardOf(subject).write(graph -> {
+            graph.add(subject, predicate, object);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean contains(Triple triple) {
+        return shardOf(triple.getSubject()).read(graph -> graph.contains(triple));
+    }
+
+    @Override
+    public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        Function<GraphImpl, Boolean> contains = graph -> Shard.match(graph,
+                subject, predicate, object).findAny().isPresent();
+        if (subject != null) {
+            return shardOf(subject).read(contains);
+        }
+        return Arrays.stream(shards).parallel()
+                .anyMatch(shard -> shard.read(contains));
+    }
+
+    @Override
+    public void remove(Triple triple) {
+        shardOf(triple.getSubject()).write(graph -> {
+            graph.remove(triple);
+            return null;
+        });
+    }
+
+    @Override
+    public void remove(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+        Function<GraphImpl, Void> remove = graph -> {
+            List<Triple> matches = Shard.match(graph, subject, predicate,
+                    object).collect(Collectors.toList());
+            for (Triple triple : matches) {
+                graph.remove(triple);
+            }
+            return null;
+        };
+        if (subject != null) {
+            shardOf(subject).write(remove);
+        } else {
+            Arrays.stream(shards).parallel()
+                    .forEach(shard -> shard.write(remove));
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.graph.clear();
+            }
+        } finally {
+            for (Shard shard : shards) {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.read(GraphImpl::size);
+        }
+        return size;
+    }
+
+    @Override
+    public Stream<Triple> getTriples() {
+        return getTriples(null, null, null);
+    }
+
+    @Override
+    public Stream<Triple> getTriples(BlankNodeOrIRI subject, IRI predicate,
+            RDFTerm object) {
+        Function<GraphImpl, List<Triple>> match = graph -> Shard.match(graph,
+                subject, predicate, object)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (subject != null) {
+            return shardOf(subject).read(match).parallelStream().unordered();
+        }
+        return Arrays.stream(shards).parallel().unordered()
+                .flatMap(shard -> shard.read(match).stream());
+    }
+
+    @Override
+    public GraphFootprint getFootprint() {
+        long tripleCount = 0;
+        long tripleBytes = 0;
+        long termBytes = 0;
+        long indexBytes = 0;
+        for (Shard shard : shards) {
+            GraphFootprint footprint = shard.read(GraphImpl::getFootprint);
+            tripleCount += footprint.getTripleCount();
+            tripleBytes += footprint.getTripleBytes();
+            termBytes += footprint.getTermBytes();
+            indexBytes += footprint.getIndexBytes();
+        }
+        return new GraphFootprint(tripleCount, tripleBytes, termBytes,
+                indexBytes);
+    }
+
+    @Override
+    public String toString() {
+        long size = size();
+        String s = getTriples().limit(TO_STRING_MAX).map(Object::toString)
+                .collect(Collectors.joining("\n"));
+        if (size > TO_STRING_MAX) {
+            return s + "\n# ... +" + (size - TO_STRING_MAX) + " more";
+        } else {
+            return s;
+        }
+    }
+
+    /**
+     * A graph and the lock guarding it.
+     */
+    private static final class Shard {
+
+        final GraphImpl graph;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        Shard(GraphImpl graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * Match a pattern on the calling thread only. A parallel stream
+         * could have a worker holding the lock of one shard take the task of
+         * another, and wait for its lock while {@link ShardedGraph#clear()}
+         * holds it.
+         */
+        static Stream<Triple> match(GraphImpl graph, BlankNodeOrIRI subject,
+                IRI predicate, RDFTerm object) {
+            return graph.getTriples(subject, predicate, object).sequential();
+        }
+
+        <T> T read(Function<GraphImpl, T> action) {
+            return locked(lock.readLock(), action);
+        }
+
+        <T> T write(Function<GraphImpl, T> action) {
+            return locked(lock.writeLock(), action);
+        }
+
+        private <T> T locked(Lock lock, Function<GraphImpl, T> action) {
+            lock.lock();
+            try {
+                return action.apply(graph);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+}
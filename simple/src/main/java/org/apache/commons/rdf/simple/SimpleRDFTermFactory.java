@@ -17,6 +17,7 @@
  */
 package org.apache.commons.rdf.simple;
 
+import java.io.Serializable;
 import java.util.UUID;
 
 import org.apache.commons.rdf.api.BlankNode;
@@ -34,8 +35,14 @@ import org.apache.commons.rdf.api.Triple;
  * The {@link RDFTerm} and {@link Graph} instances created by this factory are
  * simple in-memory Implementations that are not thread-safe or efficient, but
  * which may be useful for testing and prototyping purposes.
+ * <p>
+ * The factory, its terms, triples and graphs are {@link Serializable}, in a
+ * compact form. A deserialized factory creates blank nodes equal to those of
+ * the original for the same names.
  */
-public class SimpleRDFTermFactory implements RDFTermFactory {
+public class SimpleRDFTermFactory implements RDFTermFactory, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /** Unique salt per instance, for {@link #createBlankNode(String)}
      */
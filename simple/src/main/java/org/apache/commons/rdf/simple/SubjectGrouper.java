@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Groups a stream of triples by subject, and then by predicate, within a
+ * bounded window.
+ * <p>
+ * At most <code>windowSize</code> triples are buffered. When the window is
+ * full, the subjects that were seen first are passed to the sink until half
+ * the window is free, so memory stays bounded however many triples are
+ * added. Triples that are clustered by subject in the input are therefore
+ * fully grouped as long as no subject has more than half a window of
+ * triples. A larger subject, or one whose triples are spread further apart
+ * than the window, may be passed to the sink more than once.
+ */
+final class SubjectGrouper {
+
+    /**
+     * Receiver of the grouped triples of a subject.
+     */
+    interface GroupSink {
+
+        /**
+         * @param subject    The subject
+         * @param properties The objects of each predicate, in the order they
+         *                   were first added
+         * @throws IOException If the group could not be written
+         */
+        void accept(BlankNodeOrIRI subject, Map<IRI, List<RDFTerm>> properties)
+                throws IOException;
+    }
+
+    private final int windowSize;
+    private final GroupSink sink;
+    private final LinkedHashMap<BlankNodeOrIRI, Map<IRI, List<RDFTerm>>> groups = new LinkedHashMap<>();
+    private int buffered;
+
+    SubjectGrouper(int windowSize, GroupSink sink) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive: "
+                    + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.sink = sink;
+    }
+
+    void add(Triple triple) throws IOException {
+        Map<IRI, List<RDFTerm>> properties = groups.get(triple.getSubject());
+        if (properties == null) {
+            properties = new LinkedHashMap<>();
+            groups.put(triple.getSubject(), properties);
+        }
+        List<RDFTerm> objects = properties.get(triple.getPredicate());
+        if (objects == null) {
+            objects = new ArrayList<>(2);
+            properties.put(triple.getPredicate(), objects);
+        }
+        objects.add(triple.getObject());
+        if (++buffered >= windowSize) {
+            evict(windowSize / 2);
+        }
+    }
+
+    /**
+     * Pass all buffered groups to the sink.
+     */
+    void flush() throws IOException {
+        evict(0);
+    }
+
+    /**
+     * Pass the eldest groups to the sink until at most <code>limit</code>
+     * triples are buffered.
+     */
+    private void evict(int limit) throws IOException {
+        Iterator<Map.Entry<BlankNodeOrIRI, Map<IRI, List<RDFTerm>>>> it = groups
+                .entrySet().iterator();
+        while (buffered > limit && it.hasNext()) {
+            Map.Entry<BlankNodeOrIRI, Map<IRI, List<RDFTerm>>> group = it.next();
+            it.remove();
+            for (List<RDFTerm> objects : group.getValue().values()) {
+                buffered -= objects.size();
+            }
+            sink.accept(group.getKey(), group.getValue());
+        }
+    }
+
+}
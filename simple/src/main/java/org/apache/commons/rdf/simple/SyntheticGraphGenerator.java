@@ -0,0 +1,513 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Generates synthetic graphs of any size, for scale testing.
+ * <p>
+ * The triples are generated as a stream, subject by subject, so that graphs
+ * of billions of triples can be written with a serializer such as
+ * {@link NTriplesWriter#write(Stream)} without being held in memory. The
+ * same seed and settings always generate the same triples, in the same
+ * order, and blank nodes are created with
+ * {@link RDFTermFactory#createBlankNode(String)}, so that the same factory
+ * also gives equal blank nodes.
+ * <p>
+ * The data has some of the skew of real data:
+ * <ul>
+ * <li>Each subject has an <code>rdf:type</code> and a number of other
+ * triples, where both the classes and the number of triples follow a Zipf
+ * distribution.</li>
+ * <li>Predicates are drawn from a Zipf distribution, so that a few
+ * predicates are used by most triples. Each predicate has a fixed kind of
+ * object: links to other resources, text, typed literals or blank
+ * nodes.</li>
+ * <li>Links go to resources drawn from a Zipf distribution, so that some
+ * resources are hubs with many incoming links.</li>
+ * <li>Text literals are made of words drawn from a Zipf distribution of a
+ * vocabulary, in a language, also drawn from a Zipf distribution, among
+ * languages with Latin, Greek, Cyrillic, Arabic, Devanagari and CJK
+ * scripts.</li>
+ * <li>Typed literals have valid lexical forms of all datatypes of
+ * {@link Types}.</li>
+ * <li>Blank nodes are the roots of trees of nested blank nodes, literals
+ * and links, whose predicates keep their kind of object.</li>
+ * </ul>
+ */
+public final class SyntheticGraphGenerator {
+
+    /** Default exponent of the Zipf distributions */
+    static final double DEFAULT_SKEW = 1.0;
+
+    /** Default number of predicates */
+    static final int DEFAULT_PREDICATES = 200;
+
+    private static final String BASE = "http://example.com/synthetic/";
+
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+
+    private static final int CLASSES = 50;
+
+    /** Most triples of a subject, besides its type */
+    private static final int MAX_DEGREE = 50;
+
+    /** Estimated triples per subject, to size the resources linked to */
+    private static final int AVERAGE_DEGREE = 12;
+
+    private static final int MAX_TREE_DEPTH = 3;
+
+    private static final int MAX_TREE_FANOUT = 3;
+
+    private static final int MAX_WORDS = 8;
+
+    private static final int VOCABULARY = 50000;
+
+    /** Kinds of objects of a predicate, by predicate number */
+    private static final int LINK = 0;
+    private static final int TEXT = 1;
+    private static final int TYPED = 2;
+    private static final int TREE = 3;
+    private static final int[] KINDS = { LINK, TEXT, LINK, TYPED, TEXT,
+            TREE, LINK, TYPED };
+
+    private static final String[] LANGUAGES = { "en", "de", "fr", "es", "ru",
+            "zh", "ja", "ar", "el", "hi" };
+
+    private static final String[] ALPHABETS = {
+            "abcdefghijklmnopqrstuvwxyz",
+            "abcdefghijklmnopqrstuvwxyzäöüß",
+            "abcdefghijklmnopqrstuvwxyzàâçéèêëîïôûù",
+            "abcdefghijklmnopqrstuvwxyzáéíñóú",
+            "абвгдеёжзийклмнопрстуфхцчшщъыьэюя",
+            "的一是不了人我在有他这中大来上国个到说们为子和你地出道也时年",
+            "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめもやゆよらりるれろわをん",
+            "ابتثجحخدذرزسشصضطظعغفقكلمنهوي",
+            "αβγδεζηθικλμνξοπρστυφχψω",
+            "कखगघचछजझटठडढणतथदधनपफबभमयरलवशसह" };
+
+    /** Languages written without spaces between words */
+    private static final int FIRST_UNSPACED = 5;
+    private static final int LAST_UNSPACED = 6;
+
+    private final RDFTermFactory factory;
+    private final long seed;
+    private final double skew;
+    private final IRI type;
+    private final IRI[] predicates;
+    private final IRI[] classes;
+    private final List<IRI> datatypes;
+
+    /**
+     * Create a generator with {@value #DEFAULT_PREDICATES} predicates and
+     * Zipf distributions of exponent {@value #DEFAULT_SKEW}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param seed    Seed of the generated data
+     */
+    public SyntheticGraphGenerator(RDFTermFactory factory, long seed) {
+        this(factory, seed, DEFAULT_PREDICATES, DEFAULT_SKEW);
+    }
+
+    /**
+     * Create a generator.
+     *
+     * @param factory    Factory for creating terms and triples
+     * @param seed       Seed of the generated data
+     * @param predicates Number of distinct predicates, besides
+     *                   <code>rdf:type</code>
+     * @param skew       Exponent of the Zipf distributions, where greater
+     *                   values concentrate triples on fewer predicates,
+     *                   resources and words
+     */
+    public SyntheticGraphGenerator(RDFTermFactory factory, long seed,
+            int predicates, double skew) {
+        this.factory = Objects.requireNonNull(factory);
+        if (predicates < 1) {
+            throw new IllegalArgumentException("predicates must be positive");
+        }
+        if (!(skew > 0)) {
+            throw new IllegalArgumentException("skew must be positive");
+        }
+        this.seed = seed;
+        this.skew = skew;
+        type = factory.createIRI(RDF_TYPE);
+        this.predicates = new IRI[predicates];
+        for (int i = 0; i < predicates; i++) {
+            this.predicates[i] = factory.createIRI(BASE + "vocabulary#p" + i);
+        }
+        classes = new IRI[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            classes[i] = factory.createIRI(BASE + "vocabulary#C" + i);
+        }
+        datatypes = new ArrayList<>(Types.values());
+        // Literals with a language tag have rdf:langString as datatype
+        datatypes.remove(Types.RDF_LANGSTRING);
+        datatypes.sort((a, b) -> a.getIRIString().compareTo(b.getIRIString()));
+    }
+
+    /**
+     * Generate triples lazily.
+     *
+     * @param count Number of triples to generate
+     * @return A sequential stream of <code>count</code> triples, the same for
+     *         every call with the same count
+     */
+    public Stream<Triple> triples(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        return StreamSupport.stream(Spliterators.spliterator(
+                new Generator(count), count, Spliterator.ORDERED
+                        | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+                false);
+    }
+
+    /**
+     * Generate triples into a sink, such as <code>graph::add</code>.
+     *
+     * @param count Number of triples to generate
+     * @param sink  Consumer of the triples
+     * @return The number of triples generated
+     */
+    public long generate(long count, Consumer<? super Triple> sink) {
+        Generator generator = new Generator(count);
+        while (generator.hasNext()) {
+            sink.accept(generator.next());
+        }
+        return count;
+    }
+
+    /**
+     * Add generated triples to a graph.
+     *
+     * @param count Number of triples to generate
+     * @param graph Graph to add the triples to
+     * @return The number of triples generated, which may be more than were
+     *         added, as some triples may be generated twice
+     */
+    public long addTo(long count, Graph graph) {
+        return generate(count, graph::add);
+    }
+
+    /**
+     * Generates the triples of one subject at a time, and hands them out one
+     * by one.
+     */
+    private final class Generator implements Iterator<Triple> {
+
+        private final long count;
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private final ZipfSampler predicateRanks;
+        private final ZipfSampler classRanks;
+        private final ZipfSampler degrees;
+        private final ZipfSampler resourceRanks;
+        private final ZipfSampler languageRanks;
+        private final ZipfSampler wordRanks;
+        private final ZipfSampler wordCounts;
+        private final ArrayDeque<Triple> pending = new ArrayDeque<>();
+        private long generated;
+        private long subjects;
+        private long blankNodes;
+
+        Generator(long count) {
+            this.count = count;
+            predicateRanks = new ZipfSampler(predicates.length, skew);
+            classRanks = new ZipfSampler(CLASSES, skew);
+            degrees = new ZipfSampler(MAX_DEGREE, skew);
+            resourceRanks = new ZipfSampler(
+                    Math.max(1, count / AVERAGE_DEGREE), skew);
+            languageRanks = new ZipfSampler(LANGUAGES.length, skew);
+            wordRanks = new ZipfSampler(VOCABULARY, skew);
+            wordCounts = new ZipfSampler(MAX_WORDS, skew);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return generated < count;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (pending.isEmpty()) {
+                subject();
+            }
+            generated++;
+            return pending.poll();
+        }
+
+        private void subject() {
+            IRI subject = resource(subjects++);
+            emit(subject, type, classes[rank(classRanks)]);
+            long degree = degrees.sample(random);
+            for (long i = 0; i < degree; i++) {
+                int predicate = rank(predicateRanks);
+                RDFTerm object = object(predicate);
+                emit(subject, predicates[predicate], object);
+                if (object instanceof BlankNode) {
+                    tree((BlankNode) object, 1);
+                }
+            }
+        }
+
+        private void tree(BlankNode node, int depth) {
+            int fanout = 1 + random.nextInt(MAX_TREE_FANOUT);
+            for (int i = 0; i < fanout; i++) {
+                int predicate;
+                do {
+                    predicate = rank(predicateRanks);
+                    // No deeper nesting at the maximum depth
+                } while (depth >= MAX_TREE_DEPTH && kind(predicate) == TREE);
+                RDFTerm object = object(predicate);
+                emit(node, predicates[predicate], object);
+                if (object instanceof BlankNode) {
+                    tree((BlankNode) object, depth + 1);
+                }
+            }
+        }
+
+        /**
+         * @return A new object of the kind of the predicate
+         */
+        private RDFTerm object(int predicate) {
+            switch (kind(predicate)) {
+            case LINK:
+                return resource(resourceRanks.sample(random) - 1);
+            case TEXT:
+                return text();
+            case TYPED:
+                return typed();
+            default:
+                return factory.createBlankNode("b" + blankNodes++);
+            }
+        }
+
+        private int kind(int predicate) {
+            return KINDS[predicate % KINDS.length];
+        }
+
+        private void emit(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+            pending.add(factory.createTriple(subject, predicate, object));
+        }
+
+        /**
+         * @return A rank from 0
+         */
+        private int rank(ZipfSampler ranks) {
+            return (int) ranks.sample(random) - 1;
+        }
+
+        private IRI resource(long id) {
+            return factory.createIRI(BASE + "resource/" + id);
+        }
+
+        private RDFTerm text() {
+            int language = rank(languageRanks);
+            return factory.createLiteral(words(language),
+                    LANGUAGES[language]);
+        }
+
+        private String words(int language) {
+            boolean spaced = language < FIRST_UNSPACED
+                    || language > LAST_UNSPACED;
+            long n = wordCounts.sample(random);
+            StringBuilder s = new StringBuilder();
+            for (long i = 0; i < n; i++) {
+                if (i > 0 && spaced) {
+                    s.append(' ');
+                }
+                word(s, ALPHABETS[language], wordRanks.sample(random));
+            }
+            return s.toString();
+        }
+
+        private RDFTerm typed() {
+            IRI datatype = datatypes.get(random.nextInt(datatypes.size()));
+            return factory.createLiteral(lexicalForm(datatype), datatype);
+        }
+
+        private String lexicalForm(IRI datatype) {
+            String iri = datatype.getIRIString();
+            switch (iri.substring(iri.indexOf('#') + 1)) {
+            case "HTML":
+                return "<p>" + words(0) + "</p>";
+            case "XMLLiteral":
+                return "<span>" + words(0) + "</span>";
+            case "PlainLiteral":
+                int language = rank(languageRanks);
+                return words(language) + "@" + LANGUAGES[language];
+            case "anyURI":
+                return BASE + "document/" + random.nextInt(1000000);
+            case "base64Binary":
+                return Base64.getEncoder().encodeToString(bytes());
+            case "hexBinary":
+                StringBuilder hex = new StringBuilder();
+                for (byte b : bytes()) {
+                    hex.append(String.format("%02X", b));
+                }
+                return hex.toString();
+            case "boolean":
+                return Boolean.toString(random.nextBoolean());
+            case "byte":
+                return Integer.toString(random.nextInt(256) - 128);
+            case "short":
+                return Integer.toString(random.nextInt(65536) - 32768);
+            case "int":
+                return Integer.toString(random.nextInt());
+            case "long":
+            case "integer":
+                return Long.toString(random.nextLong());
+            case "decimal":
+                return random.nextInt(-1000000, 1000000) + "."
+                        + random.nextInt(10) + random.nextInt(10);
+            case "double":
+                return Double.toString(random.nextDouble() * 1e6);
+            case "float":
+                return Float.toString((float) random.nextDouble() * 1e3f);
+            case "negativeInteger":
+                return Integer.toString(-1 - random.nextInt(1000000));
+            case "nonPositiveInteger":
+                return Integer.toString(-random.nextInt(1000000));
+            case "positiveInteger":
+                return Integer.toString(1 + random.nextInt(1000000));
+            case "nonNegativeInteger":
+                return Integer.toString(random.nextInt(1000000));
+            case "unsignedByte":
+                return Integer.toString(random.nextInt(256));
+            case "unsignedShort":
+                return Integer.toString(random.nextInt(65536));
+            case "unsignedInt":
+                return Long.toString(random.nextLong(1L << 32));
+            case "unsignedLong":
+                return Long.toUnsignedString(random.nextLong());
+            case "date":
+                return date();
+            case "dateTime":
+                return date() + "T" + time() + "Z";
+            case "time":
+                return time();
+            case "gYear":
+                return Integer.toString(year());
+            case "gYearMonth":
+                return year() + "-" + twoDigits(1 + random.nextInt(12));
+            case "gMonth":
+                return "--" + twoDigits(1 + random.nextInt(12));
+            case "gMonthDay":
+                return "--" + twoDigits(1 + random.nextInt(12)) + "-"
+                        + twoDigits(1 + random.nextInt(28));
+            case "gDay":
+                return "---" + twoDigits(1 + random.nextInt(28));
+            case "duration":
+                return "P" + random.nextInt(10) + "Y" + random.nextInt(12)
+                        + "M" + random.nextInt(28) + "DT" + random.nextInt(24)
+                        + "H";
+            case "dayTimeDuration":
+                return "P" + random.nextInt(100) + "DT" + random.nextInt(24)
+                        + "H" + random.nextInt(60) + "M";
+            case "yearMonthDuration":
+                return "P" + random.nextInt(10) + "Y" + random.nextInt(12) + "M";
+            case "language":
+                return LANGUAGES[rank(languageRanks)];
+            case "Name":
+            case "NCName":
+            case "NMTOKEN":
+                StringBuilder name = new StringBuilder();
+                word(name, ALPHABETS[0], wordRanks.sample(random));
+                return name.toString();
+            default:
+                // string, normalizedString and token
+                return words(rank(languageRanks));
+            }
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[1 + random.nextInt(16)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) random.nextInt(256);
+            }
+            return bytes;
+        }
+
+        private int year() {
+            return 1900 + random.nextInt(200);
+        }
+
+        private String date() {
+            return year() + "-" + twoDigits(1 + random.nextInt(12)) + "-"
+                    + twoDigits(1 + random.nextInt(28));
+        }
+
+        private String time() {
+            return twoDigits(random.nextInt(24)) + ":"
+                    + twoDigits(random.nextInt(60)) + ":"
+                    + twoDigits(random.nextInt(60));
+        }
+    }
+
+    private static String twoDigits(int i) {
+        return i < 10 ? "0" + i : Integer.toString(i);
+    }
+
+    /**
+     * Append word number <code>id</code> of a vocabulary, which is always
+     * the same word for the same alphabet.
+     */
+    private static void word(StringBuilder s, String alphabet, long id) {
+        long x = mix(id);
+        int length = 2 + (int) Long.remainderUnsigned(x, 7);
+        for (int i = 0; i < length; i++) {
+            x = mix(x);
+            s.append(alphabet.charAt(
+                    (int) Long.remainderUnsigned(x, alphabet.length())));
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64, mapping a number to a well mixed one.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.Arrays;
+
+import org.apache.commons.rdf.api.RDFTerm;
+
+/**
+ * A bounded, direct-mapped cache of terms keyed by their raw encoded bytes.
+ * <p>
+ * Parsers use this to avoid decoding a String and calling the
+ * {@link org.apache.commons.rdf.api.RDFTermFactory} for terms that repeat,
+ * like predicates and datatypes. Each slot holds a single entry, which is
+ * replaced on collision, so memory use is fixed by the number of slots.
+ * <p>
+ * This class is <strong>not thread-safe</strong>.
+ */
+final class TermCache<T extends RDFTerm> {
+
+    private final byte[][] keys;
+    private final Object[] values;
+    private final int mask;
+
+    /**
+     * @param slots Number of slots, rounded up to a power of two
+     */
+    TermCache(int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        keys = new byte[size][];
+        values = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Find the slot for the given bytes, to be used with {@link #get} and
+     * {@link #put}.
+     */
+    int slot(byte[] b, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + b[i];
+        }
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return The cached term, or <code>null</code> if not cached
+     */
+    @SuppressWarnings("unchecked")
+    T get(int slot, byte[] b, int start, int end) {
+        byte[] key = keys[slot];
+        if (key == null || key.length != end - start) {
+            return null;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != b[start + i]) {
+                return null;
+            }
+        }
+        return (T) values[slot];
+    }
+
+    void put(int slot, byte[] b, int start, int end, T term) {
+        keys[slot] = Arrays.copyOfRange(b, start, end);
+        values[slot] = term;
+    }
+
+}
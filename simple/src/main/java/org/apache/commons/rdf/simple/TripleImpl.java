@@ -22,12 +22,17 @@ import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDFTerm;
 import org.apache.commons.rdf.api.Triple;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.Objects;
 
 /**
  * A simple implementation of Triple.
  */
-final class TripleImpl implements Triple {
+final class TripleImpl implements Triple, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final BlankNodeOrIRI subject;
     private final IRI predicate;
@@ -87,4 +92,12 @@ final class TripleImpl implements Triple {
                 && getObject().equals(other.getObject());
     }
 
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
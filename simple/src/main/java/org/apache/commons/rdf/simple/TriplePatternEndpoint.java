@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An HTTP endpoint answering triple pattern requests against a graph, for
+ * the HTTP server of the JDK.
+ * <p>
+ * A <code>GET</code> request has the query parameters <code>s</code>,
+ * <code>p</code> and <code>o</code> for the subject, predicate and object of
+ * the pattern, in N-Triples syntax, any of which may be left out or empty as
+ * a wildcard. For example:
+ * <pre>
+ * GET /triples?s=%3Chttp%3A%2F%2Fexample.com%2Fs%3E&amp;o=%22chat%22%40fr
+ * </pre>
+ * The response holds the matching triples as N-Triples, or in the binary
+ * format of {@link BinaryRDFWriter} as {@link #BINARY_MEDIA_TYPE}, whichever
+ * the <code>Accept</code> header prefers, with N-Triples as the default. The
+ * triples are written as they are matched, with chunked transfer encoding,
+ * so a response is never held in memory in full. A failure after the first
+ * triples were sent ends the response without its last chunk, so that the
+ * client can tell it is incomplete.
+ * <p>
+ * Blank nodes of a pattern are matched by the label they have in responses,
+ * for graphs of this package.
+ * <p>
+ * Requests are handled concurrently, on the executor of the server, so the
+ * graph must be thread-safe, like {@link ReadMostlyGraph} or
+ * {@link ShardedGraph}.
+ */
+public final class TriplePatternEndpoint implements HttpHandler {
+
+    /** Media type of the binary format of {@link BinaryRDFWriter} */
+    public static final String BINARY_MEDIA_TYPE = "application/x-commons-rdf-binary";
+
+    private static final String TEXT_PLAIN = "text/plain; charset=utf-8";
+
+    private final Graph graph;
+    private final SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+
+    /**
+     * Create an endpoint for a graph.
+     *
+     * @param graph The graph, which must be thread-safe
+     */
+    public TriplePatternEndpoint(Graph graph) {
+        this.graph = Objects.requireNonNull(graph);
+    }
+
+    /**
+     * Start an HTTP server with an endpoint for a graph.
+     *
+     * @param graph    The graph, which must be thread-safe
+     * @param address  The address to listen on, with port <code>0</code> for
+     *                 any free port
+     * @param path     The path of the endpoint, such as
+     *                 <code>/triples</code>
+     * @param executor The executor to handle requests on, which should have
+     *                 a thread for each concurrent request, as a response
+     *                 blocks its thread while the client reads it
+     * @return The started server, to be stopped by the caller
+     * @throws IOException If the address could not be bound
+     */
+    public static HttpServer start(Graph graph, InetSocketAddress address,
+            String path, Executor executor) throws IOException {
+        HttpServer server = HttpServer.create(address, 0);
+        server.createContext(path, new TriplePatternEndpoint(graph));
+        server.setExecutor(Objects.requireNonNull(executor));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Answer a request. Unless the response failed halfway, the exchange is
+     * closed; otherwise the exception leaves the server to drop the
+     * connection.
+     */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange);
+        exchange.close();
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            error(exchange, 405, "Method not allowed: " + method);
+            return;
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        Optional<String> mediaType = negotiate(exchange.getRequestHeaders());
+        if (!mediaType.isPresent()) {
+            error(exchange, 406, "Acceptable media types: "
+                    + RDFSyntax.NTRIPLES.mediaType + ", "
+                    + BINARY_MEDIA_TYPE);
+            return;
+        }
+        RDFTerm[] pattern;
+        try {
+            pattern = pattern(exchange.getRequestURI().getRawQuery());
+        } catch (IllegalArgumentException | RDFParseException ex) {
+            error(exchange, 400, ex.getMessage());
+            return;
+        }
+        respond(exchange, mediaType.get(), (BlankNodeOrIRI) pattern[0],
+                (IRI) pattern[1], pattern[2]);
+    }
+
+    private void respond(HttpExchange exchange, String mediaType,
+            BlankNodeOrIRI subject, IRI predicate, RDFTerm object)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type",
+                mediaType.equals(BINARY_MEDIA_TYPE) ? mediaType
+                        : mediaType + "; charset=utf-8");
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        Stream<? extends Triple> triples;
+        try {
+            triples = graph.getTriples(subject, predicate, object);
+        } catch (RuntimeException ex) {
+            error(exchange, 500, String.valueOf(ex));
+            return;
+        }
+        try (Stream<? extends Triple> matches = triples) {
+            // Length 0 for chunked transfer encoding
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            // Not closed on failure, which would end the response
+            if (mediaType.equals(BINARY_MEDIA_TYPE)) {
+                BinaryRDFWriter writer = new BinaryRDFWriter(body);
+                writer.write(matches);
+                writer.close();
+            } else {
+                NTriplesWriter writer = new NTriplesWriter(body);
+                writer.write(matches);
+                writer.close();
+            }
+        } catch (RuntimeException ex) {
+            // Too late for an error status
+            throw new IOException("Failed writing triples", ex);
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status,
+            String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Choose the media type of the response.
+     *
+     * @return The media type, or {@link Optional#empty()} if none of the
+     *         supported types is acceptable
+     */
+    static Optional<String> negotiate(Headers headers) {
+        List<String> accepts = headers.get("Accept");
+        if (accepts == null || accepts.isEmpty()) {
+            return Optional.of(RDFSyntax.NTRIPLES.mediaType);
+        }
+        String best = null;
+        double bestQuality = 0;
+        for (String accept : accepts) {
+            for (String range : accept.split(",")) {
+                String[] parts = range.split(";");
+                String type = parts[0].trim().toLowerCase(Locale.ENGLISH);
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException ex) {
+                            quality = 0;
+                        }
+                    }
+                }
+                String mediaType = mediaType(type);
+                if (mediaType != null && quality > bestQuality) {
+                    best = mediaType;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * @return The supported media type matching a media range, or
+     *         <code>null</code>
+     */
+    private static String mediaType(String range) {
+        if (range.equals(BINARY_MEDIA_TYPE)) {
+            return BINARY_MEDIA_TYPE;
+        }
+        if (range.equals("*/*") || range.equals("application/*")
+                || range.equals("text/plain")) {
+            return RDFSyntax.NTRIPLES.mediaType;
+        }
+        Optional<RDFSyntax> syntax = RDFSyntax.byMediaType(range);
+        if (syntax.isPresent() && syntax.get() == RDFSyntax.NTRIPLES) {
+            return RDFSyntax.NTRIPLES.mediaType;
+        }
+        return null;
+    }
+
+    /**
+     * Parse the subject, predicate and object of the query, with
+     * <code>null</code> for a wildcard.
+     */
+    private RDFTerm[] pattern(String rawQuery) throws RDFParseException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int eq = parameter.indexOf('=');
+                String name = eq < 0 ? parameter : parameter.substring(0, eq);
+                String value = eq < 0 ? "" : parameter.substring(eq + 1);
+                parameters.put(decode(name), decode(value));
+            }
+        }
+        NTriplesTermParser parser = new NTriplesTermParser(factory, "");
+        RDFTerm[] pattern = new RDFTerm[3];
+        String[] names = { "s", "p", "o" };
+        for (int i = 0; i < names.length; i++) {
+            String value = parameters.getOrDefault(names[i], "").trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.startsWith("_:") && i != 1) {
+                // As labelled in responses
+                pattern[i] = BlankNodeImpl.withUniqueReference(
+                        value.substring(2));
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            parser.reset(bytes, 0, bytes.length, 1);
+            switch (i) {
+            case 0:
+                pattern[i] = parser.parseSubject();
+                break;
+            case 1:
+                pattern[i] = parser.parsePredicate();
+                break;
+            default:
+                pattern[i] = parser.parseObject();
+            }
+            if (parser.skipWhitespace()) {
+                throw new IllegalArgumentException("Invalid " + names[i]
+                        + ": " + value);
+            }
+        }
+        return pattern;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
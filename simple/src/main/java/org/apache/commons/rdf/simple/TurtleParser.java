@@ -0,0 +1,844 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.RDFTermFactory;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming parser of <a href="https://www.w3.org/TR/turtle/">RDF 1.1
+ * Turtle</a>.
+ * <p>
+ * Triples are passed to the sink as soon as they have been parsed, without
+ * building a model of the document. Apart from the prefix map, the only
+ * state kept is the stack of nested blank node property lists and
+ * collections being parsed, so memory use does not depend on the size of the
+ * input.
+ * <p>
+ * All of Turtle is supported, including <code>@prefix</code>,
+ * <code>@base</code> and their SPARQL-style variants, relative IRIs,
+ * collections, nested blank node property lists, long strings and numeric
+ * and boolean literals.
+ * <p>
+ * Blank node labels are scoped to the parsed document, as for
+ * {@link NTriplesParser}.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. A parser instance reads a
+ * single document, and should be closed after use.
+ */
+public final class TurtleParser implements AutoCloseable {
+
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int IRI_CACHE_SLOTS = 1024;
+
+    private final RDFTermFactory factory;
+    private final Reader reader;
+    private final String blankNodeScope;
+    private final Map<String, String> prefixes = new HashMap<>();
+    private final IRI[] iriCache = new IRI[IRI_CACHE_SLOTS];
+    private final StringBuilder sb = new StringBuilder();
+
+    private final IRI rdfType;
+    private final IRI rdfFirst;
+    private final IRI rdfRest;
+    private final IRI rdfNil;
+    private final IRI xsdInteger;
+    private final IRI xsdDecimal;
+    private final IRI xsdDouble;
+    private final IRI xsdBoolean;
+
+    private BaseIRI base;
+
+    private final char[] buf = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private long line = 1;
+    private int column = 1;
+
+    private Consumer<? super Triple> sink;
+    private long count;
+
+    /**
+     * Create a Turtle parser reading from the given reader.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param reader  Reader to read from
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code> to pass relative IRIs unresolved to the
+     *                factory
+     * @throws IllegalArgumentException If the base IRI is not a valid URI
+     */
+    public TurtleParser(RDFTermFactory factory, Reader reader, String base) {
+        this.factory = Objects.requireNonNull(factory);
+        this.reader = Objects.requireNonNull(reader);
+        this.blankNodeScope = NTriplesParser.newBlankNodeScope();
+        if (base != null) {
+            this.base = new BaseIRI(base);
+        }
+        rdfType = factory.createIRI(RDF + "type");
+        rdfFirst = factory.createIRI(RDF + "first");
+        rdfRest = factory.createIRI(RDF + "rest");
+        rdfNil = factory.createIRI(RDF + "nil");
+        xsdInteger = factory.createIRI(XSD + "integer");
+        xsdDecimal = factory.createIRI(XSD + "decimal");
+        xsdDouble = factory.createIRI(XSD + "double");
+        xsdBoolean = factory.createIRI(XSD + "boolean");
+    }
+
+    /**
+     * Create a Turtle parser reading UTF-8 from the given input stream.
+     * <p>
+     * The input stream is closed by {@link #close()}.
+     *
+     * @param factory Factory for creating terms and triples
+     * @param in      InputStream to read from
+     * @param base    Base IRI for resolving relative IRIs, or
+     *                <code>null</code> to pass relative IRIs unresolved to the
+     *                factory
+     * @throws IllegalArgumentException If the base IRI is not a valid URI
+     */
+    public TurtleParser(RDFTermFactory factory, InputStream in, String base) {
+        this(factory, new InputStreamReader(in, StandardCharsets.UTF_8), base);
+    }
+
+    /**
+     * Parse the whole document, passing each triple to the sink as soon as it
+     * has been parsed.
+     *
+     * @param sink Consumer of parsed triples
+     * @return The number of triples parsed
+     * @throws RDFParseException If the input is not valid Turtle
+     * @throws IOException       If the input could not be read
+     */
+    public long parse(Consumer<? super Triple> sink) throws IOException {
+        this.sink = Objects.requireNonNull(sink);
+        long start = count;
+        while (statement()) {
+            // parse until end of input
+        }
+        return count - start;
+    }
+
+    /**
+     * Close the underlying reader.
+     *
+     * @throws IOException If the reader could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Grammar productions
+
+    private boolean statement() throws IOException {
+        skipWhitespace();
+        int c = peek();
+        if (c < 0) {
+            return false;
+        }
+        if (c == '@') {
+            read();
+            String keyword = readKeyword();
+            if (keyword.equals("prefix")) {
+                prefixDirective();
+            } else if (keyword.equals("base")) {
+                baseDirective();
+            } else {
+                throw error("Unknown directive @" + keyword);
+            }
+            skipWhitespace();
+            expect('.');
+        } else if (lookingAtKeyword("PREFIX")) {
+            skip(6);
+            prefixDirective();
+        } else if (lookingAtKeyword("BASE")) {
+            skip(4);
+            baseDirective();
+        } else {
+            triples();
+            skipWhitespace();
+            expect('.');
+        }
+        return true;
+    }
+
+    private void prefixDirective() throws IOException {
+        skipWhitespace();
+        sb.setLength(0);
+        readPrefixName(sb);
+        String prefix = sb.toString();
+        expect(':');
+        skipWhitespace();
+        if (peek() != '<') {
+            throw error("Expected IRI for prefix " + prefix + ":");
+        }
+        prefixes.put(prefix, resolve(readIRIRef()));
+    }
+
+    private void baseDirective() throws IOException {
+        skipWhitespace();
+        if (peek() != '<') {
+            throw error("Expected base IRI");
+        }
+        String iri = resolve(readIRIRef());
+        try {
+            base = new BaseIRI(iri);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid base IRI " + iri, ex);
+        }
+    }
+
+    private void triples() throws IOException {
+        if (peek() == '[') {
+            BlankNode subject = blankNodePropertyList();
+            skipWhitespace();
+            if (peek() != '.') {
+                predicateObjectList(subject);
+            }
+        } else {
+            predicateObjectList(subject());
+        }
+    }
+
+    private BlankNodeOrIRI subject() throws IOException {
+        switch (peek()) {
+        case '<':
+            return iri(resolve(readIRIRef()));
+        case '_':
+            return blankNodeLabel();
+        case '(':
+            return collection();
+        default:
+            if (isNameStartChar(peek()) || peek() == ':') {
+                return prefixedName();
+            }
+            throw error("Expected subject");
+        }
+    }
+
+    private void predicateObjectList(BlankNodeOrIRI subject)
+            throws IOException {
+        while (true) {
+            skipWhitespace();
+            IRI predicate = verb();
+            objectList(subject, predicate);
+            skipWhitespace();
+            if (peek() != ';') {
+                return;
+            }
+            while (peek() == ';') {
+                read();
+                skipWhitespace();
+            }
+            int c = peek();
+            if (c == '.' || c == ']' || c < 0) {
+                return;
+            }
+        }
+    }
+
+    private IRI verb() throws IOException {
+        int c = peek();
+        if (c == 'a' && !isNameChar(peek(1)) && peek(1) != ':') {
+            read();
+            return rdfType;
+        } else if (c == '<') {
+            return iri(resolve(readIRIRef()));
+        } else if (isNameStartChar(c) || c == ':') {
+            return prefixedName();
+        }
+        throw error("Expected predicate");
+    }
+
+    private void objectList(BlankNodeOrIRI subject, IRI predicate)
+            throws IOException {
+        while (true) {
+            skipWhitespace();
+            emit(subject, predicate, object());
+            skipWhitespace();
+            if (peek() != ',') {
+                return;
+            }
+            read();
+        }
+    }
+
+    private RDFTerm object() throws IOException {
+        int c = peek();
+        switch (c) {
+        case '<':
+            return iri(resolve(readIRIRef()));
+        case '_':
+            return blankNodeLabel();
+        case '[':
+            return blankNodePropertyList();
+        case '(':
+            return collection();
+        case '"':
+        case '\'':
+            return rdfLiteral();
+        case '+':
+        case '-':
+            return numericLiteral();
+        case '.':
+            if (isDigit(peek(1))) {
+                return numericLiteral();
+            }
+            throw error("Expected object");
+        default:
+            if (isDigit(c)) {
+                return numericLiteral();
+            } else if (lookingAtWord("true")) {
+                skip(4);
+                return literal("true", xsdBoolean);
+            } else if (lookingAtWord("false")) {
+                skip(5);
+                return literal("false", xsdBoolean);
+            } else if (isNameStartChar(c) || c == ':') {
+                return prefixedName();
+            }
+            throw error("Expected object");
+        }
+    }
+
+    private BlankNode blankNodePropertyList() throws IOException {
+        expect('[');
+        BlankNode blankNode = factory.createBlankNode();
+        skipWhitespace();
+        if (peek() != ']') {
+            predicateObjectList(blankNode);
+            skipWhitespace();
+        }
+        expect(']');
+        return blankNode;
+    }
+
+    private BlankNodeOrIRI collection() throws IOException {
+        expect('(');
+        skipWhitespace();
+        if (peek() == ')') {
+            read();
+            return rdfNil;
+        }
+        BlankNode head = factory.createBlankNode();
+        BlankNode node = head;
+        while (true) {
+            emit(node, rdfFirst, object());
+            skipWhitespace();
+            if (peek() == ')') {
+                read();
+                emit(node, rdfRest, rdfNil);
+                return head;
+            }
+            BlankNode next = factory.createBlankNode();
+            emit(node, rdfRest, next);
+            node = next;
+        }
+    }
+
+    private RDFTerm rdfLiteral() throws IOException {
+        String lexicalForm = readString();
+        int c = peek();
+        if (c == '@') {
+            read();
+            sb.setLength(0);
+            while (isLanguageTagChar(peek())) {
+                sb.append((char) read());
+            }
+            if (sb.length() == 0) {
+                throw error("Empty language tag");
+            }
+            try {
+                return factory.createLiteral(lexicalForm, sb.toString());
+            } catch (IllegalArgumentException ex) {
+                throw error("Invalid literal: " + ex.getMessage(), ex);
+            }
+        } else if (c == '^' && peek(1) == '^') {
+            skip(2);
+            IRI datatype;
+            if (peek() == '<') {
+                datatype = iri(resolve(readIRIRef()));
+            } else {
+                datatype = prefixedName();
+            }
+            return literal(lexicalForm, datatype);
+        }
+        try {
+            return factory.createLiteral(lexicalForm);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid literal: " + ex.getMessage(), ex);
+        }
+    }
+
+    private RDFTerm numericLiteral() throws IOException {
+        sb.setLength(0);
+        if (peek() == '+' || peek() == '-') {
+            sb.append((char) read());
+        }
+        int digits = readDigits();
+        IRI datatype = xsdInteger;
+        if (peek() == '.' && isDigit(peek(1))) {
+            sb.append((char) read());
+            digits += readDigits();
+            datatype = xsdDecimal;
+        }
+        if (digits == 0) {
+            throw error("Invalid number");
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            sb.append((char) read());
+            if (peek() == '+' || peek() == '-') {
+                sb.append((char) read());
+            }
+            if (readDigits() == 0) {
+                throw error("Invalid exponent");
+            }
+            datatype = xsdDouble;
+        }
+        return literal(sb.toString(), datatype);
+    }
+
+    private int readDigits() throws IOException {
+        int n = 0;
+        while (isDigit(peek())) {
+            sb.append((char) read());
+            n++;
+        }
+        return n;
+    }
+
+    private RDFTerm literal(String lexicalForm, IRI datatype)
+            throws RDFParseException {
+        try {
+            return factory.createLiteral(lexicalForm, datatype);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid literal: " + ex.getMessage(), ex);
+        }
+    }
+
+    private IRI prefixedName() throws IOException {
+        sb.setLength(0);
+        readPrefixName(sb);
+        String prefix = sb.toString();
+        expect(':');
+        String namespace = prefixes.get(prefix);
+        if (namespace == null) {
+            throw error("Undefined prefix " + prefix + ":");
+        }
+        sb.setLength(0);
+        sb.append(namespace);
+        readLocalName(sb);
+        return iri(sb.toString());
+    }
+
+    private BlankNode blankNodeLabel() throws IOException {
+        expect('_');
+        expect(':');
+        sb.setLength(0);
+        int c = peek();
+        if (!isNameStartChar(c) && !isDigit(c)) {
+            throw error("Invalid blank node label");
+        }
+        while (true) {
+            c = peek();
+            if (isNameChar(c)) {
+                sb.append((char) read());
+            } else if (c == '.' && isNameChar(peek(1))) {
+                sb.append((char) read());
+            } else {
+                break;
+            }
+        }
+        return factory.createBlankNode(blankNodeScope + sb);
+    }
+
+    private void emit(BlankNodeOrIRI subject, IRI predicate, RDFTerm object)
+            throws RDFParseException {
+        Triple triple;
+        try {
+            triple = factory.createTriple(subject, predicate, object);
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid triple: " + ex.getMessage(), ex);
+        }
+        count++;
+        sink.accept(triple);
+    }
+
+    // Terminals
+
+    private String readIRIRef() throws IOException {
+        expect('<');
+        sb.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == '>') {
+                return sb.toString();
+            } else if (c < 0) {
+                throw error("Unterminated IRI");
+            } else if (c == '\\') {
+                int u = read();
+                if (u == 'u') {
+                    sb.appendCodePoint(readHex(4));
+                } else if (u == 'U') {
+                    sb.appendCodePoint(readHex(8));
+                } else {
+                    throw error("Invalid escape in IRI");
+                }
+            } else if (c <= ' ' || c == '<' || c == '"' || c == '{'
+                    || c == '}' || c == '|' || c == '^' || c == '`') {
+                throw error("Invalid character in IRI");
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        int quote = read();
+        boolean isLong = false;
+        if (peek() == quote && peek(1) == quote) {
+            skip(2);
+            isLong = true;
+        } else if (peek() == quote) {
+            // Empty string
+            read();
+            return "";
+        }
+        sb.setLength(0);
+        while (true) {
+            int c = peek();
+            if (!isLong && (c == '\n' || c == '\r')) {
+                throw error("Line break in string");
+            }
+            read();
+            if (c < 0) {
+                throw error("Unterminated string");
+            } else if (c == quote) {
+                if (!isLong) {
+                    return sb.toString();
+                } else if (peek() == quote && peek(1) == quote
+                        && peek(2) != quote) {
+                    skip(2);
+                    return sb.toString();
+                }
+                sb.append((char) c);
+            } else if (c == '\\') {
+                readEscape();
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 't':
+            sb.append('\t');
+            break;
+        case 'b':
+            sb.append('\b');
+            break;
+        case 'n':
+            sb.append('\n');
+            break;
+        case 'r':
+            sb.append('\r');
+            break;
+        case 'f':
+            sb.append('\f');
+            break;
+        case '"':
+        case '\'':
+        case '\\':
+            sb.append((char) c);
+            break;
+        case 'u':
+            sb.appendCodePoint(readHex(4));
+            break;
+        case 'U':
+            sb.appendCodePoint(readHex(8));
+            break;
+        default:
+            throw error("Invalid escape sequence");
+        }
+    }
+
+    private int readHex(int digits) throws IOException {
+        int cp = 0;
+        for (int i = 0; i < digits; i++) {
+            int d = Character.digit(read(), 16);
+            if (d < 0) {
+                throw error("Invalid hex digit in unicode escape");
+            }
+            cp = (cp << 4) | d;
+        }
+        if (!Character.isValidCodePoint(cp)) {
+            throw error("Invalid code point in unicode escape");
+        }
+        return cp;
+    }
+
+    /**
+     * Read a PN_PREFIX, which may be empty, but not the following ':'.
+     */
+    private void readPrefixName(StringBuilder out) throws IOException {
+        if (!isNameStartChar(peek())) {
+            return;
+        }
+        while (true) {
+            int c = peek();
+            if (isNameChar(c)) {
+                out.append((char) read());
+            } else if (c == '.' && isNameChar(peek(1))) {
+                out.append((char) read());
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Read a PN_LOCAL, which may be empty, unescaping any
+     * <code>PN_LOCAL_ESC</code>.
+     */
+    private void readLocalName(StringBuilder out) throws IOException {
+        boolean first = true;
+        while (true) {
+            int c = peek();
+            if (isNameChar(c) || c == ':' || (first && isDigit(c))) {
+                out.append((char) read());
+            } else if (c == '%') {
+                read();
+                int h1 = read();
+                int h2 = read();
+                if (Character.digit(h1, 16) < 0 || Character.digit(h2, 16) < 0) {
+                    throw error("Invalid percent escape in local name");
+                }
+                out.append('%').append((char) h1).append((char) h2);
+            } else if (c == '\\') {
+                read();
+                int e = read();
+                if (e < 0 || "_~.-!$&'()*+,;=/?#@%".indexOf(e) < 0) {
+                    throw error("Invalid escape in local name");
+                }
+                out.append((char) e);
+            } else if (c == '.' && !first && isLocalNameContinuation(peek(1))) {
+                out.append((char) read());
+            } else {
+                return;
+            }
+            first = false;
+        }
+    }
+
+    private static boolean isLocalNameContinuation(int c) {
+        return isNameChar(c) || c == ':' || c == '%' || c == '\\'
+                || c == '.';
+    }
+
+    private String readKeyword() throws IOException {
+        sb.setLength(0);
+        while (Character.isLetter(peek())) {
+            sb.append((char) read());
+        }
+        return sb.toString();
+    }
+
+    // Character classes
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNameStartChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+                || (c >= 0xC0 && c != 0xD7 && c != 0xF7 && c != 0x37E
+                        && (c < 0x2000 || c > 0x206F || c == 0x200C
+                                || c == 0x200D || c == 0x203F || c == 0x2040)
+                        && c != 0xFEFF && c != 0xFFFE && c != 0xFFFF);
+    }
+
+    private static boolean isNameChar(int c) {
+        return isNameStartChar(c) || isDigit(c) || c == '-' || c == 0xB7;
+    }
+
+    private static boolean isLanguageTagChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || isDigit(c) || c == '-';
+    }
+
+    private boolean lookingAtKeyword(String keyword) throws IOException {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(peek(i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        int next = peek(keyword.length());
+        return next < 0 || Character.isWhitespace(next) || next == '<'
+                || next == '#';
+    }
+
+    private boolean lookingAtWord(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (peek(i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        int next = peek(word.length());
+        return !isNameChar(next) && next != ':';
+    }
+
+    // IRIs
+
+    private IRI iri(String iri) throws RDFParseException {
+        int slot = (iri.hashCode() & 0x7fffffff) % IRI_CACHE_SLOTS;
+        IRI cached = iriCache[slot];
+        if (cached != null && cached.getIRIString().equals(iri)) {
+            return cached;
+        }
+        try {
+            IRI created = factory.createIRI(iri);
+            iriCache[slot] = created;
+            return created;
+        } catch (IllegalArgumentException ex) {
+            throw error("Invalid IRI: " + ex.getMessage(), ex);
+        }
+    }
+
+    private String resolve(String iri) throws RDFParseException {
+        if (base == null) {
+            return iri;
+        }
+        try {
+            return base.resolve(iri);
+        } catch (URISyntaxException ex) {
+            throw error("Could not resolve relative IRI " + iri, ex);
+        }
+    }
+
+    // Character input
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                read();
+            } else if (c == '#') {
+                while (c >= 0 && c != '\n' && c != '\r') {
+                    read();
+                    c = peek();
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        read();
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill(1)) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private int peek(int ahead) throws IOException {
+        if (pos + ahead >= limit && !fill(ahead + 1)) {
+            return -1;
+        }
+        return buf[pos + ahead];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            pos++;
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return c;
+    }
+
+    private void skip(int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            read();
+        }
+    }
+
+    /**
+     * Make at least <code>n</code> chars available from <code>pos</code>.
+     *
+     * @return false if end of input was reached first
+     */
+    private boolean fill(int n) throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        while (limit < n && !eof) {
+            int read = reader.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit >= n;
+    }
+
+    private RDFParseException error(String message) {
+        return error(message, null);
+    }
+
+    private RDFParseException error(String message, Throwable cause) {
+        return new RDFParseException(message, line, column, cause);
+    }
+
+}
@@ -0,0 +1,397 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * Streaming writer of <a href="https://www.w3.org/TR/turtle/">RDF 1.1
+ * Turtle</a>.
+ * <p>
+ * Triples are grouped by subject and predicate, so each subject is written
+ * once, followed by its predicates separated by <code>;</code> and their
+ * objects separated by <code>,</code>. IRIs are shortened to prefixed names
+ * using the given prefix map where possible, <code>rdf:type</code> is written
+ * as <code>a</code>, and integer, decimal and boolean literals are written in
+ * their bare form.
+ * <p>
+ * Grouping happens within a bounded window of triples (see
+ * {@link #TurtleWriter(WritableByteChannel, Map, int)}), rather than by
+ * sorting the whole input, so memory use does not grow with the size of the
+ * graph. Input that is clustered by subject is always fully grouped; a
+ * subject whose triples are spread further apart than the window is written
+ * in more than one block, which is still valid Turtle.
+ * <p>
+ * This class is <strong>not thread-safe</strong>. Streams passed to
+ * {@link #write(Stream)} are consumed sequentially, even if they are parallel.
+ */
+public final class TurtleWriter implements AutoCloseable {
+
+    /** Default number of triples held back for grouping */
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024;
+
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+
+    private static final String INDENT = "    ";
+
+    private final NTriplesWriter out;
+    private final SubjectGrouper grouper;
+
+    /** Prefix names by namespace, in the order they were given */
+    private final Map<String, String> prefixByNamespace = new LinkedHashMap<>();
+
+    /** Namespaces, longest first */
+    private final String[] namespaces;
+
+    private boolean headerWritten;
+
+    /**
+     * Create a Turtle writer to the given channel.
+     *
+     * @param channel  Channel to write to
+     * @param prefixes Namespace IRIs by prefix name, for instance
+     *                 <code>"ex"</code> mapped to
+     *                 <code>"http://example.com/"</code>
+     * @throws IllegalArgumentException If a prefix name is not a valid Turtle
+     *                                  <code>PN_PREFIX</code>
+     */
+    public TurtleWriter(WritableByteChannel channel, Map<String, String> prefixes) {
+        this(channel, prefixes, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a Turtle writer to the given output stream.
+     * <p>
+     * The output stream is closed by {@link #close()}.
+     *
+     * @param out      OutputStream to write to
+     * @param prefixes Namespace IRIs by prefix name
+     * @throws IllegalArgumentException If a prefix name is not a valid Turtle
+     *                                  <code>PN_PREFIX</code>
+     */
+    public TurtleWriter(OutputStream out, Map<String, String> prefixes) {
+        this(Channels.newChannel(out), prefixes);
+    }
+
+    /**
+     * Create a Turtle writer to the given channel, grouping triples within a
+     * window of the given size.
+     *
+     * @param channel    Channel to write to
+     * @param prefixes   Namespace IRIs by prefix name
+     * @param windowSize Maximum number of triples held back for grouping by
+     *                   subject
+     * @throws IllegalArgumentException If a prefix name is not a valid Turtle
+     *                                  <code>PN_PREFIX</code>, or the window
+     *                                  size is not positive
+     */
+    public TurtleWriter(WritableByteChannel channel,
+            Map<String, String> prefixes, int windowSize) {
+        this.out = new NTriplesWriter(channel);
+        this.grouper = new SubjectGrouper(windowSize, this::writeGroup);
+        for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+            if (!isPrefixName(prefix.getKey())) {
+                throw new IllegalArgumentException("Invalid prefix name: "
+                        + prefix.getKey());
+            }
+            prefixByNamespace.put(prefix.getValue(), prefix.getKey());
+        }
+        List<String> sorted = new ArrayList<>(prefixByNamespace.keySet());
+        sorted.sort((a, b) -> b.length() - a.length());
+        this.namespaces = sorted.toArray(new String[sorted.size()]);
+    }
+
+    /**
+     * Write a single triple.
+     * <p>
+     * The triple may be held back to be grouped with later triples of the
+     * same subject, until the window is full or the writer is flushed.
+     *
+     * @param triple Triple to write
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void write(Triple triple) throws IOException {
+        grouper.add(triple);
+    }
+
+    /**
+     * Write all triples of the stream.
+     *
+     * @param triples Stream of triples to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Stream<? extends Triple> triples) throws IOException {
+        FlightRecorderEvents.Span span = FlightRecorderEvents
+                .beginSerialize("TURTLE");
+        long count = 0;
+        try {
+            Iterator<? extends Triple> it = triples.iterator();
+            while (it.hasNext()) {
+                grouper.add(it.next());
+                count++;
+            }
+        } finally {
+            span.end(count);
+        }
+        return count;
+    }
+
+    /**
+     * Write all triples of the graph.
+     *
+     * @param graph Graph to write
+     * @return The number of triples written
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public long write(Graph graph) throws IOException {
+        return write(graph.getTriples());
+    }
+
+    /**
+     * Write all held back triples and any buffered bytes to the underlying
+     * channel.
+     * <p>
+     * Triples written after a flush are not grouped with those written
+     * before it.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     */
+    public void flush() throws IOException {
+        writeHeader();
+        grouper.flush();
+        out.flush();
+    }
+
+    /**
+     * Flush and close the underlying channel.
+     *
+     * @throws IOException If the underlying channel could not be written to
+     *                     or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writeHeader();
+            grouper.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (headerWritten) {
+            return;
+        }
+        headerWritten = true;
+        for (Map.Entry<String, String> prefix : prefixByNamespace.entrySet()) {
+            out.writeRaw("@prefix ");
+            out.writeRaw(prefix.getValue());
+            out.writeRaw(": ");
+            // Escaped as it is written, without checking it as a URI
+            out.writeIRI(IRIImpl.unchecked(prefix.getKey()));
+            out.writeRaw(" .\n");
+        }
+        if (namespaces.length > 0) {
+            out.writeByte('\n');
+        }
+    }
+
+    private void writeGroup(BlankNodeOrIRI subject,
+            Map<IRI, List<RDFTerm>> properties) throws IOException {
+        writeHeader();
+        writeTerm(subject);
+        boolean firstPredicate = true;
+        for (Map.Entry<IRI, List<RDFTerm>> property : properties.entrySet()) {
+            if (firstPredicate) {
+                out.writeByte(' ');
+                firstPredicate = false;
+            } else {
+                out.writeRaw(" ;\n" + INDENT);
+            }
+            IRI predicate = property.getKey();
+            if (RDF_TYPE.equals(predicate.getIRIString())) {
+                out.writeByte('a');
+            } else {
+                writeIRI(predicate);
+            }
+            boolean firstObject = true;
+            for (RDFTerm object : property.getValue()) {
+                out.writeRaw(firstObject ? " " : ", ");
+                firstObject = false;
+                writeTerm(object);
+            }
+        }
+        out.writeRaw(" .\n\n");
+    }
+
+    private void writeTerm(RDFTerm term) throws IOException {
+        if (term instanceof IRI) {
+            writeIRI((IRI) term);
+        } else if (term instanceof Literal) {
+            writeLiteral((Literal) term);
+        } else {
+            out.writeTerm(term);
+        }
+    }
+
+    private void writeIRI(IRI iri) throws IOException {
+        String s = iri.getIRIString();
+        String namespace = namespaceOf(s);
+        if (namespace == null) {
+            out.writeIRI(iri);
+        } else {
+            out.writeRaw(prefixByNamespace.get(namespace));
+            out.writeByte(':');
+            out.writeRaw(s, namespace.length());
+        }
+    }
+
+    /**
+     * Find the longest namespace that the IRI starts with, leaving a local
+     * name that can be written unescaped.
+     */
+    private String namespaceOf(String iri) {
+        // Most namespaces end with '/' or '#', so try an exact lookup first
+        int split = Math.max(iri.lastIndexOf('/'), iri.lastIndexOf('#')) + 1;
+        if (split > 0 && prefixByNamespace.containsKey(iri.substring(0, split))
+                && isLocalName(iri, split)) {
+            return iri.substring(0, split);
+        }
+        for (String namespace : namespaces) {
+            if (iri.startsWith(namespace)
+                    && isLocalName(iri, namespace.length())) {
+                return namespace;
+            }
+        }
+        return null;
+    }
+
+    private void writeLiteral(Literal literal) throws IOException {
+        String lexical = literal.getLexicalForm();
+        if (!literal.getLanguageTag().isPresent()) {
+            String datatype = literal.getDatatype().getIRIString();
+            if (Types.XSD_STRING.getIRIString().equals(datatype)) {
+                out.writeString(lexical);
+                return;
+            }
+            if ((Types.XSD_INTEGER.getIRIString().equals(datatype) && isInteger(lexical))
+                    || (Types.XSD_DECIMAL.getIRIString().equals(datatype) && isDecimal(lexical))
+                    || (Types.XSD_BOOLEAN.getIRIString().equals(datatype)
+                            && (lexical.equals("true") || lexical.equals("false")))) {
+                out.writeRaw(lexical);
+                return;
+            }
+            out.writeString(lexical);
+            out.writeByte('^');
+            out.writeByte('^');
+            writeIRI(literal.getDatatype());
+        } else {
+            out.writeString(lexical);
+            out.writeByte('@');
+            out.writeRaw(literal.getLanguageTag().get());
+        }
+    }
+
+    /**
+     * Check for the Turtle <code>INTEGER</code> production.
+     */
+    private static boolean isInteger(String s) {
+        int start = s.startsWith("+") || s.startsWith("-") ? 1 : 0;
+        return digits(s, start, s.length()) && s.length() > start;
+    }
+
+    /**
+     * Check for the Turtle <code>DECIMAL</code> production.
+     */
+    private static boolean isDecimal(String s) {
+        int start = s.startsWith("+") || s.startsWith("-") ? 1 : 0;
+        int dot = s.indexOf('.');
+        return dot >= start && dot < s.length() - 1
+                && digits(s, start, dot) && digits(s, dot + 1, s.length());
+    }
+
+    private static boolean digits(String s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the rest of the string from <code>start</code> is a local name
+     * that needs no escaping. This is a conservative, ASCII-only subset of
+     * the Turtle <code>PN_LOCAL</code> production.
+     */
+    private static boolean isLocalName(String s, int start) {
+        for (int i = start; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!isNameChar(c) || (c == '-' && i == start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check for a valid Turtle <code>PN_PREFIX</code>, which may also be
+     * empty. Like local names, only ASCII is accepted.
+     */
+    private static boolean isPrefixName(String s) {
+        if (s.isEmpty()) {
+            return true;
+        }
+        char first = s.charAt(0);
+        if (!((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z'))
+                || s.charAt(s.length() - 1) == '.') {
+            return false;
+        }
+        for (int i = 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!isNameChar(c) && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+
+}
@@ -19,6 +19,9 @@ package org.apache.commons.rdf.simple;
 
 import org.apache.commons.rdf.api.IRI;
 
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Optional;
@@ -27,7 +30,9 @@ import java.util.Set;
 /**
  * Types from the RDF and XML Schema vocabularies.
  */
-public final class Types implements IRI {
+public final class Types implements IRI, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /**
      * <tt>http://www.w3.org/1999/02/22-rdf-syntax-ns#HTML</tt>
@@ -387,4 +392,13 @@ public final class Types implements IRI {
         }
         return Optional.empty();
     }
+
+    private Object writeReplace() {
+        return new SerializedForm(this);
+    }
+
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required");
+    }
+
 }
@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import java.util.stream.Stream;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.apache.commons.rdf.api.Triple;
+
+/**
+ * The JDK Flight Recorder events of this package.
+ * <p>
+ * This is the only class that refers to <code>jdk.jfr</code>. It is
+ * compiled only by the <code>jfr</code> profile, and only loaded by
+ * {@link FlightRecorderEvents}, by name.
+ */
+final class JfrEvents implements FlightRecorderEvents.Recorder {
+
+    private static final String CATEGORY = "Commons RDF";
+
+    private static final EventType PATTERN_QUERY_CALL = EventType
+            .getEventType(PatternQueryCallEvent.class);
+    private static final EventType PATTERN_QUERY = EventType
+            .getEventType(PatternQueryEvent.class);
+    private static final EventType PARSE = EventType
+            .getEventType(ParseEvent.class);
+    private static final EventType SERIALIZE = EventType
+            .getEventType(SerializeEvent.class);
+    private static final EventType BULK_LOAD = EventType
+            .getEventType(BulkLoadEvent.class);
+    private static final EventType TERM_CACHE_MISS = EventType
+            .getEventType(TermCacheMissEvent.class);
+
+    JfrEvents() {
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    @Name("org.apache.commons.rdf.PatternQueryCall")
+    @Label("Pattern Query Call")
+    @Description("Call of a pattern query, whether or not its stream is "
+            + "exhausted or closed")
+    @Category({ CATEGORY, "Graph" })
+    @StackTrace(false)
+    static final class PatternQueryCallEvent extends Event {
+
+        @Label("Pattern")
+        @Description("Bound positions, such as S?O for a bound subject and object")
+        String pattern;
+    }
+
+    @Name("org.apache.commons.rdf.PatternQuery")
+    @Label("Pattern Query")
+    @Description("Triples of a graph matching a pattern, from the query until "
+            + "the stream is exhausted or closed")
+    @Category({ CATEGORY, "Graph" })
+    @StackTrace(false)
+    static final class PatternQueryEvent extends Event {
+
+        @Label("Pattern")
+        @Description("Bound positions, such as S?O for a bound subject and object")
+        String pattern;
+
+        @Label("Result Count")
+        long resultCount;
+    }
+
+    @Name("org.apache.commons.rdf.Parse")
+    @Label("Parse")
+    @Description("Parsing of a document")
+    @Category({ CATEGORY, "I/O" })
+    static final class ParseEvent extends Event {
+
+        @Label("Syntax")
+        String syntax;
+
+        @Label("Triple Count")
+        long tripleCount;
+    }
+
+    @Name("org.apache.commons.rdf.Serialize")
+    @Label("Serialize")
+    @Description("Writing of a stream of triples")
+    @Category({ CATEGORY, "I/O" })
+    static final class SerializeEvent extends Event {
+
+        @Label("Syntax")
+        String syntax;
+
+        @Label("Triple Count")
+        long tripleCount;
+    }
+
+    @Name("org.apache.commons.rdf.BulkLoad")
+    @Label("Bulk Load")
+    @Description("Loading of several files into a graph")
+    @Category({ CATEGORY, "I/O" })
+    static final class BulkLoadEvent extends Event {
+
+        @Label("File Count")
+        int fileCount;
+
+        @Label("Triple Count")
+        long tripleCount;
+    }
+
+    @Name("org.apache.commons.rdf.TermCacheMiss")
+    @Label("Term Cache Miss")
+    @Description("Term created by a parser as it was not in its cache")
+    @Category({ CATEGORY, "Parser" })
+    @Enabled(false)
+    @StackTrace(false)
+    static final class TermCacheMissEvent extends Event {
+
+        @Label("Term Kind")
+        String termKind;
+    }
+
+    @Override
+    public Stream<Triple> patternQuery(Stream<Triple> stream, int shape) {
+        if (PATTERN_QUERY_CALL.isEnabled()) {
+            // Committed now, as a short-circuited or abandoned stream never
+            // ends the PatternQuery event
+            PatternQueryCallEvent call = new PatternQueryCallEvent();
+            call.pattern = MetricsGraph.pattern(shape);
+            call.commit();
+        }
+        if (!PATTERN_QUERY.isEnabled()) {
+            return stream;
+        }
+        PatternQueryEvent event = new PatternQueryEvent();
+        event.pattern = MetricsGraph.pattern(shape);
+        event.begin();
+        return ScanSpliterator.watch(stream, count -> {
+            event.resultCount = count;
+            event.commit();
+        });
+    }
+
+    @Override
+    public FlightRecorderEvents.Span beginParse(String syntax) {
+        if (!PARSE.isEnabled()) {
+            return FlightRecorderEvents.NO_SPAN;
+        }
+        ParseEvent event = new ParseEvent();
+        event.syntax = syntax;
+        event.begin();
+        return count -> {
+            event.tripleCount = count;
+            event.commit();
+        };
+    }
+
+    @Override
+    public FlightRecorderEvents.Span beginSerialize(String syntax) {
+        if (!SERIALIZE.isEnabled()) {
+            return FlightRecorderEvents.NO_SPAN;
+        }
+        SerializeEvent event = new SerializeEvent();
+        event.syntax = syntax;
+        event.begin();
+        return count -> {
+            event.tripleCount = count;
+            event.commit();
+        };
+    }
+
+    @Override
+    public FlightRecorderEvents.Span beginBulkLoad(int files) {
+        if (!BULK_LOAD.isEnabled()) {
+            return FlightRecorderEvents.NO_SPAN;
+        }
+        BulkLoadEvent event = new BulkLoadEvent();
+        event.fileCount = files;
+        event.begin();
+        return count -> {
+            event.tripleCount = count;
+            event.commit();
+        };
+    }
+
+    @Override
+    public void termCacheMiss(String kind) {
+        if (TERM_CACHE_MISS.isEnabled()) {
+            TermCacheMissEvent event = new TermCacheMissEvent();
+            event.termKind = kind;
+            event.commit();
+        }
+    }
+
+}
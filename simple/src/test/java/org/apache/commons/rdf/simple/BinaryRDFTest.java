@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link BinaryRDFWriter} and {@link BinaryRDFReader}
+ */
+public class BinaryRDFTest {
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private Graph sampleGraph() {
+        Graph graph = factory.createGraph();
+        IRI name = factory.createIRI("http://xmlns.com/foaf/0.1/name");
+        IRI knows = factory.createIRI("http://xmlns.com/foaf/0.1/knows");
+        IRI age = factory.createIRI("http://example.com/age");
+        BlankNode previous = null;
+        for (int i = 0; i < 3000; i++) {
+            BlankNode person = factory.createBlankNode("p" + i);
+            graph.add(person, name, factory.createLiteral("Person " + i, "en"));
+            graph.add(person, age, factory.createLiteral(Integer.toString(i % 90),
+                    Types.XSD_INT));
+            if (previous != null) {
+                graph.add(person, knows, previous);
+            }
+            previous = person;
+        }
+        graph.add(factory.createIRI("http://example.com/s"), name,
+                factory.createLiteral("æøå 😀 \"quoted\"\n"));
+        return graph;
+    }
+
+    private byte[] write(Graph graph, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BinaryRDFWriter writer = new BinaryRDFWriter(
+                Channels.newChannel(out), blockSize)) {
+            assertEquals(graph.size(), writer.write(graph));
+        }
+        return out.toByteArray();
+    }
+
+    private Graph read(byte[] bytes) throws IOException {
+        Graph graph = factory.createGraph();
+        try (BinaryRDFReader reader = new BinaryRDFReader(factory,
+                new ByteArrayInputStream(bytes))) {
+            reader.parse(graph);
+        }
+        return graph;
+    }
+
+    private void assertSameShape(Graph expected, Graph actual) {
+        assertEquals(expected.size(), actual.size());
+        // Blank nodes are renamed, so compare everything else directly and
+        // check that blank node identity is kept
+        expected.getTriples().filter(t -> !(t.getSubject() instanceof BlankNode))
+                .forEach(t -> assertTrue(actual.contains(t)));
+        IRI knows = factory.createIRI("http://xmlns.com/foaf/0.1/knows");
+        assertEquals(expected.getTriples(null, knows, null).count(),
+                actual.getTriples(null, knows, null).count());
+        assertEquals(
+                expected.getTriples().map(Triple::getSubject).distinct().count(),
+                actual.getTriples().map(Triple::getSubject).distinct().count());
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        Graph graph = sampleGraph();
+        Graph parsed = read(write(graph, BinaryRDFWriter.DEFAULT_BLOCK_SIZE));
+        assertSameShape(graph, parsed);
+        IRI age = factory.createIRI("http://example.com/age");
+        assertEquals(graph.getTriples(null, age, factory.createLiteral("42",
+                Types.XSD_INT)).count(),
+                parsed.getTriples(null, age, factory.createLiteral("42",
+                        Types.XSD_INT)).count());
+    }
+
+    @Test
+    public void roundTripManyBlocks() throws Exception {
+        Graph graph = sampleGraph();
+        assertSameShape(graph, read(write(graph, 7)));
+    }
+
+    @Test
+    public void smallerThanNTriples() throws Exception {
+        Graph graph = sampleGraph();
+        ByteArrayOutputStream ntriples = new ByteArrayOutputStream();
+        try (NTriplesWriter writer = new NTriplesWriter(ntriples)) {
+            writer.write(graph);
+        }
+        byte[] binary = write(graph, BinaryRDFWriter.DEFAULT_BLOCK_SIZE);
+        assertTrue(binary.length * 3 < ntriples.size());
+    }
+
+    @Test
+    public void emptyDocument() throws Exception {
+        byte[] bytes = write(factory.createGraph(), BinaryRDFWriter.DEFAULT_BLOCK_SIZE);
+        try (BinaryRDFReader reader = new BinaryRDFReader(factory,
+                new ByteArrayInputStream(bytes))) {
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void truncatedDocument() throws Exception {
+        byte[] bytes = write(sampleGraph(), 100);
+        assertInvalid(Arrays.copyOf(bytes, bytes.length / 2));
+        assertInvalid(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test
+    public void badMagic() throws Exception {
+        assertInvalid("<http://example.com/s> <http://example.com/p> \"o\" .\n"
+                .getBytes("UTF-8"));
+    }
+
+    @Test
+    public void termRejectedByFactory() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        graph.add(s, s, factory.createLiteral("x", "zz"));
+        byte[] bytes = write(graph, BinaryRDFWriter.DEFAULT_BLOCK_SIZE);
+        int tag = new String(bytes, "ISO-8859-1").indexOf("zz");
+        // Not a valid language tag
+        bytes[tag + 1] = '!';
+        assertInvalid(bytes);
+    }
+
+    private void assertInvalid(byte[] bytes) {
+        try {
+            read(bytes);
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+}
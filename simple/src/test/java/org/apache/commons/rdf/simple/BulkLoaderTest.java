@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link BulkLoader}
+ */
+public class BulkLoaderTest {
+
+    private SimpleRDFTermFactory factory;
+    private Path dir;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        factory = new SimpleRDFTermFactory();
+        dir = Files.createTempDirectory("bulk");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        }
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String ntriples(int from, int to) {
+        StringBuilder nt = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            nt.append("<http://example.com/s").append(i)
+                    .append("> <http://example.com/p> _:b .\n");
+        }
+        return nt.toString();
+    }
+
+    @Test
+    public void loadsDirectoryOfMixedSyntaxes() throws Exception {
+        for (int f = 0; f < 20; f++) {
+            write("part" + f + ".nt", ntriples(f * 100, f * 100 + 100));
+        }
+        write("sub/data.ttl", "@prefix ex: <http://example.com/> .\n"
+                + "ex:a ex:p ex:b, ex:c .\n");
+        write("sub/data.nq", "<http://example.com/x> <http://example.com/p> "
+                + "<http://example.com/y> <http://example.com/g> .\n");
+        write("README.txt", "not RDF");
+
+        Graph graph = factory.createGraph();
+        BulkLoader.Report report = new BulkLoader(factory, executor, 7)
+                .load(dir, graph);
+        assertEquals(22, report.getFiles().size());
+        assertTrue(report.getFailures().isEmpty());
+        assertEquals(2003, report.getTripleCount());
+        // Each file has its own blank node scope
+        assertEquals(2003, graph.size());
+        assertEquals(20, graph.getTriples(null, null, null)
+                .map(t -> t.getObject()).filter(o -> o instanceof BlankNode)
+                .distinct().count());
+        for (BulkLoader.FileResult file : report.getFiles()) {
+            assertTrue(file.isSuccessful());
+            assertTrue(file.getSyntax().isPresent());
+            assertTrue(file.getTriplesPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void failuresAreReportedPerFile() throws Exception {
+        write("good.nt", ntriples(0, 50));
+        write("bad.nt", ntriples(50, 60) + "<http://example.com/s> <p> .\n");
+        write("doc.jsonld", "{}");
+
+        Graph graph = factory.createGraph();
+        BulkLoader.Report report = new BulkLoader(factory, executor, 4)
+                .load(dir, graph);
+        assertEquals(3, report.getFiles().size());
+        assertEquals(2, report.getFailures().size());
+
+        BulkLoader.FileResult bad = report.getFiles().get(0);
+        assertEquals(dir.resolve("bad.nt"), bad.getFile());
+        assertTrue(bad.getError().get() instanceof RDFParseException);
+        assertEquals(10, bad.getTripleCount());
+
+        BulkLoader.FileResult jsonld = report.getFiles().get(1);
+        assertEquals(Optional.of(RDFSyntax.JSONLD), jsonld.getSyntax());
+        assertTrue(jsonld.getError().get() instanceof IllegalArgumentException);
+
+        assertTrue(report.getFiles().get(2).isSuccessful());
+        assertEquals(60, graph.size());
+    }
+
+    @Test
+    public void graphFailuresAreReportedPerFile() throws Exception {
+        write("good.nt", ntriples(0, 50));
+        write("rejected.nt", ntriples(50, 60));
+        IRI rejected = factory.createIRI("http://example.com/s55");
+        Graph graph = new RejectingGraph(factory.createGraph(), rejected);
+        BulkLoader.Report report = new BulkLoader(factory, executor, 4)
+                .load(dir, graph);
+        assertEquals(1, report.getFailures().size());
+
+        BulkLoader.FileResult failed = report.getFiles().get(1);
+        assertEquals(dir.resolve("rejected.nt"), failed.getFile());
+        assertTrue(failed.getError().get() instanceof IllegalStateException);
+        assertEquals(0, failed.getError().get().getSuppressed().length);
+        assertTrue(report.getFiles().get(0).isSuccessful());
+        assertEquals(50, graph.getTriples().filter(t -> ((IRI) t.getSubject())
+                .getIRIString().matches(".*/s[0-4]?[0-9]")).count());
+    }
+
+    /**
+     * A graph that fails to add the triples of one subject.
+     */
+    private static final class RejectingGraph implements Graph {
+
+        final Graph graph;
+        final IRI rejected;
+
+        RejectingGraph(Graph graph, IRI rejected) {
+            this.graph = graph;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void add(Triple triple) {
+            if (triple.getSubject().equals(rejected)) {
+                throw new IllegalStateException("Rejected " + triple);
+            }
+            graph.add(triple);
+        }
+
+        @Override
+        public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+            add(new TripleImpl(subject, predicate, object));
+        }
+
+        @Override
+        public void clear() {
+            graph.clear();
+        }
+
+        @Override
+        public boolean contains(Triple triple) {
+            return graph.contains(triple);
+        }
+
+        @Override
+        public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+                RDFTerm object) {
+            return graph.contains(subject, predicate, object);
+        }
+
+        @Override
+        public void remove(Triple triple) {
+            graph.remove(triple);
+        }
+
+        @Override
+        public void remove(BlankNodeOrIRI subject, IRI predicate,
+                RDFTerm object) {
+            graph.remove(subject, predicate, object);
+        }
+
+        @Override
+        public long size() {
+            return graph.size();
+        }
+
+        @Override
+        public Stream<? extends Triple> getTriples() {
+            return graph.getTriples();
+        }
+
+        @Override
+        public Stream<? extends Triple> getTriples(BlankNodeOrIRI subject,
+                IRI predicate, RDFTerm object) {
+            return graph.getTriples(subject, predicate, object);
+        }
+    }
+
+    @Test
+    public void loadsGivenFiles() throws Exception {
+        write("a.nt", ntriples(0, 10));
+        write("b.unknown", ntriples(10, 20));
+        Graph graph = factory.createGraph();
+        BulkLoader.Report report = new BulkLoader(factory).load(
+                Arrays.asList(dir.resolve("a.nt"), dir.resolve("b.unknown")),
+                graph);
+        assertTrue(report.getFiles().get(0).isSuccessful());
+        assertFalse(report.getFiles().get(1).isSuccessful());
+        assertFalse(report.getFiles().get(1).getSyntax().isPresent());
+        assertEquals(10, graph.size());
+    }
+
+}
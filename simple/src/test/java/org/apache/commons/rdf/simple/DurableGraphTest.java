@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link DurableGraph}
+ */
+public class DurableGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private Path dir;
+    private IRI p;
+
+    @Before
+    public void setUp() throws IOException {
+        factory = new SimpleRDFTermFactory();
+        dir = Files.createTempDirectory("durable");
+        p = factory.createIRI("http://example.com/p");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path file : Files.newDirectoryStream(dir)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private IRI s(int i) {
+        return factory.createIRI("http://example.com/s" + i);
+    }
+
+    @Test
+    public void reopenReplaysLog() throws Exception {
+        BlankNode b = factory.createBlankNode();
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            for (int i = 0; i < 100; i++) {
+                graph.add(s(i), p, factory.createLiteral("v" + i, "en"));
+            }
+            graph.add(b, p, factory.createLiteral("42", Types.XSD_INTEGER));
+            graph.remove(s(0), p, null);
+            graph.remove(factory.createTriple(s(1), p,
+                    factory.createLiteral("v1", "en")));
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(99, graph.size());
+            assertFalse(graph.contains(s(0), null, null));
+            assertFalse(graph.contains(s(1), null, null));
+            assertTrue(graph.contains(s(2), p, factory.createLiteral("v2", "en")));
+            assertEquals(1, graph.getTriples(null, null,
+                    factory.createLiteral("42", Types.XSD_INTEGER)).count());
+            graph.clear();
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(0, graph.size());
+        }
+    }
+
+    @Test
+    public void tornRecordIsDiscarded() throws Exception {
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            graph.add(s(1), p, s(2));
+            graph.add(s(2), p, s(3));
+        }
+        Path log = dir.resolve("wal-0.log");
+        long valid = Files.size(log);
+        // A record that was being written when the process died
+        Files.write(log, new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 1 },
+                StandardOpenOption.APPEND);
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(2, graph.size());
+            assertEquals(valid, Files.size(log));
+            graph.add(s(3), p, s(4));
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(3, graph.size());
+        }
+    }
+
+    @Test
+    public void compactReplacesLogWithSnapshot() throws Exception {
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            for (int i = 0; i < 1000; i++) {
+                graph.add(s(i), p, s(i + 1));
+            }
+            graph.compact();
+            graph.add(s(-1), p, s(0));
+        }
+        assertFalse(Files.exists(dir.resolve("wal-0.log")));
+        assertTrue(Files.exists(dir.resolve("snapshot-1")));
+        assertTrue(Files.exists(dir.resolve("wal-1.log")));
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(1001, graph.size());
+            assertTrue(graph.contains(s(-1), p, s(0)));
+            assertTrue(graph.contains(s(999), p, s(1000)));
+        }
+    }
+
+    @Test
+    public void reopenTwiceAfterCrashBeforeSnapshot() throws Exception {
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            graph.add(s(0), p, s(1));
+            graph.compact();
+            graph.add(s(1), p, s(2));
+        }
+        // A crash between starting a new log and writing its snapshot
+        Files.createFile(dir.resolve("wal-2.log"));
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(2, graph.size());
+        }
+        assertTrue(Files.exists(dir.resolve("snapshot-1")));
+        assertTrue(Files.exists(dir.resolve("wal-1.log")));
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(2, graph.size());
+            graph.add(s(2), p, s(3));
+            graph.compact();
+        }
+        assertFalse(Files.exists(dir.resolve("snapshot-1")));
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(3, graph.size());
+        }
+    }
+
+    @Test
+    public void concurrentCompactions() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t * 100;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        graph.add(s(offset + i), p, s(offset + i + 1));
+                        if (i % 10 == 0) {
+                            graph.compact();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(400, graph.size());
+        }
+    }
+
+    @Test
+    public void backgroundCompaction() throws Exception {
+        try (DurableGraph graph = DurableGraph.open(dir, factory, 1024, 10)) {
+            for (int i = 0; i < 200; i++) {
+                graph.add(s(i), p, factory.createLiteral("value " + i));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (Files.exists(dir.resolve("wal-0.log"))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(Files.exists(dir.resolve("wal-0.log")));
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(200, graph.size());
+        }
+    }
+
+    @Test
+    public void concurrentWritersShareCommits() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        graph.add(s(thread * 1000 + i), p, s(i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(2000, graph.size());
+        } finally {
+            executor.shutdown();
+        }
+        try (DurableGraph graph = DurableGraph.open(dir)) {
+            assertEquals(2000, graph.size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedGraphRejectsChanges() throws Exception {
+        DurableGraph graph = DurableGraph.open(dir);
+        graph.close();
+        graph.add(s(1), p, s(2));
+    }
+
+}
@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.rdf.api.AsyncGraph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.api.TriplePublisher;
+import org.apache.commons.rdf.api.TriplePublisher.Subscription;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ExecutorAsyncGraph}
+ */
+public class ExecutorAsyncGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI p;
+    private ExecutorService executor;
+    private AtomicInteger tasks;
+    private AsyncGraph graph;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        p = factory.createIRI("http://example.com/p");
+        executor = Executors.newFixedThreadPool(4);
+        tasks = new AtomicInteger();
+        graph = new ExecutorAsyncGraph(new ReadMostlyGraph(
+                factory.createGraph()), task -> {
+                    tasks.incrementAndGet();
+                    executor.execute(task);
+                });
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private Triple triple(int i) {
+        return factory.createTriple(
+                factory.createIRI("http://example.com/s" + i), p,
+                factory.createLiteral(Integer.toString(i)));
+    }
+
+    /**
+     * Subscriber recording what it receives, requesting nothing by itself
+     */
+    private static final class RecordingSubscriber
+            implements TriplePublisher.Subscriber {
+
+        final List<Triple> triples = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Triple triple) {
+            triples.add(triple);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+
+    private void fill(int count) throws Exception {
+        List<CompletableFuture<Void>> adds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            adds.add(graph.add(triple(i)));
+        }
+        CompletableFuture.allOf(adds.toArray(new CompletableFuture<?>[0]))
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void operationsRunOnExecutor() throws Exception {
+        fill(100);
+        assertEquals(100, tasks.get());
+        assertEquals(Long.valueOf(100), graph.size().get());
+        assertTrue(graph.contains(triple(5)).get());
+        assertTrue(graph.contains(null, null, factory.createLiteral("7")).get());
+        assertEquals(Long.valueOf(1), graph.count(triple(3).getSubject(),
+                null, null).get());
+        boolean removed = graph.remove(triple(3))
+                .thenCompose(v -> graph.remove(null, null,
+                        factory.createLiteral("4")))
+                .thenCompose(v -> graph.contains(null, null,
+                        factory.createLiteral("4")))
+                .get();
+        assertFalse(removed);
+        assertEquals(Long.valueOf(98), graph.count(null, p, null).get());
+        graph.clear().get();
+        assertEquals(Long.valueOf(0), graph.size().get());
+    }
+
+    @Test
+    public void failuresCompleteExceptionally() throws Exception {
+        try {
+            graph.contains(null).get();
+            throw new AssertionError("Expected failure");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof NullPointerException);
+        }
+    }
+
+    @Test
+    public void publisherHonoursDemand() throws Exception {
+        fill(1000);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        graph.getTriples(null, p, null).subscribe(subscriber);
+        int before = tasks.get();
+        subscriber.subscription.request(10);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (subscriber.triples.size() < 10
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        assertEquals(10, subscriber.triples.size());
+        assertFalse(subscriber.completed);
+        // No task waits for demand
+        assertEquals(before + 1, tasks.get());
+
+        for (int i = 0; i < 99; i++) {
+            subscriber.subscription.request(10);
+        }
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(1000, subscriber.triples.size());
+        assertEquals(1000, new HashSet<>(subscriber.triples).size());
+    }
+
+    @Test
+    public void emptyPatternCompletes() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        graph.getTriples().subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancelAndInvalidRequest() throws Exception {
+        fill(100);
+        RecordingSubscriber cancelled = new RecordingSubscriber();
+        graph.getTriples().subscribe(cancelled);
+        cancelled.subscription.request(5);
+        cancelled.subscription.cancel();
+        cancelled.subscription.request(100);
+        Thread.sleep(50);
+        assertTrue(cancelled.triples.size() <= 5);
+        assertFalse(cancelled.completed);
+        assertNull(cancelled.error);
+
+        RecordingSubscriber invalid = new RecordingSubscriber();
+        graph.getTriples().subscribe(invalid);
+        invalid.subscription.request(-1);
+        assertTrue(invalid.done.await(10, TimeUnit.SECONDS));
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+        assertTrue(invalid.triples.isEmpty());
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link GraphFootprint}
+ */
+public class GraphFootprintTest {
+
+    private SimpleRDFTermFactory factory;
+    private ObjectLayout layout;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        layout = ObjectLayout.CURRENT;
+    }
+
+    private static GraphFootprint footprint(Graph graph) {
+        return ((FootprintAware) graph).getFootprint();
+    }
+
+    @Test
+    public void objectLayout() {
+        ObjectLayout compressed = new ObjectLayout(12, 16, 4, 8, true);
+        assertEquals(16, compressed.object(0, 0));
+        assertEquals(24, compressed.triple());
+        assertEquals(32, compressed.hashEntry());
+        // 24 bytes of String, 16 + 3 bytes of array
+        assertEquals(48, compressed.string("abc"));
+        assertEquals(24 + 24, compressed.string("一丁丂"));
+        // Estimated by length, measured by characters
+        Literal literal = factory.createLiteral("一丁丂七丄丅丆万", "zh");
+        // 24 bytes of Literal, 24 + 24 of lexical form, 24 + 24 of tag
+        assertEquals(24 + 48 + 48, compressed.term(literal));
+        assertEquals(24 + 56 + 48, compressed.measureTerm(literal));
+        ObjectLayout uncompressed = new ObjectLayout(16, 24, 8, 8, false);
+        assertEquals(40, uncompressed.triple());
+        assertEquals(0, layout.term(Types.XSD_INTEGER));
+        assertEquals(0, layout.term(factory.createIRI(
+                Types.XSD_INTEGER.getIRIString())));
+    }
+
+    @Test
+    public void incrementalFootprint() {
+        Graph graph = factory.createGraph();
+        GraphFootprint empty = footprint(graph);
+        assertEquals(0, empty.getTotalBytes());
+        assertEquals(0, empty.getBytesPerTriple(), 0);
+
+        IRI p = factory.createIRI("http://example.com/p");
+        for (int i = 0; i < 1000; i++) {
+            graph.add(factory.createIRI("http://example.com/s" + i), p,
+                    factory.createLiteral(Integer.toString(i),
+                            Types.XSD_INTEGER));
+        }
+        // Duplicates are not counted
+        graph.add(factory.createIRI("http://example.com/s0"), p,
+                factory.createLiteral("0", Types.XSD_INTEGER));
+        GraphFootprint full = footprint(graph);
+        assertEquals(1000, full.getTripleCount());
+        assertEquals(1000 * layout.triple(), full.getTripleBytes());
+        // 2048 slots for 1000 triples
+        assertEquals(1000 * layout.hashEntry() + layout.referenceArray(2048),
+                full.getIndexBytes());
+        assertTrue(full.toString(), full.getBytesPerTriple() > 100
+                && full.getBytesPerTriple() < 1000);
+
+        Triple triple = graph.getTriples(factory.createIRI(
+                "http://example.com/s1"), null, null).findFirst().get();
+        long termBytes = layout.term(triple.getSubject())
+                + layout.term(triple.getPredicate())
+                + layout.term(triple.getObject());
+        graph.remove(triple);
+        assertEquals(full.getTermBytes() - termBytes,
+                footprint(graph).getTermBytes());
+
+        graph.clear();
+        GraphFootprint cleared = footprint(graph);
+        assertEquals(0, cleared.getTripleBytes() + cleared.getTermBytes());
+        // The table is kept
+        assertEquals(layout.referenceArray(2048), cleared.getIndexBytes());
+    }
+
+    @Test
+    public void removingAnEqualTermKeepsTermBytes() {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        // As created by the parsers
+        IRI integer = IRIImpl.unchecked(Types.XSD_INTEGER.getIRIString());
+        graph.add(s, s, LiteralImpl.unchecked("1", integer, null));
+        graph.remove(factory.createTriple(s, s,
+                factory.createLiteral("1", Types.XSD_INTEGER)));
+        assertEquals(0, graph.size());
+        assertEquals(0, footprint(graph).getTermBytes());
+        assertEquals(0, layout.term(integer));
+    }
+
+    @Test
+    public void measureCountsSharedTermsOnce() {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        IRI p = factory.createIRI("http://example.com/p");
+        for (int i = 0; i < 100; i++) {
+            graph.add(s, p, factory.createLiteral("value " + i));
+        }
+        GraphFootprint incremental = footprint(graph);
+        GraphFootprint measured = GraphFootprint.measure(graph);
+        assertEquals(incremental.getTripleBytes(), measured.getTripleBytes());
+        assertEquals(incremental.getIndexBytes(), measured.getIndexBytes());
+        long shared = layout.term(s) + layout.term(p);
+        assertEquals(incremental.getTermBytes() - 99 * shared,
+                measured.getTermBytes());
+    }
+
+    @Test
+    public void presizedGraph() {
+        GraphImpl graph = new GraphImpl(factory, 1000);
+        graph.add(factory.createIRI("http://example.com/s"),
+                factory.createIRI("http://example.com/p"),
+                factory.createLiteral("o"));
+        // 1000 / 0.75 + 1 = 1334, rounded up
+        assertEquals(layout.hashEntry() + layout.referenceArray(2048),
+                graph.getFootprint().getIndexBytes());
+    }
+
+}
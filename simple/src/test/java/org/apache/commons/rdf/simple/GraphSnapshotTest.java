@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link GraphSnapshot}
+ */
+public class GraphSnapshotTest {
+
+    private SimpleRDFTermFactory factory;
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        factory = new SimpleRDFTermFactory();
+        dir = Files.createTempDirectory("snapshot");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (Path file : Files.newDirectoryStream(dir)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void restoreEqualGraph() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI p = factory.createIRI("http://example.com/p");
+        BlankNode b = factory.createBlankNode();
+        for (int i = 0; i < 20000; i++) {
+            IRI s = factory.createIRI("http://example.com/s" + (i % 1000));
+            graph.add(s, p, factory.createLiteral(Integer.toString(i), Types.XSD_INT));
+            graph.add(b, p, factory.createLiteral("value " + i, i % 2 == 0 ? "en" : "da"));
+        }
+        graph.add(b, p, factory.createLiteral("plain æ 😀"));
+        graph.add(b, p, factory.createLiteral("x",
+                factory.createIRI("http://example.com/type")));
+
+        Path file = dir.resolve("graph.snapshot");
+        assertEquals(graph.size(), GraphSnapshot.write(graph, file));
+        assertFalse(Files.exists(dir.resolve("graph.snapshot.tmp")));
+
+        Graph restored = GraphSnapshot.read(file, factory);
+        assertEquals(graph.size(), restored.size());
+        graph.getTriples().forEach(t -> assertTrue(restored.contains(t)));
+        // Blank nodes are the same as in the original graph
+        assertEquals(20002, restored.getTriples(b, null, null).count());
+
+        Literal literal = (Literal) restored.getTriples(null, null,
+                factory.createLiteral("7", Types.XSD_INT)).findAny().get().getObject();
+        assertSame(Types.XSD_INT, literal.getDatatype());
+
+        // The restored graph can be used as usual
+        restored.add(b, p, factory.createLiteral("added"));
+        assertTrue(restored.contains(b, p, factory.createLiteral("added")));
+    }
+
+    @Test
+    public void emptyGraph() throws Exception {
+        Path file = dir.resolve("empty.snapshot");
+        assertEquals(0, GraphSnapshot.write(factory.createGraph(), file));
+        assertEquals(0, GraphSnapshot.read(file).size());
+    }
+
+    @Test
+    public void replaceExistingSnapshot() throws Exception {
+        Path file = dir.resolve("graph.snapshot");
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        graph.add(s, s, s);
+        GraphSnapshot.write(graph, file);
+        graph.add(s, s, factory.createLiteral("second"));
+        GraphSnapshot.write(graph, file);
+        assertEquals(2, GraphSnapshot.read(file).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshot() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        for (int i = 0; i < 100; i++) {
+            graph.add(s, s, factory.createLiteral("v" + i));
+        }
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+        GraphSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeDatatype() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        graph.add(s, s, factory.createLiteral("XYZ",
+                factory.createIRI("http://example.com/datatype")));
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        // The datatype id and length in front of the lexical form
+        int lexical = new String(bytes, StandardCharsets.ISO_8859_1)
+                .indexOf("XYZ");
+        byte[] corrupt = new byte[bytes.length + 9];
+        System.arraycopy(bytes, 0, corrupt, 0, lexical - 2);
+        // A varint with the sign bit set
+        for (int j = 0; j < 9; j++) {
+            corrupt[lexical - 2 + j] = (byte) 0xFF;
+        }
+        corrupt[lexical - 2 + 9] = 0x01;
+        System.arraycopy(bytes, lexical - 1, corrupt, lexical + 8,
+                bytes.length - lexical + 1);
+        Files.write(file, corrupt);
+        GraphSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptCounts() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI s = factory.createIRI("http://example.com/s");
+        graph.add(s, s, s);
+        Path file = dir.resolve("graph.snapshot");
+        GraphSnapshot.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        // The term and triple counts after the magic and version
+        ByteBuffer.wrap(bytes).putInt(5, Integer.MAX_VALUE)
+                .putLong(9, Long.MAX_VALUE);
+        Files.write(file, bytes);
+        GraphSnapshot.read(file);
+    }
+
+}
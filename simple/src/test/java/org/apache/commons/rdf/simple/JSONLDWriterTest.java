@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link JSONLDWriter}
+ */
+public class JSONLDWriterTest {
+
+    private static final String EX = "http://example.com/";
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    private SimpleRDFTermFactory factory;
+    private Map<String, String> prefixes;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        prefixes = new LinkedHashMap<>();
+        prefixes.put("ex", EX);
+    }
+
+    private IRI ex(String local) {
+        return factory.createIRI(EX + local);
+    }
+
+    private String write(Map<String, String> prefixes, int windowSize,
+            Triple... triples) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JSONLDWriter writer = new JSONLDWriter(Channels.newChannel(out),
+                prefixes, windowSize)) {
+            for (Triple triple : triples) {
+                writer.write(triple);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void groupsBySubjectWithContext() throws Exception {
+        String json = write(prefixes, 100,
+                factory.createTriple(ex("s"), factory.createIRI(RDF + "type"), ex("T")),
+                factory.createTriple(ex("s"), ex("p"), factory.createLiteral("v")),
+                factory.createTriple(ex("o"), ex("q"), factory.createLiteral("1", Types.XSD_INTEGER)),
+                factory.createTriple(ex("s"), ex("p"), ex("o")),
+                factory.createTriple(ex("s"), ex("r"), factory.createLiteral("hi", "en")));
+        assertEquals("{\n"
+                + "  \"@context\": {\"ex\": \"http://example.com/\"},\n"
+                + "  \"@graph\": [\n"
+                + "    {\"@id\": \"ex:s\", \"@type\": [\"ex:T\"], "
+                + "\"ex:p\": [{\"@value\": \"v\"}, {\"@id\": \"ex:o\"}], "
+                + "\"ex:r\": [{\"@value\": \"hi\", \"@language\": \"en\"}]},\n"
+                + "    {\"@id\": \"ex:o\", \"ex:q\": [{\"@value\": \"1\", "
+                + "\"@type\": \"http://www.w3.org/2001/XMLSchema#integer\"}]}\n"
+                + "  ]\n"
+                + "}\n", json);
+    }
+
+    @Test
+    public void emptyDocumentWithoutContext() throws Exception {
+        assertEquals("{\n  \"@graph\": []\n}\n",
+                write(Collections.emptyMap(), 100));
+    }
+
+    @Test
+    public void escapesStringsAndBlankNodes() throws Exception {
+        String json = write(Collections.emptyMap(), 100,
+                factory.createTriple(factory.createBlankNode("b"), ex("p"),
+                        factory.createLiteral("a \"quote\" \\ \n\t\u0001 é")));
+        assertTrue(json, json.contains("\"http://example.com/p\": [{\"@value\": "
+                + "\"a \\\"quote\\\" \\\\ \\n\\t\\u0001 é\"}]"));
+        assertTrue(json, json.contains("{\"@id\": \"_:"));
+    }
+
+    @Test
+    public void literalTypesAndDoubleSlashAreNotCompacted() throws Exception {
+        String json = write(prefixes, 100,
+                factory.createTriple(ex("s"), factory.createIRI(RDF + "type"),
+                        factory.createLiteral("x")),
+                factory.createTriple(ex("s"), ex("p"), ex("//host")));
+        assertTrue(json, json.contains("{\"@id\": \"ex:s\", \""
+                + RDF + "type\": [{\"@value\": \"x\"}], "
+                + "\"ex:p\": [{\"@id\": \"http://example.com///host\"}]}"));
+    }
+
+    @Test
+    public void smallWindowSplitsSubjects() throws Exception {
+        String json = write(prefixes, 2,
+                factory.createTriple(ex("s"), ex("p"), ex("a")),
+                factory.createTriple(ex("t"), ex("p"), ex("b")),
+                factory.createTriple(ex("s"), ex("p"), ex("c")));
+        assertEquals(2, json.split("\"@id\": \"ex:s\"", -1).length - 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefixName() throws Exception {
+        prefixes.put("@vocab", EX);
+        write(prefixes, 100);
+    }
+
+}
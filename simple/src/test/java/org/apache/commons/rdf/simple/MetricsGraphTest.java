@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.simple.MetricsGraph.Operation;
+import org.apache.commons.rdf.simple.MetricsGraph.OperationMetrics;
+import org.apache.commons.rdf.simple.MetricsGraph.Snapshot;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link MetricsGraph}
+ */
+public class MetricsGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private MetricsGraph graph;
+    private IRI p;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        graph = new MetricsGraph(factory.createGraph());
+        p = factory.createIRI("http://example.com/p");
+        for (int i = 0; i < 100; i++) {
+            graph.add(factory.createIRI("http://example.com/s" + (i % 10)), p,
+                    factory.createLiteral(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void countsByOperationAndShape() {
+        IRI s = factory.createIRI("http://example.com/s1");
+        assertTrue(graph.contains(s, null, null));
+        assertFalse(graph.contains(s, p, factory.createLiteral("x")));
+        assertEquals(100, graph.size());
+        graph.remove(s, null, null);
+
+        Snapshot snapshot = graph.getSnapshot();
+        assertEquals(100, snapshot.getCount(Operation.ADD));
+        assertEquals(1, snapshot.get(Operation.CONTAINS, "S??").get().getCount());
+        assertEquals(1, snapshot.get(Operation.CONTAINS, "SPO").get().getCount());
+        assertEquals(1, snapshot.get(Operation.REMOVE, "S??").get().getCount());
+        assertEquals(1, snapshot.getCount(Operation.SIZE));
+        assertFalse(snapshot.get(Operation.CLEAR, "???").isPresent());
+
+        OperationMetrics adds = snapshot.get(Operation.ADD, "SPO").get();
+        assertTrue(adds.getMaxNanos() >= adds.getP99Nanos());
+        assertTrue(adds.getP99Nanos() >= adds.getMedianNanos());
+        assertTrue(adds.getTotalNanos() >= adds.getMaxNanos());
+
+        graph.reset();
+        assertTrue(graph.getSnapshot().getOperations().isEmpty());
+    }
+
+    @Test
+    public void scansCountTriplesWhenConsumedOrClosed() {
+        IRI s = factory.createIRI("http://example.com/s2");
+        assertEquals(10, graph.getTriples(s, null, null).count());
+        assertEquals(100, graph.getTriples(null, p, null).parallel().count());
+        assertEquals(100, graph.getTriples().parallel()
+                .filter(t -> t.getObject() != null).count());
+        // Short-circuited: counted when called, but only timed once closed.
+        // Sequential, as parallel splits may each advance past one triple.
+        Stream<Triple> partial = graph.getTriples(null, null, null)
+                .sequential();
+        assertTrue(partial.findFirst().isPresent());
+        Snapshot snapshot = graph.getSnapshot();
+        assertEquals(10, snapshot.get(Operation.GET_TRIPLES, "S??").get()
+                .getTriplesReturned());
+        assertEquals(100, snapshot.get(Operation.GET_TRIPLES, "?P?").get()
+                .getTriplesReturned());
+        assertEquals(2, snapshot.get(Operation.GET_TRIPLES, "???").get()
+                .getCount());
+        assertEquals(1, snapshot.get(Operation.GET_TRIPLES, "???").get()
+                .getTimedCount());
+        partial.close();
+        OperationMetrics all = graph.getSnapshot()
+                .get(Operation.GET_TRIPLES, "???").get();
+        assertEquals(2, all.getCount());
+        assertEquals(2, all.getTimedCount());
+        assertEquals(101, all.getTriplesReturned());
+        assertEquals(50.5, all.getMeanTriplesReturned(), 0.0);
+
+        // Abandoned streams are counted too
+        assertTrue(graph.getTriples(s, null, null).anyMatch(t -> true));
+        assertEquals(1, graph.getTriples(s, null, null).limit(1).count());
+        OperationMetrics bySubject = graph.getSnapshot()
+                .get(Operation.GET_TRIPLES, "S??").get();
+        assertEquals(3, bySubject.getCount());
+        assertEquals(1, bySubject.getTimedCount());
+    }
+
+    @Test
+    public void registeredWithPlatformMBeanServer() throws Exception {
+        ObjectName name = graph.register("metrics-test");
+        try {
+            graph.getTriples(null, p, null).count();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(101L, server.getAttribute(name, "OperationCount"));
+            assertEquals(100L, server.getAttribute(name, "TriplesReturned"));
+            CompositeData[] operations = (CompositeData[]) server
+                    .getAttribute(name, "Operations");
+            assertEquals(2, operations.length);
+            assertEquals("GET_TRIPLES", operations[1].get("operation"));
+            assertEquals("?P?", operations[1].get("pattern"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "OperationCount"));
+        } finally {
+            graph.close();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(name));
+    }
+
+}
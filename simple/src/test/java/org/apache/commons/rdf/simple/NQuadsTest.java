@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link NQuadsParser} and {@link NQuadsWriter}
+ */
+public class NQuadsTest {
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private NQuadsParser parser(String nquads) {
+        return new NQuadsParser(factory, new ByteArrayInputStream(
+                nquads.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void parseQuads() throws Exception {
+        List<Optional<BlankNodeOrIRI>> names = new ArrayList<>();
+        List<Triple> triples = new ArrayList<>();
+        try (NQuadsParser parser = parser(
+                "<http://example.com/s> <http://example.com/p> \"a\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"b\" <http://example.com/g> .\n"
+                + "# comment\n"
+                + "<http://example.com/s> <http://example.com/p> _:o _:g.\n")) {
+            assertEquals(3, parser.parse((name, triple) -> {
+                names.add(name);
+                triples.add(triple);
+            }));
+        }
+        assertFalse(names.get(0).isPresent());
+        assertEquals(factory.createIRI("http://example.com/g"), names.get(1).get());
+        assertTrue(names.get(2).isPresent());
+        assertEquals(factory.createLiteral("b"), triples.get(1).getObject());
+    }
+
+    @Test
+    public void routeByGraphName() throws Exception {
+        Map<Optional<BlankNodeOrIRI>, Graph> graphs = new HashMap<>();
+        List<Optional<BlankNodeOrIRI>> created = new ArrayList<>();
+        try (NQuadsParser parser = parser(
+                "<http://example.com/s> <http://example.com/p> \"1\" <http://example.com/g1> .\n"
+                + "<http://example.com/s> <http://example.com/p> \"2\" <http://example.com/g1> .\n"
+                + "<http://example.com/s> <http://example.com/p> \"3\" <http://example.com/g2> .\n"
+                + "<http://example.com/s> <http://example.com/p> \"4\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"5\" <http://example.com/g1> .\n")) {
+            parser.parse(name -> {
+                created.add(name);
+                return graphs.computeIfAbsent(name, n -> factory.createGraph())::add;
+            });
+        }
+        assertEquals(3, created.size());
+        assertEquals(3, graphs.get(Optional.of(factory.createIRI("http://example.com/g1"))).size());
+        assertEquals(1, graphs.get(Optional.of(factory.createIRI("http://example.com/g2"))).size());
+        assertEquals(1, graphs.get(Optional.empty()).size());
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        IRI g1 = factory.createIRI("http://example.com/g1");
+        BlankNodeOrIRI g2 = factory.createBlankNode("g2");
+        IRI p = factory.createIRI("http://example.com/p");
+        Graph graph1 = factory.createGraph();
+        Graph graph2 = factory.createGraph();
+        Graph defaultGraph = factory.createGraph();
+        for (int i = 0; i < 1000; i++) {
+            IRI s = factory.createIRI("http://example.com/" + i);
+            graph1.add(s, p, factory.createLiteral("g1 " + i, "en"));
+            graph2.add(s, p, factory.createLiteral(Integer.toString(i), Types.XSD_INT));
+            defaultGraph.add(s, p, factory.createLiteral("default \"" + i + "\""));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NQuadsWriter writer = new NQuadsWriter(out)) {
+            assertEquals(1000, writer.write(g1, graph1));
+            assertEquals(1000, writer.write(g2, graph2));
+            assertEquals(1000, writer.write(null, defaultGraph));
+        }
+
+        Map<Optional<BlankNodeOrIRI>, Graph> graphs = new HashMap<>();
+        try (NQuadsParser parser = new NQuadsParser(factory,
+                new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3000, parser.parse(name -> graphs.computeIfAbsent(
+                    name, n -> factory.createGraph())::add));
+        }
+        assertEquals(3, graphs.size());
+        Graph parsed1 = graphs.get(Optional.of(g1));
+        assertEquals(1000, parsed1.size());
+        graph1.getTriples().forEach(t -> assertTrue(parsed1.contains(t)));
+        Graph parsedDefault = graphs.get(Optional.empty());
+        defaultGraph.getTriples().forEach(t -> assertTrue(parsedDefault.contains(t)));
+    }
+
+    @Test(expected = RDFParseException.class)
+    public void literalGraphName() throws Exception {
+        try (NQuadsParser parser = parser(
+                "<http://example.com/s> <http://example.com/p> \"a\" \"g\" .\n")) {
+            parser.parse((name, triple) -> {
+            });
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link NTriplesParser}
+ */
+public class NTriplesParserTest {
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private NTriplesParser parser(String ntriples) {
+        return new NTriplesParser(factory, new ByteArrayInputStream(
+                ntriples.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<Triple> parse(String ntriples) throws Exception {
+        List<Triple> triples = new ArrayList<>();
+        try (NTriplesParser parser = parser(ntriples)) {
+            parser.parse(triples::add);
+        }
+        return triples;
+    }
+
+    @Test
+    public void iris() throws Exception {
+        List<Triple> triples = parse(
+                "<http://example.com/s> <http://example.com/p> <http://example.com/o> .\n");
+        assertEquals(1, triples.size());
+        assertEquals(factory.createTriple(factory.createIRI("http://example.com/s"),
+                factory.createIRI("http://example.com/p"),
+                factory.createIRI("http://example.com/o")), triples.get(0));
+    }
+
+    @Test
+    public void literals() throws Exception {
+        List<Triple> triples = parse(
+                "<http://example.com/s> <http://example.com/p> \"plain\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"chat\"@fr .\n"
+                + "<http://example.com/s> <http://example.com/p> \"1\"^^<http://www.w3.org/2001/XMLSchema#integer>.\n"
+                + "<http://example.com/s> <http://example.com/p> \"tab\\t quote\\\" \\u00E6\\U0001F600 \\\\\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"日本語\" .\n");
+        assertEquals(factory.createLiteral("plain"), triples.get(0).getObject());
+        assertEquals(factory.createLiteral("chat", "fr"), triples.get(1).getObject());
+        assertEquals(factory.createLiteral("1", Types.XSD_INTEGER), triples.get(2).getObject());
+        assertEquals("tab\t quote\" \u00E6\uD83D\uDE00 \\",
+                ((Literal) triples.get(3).getObject()).getLexicalForm());
+        assertEquals("日本語", ((Literal) triples.get(4).getObject()).getLexicalForm());
+    }
+
+    @Test
+    public void commentsAndBlankLines() throws Exception {
+        List<Triple> triples = parse("# header\n\n   \t\n"
+                + "<http://example.com/s> <http://example.com/p> \"a\" . # trailing\r\n"
+                + "<http://example.com/s> <http://example.com/p> \"b\" .\r"
+                + "<http://example.com/s> <http://example.com/p> \"c\" .");
+        assertEquals(3, triples.size());
+    }
+
+    @Test
+    public void blankNodesScopedPerDocument() throws Exception {
+        String doc = "_:b1 <http://example.com/p> _:b2.\n"
+                + "_:b2 <http://example.com/p> _:b1 .\n"
+                + "_:b1.x <http://example.com/p> _:b1 .\n";
+        List<Triple> first = parse(doc);
+        assertEquals(first.get(0).getSubject(), first.get(1).getObject());
+        assertEquals(first.get(0).getObject(), first.get(1).getSubject());
+        assertNotEquals(first.get(0).getSubject(), first.get(2).getSubject());
+
+        List<Triple> second = parse(doc);
+        assertNotEquals(first.get(0).getSubject(), second.get(0).getSubject());
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI predicate = factory.createIRI("http://example.com/p");
+        BlankNodeOrIRI subject = factory.createBlankNode();
+        for (int i = 0; i < 5000; i++) {
+            graph.add(subject, predicate,
+                    factory.createLiteral("Line " + i + "\n\"quoted\" \\ æøå", "en"));
+            graph.add(subject, predicate, factory.createIRI("http://example.com/" + i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NTriplesWriter writer = new NTriplesWriter(out)) {
+            writer.write(graph);
+        }
+        Graph parsed = factory.createGraph();
+        try (NTriplesParser parser = new NTriplesParser(factory,
+                new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(10000, parser.parse(parsed::add));
+        }
+        assertEquals(graph.size(), parsed.size());
+        // Blank nodes are renamed, but the rest should be identical
+        assertEquals(
+                graph.getTriples().map(Triple::getObject).map(Object::toString)
+                        .sorted().collect(Collectors.toList()),
+                parsed.getTriples().map(Triple::getObject).map(Object::toString)
+                        .sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void lineLongerThanBuffer() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3 * NTriplesParser.DEFAULT_BUFFER_SIZE; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        List<Triple> triples = parse("<http://example.com/s> <http://example.com/p> \"a\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"" + sb + "\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"b\" .\n");
+        assertEquals(3, triples.size());
+        assertEquals(sb.toString(), ((Literal) triples.get(1).getObject()).getLexicalForm());
+    }
+
+    @Test
+    public void stream() throws Exception {
+        try (NTriplesParser parser = parser(
+                "<http://example.com/s> <http://example.com/p> \"a\" .\n"
+                + "<http://example.com/s> <http://example.com/p> \"b\" .\n")) {
+            assertEquals(2, parser.stream().count());
+            assertNull(parser.next());
+        }
+    }
+
+    @Test
+    public void syntaxErrors() throws Exception {
+        assertError("<http://example.com/s> <http://example.com/p> \"a\"\n", 1);
+        assertError("\n\"s\" <http://example.com/p> \"a\" .\n", 2);
+        assertError("<http://example.com/s> _:p \"a\" .\n", 1);
+        assertError("<http://example.com/s> <http://example.com/p> \"a .\n", 1);
+        assertError("<http://example.com/s> <http://example.com/p> \"a\" . x\n", 1);
+        assertError("<http://example.com/s> <http://example.com/p> \"\\q\" .\n", 1);
+        assertError("<http://example.com/s> <http://example.com/p> \"a\"@ .\n", 1);
+    }
+
+    private void assertError(String ntriples, long line) throws Exception {
+        try {
+            parse(ntriples);
+            fail("Expected RDFParseException for: " + ntriples);
+        } catch (RDFParseException ex) {
+            assertEquals(line, ex.getLineNumber());
+            assertTrue(ex.getColumn() > 0);
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link NTriplesWriter} against {@link Triple#toString()}.
+ */
+public class NTriplesWriterTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI subject;
+    private IRI predicate;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        subject = factory.createIRI("http://example.com/s");
+        predicate = factory.createIRI("http://example.com/p");
+    }
+
+    private String write(Triple triple, int bufferSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NTriplesWriter writer = new NTriplesWriter(
+                Channels.newChannel(out), bufferSize)) {
+            writer.write(triple);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void assertSameAsToString(Triple triple) throws Exception {
+        assertEquals(triple.toString() + "\n", write(triple, 64));
+        assertEquals(triple.toString() + "\n",
+                write(triple, NTriplesWriter.DEFAULT_BUFFER_SIZE));
+    }
+
+    @Test
+    public void iri() throws Exception {
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createIRI("http://example.com/o")));
+    }
+
+    @Test
+    public void blankNode() throws Exception {
+        assertSameAsToString(factory.createTriple(
+                factory.createBlankNode("b1"), predicate,
+                factory.createBlankNode()));
+    }
+
+    @Test
+    public void literals() throws Exception {
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral("Hello")));
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral("Hello", "en-GB")));
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral("13", Types.XSD_INTEGER)));
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral("x",
+                        factory.createIRI("http://example.com/type"))));
+    }
+
+    @Test
+    public void escapedLiteral() throws Exception {
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral("Quote \" backslash \\ \r\n\ttab")));
+    }
+
+    @Test
+    public void unicodeLiteral() throws Exception {
+        // 2, 3 and 4 byte UTF-8 sequences, longer than the smallest buffer
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            sb.append("æøå 日本語 😀 ");
+        }
+        assertSameAsToString(factory.createTriple(subject, predicate,
+                factory.createLiteral(sb.toString(), "ja")));
+    }
+
+    @Test
+    public void graph() throws Exception {
+        Graph graph = factory.createGraph();
+        for (int i = 0; i < 1000; i++) {
+            graph.add(subject, predicate, factory.createLiteral("Example " + i));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NTriplesWriter writer = new NTriplesWriter(out)) {
+            assertEquals(1000, writer.write(graph));
+        }
+        String expected = graph.getTriples().map(Object::toString).sorted()
+                .collect(Collectors.joining("\n"));
+        String actual = Arrays.stream(
+                new String(out.toByteArray(), StandardCharsets.UTF_8)
+                        .split("\n")).sorted()
+                .collect(Collectors.joining("\n"));
+        assertEquals(expected, actual);
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test {@link ParallelNTriplesLoader}
+ */
+public class ParallelNTriplesLoaderTest {
+
+    private static final int TRIPLES = 20000;
+
+    private static Path file;
+
+    @BeforeClass
+    public static void writeFile() throws IOException {
+        file = Files.createTempFile("parallel", ".nt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < TRIPLES; i++) {
+            // Every triple points to _:root, so blank node labels must be
+            // consistent across chunks
+            lines.add("_:b" + i + " <http://example.com/p> _:root . # " + i);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    @AfterClass
+    public static void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private ParallelNTriplesLoader loader(SimpleRDFTermFactory factory) {
+        // Small chunks to force many chunk boundaries
+        return new ParallelNTriplesLoader(factory, new ForkJoinPool(4), 4096,
+                100);
+    }
+
+    @Test
+    public void loadGraph() throws Exception {
+        SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+        Graph graph = factory.createGraph();
+        assertEquals(TRIPLES, loader(factory).load(file, graph));
+        assertEquals(TRIPLES, graph.size());
+
+        List<RDFTerm> objects = graph.getTriples().map(Triple::getObject)
+                .distinct().collect(Collectors.toList());
+        assertEquals(1, objects.size());
+        assertEquals(TRIPLES, graph.getTriples().map(Triple::getSubject)
+                .distinct().count());
+    }
+
+    @Test
+    public void sameAsSequential() throws Exception {
+        SimpleRDFTermFactory factory = new SimpleRDFTermFactory();
+        Graph parallel = factory.createGraph();
+        loader(factory).load(file, parallel);
+
+        Graph sequential = factory.createGraph();
+        try (NTriplesParser parser = new NTriplesParser(factory,
+                Files.newInputStream(file))) {
+            parser.parse(sequential::add);
+        }
+        assertEquals(sequential.size(), parallel.size());
+    }
+
+    @Test
+    public void invalidChunk() throws Exception {
+        Path invalid = Files.createTempFile("invalid", ".nt");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                lines.add("<http://example.com/s> <http://example.com/p> \"" + i + "\" .");
+            }
+            lines.add("<http://example.com/s> <http://example.com/p> .");
+            Files.write(invalid, lines, StandardCharsets.UTF_8);
+            loader(new SimpleRDFTermFactory()).load(invalid, batch -> {
+            });
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            assertTrue(ex.getCause() instanceof RDFParseException);
+        } finally {
+            Files.delete(invalid);
+        }
+    }
+
+    @Test
+    public void failedChunkStopsTheOthers() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger active = new AtomicInteger();
+        try {
+            loader(new SimpleRDFTermFactory()).load(file, batch -> {
+                active.incrementAndGet();
+                try {
+                    Thread.sleep(10);
+                    if (batches.incrementAndGet() == 1) {
+                        throw new IllegalStateException("Sink failed");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        // No chunk passes on batches once the load has returned
+        assertEquals(0, active.get());
+        int after = batches.get();
+        Thread.sleep(100);
+        assertEquals(after, batches.get());
+    }
+
+}
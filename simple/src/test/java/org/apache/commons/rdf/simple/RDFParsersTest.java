@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.apache.commons.rdf.api.Triple;
+import org.apache.commons.rdf.api.TriplePublisher;
+import org.apache.commons.rdf.api.TriplePublisher.Subscription;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link RDFParsers}
+ */
+public class RDFParsersTest {
+
+    private SimpleRDFTermFactory factory;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        factory = new SimpleRDFTermFactory();
+        file = Files.createTempFile("parsers", ".nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            nt.append("<http://example.com/s").append(i)
+                    .append("> <http://example.com/p> \"").append(i)
+                    .append("\" .\n");
+        }
+        Files.write(file, nt.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * Subscriber recording what it receives, requesting nothing by itself
+     */
+    private static final class RecordingSubscriber
+            implements TriplePublisher.Subscriber {
+
+        final List<Triple> triples = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Triple triple) {
+            triples.add(triple);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+
+    @Test
+    public void parseSyntaxes() throws Exception {
+        Graph graph = factory.createGraph();
+        assertEquals(1000, RDFParsers.parse(factory, file, RDFSyntax.NTRIPLES,
+                null, graph::add));
+        assertEquals(1000, graph.size());
+
+        Path ttl = Files.createTempFile("parsers", ".ttl");
+        try {
+            Files.write(ttl, "@prefix ex: <http://example.com/> . ex:s ex:p ex:o, <o2> ."
+                    .getBytes(StandardCharsets.UTF_8));
+            graph = factory.createGraph();
+            assertEquals(2, RDFParsers.parse(factory, ttl, RDFSyntax.TURTLE,
+                    "http://example.com/", graph::add));
+            assertTrue(graph.contains(null, null,
+                    factory.createIRI("http://example.com/o2")));
+        } finally {
+            Files.delete(ttl);
+        }
+        assertFalse(RDFParsers.isSupported(RDFSyntax.JSONLD));
+    }
+
+    @Test
+    public void publisherHonoursDemand() throws Exception {
+        TriplePublisher publisher = RDFParsers.publisher(factory, file,
+                RDFSyntax.NTRIPLES, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(10);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (subscriber.triples.size() < 10
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Give the parser a chance to overrun the demand
+        Thread.sleep(50);
+        assertEquals(10, subscriber.triples.size());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(1000, subscriber.triples.size());
+    }
+
+    @Test
+    public void cancelStopsParsing() throws Exception {
+        TriplePublisher publisher = RDFParsers.publisher(factory, file,
+                RDFSyntax.NTRIPLES, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+        Thread.sleep(50);
+        assertTrue(subscriber.triples.size() <= 5);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void invalidRequestAndSecondSubscriberFail() throws Exception {
+        TriplePublisher publisher = RDFParsers.publisher(factory, file,
+                RDFSyntax.NTRIPLES, null);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void parseErrorsAreSignalled() throws Exception {
+        Files.write(file, "<http://example.com/s> <p> .\n"
+                .getBytes(StandardCharsets.UTF_8));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        RDFParsers.publisher(factory, file, RDFSyntax.NTRIPLES, null, Runnable::run)
+                .subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof RDFParseException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedSyntax() {
+        RDFParsers.publisher(factory, file, RDFSyntax.JSONLD, null);
+    }
+
+}
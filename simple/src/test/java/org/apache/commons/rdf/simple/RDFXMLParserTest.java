@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link RDFXMLParser}
+ */
+public class RDFXMLParserTest {
+
+    private static final String EX = "http://example.com/";
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String HEADER = "<rdf:RDF xmlns:rdf=\"" + RDF
+            + "\" xmlns:ex=\"" + EX + "\">\n";
+    private static final String FOOTER = "</rdf:RDF>\n";
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private Graph parse(String body) throws Exception {
+        return parse(HEADER + body + FOOTER, "http://example.com/doc");
+    }
+
+    private Graph parse(String xml, String base) throws Exception {
+        Graph graph = factory.createGraph();
+        try (RDFXMLParser parser = new RDFXMLParser(factory,
+                new StringReader(xml), base)) {
+            long count = parser.parse(graph::add);
+            assertEquals(graph.size(), count);
+        }
+        return graph;
+    }
+
+    private IRI ex(String local) {
+        return factory.createIRI(EX + local);
+    }
+
+    private IRI rdf(String local) {
+        return factory.createIRI(RDF + local);
+    }
+
+    private RDFTerm objectOf(Graph graph, BlankNodeOrIRI subject, IRI predicate) {
+        List<RDFTerm> objects = graph.getTriples(subject, predicate, null)
+                .map(Triple::getObject).collect(Collectors.toList());
+        assertEquals(1, objects.size());
+        return objects.get(0);
+    }
+
+    @Test
+    public void nodeAndPropertyElements() throws Exception {
+        Graph graph = parse("<ex:Person rdf:about=\"alice\" ex:name=\"Alice\">\n"
+                + "  <ex:knows>\n"
+                + "    <rdf:Description rdf:ID=\"bob\">\n"
+                + "      <ex:age rdf:datatype=\"http://www.w3.org/2001/XMLSchema#integer\">42</ex:age>\n"
+                + "    </rdf:Description>\n"
+                + "  </ex:knows>\n"
+                + "  <ex:homepage rdf:resource=\"/alice/\"/>\n"
+                + "  <ex:note xml:lang=\"en\">Hello</ex:note>\n"
+                + "  <ex:empty/>\n"
+                + "</ex:Person>\n");
+        IRI alice = ex("alice");
+        IRI bob = factory.createIRI(EX + "doc#bob");
+        assertEquals(7, graph.size());
+        assertTrue(graph.contains(alice, rdf("type"), ex("Person")));
+        assertEquals(factory.createLiteral("Alice"), objectOf(graph, alice, ex("name")));
+        assertTrue(graph.contains(alice, ex("knows"), bob));
+        assertEquals(factory.createLiteral("42", Types.XSD_INTEGER),
+                objectOf(graph, bob, ex("age")));
+        assertEquals(ex("alice/"), objectOf(graph, alice, ex("homepage")));
+        assertEquals(factory.createLiteral("Hello", "en"),
+                objectOf(graph, alice, ex("note")));
+        assertEquals(factory.createLiteral(""), objectOf(graph, alice, ex("empty")));
+    }
+
+    @Test
+    public void blankNodesAndPropertyAttributesOnEmptyElements() throws Exception {
+        Graph graph = parse("<rdf:Description rdf:nodeID=\"a\">\n"
+                + "  <ex:p rdf:nodeID=\"b\"/>\n"
+                + "  <ex:q ex:r=\"v\" rdf:type=\"http://example.com/T\"/>\n"
+                + "</rdf:Description>\n"
+                + "<rdf:Description rdf:nodeID=\"b\" ex:s=\"w\"/>\n");
+        assertEquals(5, graph.size());
+        BlankNode a = (BlankNode) graph.getTriples(null, ex("p"), null)
+                .findFirst().get().getSubject();
+        RDFTerm b = objectOf(graph, a, ex("p"));
+        assertEquals(factory.createLiteral("w"),
+                objectOf(graph, (BlankNodeOrIRI) b, ex("s")));
+        BlankNodeOrIRI q = (BlankNodeOrIRI) objectOf(graph, a, ex("q"));
+        assertTrue(q instanceof BlankNode);
+        assertEquals(factory.createLiteral("v"), objectOf(graph, q, ex("r")));
+        assertEquals(ex("T"), objectOf(graph, q, rdf("type")));
+    }
+
+    @Test
+    public void parseTypes() throws Exception {
+        Graph graph = parse("<rdf:Description rdf:about=\"s\">\n"
+                + "  <ex:res rdf:parseType=\"Resource\"><ex:x>1</ex:x></ex:res>\n"
+                + "  <ex:list rdf:parseType=\"Collection\">\n"
+                + "    <rdf:Description rdf:about=\"a\"/>\n"
+                + "    <rdf:Description rdf:about=\"b\"/>\n"
+                + "  </ex:list>\n"
+                + "  <ex:none rdf:parseType=\"Collection\"></ex:none>\n"
+                + "  <ex:xml rdf:parseType=\"Literal\"><b xmlns=\"http://www.w3.org/1999/xhtml\">bold &amp; <i>it</i></b></ex:xml>\n"
+                + "</rdf:Description>\n");
+        IRI s = ex("s");
+        BlankNodeOrIRI res = (BlankNodeOrIRI) objectOf(graph, s, ex("res"));
+        assertEquals(factory.createLiteral("1"), objectOf(graph, res, ex("x")));
+
+        BlankNodeOrIRI cell = (BlankNodeOrIRI) objectOf(graph, s, ex("list"));
+        assertEquals(ex("a"), objectOf(graph, cell, rdf("first")));
+        cell = (BlankNodeOrIRI) objectOf(graph, cell, rdf("rest"));
+        assertEquals(ex("b"), objectOf(graph, cell, rdf("first")));
+        assertEquals(rdf("nil"), objectOf(graph, cell, rdf("rest")));
+        assertEquals(rdf("nil"), objectOf(graph, s, ex("none")));
+
+        Literal xml = (Literal) objectOf(graph, s, ex("xml"));
+        assertEquals(rdf("XMLLiteral"), xml.getDatatype());
+        assertEquals("<b xmlns=\"http://www.w3.org/1999/xhtml\">bold &amp; <i>it</i></b>",
+                xml.getLexicalForm());
+    }
+
+    @Test
+    public void xmlLiteralDeclaresPrefixesInScope() throws Exception {
+        Graph graph = parse("<rdf:Description rdf:about=\"s\">\n"
+                + "  <ex:xml rdf:parseType=\"Literal\"><ex:b ex:a=\"1\"><ex:i>x</ex:i>"
+                + "<c xmlns:ex=\"http://example.org/other#\"><ex:d/></c></ex:b>"
+                + "<rdf:e xml:lang=\"en\"/></ex:xml>\n"
+                + "</rdf:Description>\n");
+        Literal xml = (Literal) objectOf(graph, ex("s"), ex("xml"));
+        assertEquals("<ex:b xmlns:ex=\"" + EX + "\" ex:a=\"1\"><ex:i>x</ex:i>"
+                + "<c xmlns:ex=\"http://example.org/other#\"><ex:d></ex:d></c></ex:b>"
+                + "<rdf:e xmlns:rdf=\"" + RDF + "\" xml:lang=\"en\"></rdf:e>",
+                xml.getLexicalForm());
+    }
+
+    @Test
+    public void containersReificationAndBase() throws Exception {
+        Graph graph = parse("<rdf:Bag rdf:about=\"bag\" xml:base=\"http://example.org/dir/\">\n"
+                + "  <rdf:li>one</rdf:li>\n"
+                + "  <rdf:li rdf:resource=\"two\"/>\n"
+                + "  <ex:p rdf:ID=\"stmt\">three</ex:p>\n"
+                + "</rdf:Bag>\n");
+        IRI bag = factory.createIRI("http://example.org/dir/bag");
+        assertTrue(graph.contains(bag, rdf("type"), rdf("Bag")));
+        assertEquals(factory.createLiteral("one"), objectOf(graph, bag, rdf("_1")));
+        assertEquals(factory.createIRI("http://example.org/dir/two"),
+                objectOf(graph, bag, rdf("_2")));
+        IRI stmt = factory.createIRI("http://example.org/dir/#stmt");
+        assertEquals(rdf("Statement"), objectOf(graph, stmt, rdf("type")));
+        assertEquals(bag, objectOf(graph, stmt, rdf("subject")));
+        assertEquals(ex("p"), objectOf(graph, stmt, rdf("predicate")));
+        assertEquals(factory.createLiteral("three"), objectOf(graph, stmt, rdf("object")));
+    }
+
+    @Test
+    public void inputStreamAndEntities() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!DOCTYPE rdf:RDF [ <!ENTITY ex \"" + EX + "\"> ]>\n"
+                + HEADER
+                + "<rdf:Description rdf:about=\"&ex;s\"><ex:p>café</ex:p></rdf:Description>\n"
+                + FOOTER;
+        Graph graph = factory.createGraph();
+        try (RDFXMLParser parser = new RDFXMLParser(factory,
+                new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)),
+                null)) {
+            parser.parse(graph::add);
+        }
+        assertEquals(factory.createLiteral("café"),
+                objectOf(graph, ex("s"), ex("p")));
+    }
+
+    @Test
+    public void errorsReportLocation() throws Exception {
+        try {
+            parse("<rdf:Description rdf:about=\"s\">\n"
+                    + "  text\n"
+                    + "</rdf:Description>\n");
+            fail("Expected RDFParseException");
+        } catch (RDFParseException ex) {
+            assertTrue(ex.getLineNumber() >= 2);
+        }
+        try {
+            parse(HEADER + "<rdf:Description>" + FOOTER, null);
+            fail("Expected RDFParseException");
+        } catch (RDFParseException ex) {
+            assertTrue(ex.getLineNumber() > 0);
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ReadMostlyGraph}
+ */
+public class ReadMostlyGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI p;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        p = factory.createIRI("http://example.com/p");
+    }
+
+    private Triple triple(int i) {
+        return factory.createTriple(
+                factory.createIRI("http://example.com/s" + i), p,
+                factory.createLiteral(Integer.toString(i)));
+    }
+
+    /**
+     * A graph whose first <code>contains</code> is interrupted by a change,
+     * and fails as a graph read during a change may.
+     */
+    private static final class InterruptedGraph implements Graph {
+
+        final Graph graph;
+        Runnable change;
+
+        InterruptedGraph(Graph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        public boolean contains(Triple triple) {
+            if (change != null) {
+                Runnable run = change;
+                change = null;
+                run.run();
+                throw new ConcurrentModificationException();
+            }
+            return graph.contains(triple);
+        }
+
+        @Override
+        public void add(Triple triple) {
+            graph.add(triple);
+        }
+
+        @Override
+        public void add(BlankNodeOrIRI subject, IRI predicate, RDFTerm object) {
+            graph.add(subject, predicate, object);
+        }
+
+        @Override
+        public void clear() {
+            graph.clear();
+        }
+
+        @Override
+        public boolean contains(BlankNodeOrIRI subject, IRI predicate,
+                RDFTerm object) {
+            return graph.contains(subject, predicate, object);
+        }
+
+        @Override
+        public void remove(Triple triple) {
+            graph.remove(triple);
+        }
+
+        @Override
+        public void remove(BlankNodeOrIRI subject, IRI predicate,
+                RDFTerm object) {
+            graph.remove(subject, predicate, object);
+        }
+
+        @Override
+        public long size() {
+            return graph.size();
+        }
+
+        @Override
+        public Stream<? extends Triple> getTriples() {
+            return graph.getTriples();
+        }
+
+        @Override
+        public Stream<? extends Triple> getTriples(BlankNodeOrIRI subject,
+                IRI predicate, RDFTerm object) {
+            return graph.getTriples(subject, predicate, object);
+        }
+    }
+
+    @Test
+    public void delegates() {
+        Graph graph = new ReadMostlyGraph(factory.createGraph());
+        for (int i = 0; i < 100; i++) {
+            graph.add(triple(i));
+        }
+        assertEquals(100, graph.size());
+        assertTrue(graph.contains(triple(5)));
+        assertTrue(graph.contains(null, p, factory.createLiteral("7")));
+        assertFalse(graph.contains(triple(100)));
+        assertEquals(1, graph.getTriples(triple(3).getSubject(), null, null)
+                .count());
+        graph.remove(null, null, factory.createLiteral("3"));
+        graph.remove(triple(4));
+        assertEquals(98, graph.size());
+        graph.clear();
+        assertEquals(0, graph.getTriples().count());
+    }
+
+    @Test
+    public void failedOptimisticReadIsRetried() throws Exception {
+        InterruptedGraph interrupted = new InterruptedGraph(
+                factory.createGraph());
+        ReadMostlyGraph graph = new ReadMostlyGraph(interrupted);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            interrupted.change = () -> {
+                try {
+                    writer.submit(() -> graph.add(triple(1))).get();
+                } catch (Exception ex) {
+                    throw new AssertionError(ex);
+                }
+            };
+            assertTrue(graph.contains(triple(1)));
+        } finally {
+            writer.shutdown();
+        }
+        // Without a concurrent change, the failure is the graph's own
+        interrupted.change = () -> {
+        };
+        try {
+            graph.contains(triple(1));
+            throw new AssertionError("Expected failure");
+        } catch (ConcurrentModificationException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void readersSeeCompletedWrites() throws Exception {
+        ReadMostlyGraph graph = new ReadMostlyGraph(factory.createGraph());
+        AtomicInteger added = new AtomicInteger();
+        int count = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    graph.add(triple(i));
+                    added.set(i + 1);
+                }
+            }));
+            for (int t = 0; t < 4; t++) {
+                tasks.add(executor.submit(() -> {
+                    while (added.get() < count) {
+                        int done = added.get();
+                        assertTrue(graph.size() >= done);
+                        if (done > 0) {
+                            assertTrue(graph.contains(triple(done - 1)));
+                        }
+                        assertFalse(graph.contains(triple(count)));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(count, graph.size());
+    }
+
+}
@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link RemoteGraph} and {@link GraphServer}
+ */
+public class RemoteGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI p;
+    private MetricsGraph served;
+    private GraphServer server;
+    private RemoteGraph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        factory = new SimpleRDFTermFactory();
+        p = factory.createIRI("http://example.com/p");
+        served = new MetricsGraph(new ReadMostlyGraph(factory.createGraph()));
+        server = new GraphServer(served, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0));
+        graph = RemoteGraph.connect(server.getAddress(), 100);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            graph.close();
+        } finally {
+            server.close();
+        }
+    }
+
+    private Triple triple(int i) {
+        RDFTerm object;
+        switch (i % 3) {
+        case 0:
+            object = factory.createLiteral(Integer.toString(i),
+                    Types.XSD_INTEGER);
+            break;
+        case 1:
+            object = factory.createLiteral("value " + i, "en");
+            break;
+        default:
+            object = factory.createIRI("http://example.com/o" + i);
+        }
+        return factory.createTriple(
+                factory.createIRI("http://example.com/s" + i), p, object);
+    }
+
+    private void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            graph.add(triple(i));
+        }
+    }
+
+    @Test
+    public void operations() {
+        fill(1050);
+        assertEquals(1050, graph.size());
+        assertEquals(1050, served.size());
+        assertTrue(graph.contains(triple(7)));
+        assertTrue(graph.contains(null, null, triple(8).getObject()));
+        assertFalse(graph.contains(triple(2000)));
+
+        BlankNode b = factory.createBlankNode();
+        graph.add(b, p, b);
+        BlankNodeOrIRI received = graph.getTriples(null, null, b).findFirst()
+                .get().getSubject();
+        assertEquals(b, received);
+        assertTrue(graph.contains(received, p, received));
+
+        graph.remove(triple(7));
+        graph.remove(null, null, b);
+        assertFalse(graph.contains(triple(7)));
+        assertEquals(1049, graph.size());
+
+        Set<Triple> triples = graph.getTriples(null, p, null)
+                .collect(Collectors.toSet());
+        assertEquals(1049, triples.size());
+        assertTrue(triples.contains(triple(1049)));
+
+        graph.clear();
+        graph.flush();
+        assertEquals(0, served.size());
+        assertEquals(0, graph.getTriples().count());
+    }
+
+    @Test
+    public void scansAreFlowControlled() throws Exception {
+        int chunks = 20;
+        fill(chunks * GraphServer.CHUNK_SIZE);
+        graph.flush();
+        try (Stream<Triple> triples = graph.getTriples()) {
+            Iterator<Triple> it = triples.iterator();
+            it.next();
+            Thread.sleep(100);
+            // The chunks in flight, and one the server waits to send
+            long read = served.getSnapshot().getTriplesReturned();
+            assertTrue(read + " triples read",
+                    read <= (RemoteGraph.INITIAL_CREDIT + 2)
+                            * GraphServer.CHUNK_SIZE);
+
+            // Other requests are not held up by the scan
+            assertEquals(chunks * GraphServer.CHUNK_SIZE, graph.size());
+            assertEquals(GraphServer.CHUNK_SIZE,
+                    graph.getTriples().limit(GraphServer.CHUNK_SIZE).count());
+        }
+        assertEquals(chunks * GraphServer.CHUNK_SIZE, graph.getTriples()
+                .count());
+    }
+
+    @Test
+    public void failedChangeIsReportedByNextRead() throws Exception {
+        Path dir = Files.createTempDirectory("remote");
+        DurableGraph closed = DurableGraph.open(dir);
+        closed.close();
+        try (GraphServer failing = new GraphServer(closed,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                RemoteGraph client = RemoteGraph.connect(failing.getAddress())) {
+            client.add(triple(1));
+            try {
+                client.size();
+                fail("Expected the failed add");
+            } catch (IllegalStateException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().contains(
+                        "Graph is closed"));
+            }
+            // Reported once
+            assertEquals(0, client.size());
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void invalidTermIsRejectedByServer() {
+        IRI invalid = new IRI() {
+            @Override
+            public String getIRIString() {
+                return "not an IRI";
+            }
+
+            @Override
+            public String ntriplesString() {
+                return "<not an IRI>";
+            }
+        };
+        graph.add(invalid, p, invalid);
+        try {
+            graph.size();
+            fail("Expected the failed add");
+        } catch (IllegalStateException ex) {
+            // Expected
+        }
+        // The connection is still usable
+        assertEquals(0, graph.size());
+        assertEquals(0, served.size());
+    }
+
+    @Test
+    public void stringLongerThanFrameDropsConnection() throws Exception {
+        BinaryOutput body = new BinaryOutput(16);
+        body.writeVarint(1);
+        body.writeByte(GraphServer.OP_ADD);
+        body.writeVarint(1);
+        body.writeByte(BinaryRDFWriter.KIND_IRI);
+        body.writeVarint(1500000000);
+        try (Socket socket = new Socket(server.getAddress().getAddress(),
+                server.getAddress().getPort())) {
+            socket.setSoTimeout(10000);
+            DataOutputStream out = new DataOutputStream(
+                    socket.getOutputStream());
+            out.write(GraphServer.MAGIC);
+            out.write(GraphServer.VERSION);
+            out.writeInt(body.size());
+            out.write(body.buffer(), 0, body.size());
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void lostConnectionFailsRequests() throws Exception {
+        fill(10);
+        graph.flush();
+        server.close();
+        try {
+            graph.size();
+            fail("Expected a failure");
+        } catch (UncheckedIOException ex) {
+            // Expected
+        }
+        try {
+            graph.add(triple(11));
+            fail("Expected a failure");
+        } catch (UncheckedIOException ex) {
+            // Expected
+        }
+    }
+
+}
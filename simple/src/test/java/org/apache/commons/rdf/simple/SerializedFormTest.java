@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link SerializedForm}
+ */
+public class SerializedFormTest {
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private static byte[] serialize(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes))) {
+            return (T) in.readObject();
+        }
+    }
+
+    private static <T> T roundTrip(T object) throws Exception {
+        return deserialize(serialize(object));
+    }
+
+    @Test
+    public void terms() throws Exception {
+        IRI iri = factory.createIRI("http://example.com/s");
+        assertEquals(iri, roundTrip(iri));
+        BlankNode blankNode = factory.createBlankNode("b");
+        assertEquals(blankNode, roundTrip(blankNode));
+        Literal lang = factory.createLiteral("chat", "fr");
+        assertEquals(lang, roundTrip(lang));
+        Literal typed = factory.createLiteral("1", factory.createIRI(
+                "http://example.com/type"));
+        assertEquals(typed, roundTrip(typed));
+        Literal plain = factory.createLiteral("x");
+        assertEquals(plain, roundTrip(plain));
+
+        // Known datatypes come back as the shared constants
+        Literal integer = roundTrip(factory.createLiteral("42",
+                Types.XSD_INTEGER));
+        assertSame(Types.XSD_INTEGER, integer.getDatatype());
+        assertSame(Types.XSD_STRING, roundTrip(Types.XSD_STRING));
+    }
+
+    @Test
+    public void triple() throws Exception {
+        IRI s = factory.createIRI("http://example.com/s");
+        Triple triple = factory.createTriple(s, s, factory.createLiteral(
+                "value", "en"));
+        assertEquals(triple, roundTrip(triple));
+    }
+
+    @Test
+    public void graphIsCompact() throws Exception {
+        Graph graph = factory.createGraph();
+        BlankNode b = factory.createBlankNode();
+        IRI p = factory.createIRI("http://example.com/vocabulary#property");
+        StringBuilder ntriples = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            IRI s = factory.createIRI("http://example.com/resource/" + (i % 1000));
+            graph.add(s, p, factory.createLiteral(Integer.toString(i % 500),
+                    Types.XSD_INTEGER));
+            graph.add(s, p, b);
+        }
+        for (Triple triple : graph.getTriples().toArray(Triple[]::new)) {
+            ntriples.append(triple).append('\n');
+        }
+
+        byte[] bytes = serialize(graph);
+        int ntriplesSize = ntriples.toString().getBytes(
+                StandardCharsets.UTF_8).length;
+        assertTrue(bytes.length + " >= " + ntriplesSize / 4,
+                bytes.length < ntriplesSize / 4);
+
+        Graph restored = deserialize(bytes);
+        assertEquals(graph.size(), restored.size());
+        Set<Triple> expected = new HashSet<>();
+        graph.getTriples().forEach(expected::add);
+        restored.getTriples().forEach(t -> assertTrue(expected.contains(t)));
+        assertTrue(restored.contains(null, null, b));
+    }
+
+    @Test
+    public void factoryKeepsBlankNodeScope() throws Exception {
+        SimpleRDFTermFactory restored = roundTrip(factory);
+        assertEquals(factory.createBlankNode("x"), restored.createBlankNode("x"));
+        Graph graph = roundTrip(factory.createGraph());
+        assertEquals(0, graph.size());
+        graph.add(factory.createTriple(factory.createBlankNode("y"),
+                factory.createIRI("http://example.com/p"),
+                factory.createLiteral("z")));
+        assertEquals(1, graph.size());
+    }
+
+    /**
+     * Read a proxy from the data written by <code>writer</code>, as
+     * <code>readExternal</code> would be called for a forged stream.
+     */
+    private static Object readForged(ForgedWriter writer) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            writer.write(out);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            SerializedForm form = new SerializedForm();
+            form.readExternal(in);
+            return form;
+        }
+    }
+
+    private interface ForgedWriter {
+        void write(ObjectOutputStream out) throws IOException;
+    }
+
+    @Test(expected = IOException.class)
+    public void forgedChunkLength() throws Exception {
+        readForged(out -> {
+            out.writeByte(1);
+            out.writeByte(0);
+            out.writeInt(Integer.MAX_VALUE);
+            out.write(new byte[16]);
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void forgedStringLength() throws Exception {
+        readForged(out -> {
+            out.writeByte(1);
+            out.writeByte(0);
+            BinaryOutput chunk = new BinaryOutput(16);
+            chunk.writeVarint(0);
+            chunk.writeByte(BinaryRDFWriter.KIND_IRI);
+            chunk.writeVarint(Integer.MAX_VALUE);
+            out.writeInt(chunk.size());
+            out.write(chunk.buffer(), 0, chunk.size());
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void forgedIRI() throws Exception {
+        readForgedTerm(chunk -> {
+            chunk.writeByte(BinaryRDFWriter.KIND_IRI);
+            chunk.writeString("http://example.com/s> <http://example.com/p");
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void forgedBlankNodeReference() throws Exception {
+        readForgedTerm(chunk -> {
+            chunk.writeByte(BinaryRDFWriter.KIND_BLANK_NODE);
+            chunk.writeString("b1 <http://example.com/p> _:b2 .\n_:b3");
+        });
+    }
+
+    @Test(expected = IOException.class)
+    public void forgedLangStringWithoutTag() throws Exception {
+        readForgedTerm(chunk -> {
+            chunk.writeByte(BinaryRDFWriter.KIND_TYPED_LITERAL);
+            chunk.writeVarint(0);
+            chunk.writeByte(BinaryRDFWriter.KIND_IRI);
+            chunk.writeString(Types.RDF_LANGSTRING.getIRIString());
+            chunk.writeVarint(0);
+            chunk.writeString("x");
+        });
+    }
+
+    @Test
+    public void forgedLanguageTagIsNormalized() throws Exception {
+        SerializedForm form = (SerializedForm) readForgedTerm(chunk -> {
+            chunk.writeByte(BinaryRDFWriter.KIND_LANG_STRING);
+            chunk.writeVarint(0);
+            chunk.writeString("x");
+            chunk.writeVarint(0);
+            chunk.writeString("EN-GB");
+        });
+        Method readResolve = SerializedForm.class
+                .getDeclaredMethod("readResolve");
+        readResolve.setAccessible(true);
+        Literal literal = (Literal) readResolve.invoke(form);
+        assertEquals(factory.createLiteral("x", "en-gb"), literal);
+        assertEquals(factory.createLiteral("x", "en-gb").hashCode(),
+                literal.hashCode());
+    }
+
+    private interface ForgedTerm {
+        void write(BinaryOutput chunk);
+    }
+
+    /**
+     * Read a proxy of a single new term, whose kind and parts are written by
+     * <code>term</code>.
+     */
+    private static Object readForgedTerm(ForgedTerm term) throws Exception {
+        return readForged(out -> {
+            out.writeByte(1);
+            out.writeByte(0);
+            BinaryOutput chunk = new BinaryOutput(64);
+            chunk.writeVarint(0);
+            term.write(chunk);
+            out.writeInt(chunk.size());
+            out.write(chunk.buffer(), 0, chunk.size());
+        });
+    }
+
+    @Test
+    public void forgedGraphSize() throws Exception {
+        SerializedForm form = (SerializedForm) readForged(out -> {
+            out.writeByte(1);
+            out.writeByte(2);
+            out.writeObject(new SimpleRDFTermFactory());
+            out.writeLong(Long.MAX_VALUE);
+            out.writeInt(0);
+        });
+        Method readResolve = SerializedForm.class
+                .getDeclaredMethod("readResolve");
+        readResolve.setAccessible(true);
+        Graph graph = (Graph) readResolve.invoke(form);
+        IRI iri = factory.createIRI("http://example.com/s");
+        graph.add(iri, iri, iri);
+        assertEquals(1, graph.size());
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link ShardedGraph}
+ */
+public class ShardedGraphTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI p;
+    private IRI q;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        p = factory.createIRI("http://example.com/p");
+        q = factory.createIRI("http://example.com/q");
+    }
+
+    private IRI subject(int i) {
+        return factory.createIRI("http://example.com/s" + i);
+    }
+
+    private static Set<Triple> triples(Graph graph, IRI subject, IRI predicate) {
+        return graph.getTriples(subject, predicate, null)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void matchesLikeSingleGraph() {
+        ShardedGraph sharded = new ShardedGraph(factory, 8, 1000);
+        Graph single = factory.createGraph();
+        for (int i = 0; i < 1000; i++) {
+            for (Graph graph : new Graph[] { sharded, single }) {
+                graph.add(subject(i), p, factory.createLiteral("v" + i));
+                graph.add(subject(i), q, subject(i / 2));
+            }
+        }
+        assertEquals(2000, sharded.size());
+        for (long size : sharded.getShardSizes()) {
+            assertTrue(size > 0);
+        }
+        assertEquals(triples(single, null, null), triples(sharded, null, null));
+        assertEquals(triples(single, null, q), triples(sharded, null, q));
+        assertEquals(triples(single, subject(7), null),
+                triples(sharded, subject(7), null));
+        assertTrue(sharded.contains(null, q, subject(3)));
+        assertTrue(sharded.contains(subject(3), p, null));
+        assertFalse(sharded.contains(subject(3), p, subject(3)));
+        assertEquals(((FootprintAware) single).getFootprint().getTripleBytes(),
+                sharded.getFootprint().getTripleBytes());
+
+        sharded.remove(null, p, null);
+        assertEquals(1000, sharded.size());
+        sharded.remove(subject(1), null, null);
+        assertEquals(999, sharded.size());
+        sharded.clear();
+        assertEquals(0, sharded.size());
+        assertEquals(0, sharded.getTriples().count());
+    }
+
+    @Test
+    public void foreignBlankNodesRouteTogether() {
+        ShardedGraph sharded = new ShardedGraph(factory, 16, 0);
+        SimpleRDFTermFactory other = new SimpleRDFTermFactory();
+        BlankNode b = other.createBlankNode("b");
+        for (int i = 0; i < 100; i++) {
+            sharded.add(b, p, factory.createLiteral(Integer.toString(i)));
+        }
+        assertEquals(100, sharded.size());
+        long occupied = 0;
+        for (long size : sharded.getShardSizes()) {
+            occupied += size > 0 ? 1 : 0;
+        }
+        assertEquals(1, occupied);
+        assertEquals(100, sharded.getTriples(other.createBlankNode("b"), p, null)
+                .count());
+    }
+
+    @Test
+    public void concurrentWritersAndReaders() throws Exception {
+        ShardedGraph sharded = new ShardedGraph(factory, 8, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t * 10000;
+                tasks.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 10000; i++) {
+                        sharded.add(subject(i), p, subject(i + 1));
+                    }
+                }));
+                tasks.add(executor.submit(() -> {
+                    Set<Triple> seen = new HashSet<>();
+                    for (int i = 0; i < 20; i++) {
+                        seen.addAll(triples(sharded, null, p));
+                        sharded.contains(null, p, subject(offset));
+                        if (i % 5 == 0) {
+                            sharded.remove(null, q, null);
+                        }
+                    }
+                    return seen.size();
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(40000, sharded.size());
+        assertEquals(40000, sharded.getTriples(null, p, null).count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidShardCount() {
+        new ShardedGraph(factory, 0, 0);
+    }
+
+}
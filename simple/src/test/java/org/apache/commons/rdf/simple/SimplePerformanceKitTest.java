@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.rdf.api.PerformanceKit;
+import org.apache.commons.rdf.api.PerformanceKit.Report;
+import org.apache.commons.rdf.api.PerformanceKit.Result;
+import org.apache.commons.rdf.api.PerformanceKit.Workload;
+import org.junit.Test;
+
+/**
+ * Test {@link PerformanceKit} with the discovered
+ * {@link SimpleRDFTermFactory}, on a small graph.
+ */
+public class SimplePerformanceKitTest {
+
+    @Test
+    public void runsAllWorkloads() {
+        List<Report> reports = new PerformanceKit(1000, 2000, 4, 2).run();
+        assertEquals(1, reports.size());
+        Report report = reports.get(0);
+        assertEquals(SimpleRDFTermFactory.class.getName(), report.getFactory());
+        assertEquals(Workload.values().length, report.getResults().size());
+        for (Result result : report.getResults().values()) {
+            assertTrue(result.toString(), result.getOperationsPerSecond() > 0);
+        }
+        assertEquals(1000, report.getResult(Workload.BULK_LOAD).getResultCount());
+        // Half of the looked up triples are in the graph
+        assertEquals(1000,
+                report.getResult(Workload.POINT_LOOKUPS).getResultCount());
+
+        String table = PerformanceKit.compare(reports);
+        assertTrue(table, table.contains("SimpleRDFTermFactory"));
+        assertTrue(table, table.contains("CONCURRENT_READERS"));
+    }
+
+    @Test
+    public void sameDataForEveryFactory() {
+        PerformanceKit kit = new PerformanceKit(500, 500, 2, 1);
+        Report first = kit.run(new SimpleRDFTermFactory());
+        Report second = kit.run(new SimpleRDFTermFactory());
+        for (Workload workload : Workload.values()) {
+            assertEquals(first.getResult(workload).getResultCount(),
+                    second.getResult(workload).getResultCount());
+        }
+        assertTrue(PerformanceKit.compare(Arrays.asList(first,
+                second)).indexOf('*') < 0);
+    }
+
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link SyntheticGraphGenerator}
+ */
+public class SyntheticGraphGeneratorTest {
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    @Test
+    public void sameSeedSameTriples() {
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(
+                factory, 42);
+        List<Triple> first = generator.triples(5000)
+                .collect(Collectors.toList());
+        assertEquals(5000, first.size());
+        assertEquals(first, generator.triples(5000)
+                .collect(Collectors.toList()));
+        assertEquals(first, new SyntheticGraphGenerator(factory, 42)
+                .triples(5000).collect(Collectors.toList()));
+        assertNotEquals(first, new SyntheticGraphGenerator(factory, 43)
+                .triples(5000).collect(Collectors.toList()));
+        assertEquals(5000, generator.triples(5000).spliterator()
+                .getExactSizeIfKnown());
+    }
+
+    @Test
+    public void skewedPredicatesAndObjects() {
+        Graph graph = factory.createGraph();
+        assertEquals(50000, new SyntheticGraphGenerator(factory, 1)
+                .addTo(50000, graph));
+        Map<IRI, Long> predicates = new HashMap<>();
+        Map<Object, Long> links = new HashMap<>();
+        graph.getTriples().sequential().forEach(t -> {
+            predicates.merge(t.getPredicate(), 1L, Long::sum);
+            if (t.getObject() instanceof IRI && t.getObject().ntriplesString()
+                    .contains("/resource/")) {
+                links.merge(t.getObject(), 1L, Long::sum);
+            }
+        });
+        List<Long> counts = predicates.values().stream()
+                .sorted((a, b) -> Long.compare(b, a))
+                .collect(Collectors.toList());
+        // rdf:type, then the head of the Zipf distribution
+        assertTrue(counts.toString(),
+                counts.get(1) > 10 * counts.get(counts.size() / 2));
+        long hub = links.values().stream().mapToLong(Long::longValue).max()
+                .getAsLong();
+        assertTrue("Hub with " + hub + " links", hub > 100);
+    }
+
+    @Test
+    public void literalsAndBlankNodeTrees() {
+        Set<IRI> datatypes = new HashSet<>();
+        Set<String> languages = new HashSet<>();
+        Set<BlankNode> objects = new HashSet<>();
+        Set<BlankNode> subjects = new HashSet<>();
+        Set<BlankNode> nested = new HashSet<>();
+        Map<IRI, Set<String>> kinds = new HashMap<>();
+        new SyntheticGraphGenerator(factory, 7).triples(100000).forEach(t -> {
+            kinds.computeIfAbsent(t.getPredicate(), p -> new HashSet<>())
+                    .add(kind(t.getObject()));
+            if (t.getObject() instanceof Literal) {
+                Literal literal = (Literal) t.getObject();
+                datatypes.add(literal.getDatatype());
+                literal.getLanguageTag().ifPresent(languages::add);
+            } else if (t.getObject() instanceof BlankNode) {
+                objects.add((BlankNode) t.getObject());
+            }
+            if (t.getSubject() instanceof BlankNode) {
+                subjects.add((BlankNode) t.getSubject());
+                if (t.getObject() instanceof BlankNode) {
+                    nested.add((BlankNode) t.getObject());
+                }
+            }
+        });
+        assertEquals(Types.values(), datatypes);
+        assertEquals(10, languages.size());
+        assertTrue(objects.size() > 100);
+        // Every blank node has children, and some are nested
+        assertEquals(objects, subjects);
+        assertTrue(nested.size() > 10);
+        // Also within trees
+        kinds.forEach((predicate, objectKinds) -> assertEquals(
+                predicate + " " + objectKinds, 1, objectKinds.size()));
+    }
+
+    private static String kind(RDFTerm object) {
+        if (object instanceof Literal) {
+            return ((Literal) object).getLanguageTag().isPresent() ? "text"
+                    : "typed";
+        }
+        return object instanceof BlankNode ? "tree" : "link";
+    }
+
+    @Test
+    public void streamsToWriter() throws Exception {
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(
+                factory, 3, 20, 1.5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NTriplesWriter writer = new NTriplesWriter(out)) {
+            assertEquals(20000, writer.write(generator.triples(20000)));
+        }
+        Graph parsed = factory.createGraph();
+        try (NTriplesParser parser = new NTriplesParser(factory,
+                new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(20000, parser.parse(parsed::add));
+        }
+        assertEquals(21, parsed.getTriples().map(Triple::getPredicate)
+                .distinct().count());
+    }
+
+    @Test
+    public void zipfSampler() {
+        ZipfSampler sampler = new ZipfSampler(1000000000L, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        long[] firstRanks = new long[3];
+        for (int i = 0; i < 100000; i++) {
+            long k = sampler.sample(random);
+            assertTrue(k >= 1 && k <= 1000000000L);
+            if (k <= 3) {
+                firstRanks[(int) k - 1]++;
+            }
+        }
+        // Rank 1 is twice as likely as rank 2, three times as rank 3
+        assertEquals(2.0, (double) firstRanks[0] / firstRanks[1], 0.2);
+        assertEquals(3.0, (double) firstRanks[0] / firstRanks[2], 0.3);
+    }
+
+}
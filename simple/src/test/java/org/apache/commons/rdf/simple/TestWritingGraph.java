@@ -19,10 +19,12 @@ package org.apache.commons.rdf.simple;
 
 import static org.junit.Assert.assertEquals;
 
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -127,6 +129,21 @@ public class TestWritingGraph {
         Files.write(graphFile, stream::iterator, StandardCharsets.UTF_8);
     }
 
+    @Test
+    public void writeGraphWithNTriplesWriter() throws Exception {
+        Path graphFile = Files.createTempFile("graph-writer-", ".nt");
+        if (KEEP_FILES) {
+            System.out.println("NTriplesWriter: " + graphFile);
+        } else {
+            graphFile.toFile().deleteOnExit();
+        }
+
+        try (NTriplesWriter writer = new NTriplesWriter(FileChannel.open(
+                graphFile, StandardOpenOption.WRITE))) {
+            assertEquals(TRIPLES, writer.write(graph));
+        }
+    }
+
     @Test
     public void writeGraphFromStreamFiltered() throws Exception {
         Path graphFile = Files.createTempFile("graph", ".nt");
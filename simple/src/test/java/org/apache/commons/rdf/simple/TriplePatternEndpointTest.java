@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test {@link TriplePatternEndpoint}
+ */
+public class TriplePatternEndpointTest {
+
+    private SimpleRDFTermFactory factory;
+    private IRI p;
+    private IRI q;
+    private BlankNode b;
+    private Graph graph;
+    private ExecutorService executor;
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        factory = new SimpleRDFTermFactory();
+        p = factory.createIRI("http://example.com/p");
+        q = factory.createIRI("http://example.com/q");
+        b = factory.createBlankNode();
+        graph = new ReadMostlyGraph(factory.createGraph());
+        for (int i = 0; i < 10000; i++) {
+            graph.add(factory.createIRI("http://example.com/s" + i), p,
+                    factory.createLiteral("value " + i, "en"));
+        }
+        graph.add(b, q, factory.createLiteral("chat", "fr"));
+        executor = Executors.newCachedThreadPool();
+        server = start(graph);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private HttpServer start(Graph served) throws IOException {
+        return TriplePatternEndpoint.start(served, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), "/triples", executor);
+    }
+
+    private HttpURLConnection get(HttpServer target, String query,
+            String accept) throws IOException {
+        URL url = new URL("http://localhost:" + target.getAddress().getPort()
+                + "/triples?" + query);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (accept != null) {
+            connection.setRequestProperty("Accept", accept);
+        }
+        return connection;
+    }
+
+    private static String param(String name, String value) throws IOException {
+        return name + "=" + URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            bytes.write(buffer, 0, n);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void ntriples() throws Exception {
+        HttpURLConnection connection = get(server, param("p", p.ntriplesString()),
+                null);
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/n-triples; charset=utf-8",
+                connection.getContentType());
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        List<Triple> triples = new ArrayList<>();
+        try (NTriplesParser parser = new NTriplesParser(factory,
+                connection.getInputStream())) {
+            parser.parse(triples::add);
+        }
+        assertEquals(10000, triples.size());
+
+        connection = get(server, param("s", "<http://example.com/s42>") + "&"
+                + param("o", "\"value 42\"@en"), "text/turtle;q=0.9, */*;q=0.1");
+        String body = new String(read(connection.getInputStream()),
+                StandardCharsets.UTF_8);
+        assertEquals("<http://example.com/s42> <http://example.com/p> "
+                + "\"value 42\"@en .\n", body);
+    }
+
+    @Test
+    public void binaryAndBlankNodes() throws Exception {
+        HttpURLConnection connection = get(server, param("p", q.ntriplesString()),
+                "application/n-triples;q=0.5, "
+                        + TriplePatternEndpoint.BINARY_MEDIA_TYPE);
+        assertEquals(TriplePatternEndpoint.BINARY_MEDIA_TYPE,
+                connection.getContentType());
+        Triple triple;
+        try (BinaryRDFReader reader = new BinaryRDFReader(factory,
+                connection.getInputStream())) {
+            triple = reader.next();
+        }
+        assertEquals(factory.createLiteral("chat", "fr"), triple.getObject());
+
+        // Blank nodes are matched by their label in responses
+        connection = get(server, param("s", b.ntriplesString()), null);
+        String body = new String(read(connection.getInputStream()),
+                StandardCharsets.UTF_8);
+        assertTrue(body, body.startsWith(b.ntriplesString()));
+    }
+
+    @Test
+    public void errors() throws Exception {
+        assertEquals(406, get(server, "", "text/turtle").getResponseCode());
+        assertEquals(400, get(server, param("s", "\"literal\""), null)
+                .getResponseCode());
+        assertEquals(400, get(server, param("p", "<http://example.com/p> x"),
+                null).getResponseCode());
+        HttpURLConnection post = get(server, "", null);
+        post.setRequestMethod("POST");
+        assertEquals(405, post.getResponseCode());
+        assertEquals("GET, HEAD", post.getHeaderField("Allow"));
+    }
+
+    @Test
+    public void failureTruncatesResponse() throws Exception {
+        Graph failing = (Graph) Proxy.newProxyInstance(
+                Graph.class.getClassLoader(), new Class<?>[] { Graph.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getTriples")) {
+                        // Fail after more than a buffer of triples
+                        AtomicInteger count = new AtomicInteger();
+                        return graph.getTriples().sequential().map(t -> {
+                            if (count.incrementAndGet() > 4000) {
+                                throw new IllegalStateException("Failed");
+                            }
+                            return t;
+                        });
+                    }
+                    try {
+                        return method.invoke(graph, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+        HttpServer failingServer = start(failing);
+        try {
+            HttpURLConnection connection = get(failingServer, "", null);
+            assertEquals(200, connection.getResponseCode());
+            try {
+                read(connection.getInputStream());
+                fail("Expected a truncated response");
+            } catch (IOException ex) {
+                // Expected
+            }
+        } finally {
+            failingServer.stop(0);
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.BlankNodeOrIRI;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.Literal;
+import org.apache.commons.rdf.api.RDFTerm;
+import org.apache.commons.rdf.api.Triple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link TurtleParser}
+ */
+public class TurtleParserTest {
+
+    private static final String EX = "http://example.com/";
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private Graph parse(String turtle) throws Exception {
+        return parse(turtle, null);
+    }
+
+    private Graph parse(String turtle, String base) throws Exception {
+        Graph graph = factory.createGraph();
+        try (TurtleParser parser = new TurtleParser(factory,
+                new StringReader(turtle), base)) {
+            parser.parse(graph::add);
+        }
+        return graph;
+    }
+
+    private IRI ex(String local) {
+        return factory.createIRI(EX + local);
+    }
+
+    private RDFTerm objectOf(Graph graph, BlankNodeOrIRI subject, IRI predicate) {
+        List<RDFTerm> objects = graph.getTriples(subject, predicate, null)
+                .map(Triple::getObject).collect(Collectors.toList());
+        assertEquals(1, objects.size());
+        return objects.get(0);
+    }
+
+    @Test
+    public void prefixesAndPredicateObjectLists() throws Exception {
+        Graph graph = parse("@prefix ex: <http://example.com/> .\n"
+                + "PREFIX foaf: <http://xmlns.com/foaf/0.1/>\n"
+                + "ex:alice a foaf:Person ;\n"
+                + "    foaf:name \"Alice\"@en, 'Alicia'@es ;\n"
+                + "    foaf:knows ex:bob ;\n"
+                + "    .\n"
+                + "ex:bob foaf:knows ex:alice.\n");
+        assertEquals(5, graph.size());
+        assertTrue(graph.contains(ex("alice"), factory.createIRI(RDF + "type"),
+                factory.createIRI("http://xmlns.com/foaf/0.1/Person")));
+        assertTrue(graph.contains(ex("alice"),
+                factory.createIRI("http://xmlns.com/foaf/0.1/name"),
+                factory.createLiteral("Alicia", "es")));
+        assertTrue(graph.contains(ex("bob"), null, ex("alice")));
+    }
+
+    @Test
+    public void literals() throws Exception {
+        Graph graph = parse("@prefix ex: <http://example.com/> .\n"
+                + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+                + "ex:s ex:int 42 ; ex:neg -5 ; ex:dec 3.14 ; ex:dbl 1.0e6 ;\n"
+                + "  ex:t true ; ex:f false ; ex:typed \"7\"^^xsd:byte ;\n"
+                + "  ex:long \"\"\"multi\n\"line\" \"\"string\"\"\" ;\n"
+                + "  ex:esc \"tab\\t\\u00E6\" ; ex:empty \"\" .\n");
+        assertEquals(factory.createLiteral("42", Types.XSD_INTEGER), objectOf(graph, ex("s"), ex("int")));
+        assertEquals(factory.createLiteral("-5", Types.XSD_INTEGER), objectOf(graph, ex("s"), ex("neg")));
+        assertEquals(factory.createLiteral("3.14", Types.XSD_DECIMAL), objectOf(graph, ex("s"), ex("dec")));
+        assertEquals(factory.createLiteral("1.0e6", Types.XSD_DOUBLE), objectOf(graph, ex("s"), ex("dbl")));
+        assertEquals(factory.createLiteral("true", Types.XSD_BOOLEAN), objectOf(graph, ex("s"), ex("t")));
+        assertEquals(factory.createLiteral("false", Types.XSD_BOOLEAN), objectOf(graph, ex("s"), ex("f")));
+        assertEquals(factory.createLiteral("7", Types.XSD_BYTE), objectOf(graph, ex("s"), ex("typed")));
+        assertEquals("multi\n\"line\" \"\"string",
+                ((Literal) objectOf(graph, ex("s"), ex("long"))).getLexicalForm());
+        assertEquals("tab\tæ", ((Literal) objectOf(graph, ex("s"), ex("esc"))).getLexicalForm());
+        assertEquals("", ((Literal) objectOf(graph, ex("s"), ex("empty"))).getLexicalForm());
+    }
+
+    @Test
+    public void nestedBlankNodePropertyLists() throws Exception {
+        Graph graph = parse("@prefix ex: <http://example.com/> .\n"
+                + "ex:s ex:p [ ex:q [ ex:r \"deep\" ] ; ex:q2 [] ] .\n"
+                + "[ ex:name \"anon subject\" ] ex:p ex:o .\n"
+                + "_:b1 ex:p _:b1 .\n");
+        assertEquals(7, graph.size());
+        BlankNode outer = (BlankNode) objectOf(graph, ex("s"), ex("p"));
+        BlankNode inner = (BlankNode) objectOf(graph, outer, ex("q"));
+        assertEquals(factory.createLiteral("deep"), objectOf(graph, inner, ex("r")));
+        BlankNodeOrIRI anon = graph.getTriples(null, ex("p"), ex("o"))
+                .findAny().get().getSubject();
+        assertTrue(graph.contains(anon, ex("name"), factory.createLiteral("anon subject")));
+        Triple self = graph.getTriples(null, null, null)
+                .filter(t -> t.getSubject().equals(t.getObject())).findAny().get();
+        assertTrue(self.getSubject() instanceof BlankNode);
+    }
+
+    @Test
+    public void collections() throws Exception {
+        Graph graph = parse("@prefix ex: <http://example.com/> .\n"
+                + "ex:s ex:list ( 1 ex:two ( \"three\" ) ) ; ex:empty () .\n"
+                + "( ex:a ) ex:p ex:o .\n");
+        IRI first = factory.createIRI(RDF + "first");
+        IRI rest = factory.createIRI(RDF + "rest");
+        IRI nil = factory.createIRI(RDF + "nil");
+        assertEquals(nil, objectOf(graph, ex("s"), ex("empty")));
+
+        BlankNodeOrIRI node = (BlankNodeOrIRI) objectOf(graph, ex("s"), ex("list"));
+        assertEquals(factory.createLiteral("1", Types.XSD_INTEGER), objectOf(graph, node, first));
+        node = (BlankNodeOrIRI) objectOf(graph, node, rest);
+        assertEquals(ex("two"), objectOf(graph, node, first));
+        node = (BlankNodeOrIRI) objectOf(graph, node, rest);
+        BlankNodeOrIRI nested = (BlankNodeOrIRI) objectOf(graph, node, first);
+        assertEquals(factory.createLiteral("three"), objectOf(graph, nested, first));
+        assertEquals(nil, objectOf(graph, nested, rest));
+        assertEquals(nil, objectOf(graph, node, rest));
+
+        BlankNodeOrIRI subjectList = graph.getTriples(null, ex("p"), ex("o"))
+                .findAny().get().getSubject();
+        assertEquals(ex("a"), objectOf(graph, subjectList, first));
+    }
+
+    @Test
+    public void relativeIRIs() throws Exception {
+        Graph graph = parse("<a> <#p> <../c> .\n"
+                + "@base <http://other.example/dir/> .\n"
+                + "<> <p> <x/y> .\n"
+                + "BASE <http://third.example>\n"
+                + "<a> <b> <c> .\n", "http://example.com/base/doc#frag");
+        assertTrue(graph.contains(factory.createIRI("http://example.com/base/a"),
+                factory.createIRI("http://example.com/base/doc#p"),
+                factory.createIRI("http://example.com/c")));
+        assertTrue(graph.contains(factory.createIRI("http://other.example/dir/"),
+                factory.createIRI("http://other.example/dir/p"),
+                factory.createIRI("http://other.example/dir/x/y")));
+        assertTrue(graph.contains(factory.createIRI("http://third.example/a"),
+                null, null));
+    }
+
+    @Test
+    public void localNames() throws Exception {
+        Graph graph = parse("@prefix : <http://example.com/> .\n"
+                + ":a.b :p\\-q :c:d .\n"
+                + ":1 :p :x%20y.\n");
+        assertTrue(graph.contains(ex("a.b"), ex("p-q"), ex("c:d")));
+        assertTrue(graph.contains(ex("1"), ex("p"), ex("x%20y")));
+    }
+
+    @Test
+    public void syntaxErrors() throws Exception {
+        assertError("<http://example.com/s> <http://example.com/p> \"o\"", 1);
+        assertError("\nex:s ex:p ex:o .", 2);
+        assertError("@prefix ex: <http://example.com/> .\nex:s ex:p \"unterminated .\n", 2);
+        assertError("<http://example.com/s> \"p\" <http://example.com/o> .", 1);
+        assertError("<http://example.com/s> <http://example.com/p> [ .", 1);
+        assertError("\n@base <http://[invalid/> .\n<s> <p> <o> .", 2);
+    }
+
+    private void assertError(String turtle, long line) throws Exception {
+        try {
+            parse(turtle);
+            fail("Expected RDFParseException for: " + turtle);
+        } catch (RDFParseException ex) {
+            assertEquals(line, ex.getLineNumber());
+        }
+    }
+
+    @Test
+    public void streamsLargeInput() throws Exception {
+        // Larger than the internal buffer, checking tokens split across reads
+        StringBuilder sb = new StringBuilder("@prefix ex: <http://example.com/> .\n");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("ex:s").append(i).append(" ex:p \"\"\"value ").append(i)
+                    .append("\"\"\", ").append(i).append(".5 .\n");
+        }
+        long[] count = new long[1];
+        try (TurtleParser parser = new TurtleParser(factory,
+                new StringReader(sb.toString()), null)) {
+            assertEquals(10000, parser.parse(t -> count[0]++));
+        }
+        assertEquals(10000, count[0]);
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.rdf.api.BlankNode;
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link TurtleWriter}
+ */
+public class TurtleWriterTest {
+
+    private static final String EX = "http://example.com/";
+
+    private SimpleRDFTermFactory factory;
+    private Map<String, String> prefixes;
+
+    @Before
+    public void setUp() {
+        factory = new SimpleRDFTermFactory();
+        prefixes = new LinkedHashMap<>();
+        prefixes.put("ex", EX);
+        prefixes.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+        prefixes.put("xsd", "http://www.w3.org/2001/XMLSchema#");
+    }
+
+    private IRI ex(String local) {
+        return factory.createIRI(EX + local);
+    }
+
+    private String write(Graph graph, int windowSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TurtleWriter writer = new TurtleWriter(Channels.newChannel(out),
+                prefixes, windowSize)) {
+            assertEquals(graph.size(), writer.write(graph));
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private Graph parse(String turtle) throws Exception {
+        Graph graph = factory.createGraph();
+        try (TurtleParser parser = new TurtleParser(factory,
+                new StringReader(turtle), null)) {
+            parser.parse(graph::add);
+        }
+        return graph;
+    }
+
+    @Test
+    public void groupsBySubjectAndPredicate() throws Exception {
+        Graph graph = factory.createGraph();
+        graph.add(ex("alice"), factory.createIRI(
+                "http://www.w3.org/1999/02/22-rdf-syntax-ns#type"), ex("Person"));
+        graph.add(ex("alice"), ex("knows"), ex("bob"));
+        graph.add(ex("alice"), ex("knows"), ex("carol"));
+        graph.add(ex("alice"), ex("name"), factory.createLiteral("Alice", "en"));
+        String turtle = write(graph, TurtleWriter.DEFAULT_WINDOW_SIZE);
+
+        assertTrue(turtle.startsWith("@prefix ex: <http://example.com/> .\n"));
+        // The subject and the repeated predicate are written once each
+        assertEquals(turtle.indexOf("ex:alice "), turtle.lastIndexOf("ex:alice"));
+        assertEquals(turtle.indexOf("ex:knows "), turtle.lastIndexOf("ex:knows"));
+        assertTrue(turtle.contains(" a ex:Person"));
+        assertTrue(turtle.contains("\"Alice\"@en"));
+        assertFalse(turtle.substring(turtle.indexOf("\n\n")).contains("<http://example.com/"));
+
+        Graph parsed = parse(turtle);
+        assertEquals(4, parsed.size());
+        graph.getTriples().forEach(t -> assertTrue(parsed.contains(t)));
+    }
+
+    @Test
+    public void literals() throws Exception {
+        Graph graph = factory.createGraph();
+        graph.add(ex("s"), ex("int"), factory.createLiteral("-42", Types.XSD_INTEGER));
+        graph.add(ex("s"), ex("dec"), factory.createLiteral("3.14", Types.XSD_DECIMAL));
+        graph.add(ex("s"), ex("bool"), factory.createLiteral("true", Types.XSD_BOOLEAN));
+        graph.add(ex("s"), ex("notInt"), factory.createLiteral("4x", Types.XSD_INTEGER));
+        graph.add(ex("s"), ex("byte"), factory.createLiteral("7", Types.XSD_BYTE));
+        graph.add(ex("s"), ex("other"), factory.createLiteral("x",
+                factory.createIRI("http://other.example/type")));
+        graph.add(ex("s"), ex("escaped"), factory.createLiteral("line\n\"quoted\" æ"));
+        String turtle = write(graph, TurtleWriter.DEFAULT_WINDOW_SIZE);
+
+        assertTrue(turtle.contains("ex:int -42"));
+        assertTrue(turtle.contains("ex:dec 3.14"));
+        assertTrue(turtle.contains("ex:bool true"));
+        assertTrue(turtle.contains("\"4x\"^^xsd:integer"));
+        assertTrue(turtle.contains("\"7\"^^xsd:byte"));
+        assertTrue(turtle.contains("\"x\"^^<http://other.example/type>"));
+
+        Graph parsed = parse(turtle);
+        assertEquals(graph.size(), parsed.size());
+        graph.getTriples().forEach(t -> assertTrue(parsed.contains(t)));
+    }
+
+    @Test
+    public void unsafeLocalNamesAreWrittenInFull() throws Exception {
+        Graph graph = factory.createGraph();
+        graph.add(ex("a.b"), ex("p"), ex("-dash"));
+        graph.add(ex("x/y"), ex("p"), ex(""));
+        String turtle = write(graph, TurtleWriter.DEFAULT_WINDOW_SIZE);
+
+        assertTrue(turtle.contains("<http://example.com/a.b>"));
+        assertTrue(turtle.contains("<http://example.com/-dash>"));
+        assertTrue(turtle.contains("<http://example.com/x/y>"));
+        assertTrue(turtle.contains("ex: ."));
+
+        Graph parsed = parse(turtle);
+        graph.getTriples().forEach(t -> assertTrue(parsed.contains(t)));
+    }
+
+    @Test
+    public void smallWindowStillRoundTrips() throws Exception {
+        Graph graph = factory.createGraph();
+        BlankNode b = factory.createBlankNode();
+        for (int i = 0; i < 2000; i++) {
+            graph.add(ex("s" + (i % 50)), ex("p" + (i % 7)),
+                    factory.createLiteral(Integer.toString(i), Types.XSD_INTEGER));
+            graph.add(b, ex("p"), ex("o" + i));
+        }
+        String turtle = write(graph, 16);
+
+        Graph parsed = parse(turtle);
+        assertEquals(graph.size(), parsed.size());
+        assertEquals(2000, parsed.getTriples(null, ex("p"), null).count());
+        // Blank node identity is preserved within the document
+        assertEquals(1, parsed.getTriples(null, ex("p"), null)
+                .map(t -> t.getSubject()).distinct().count());
+    }
+
+    @Test
+    public void emptyGraphWritesPrefixes() throws Exception {
+        String turtle = write(factory.createGraph(), TurtleWriter.DEFAULT_WINDOW_SIZE);
+        assertTrue(turtle.contains("@prefix xsd: <http://www.w3.org/2001/XMLSchema#> ."));
+        assertEquals(0, parse(turtle).size());
+    }
+
+    @Test
+    public void namespaceIsEscapedNotChecked() throws Exception {
+        prefixes.put("sp", "http://example.com/a b#");
+        String turtle = write(factory.createGraph(), TurtleWriter.DEFAULT_WINDOW_SIZE);
+        assertTrue(turtle.contains("@prefix sp: <http://example.com/a\\u0020b#> ."));
+        assertTrue(turtle.contains("@prefix xsd: "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrefixName() throws Exception {
+        prefixes.put("1ex", EX);
+        new TurtleWriter(new ByteArrayOutputStream(), prefixes);
+    }
+
+}
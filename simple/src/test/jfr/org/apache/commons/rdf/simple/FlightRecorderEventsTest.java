@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.rdf.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.commons.rdf.api.Graph;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDFSyntax;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test {@link FlightRecorderEvents}
+ */
+public class FlightRecorderEventsTest {
+
+    private static final String PREFIX = "org.apache.commons.rdf.";
+
+    private SimpleRDFTermFactory factory;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(FlightRecorder.isAvailable());
+        factory = new SimpleRDFTermFactory();
+    }
+
+    private static List<RecordedEvent> events(Recording recording,
+            String name) throws Exception {
+        Path file = Files.createTempFile("events", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName()
+                            .equals(PREFIX + name))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static Recording start(String... names) {
+        Recording recording = new Recording();
+        for (String name : names) {
+            recording.enable(PREFIX + name).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+        return recording;
+    }
+
+    @Test
+    public void patternQueries() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI p = factory.createIRI("http://example.com/p");
+        for (int i = 0; i < 50; i++) {
+            graph.add(factory.createIRI("http://example.com/s" + (i % 5)), p,
+                    factory.createLiteral("o" + i));
+        }
+        try (Recording recording = start("PatternQuery")) {
+            assertEquals(10, graph.getTriples(
+                    factory.createIRI("http://example.com/s1"), null, null)
+                    .count());
+            assertEquals(50, graph.getTriples(null, p, null).count());
+            // Not a query of the graph's user
+            assertTrue(graph.contains(null, p, null));
+            recording.stop();
+            List<RecordedEvent> events = events(recording, "PatternQuery");
+            assertEquals(2, events.size());
+            RecordedEvent bySubject = events.stream()
+                    .filter(e -> "S??".equals(e.getString("pattern")))
+                    .findFirst().get();
+            assertEquals(10, bySubject.getLong("resultCount"));
+            RecordedEvent byPredicate = events.stream()
+                    .filter(e -> "?P?".equals(e.getString("pattern")))
+                    .findFirst().get();
+            assertEquals(50, byPredicate.getLong("resultCount"));
+        }
+    }
+
+    @Test
+    public void shortCircuitedQueriesAreCalls() throws Exception {
+        Graph graph = factory.createGraph();
+        IRI p = factory.createIRI("http://example.com/p");
+        for (int i = 0; i < 10; i++) {
+            graph.add(factory.createIRI("http://example.com/s" + i), p,
+                    factory.createLiteral("o" + i));
+        }
+        try (Recording recording = start("PatternQueryCall",
+                "PatternQuery")) {
+            assertTrue(graph.getTriples(null, p, null).findFirst()
+                    .isPresent());
+            assertEquals(10, graph.getTriples(null, p, null).count());
+            recording.stop();
+            List<RecordedEvent> calls = events(recording, "PatternQueryCall");
+            assertEquals(2, calls.size());
+            assertEquals("?P?", calls.get(0).getString("pattern"));
+            assertEquals(1, events(recording, "PatternQuery").size());
+        }
+    }
+
+    @Test
+    public void parseSerializeAndCacheMisses() throws Exception {
+        String nt = "<http://example.com/s> <http://example.com/p> _:b .\n"
+                + "<http://example.com/s> <http://example.com/p> _:c .\n";
+        Path file = Files.createTempFile("events", ".nt");
+        try (Recording recording = start("Parse", "Serialize",
+                "TermCacheMiss")) {
+            Files.write(file, nt.getBytes(StandardCharsets.UTF_8));
+            Graph graph = factory.createGraph();
+            RDFParsers.parse(factory, file, RDFSyntax.NTRIPLES, null,
+                    graph::add);
+            try (NTriplesWriter writer = new NTriplesWriter(
+                    new ByteArrayOutputStream())) {
+                writer.write(graph);
+            }
+            recording.stop();
+
+            RecordedEvent parse = events(recording, "Parse").get(0);
+            assertEquals("NTRIPLES", parse.getString("syntax"));
+            assertEquals(2, parse.getLong("tripleCount"));
+            RecordedEvent serialize = events(recording, "Serialize").get(0);
+            assertEquals("NTRIPLES", serialize.getString("syntax"));
+            assertEquals(2, serialize.getLong("tripleCount"));
+            // Two distinct IRIs and two distinct blank nodes
+            List<RecordedEvent> misses = events(recording, "TermCacheMiss");
+            assertEquals(4, misses.size());
+            assertEquals(2, misses.stream()
+                    .filter(e -> "IRI".equals(e.getString("termKind")))
+                    .count());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void noEventsWhenDisabled() throws Exception {
+        try (Recording recording = start("Parse")) {
+            new NTriplesParser(factory, new ByteArrayInputStream(
+                    "<http://example.com/s> <http://example.com/p> \"o\" .\n"
+                            .getBytes(StandardCharsets.UTF_8)))
+                    .parse(t -> {
+                    });
+            recording.stop();
+            assertTrue(events(recording, "TermCacheMiss").isEmpty());
+            // Only RDFParsers records parses
+            assertTrue(events(recording, "Parse").isEmpty());
+        }
+    }
+
+    @Test
+    public void failedWriteEndsEvent() throws Exception {
+        IRI s = factory.createIRI("http://example.com/s");
+        try (Recording recording = start("Serialize")) {
+            try (NTriplesWriter writer = new NTriplesWriter(
+                    new ByteArrayOutputStream())) {
+                writer.write(Stream.of(factory.createTriple(s, s, s), null)
+                        .map(t -> {
+                            if (t == null) {
+                                throw new IllegalStateException("Failed");
+                            }
+                            return t;
+                        }));
+                fail("Expected the failure");
+            } catch (IllegalStateException ex) {
+                // Expected
+            }
+            recording.stop();
+            List<RecordedEvent> events = events(recording, "Serialize");
+            assertEquals(1, events.size());
+            assertEquals(1, events.get(0).getLong("tripleCount"));
+        }
+    }
+
+}